@@ -0,0 +1,87 @@
+package com.jantatham.pvector.bench;
+
+import com.jantatham.pvector.FastMath;
+import com.jantatham.pvector.PVector;
+import com.jantatham.pvector.PVectorBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The AngleBenchmark Class compares per-object heading, angleBetween and
+ * fromAngle loops with the batch PVectorBuffer forms, and with the FastMath
+ * approximation of heading.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class AngleBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private PVector[] a;
+    private PVector[] b;
+    private PVectorBuffer bufferA;
+    private PVectorBuffer bufferB;
+    private double[] angles;
+    private double[] out;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        a = new PVector[size];
+        b = new PVector[size];
+        angles = new double[size];
+        for(int i = 0; i < size; i++) {
+            a[i] = new PVector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+            b[i] = new PVector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+            angles[i] = random.nextDouble() * 2 * Math.PI;
+        }
+        bufferA = PVectorBuffer.fromArray(a);
+        bufferB = PVectorBuffer.fromArray(b);
+        out = new double[size];
+    }
+
+    @Benchmark
+    public double[] headingObjects() {
+        for(int i = 0; i < size; i++) out[i] = a[i].heading();
+        return out;
+    }
+
+    @Benchmark
+    public double[] headingBuffer() {
+        return bufferA.heading(out);
+    }
+
+    @Benchmark
+    public double[] headingFast() {
+        return FastMath.heading(bufferA, 0, size, out);
+    }
+
+    @Benchmark
+    public double[] angleBetweenObjects() {
+        for(int i = 0; i < size; i++) out[i] = PVector.angleBetween(a[i], b[i]);
+        return out;
+    }
+
+    @Benchmark
+    public double[] angleBetweenBuffer() {
+        return bufferA.angleBetween(bufferB, out);
+    }
+
+    @Benchmark
+    public PVector[] fromAngleObjects() {
+        for(int i = 0; i < size; i++) PVector.fromAngle(angles[i], a[i]);
+        return a;
+    }
+
+    @Benchmark
+    public PVectorBuffer fromAngleBuffer() {
+        return PVectorBuffer.fromAngle(angles, bufferA);
+    }
+}
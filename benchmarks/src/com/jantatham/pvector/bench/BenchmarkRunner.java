@@ -0,0 +1,28 @@
+package com.jantatham.pvector.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The BenchmarkRunner Class runs the benchmarks with the GC profiler so that
+ * every result also reports the allocation rate.
+ *
+ * The first argument is an optional regular expression selecting the
+ * benchmarks to run, e.g. "PVectorBenchmark.dist" or "BufferBenchmark".
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "com.jantatham.pvector.bench.*";
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,120 @@
+package com.jantatham.pvector.bench;
+
+import com.jantatham.pvector.PVector;
+import com.jantatham.pvector.PVectorBuffer;
+import com.jantatham.pvector.PVectorFBuffer;
+import com.jantatham.pvector.VectorKernels;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The BufferBenchmark Class compares looping over PVector objects with the
+ * bulk PVectorBuffer methods and the VectorKernels engines on the same data,
+ * with PVectorFBuffer as the single precision reference.
+ * Run with --add-modules jdk.incubator.vector and the simd module on the
+ * class path to measure the SIMD engine.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class BufferBenchmark {
+
+    @Param({"1", "100", "10000", "1000000", "10000000"})
+    public int size;
+
+    private PVector[] a;
+    private PVector[] b;
+    private PVectorBuffer bufferA;
+    private PVectorBuffer bufferB;
+    private PVectorFBuffer floatBufferA;
+    private PVectorFBuffer floatBufferB;
+    private double[] out;
+    private VectorKernels scalar;
+    private VectorKernels preferred;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        a = new PVector[size];
+        b = new PVector[size];
+        for(int i = 0; i < size; i++) {
+            a[i] = new PVector(random.nextDouble(), random.nextDouble(), random.nextDouble());
+            b[i] = new PVector(random.nextDouble(), random.nextDouble(), random.nextDouble());
+        }
+        bufferA = PVectorBuffer.fromArray(a);
+        bufferB = PVectorBuffer.fromArray(b);
+        floatBufferA = PVectorFBuffer.from(bufferA);
+        floatBufferB = PVectorFBuffer.from(bufferB);
+        out = new double[size];
+        scalar = VectorKernels.scalar();
+        preferred = VectorKernels.get();
+    }
+
+    @Benchmark
+    public PVector[] addObjects() {
+        for(int i = 0; i < size; i++) a[i].add(b[i]);
+        return a;
+    }
+
+    @Benchmark
+    public PVectorBuffer addBuffer() {
+        return bufferA.add(bufferB);
+    }
+
+    @Benchmark
+    public PVectorFBuffer addFloatBuffer() {
+        return floatBufferA.add(floatBufferB);
+    }
+
+    @Benchmark
+    public PVectorBuffer addScalarKernels() {
+        return scalar.add(bufferA, bufferB, bufferA);
+    }
+
+    @Benchmark
+    public PVectorBuffer addPreferredKernels() {
+        return preferred.add(bufferA, bufferB, bufferA);
+    }
+
+    @Benchmark
+    public PVector[] normalizeObjects() {
+        for(PVector v : a) v.normalize();
+        return a;
+    }
+
+    @Benchmark
+    public PVectorBuffer normalizeBuffer() {
+        return bufferA.normalize();
+    }
+
+    @Benchmark
+    public PVectorFBuffer normalizeFloatBuffer() {
+        return floatBufferA.normalize();
+    }
+
+    @Benchmark
+    public PVectorBuffer normalizeScalarKernels() {
+        return scalar.normalize(bufferA);
+    }
+
+    @Benchmark
+    public PVectorBuffer normalizePreferredKernels() {
+        return preferred.normalize(bufferA);
+    }
+
+    @Benchmark
+    public double[] dotObjects() {
+        for(int i = 0; i < size; i++) out[i] = a[i].dot(b[i]);
+        return out;
+    }
+
+    @Benchmark
+    public double[] dotPreferredKernels() {
+        return preferred.dot(bufferA, bufferB, out);
+    }
+}
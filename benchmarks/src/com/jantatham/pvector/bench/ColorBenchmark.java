@@ -0,0 +1,90 @@
+package com.jantatham.pvector.bench;
+
+import com.jantatham.pvector.color.ColorGradient;
+import com.jantatham.pvector.color.Colors;
+import com.jantatham.pvector.color.ColorsFX;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ColorBenchmark Class measures the color helpers over a batch of
+ * packed colors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ColorBenchmark {
+
+    @Param({"1", "100", "10000", "1000000", "10000000"})
+    public int size;
+
+    private int[] colors;
+    private int[] targets;
+    private int[] out;
+    private double[] amounts;
+    private Color c1;
+    private Color c2;
+    private ColorGradient gradient;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        colors = new int[size];
+        amounts = new double[size];
+        targets = new int[size];
+        out = new int[size];
+        for(int i = 0; i < size; i++) {
+            colors[i] = random.nextInt();
+            amounts[i] = random.nextDouble();
+            targets[i] = random.nextInt();
+        }
+        c1 = Color.rgb(10, 20, 30, 1.0);
+        c2 = Color.rgb(200, 100, 50, 0.5);
+        gradient = new ColorGradient(0xFF0A141E, 0x80C86432, 1024);
+    }
+
+    @Benchmark
+    public void colorIntegerToRGBA(Blackhole bh) {
+        for(int c : colors) bh.consume(Colors.colorIntegerToRGBA(c));
+    }
+
+    @Benchmark
+    public void lerpColorRGBFX(Blackhole bh) {
+        for(double amount : amounts) bh.consume(ColorsFX.lerpColorRGBFX(c1, c2, amount));
+    }
+
+    @Benchmark
+    public int[] colorIntegerToRGBATarget() {
+        int[] rgba = out;
+        int[] target = new int[4];
+        for(int i = 0; i < size; i++) rgba[i] = Colors.colorIntegerToRGBA(colors[i], target)[0];
+        return rgba;
+    }
+
+    @Benchmark
+    public void lerpColorPacked(Blackhole bh) {
+        for(double amount : amounts) bh.consume(Colors.lerpColor(0xFF0A141E, 0x80C86432, amount));
+    }
+
+    @Benchmark
+    public int[] lerpColorBuffer() {
+        return Colors.lerpColor(colors, targets, 0.3, out, 0, size);
+    }
+
+    @Benchmark
+    public int[] gradientMap() {
+        return gradient.map(amounts, out, 0, size);
+    }
+
+    @Benchmark
+    public int[] gradientFill() {
+        return gradient.fill(out, 0, size);
+    }
+}
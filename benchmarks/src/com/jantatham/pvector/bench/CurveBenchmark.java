@@ -0,0 +1,78 @@
+package com.jantatham.pvector.bench;
+
+import com.jantatham.pvector.CubicCurve;
+import com.jantatham.pvector.PVector;
+import com.jantatham.pvector.PVectorBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CurveBenchmark Class compares sampling a Catmull-Rom curve point
+ * by point, evenly in u, through a BasisTable and evenly by arc length, and
+ * times closest point queries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class CurveBenchmark {
+
+    @Param({"16", "256"})
+    public int points;
+
+    private static final int SAMPLES = 32;
+
+    private CubicCurve curve;
+    private CubicCurve.BasisTable table;
+    private PVectorBuffer buffer;
+    private PVector point;
+    private PVector query;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        PVector[] control = new PVector[points];
+        for(int i = 0; i < points; i++) {
+            control[i] = new PVector(i, random.nextGaussian(), random.nextGaussian());
+        }
+        curve = new CubicCurve(CubicCurve.Basis.CATMULL_ROM, control);
+        table = new CubicCurve.BasisTable(CubicCurve.Basis.CATMULL_ROM, SAMPLES);
+        buffer = new PVectorBuffer(curve.segments() * SAMPLES + 1);
+        point = new PVector();
+        query = new PVector(points / 2.0, 0.5, -0.5);
+        curve.length();
+    }
+
+    @Benchmark
+    public PVectorBuffer samplePointwise() {
+        int count = buffer.size();
+        for(int i = 0; i < count; i++) {
+            buffer.set(i, curve.point((double) i / (count - 1), point));
+        }
+        return buffer;
+    }
+
+    @Benchmark
+    public PVectorBuffer sample() {
+        return curve.sample(buffer.size(), buffer);
+    }
+
+    @Benchmark
+    public PVectorBuffer sampleTable() {
+        return curve.sample(table, buffer);
+    }
+
+    @Benchmark
+    public PVectorBuffer sampleEvenly() {
+        return curve.sampleEvenly(buffer.size(), buffer);
+    }
+
+    @Benchmark
+    public PVector closestPoint() {
+        return curve.closestPoint(query, point);
+    }
+}
@@ -0,0 +1,74 @@
+package com.jantatham.pvector.bench;
+
+import com.jantatham.pvector.PVector;
+import com.jantatham.pvector.PVectorBuffer;
+import com.jantatham.pvector.VectorExpression;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ExpressionBenchmark Class compares the seek steering chain
+ * sub(target, pos).normalize().mult(speed).sub(vel).limit(force) written as
+ * PVector objects, as one PVectorBuffer pass per step, and as a fused
+ * VectorExpression.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class ExpressionBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private PVector target;
+    private PVector[] positions;
+    private PVector[] velocities;
+    private PVector[] forces;
+    private PVectorBuffer positionBuffer;
+    private PVectorBuffer velocityBuffer;
+    private PVectorBuffer forceBuffer;
+    private VectorExpression seek;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        target = new PVector(0.5, 0.5, 0.5);
+        positions = new PVector[size];
+        velocities = new PVector[size];
+        forces = new PVector[size];
+        for(int i = 0; i < size; i++) {
+            positions[i] = new PVector(random.nextDouble(), random.nextDouble(), random.nextDouble());
+            velocities[i] = new PVector(random.nextDouble(), random.nextDouble(), random.nextDouble());
+            forces[i] = new PVector();
+        }
+        positionBuffer = PVectorBuffer.fromArray(positions);
+        velocityBuffer = PVectorBuffer.fromArray(velocities);
+        forceBuffer = new PVectorBuffer(size);
+        seek = VectorExpression.of(target).sub(positionBuffer).normalize().mult(4)
+                .sub(velocityBuffer).limit(0.1);
+    }
+
+    @Benchmark
+    public PVector[] seekObjects() {
+        for(int i = 0; i < size; i++) {
+            PVector.sub(target, positions[i], forces[i]).normalize().mult(4).sub(velocities[i]).limit(0.1);
+        }
+        return forces;
+    }
+
+    @Benchmark
+    public PVectorBuffer seekBufferPasses() {
+        forceBuffer.set(positionBuffer, 0, size);
+        return forceBuffer.mult(-1).add(target).normalize().mult(4).sub(velocityBuffer).limit(0.1);
+    }
+
+    @Benchmark
+    public PVectorBuffer seekFused() {
+        return seek.evaluate(forceBuffer);
+    }
+}
@@ -0,0 +1,75 @@
+package com.jantatham.pvector.bench;
+
+import com.jantatham.pvector.FastMath;
+import com.jantatham.pvector.PVector;
+import com.jantatham.pvector.PVectorBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The FastMathBenchmark Class compares the exact PVector and PVectorBuffer
+ * methods with their FastMath approximations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class FastMathBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private PVector[] a;
+    private PVector[] b;
+    private PVectorBuffer buffer;
+    private double[] out;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        a = new PVector[size];
+        b = new PVector[size];
+        for(int i = 0; i < size; i++) {
+            a[i] = new PVector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+            b[i] = new PVector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+        }
+        buffer = PVectorBuffer.fromArray(a);
+        out = new double[size];
+    }
+
+    @Benchmark
+    public void angleBetweenExact(Blackhole bh) {
+        for(int i = 0; i < size; i++) bh.consume(PVector.angleBetween(a[i], b[i]));
+    }
+
+    @Benchmark
+    public void angleBetweenFast(Blackhole bh) {
+        for(int i = 0; i < size; i++) bh.consume(FastMath.angleBetween(a[i], b[i]));
+    }
+
+    @Benchmark
+    public double[] headingExact() {
+        for(int i = 0; i < size; i++) out[i] = Math.atan2(buffer.y[i], buffer.x[i]);
+        return out;
+    }
+
+    @Benchmark
+    public double[] headingFast() {
+        return FastMath.heading(buffer, 0, size, out);
+    }
+
+    @Benchmark
+    public PVectorBuffer setMagExact() {
+        return buffer.setMag(2);
+    }
+
+    @Benchmark
+    public PVectorBuffer setMagFast() {
+        return FastMath.setMag(buffer, 0, size, 2);
+    }
+}
@@ -0,0 +1,61 @@
+package com.jantatham.pvector.bench;
+
+import com.jantatham.pvector.Flock;
+import com.jantatham.pvector.ParallelVectorOps;
+import com.jantatham.pvector.ParticleSystem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The FlockBenchmark Class measures one flocking frame, steering followed by
+ * a ParticleSystem step, at a density of about 50 boids per perception
+ * circle. 60 Hz needs a frame under 16.6 ms. The boids start spread out
+ * again for every iteration, since a flock that keeps stepping clusters and
+ * its frames grow slower.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class FlockBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private ParticleSystem system;
+    private Flock flock;
+    private ParallelVectorOps ops;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        flock = new Flock(25, size);
+        ops = new ParallelVectorOps();
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        Random random = new Random(42);
+        double side = Math.sqrt(size) * 6.3;
+        system = new ParticleSystem(size, ParticleSystem.Integrator.SEMI_IMPLICIT_EULER);
+        system.setMaxSpeed(4);
+        for(int i = 0; i < size; i++) {
+            system.spawn(random.nextDouble() * side, random.nextDouble() * side, 0,
+                    random.nextDouble() - 0.5, random.nextDouble() - 0.5, 0, 1, Double.POSITIVE_INFINITY);
+        }
+    }
+
+    @Benchmark
+    public ParticleSystem frameSequential() {
+        return flock.steer(system).step(1);
+    }
+
+    @Benchmark
+    public ParticleSystem frameParallel() {
+        flock.steer(system.positions(), system.velocities(), system.size(), system.accelerations(), ops);
+        return system.step(1);
+    }
+}
@@ -0,0 +1,355 @@
+package com.jantatham.pvector.bench;
+
+import com.jantatham.pvector.PVector;
+import com.jantatham.pvector.PVectorArena;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The PVectorBenchmark Class measures every public PVector method over a
+ * batch of vectors. Methods that can allocate are measured twice: the
+ * "Alloc" form passes no target and the "Target" form reuses one. The add
+ * "Arena" form passes no target inside one PVectorArena frame per batch,
+ * so after the first batch it reuses the arena's vectors.
+ *
+ * Each invocation walks the whole batch, so the reported time is per batch
+ * and the GC profiler's gc.alloc.rate.norm is bytes per batch. limit,
+ * normalize and setMag change their input so that a second pass does no
+ * work; they first set each target vector from the batch, so their time
+ * includes the copy that the set benchmark measures alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class PVectorBenchmark {
+
+    @Param({"1", "100", "10000", "1000000", "10000000"})
+    public int size;
+
+    private PVector[] a;
+    private PVector[] b;
+    private PVector[] target;
+    private double[] angles;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        a = new PVector[size];
+        b = new PVector[size];
+        target = new PVector[size];
+        angles = new double[size];
+        for(int i = 0; i < size; i++) {
+            a[i] = new PVector(random.nextDouble(), random.nextDouble(), random.nextDouble());
+            b[i] = new PVector(random.nextDouble(), random.nextDouble(), random.nextDouble());
+            target[i] = new PVector();
+            angles[i] = random.nextDouble() * 2 * Math.PI;
+        }
+    }
+
+    @Benchmark
+    public PVector[] addXY() {
+        for(PVector v : a) v.add(0.5, -0.5);
+        return a;
+    }
+
+    @Benchmark
+    public PVector[] addXYZ() {
+        for(PVector v : a) v.add(0.5, -0.5, 0.25);
+        return a;
+    }
+
+    @Benchmark
+    public PVector[] addVector() {
+        for(int i = 0; i < size; i++) a[i].add(b[i]);
+        return a;
+    }
+
+    @Benchmark
+    public void addStaticAlloc(Blackhole bh) {
+        for(int i = 0; i < size; i++) bh.consume(PVector.add(a[i], b[i]));
+    }
+
+    @Benchmark
+    public void addStaticArena(Blackhole bh) {
+        try(PVectorArena.Frame frame = PVectorArena.begin()) {
+            for(int i = 0; i < size; i++) bh.consume(PVector.add(a[i], b[i]));
+            bh.consume(frame.arena().used());
+        }
+    }
+
+    @Benchmark
+    public PVector[] addStaticTarget() {
+        for(int i = 0; i < size; i++) PVector.add(a[i], b[i], target[i]);
+        return target;
+    }
+
+    @Benchmark
+    public void angleBetween(Blackhole bh) {
+        for(int i = 0; i < size; i++) bh.consume(PVector.angleBetween(a[i], b[i]));
+    }
+
+    @Benchmark
+    public void copy(Blackhole bh) {
+        for(PVector v : a) bh.consume(v.copy());
+    }
+
+    @Benchmark
+    public void distCoordinates(Blackhole bh) {
+        PVector p = a[0];
+        for(int i = 0; i < size; i++) bh.consume(p.dist(a[i].x, a[i].y, b[i].x, b[i].y));
+    }
+
+    @Benchmark
+    public void distVector(Blackhole bh) {
+        for(int i = 0; i < size; i++) bh.consume(a[i].dist(b[i]));
+    }
+
+    @Benchmark
+    public void distSqVector(Blackhole bh) {
+        for(int i = 0; i < size; i++) bh.consume(a[i].distSq(b[i]));
+    }
+
+    @Benchmark
+    public void distSqTwoVectors(Blackhole bh) {
+        PVector p = a[0];
+        for(int i = 0; i < size; i++) bh.consume(p.distSq(a[i], b[i]));
+    }
+
+    @Benchmark
+    public void distTwoVectors(Blackhole bh) {
+        PVector p = a[0];
+        for(int i = 0; i < size; i++) bh.consume(p.dist(a[i], b[i]));
+    }
+
+    @Benchmark
+    public PVector[] div() {
+        for(PVector v : a) v.div(-1);
+        return a;
+    }
+
+    @Benchmark
+    public void divStaticAlloc(Blackhole bh) {
+        for(PVector v : a) bh.consume(PVector.div(v, 3));
+    }
+
+    @Benchmark
+    public PVector[] divStaticTarget() {
+        for(int i = 0; i < size; i++) PVector.div(a[i], 3, target[i]);
+        return target;
+    }
+
+    @Benchmark
+    public void dotVector(Blackhole bh) {
+        for(int i = 0; i < size; i++) bh.consume(a[i].dot(b[i]));
+    }
+
+    @Benchmark
+    public void dotXYZ(Blackhole bh) {
+        for(int i = 0; i < size; i++) bh.consume(a[i].dot(b[i].x, b[i].y, b[i].z));
+    }
+
+    @Benchmark
+    public void fromAngleAlloc(Blackhole bh) {
+        for(double angle : angles) bh.consume(PVector.fromAngle(angle));
+    }
+
+    @Benchmark
+    public PVector[] fromAngleTarget() {
+        for(int i = 0; i < size; i++) PVector.fromAngle(angles[i], target[i]);
+        return target;
+    }
+
+    @Benchmark
+    public void heading(Blackhole bh) {
+        for(PVector v : a) bh.consume(v.heading());
+    }
+
+    @Benchmark
+    public void headingTo(Blackhole bh) {
+        for(int i = 0; i < size; i++) bh.consume(a[i].heading(b[i].x, b[i].y));
+    }
+
+    @Benchmark
+    public PVector[] lerpVector() {
+        for(int i = 0; i < size; i++) a[i].lerp(b[i], 0.5);
+        return a;
+    }
+
+    @Benchmark
+    public void lerpTwoVectorsAlloc(Blackhole bh) {
+        for(int i = 0; i < size; i++) bh.consume(a[i].lerp(a[i], b[i], 0.5));
+    }
+
+    @Benchmark
+    public PVector[] lerpXYZ() {
+        for(int i = 0; i < size; i++) a[i].lerp(b[i].x, b[i].y, b[i].z, 0.5);
+        return a;
+    }
+
+    @Benchmark
+    public PVector[] limit() {
+        for(int i = 0; i < size; i++) target[i].set(a[i]).limit(0.75);
+        return target;
+    }
+
+    @Benchmark
+    public void mag(Blackhole bh) {
+        for(PVector v : a) bh.consume(v.mag());
+    }
+
+    @Benchmark
+    public void magSq(Blackhole bh) {
+        for(PVector v : a) bh.consume(v.magSq());
+    }
+
+    @Benchmark
+    public void map(Blackhole bh) {
+        PVector p = a[0];
+        for(double angle : angles) bh.consume(p.map(angle, 0, 2 * Math.PI, -1, 1));
+    }
+
+    @Benchmark
+    public PVector[] mult() {
+        for(PVector v : a) v.mult(-1);
+        return a;
+    }
+
+    @Benchmark
+    public void multStaticAlloc(Blackhole bh) {
+        for(PVector v : a) bh.consume(PVector.mult(v, 3));
+    }
+
+    @Benchmark
+    public PVector[] multStaticTarget() {
+        for(int i = 0; i < size; i++) PVector.mult(a[i], 3, target[i]);
+        return target;
+    }
+
+    @Benchmark
+    public PVector[] normalize() {
+        for(int i = 0; i < size; i++) target[i].set(a[i]).normalize();
+        return target;
+    }
+
+    @Benchmark
+    public void normalizeAlloc(Blackhole bh) {
+        for(PVector v : a) bh.consume(v.normalize(null));
+    }
+
+    @Benchmark
+    public PVector[] normalizeTarget() {
+        for(int i = 0; i < size; i++) a[i].normalize(target[i]);
+        return target;
+    }
+
+    @Benchmark
+    public PVector[] rotate() {
+        for(PVector v : a) v.rotate(0.01);
+        return a;
+    }
+
+    @Benchmark
+    public PVector[] rotateX() {
+        for(PVector v : a) v.rotateX(0.01);
+        return a;
+    }
+
+    @Benchmark
+    public PVector[] rotateY() {
+        for(PVector v : a) v.rotateY(0.01);
+        return a;
+    }
+
+    @Benchmark
+    public PVector[] rotateZ() {
+        for(PVector v : a) v.rotateZ(0.01);
+        return a;
+    }
+
+    @Benchmark
+    public PVector[] setXY() {
+        for(int i = 0; i < size; i++) target[i].set(a[i].x, a[i].y);
+        return target;
+    }
+
+    @Benchmark
+    public PVector[] setXYZ() {
+        for(int i = 0; i < size; i++) target[i].set(a[i].x, a[i].y, a[i].z);
+        return target;
+    }
+
+    @Benchmark
+    public PVector[] setVector() {
+        for(int i = 0; i < size; i++) target[i].set(a[i]);
+        return target;
+    }
+
+    @Benchmark
+    public PVector[] set() {
+        for(int i = 0; i < size; i++) target[i].set(a[i]);
+        return target;
+    }
+
+    @Benchmark
+    public PVector[] setMag() {
+        for(int i = 0; i < size; i++) target[i].set(a[i]).setMag(2);
+        return target;
+    }
+
+    @Benchmark
+    public void setMagAlloc(Blackhole bh) {
+        for(PVector v : a) bh.consume(v.setMag(null, 2));
+    }
+
+    @Benchmark
+    public PVector[] setMagTarget() {
+        for(int i = 0; i < size; i++) a[i].setMag(target[i], 2);
+        return target;
+    }
+
+    @Benchmark
+    public PVector[] setComponents() {
+        for(int i = 0; i < size; i++) target[i].setX(a[i].x).setY(a[i].y).setZ(a[i].z);
+        return target;
+    }
+
+    @Benchmark
+    public void square(Blackhole bh) {
+        for(PVector v : a) bh.consume(v.square(v.x));
+    }
+
+    @Benchmark
+    public PVector[] subXY() {
+        for(PVector v : a) v.sub(0.5, -0.5);
+        return a;
+    }
+
+    @Benchmark
+    public PVector[] subXYZ() {
+        for(PVector v : a) v.sub(0.5, -0.5, 0.25);
+        return a;
+    }
+
+    @Benchmark
+    public PVector[] subVector() {
+        for(int i = 0; i < size; i++) a[i].sub(b[i]);
+        return a;
+    }
+
+    @Benchmark
+    public void subStaticAlloc(Blackhole bh) {
+        for(int i = 0; i < size; i++) bh.consume(PVector.sub(a[i], b[i]));
+    }
+
+    @Benchmark
+    public PVector[] subStaticTarget() {
+        for(int i = 0; i < size; i++) PVector.sub(a[i], b[i], target[i]);
+        return target;
+    }
+}
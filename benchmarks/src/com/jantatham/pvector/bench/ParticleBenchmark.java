@@ -0,0 +1,65 @@
+package com.jantatham.pvector.bench;
+
+import com.jantatham.pvector.PVector;
+import com.jantatham.pvector.ParticleSystem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ParticleBenchmark Class compares the Processing-style particle update
+ * over PVector objects with one ParticleSystem step per integrator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class ParticleBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Param({"EULER", "SEMI_IMPLICIT_EULER", "VERLET"})
+    public ParticleSystem.Integrator integrator;
+
+    private PVector[] position;
+    private PVector[] velocity;
+    private PVector[] acceleration;
+    private ParticleSystem system;
+    private final PVector gravity = new PVector(0, 0.1, 0);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        position = new PVector[size];
+        velocity = new PVector[size];
+        acceleration = new PVector[size];
+        system = new ParticleSystem(size, integrator);
+        system.setMaxSpeed(4);
+        for(int i = 0; i < size; i++) {
+            position[i] = new PVector(random.nextDouble() * 100, random.nextDouble() * 100, 0);
+            velocity[i] = new PVector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 0);
+            acceleration[i] = new PVector();
+            system.spawn(position[i], velocity[i], Double.POSITIVE_INFINITY);
+        }
+    }
+
+    @Benchmark
+    public PVector[] stepObjects() {
+        for(int i = 0; i < size; i++) {
+            acceleration[i].add(gravity);
+            velocity[i].add(acceleration[i]).limit(4);
+            position[i].add(velocity[i]);
+            acceleration[i].mult(0);
+        }
+        return position;
+    }
+
+    @Benchmark
+    public ParticleSystem stepSystem() {
+        return system.accelerate(gravity).step(1);
+    }
+}
@@ -0,0 +1,38 @@
+package com.jantatham.pvector.bench;
+
+import com.jantatham.pvector.PVector;
+import com.jantatham.pvector.VectorAdder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The VectorAdderBenchmark Class measures force summation into one shared
+ * vector from every available thread, comparing a lock around PVector.add
+ * with VectorAdder. Pass -t to the JMH runner to change the thread count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class VectorAdderBenchmark {
+
+    private final PVector shared = new PVector();
+    private final VectorAdder adder = new VectorAdder();
+    private final PVector force = new PVector(0.5, -0.25, 1);
+
+    @Benchmark
+    public void addSynchronized() {
+        synchronized(shared) {
+            shared.add(force);
+        }
+    }
+
+    @Benchmark
+    public void addVectorAdder() {
+        adder.add(force);
+    }
+}
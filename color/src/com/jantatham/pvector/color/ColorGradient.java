@@ -0,0 +1,131 @@
+package com.jantatham.pvector.color;
+
+/**
+ * The ColorGradient Class precomputes a gradient between color stops into a
+ * lookup table, so filling or mapping pixels costs one array read each.
+ *
+ * Table entries are calculated with Colors.lerpColor and share its rounding.
+ */
+public class ColorGradient {
+
+    private final int[] table;
+
+    /**
+     * This method is a Constructor for a gradient between two colors.
+     *
+     * @param c1 the color at 0.0
+     * @param c2 the color at 1.0
+     * @param steps the number of table entries, at least 2
+     */
+    public ColorGradient(int c1, int c2, int steps) {
+        this(new int[] {c1, c2}, new double[] {0, 1}, steps);
+    }
+
+    /**
+     * This method is a Constructor for a gradient through several color
+     * stops.
+     *
+     * @param colors the ARGB colors of the stops
+     * @param positions the increasing positions of the stops between 0.0
+     *                  and 1.0
+     * @param steps the number of table entries, at least 2
+     */
+    public ColorGradient(int[] colors, double[] positions, int steps) {
+        if(colors.length == 0 || colors.length != positions.length) {
+            throw new IllegalArgumentException("Each color stop needs a position");
+        }
+        if(steps < 2) {
+            throw new IllegalArgumentException("A gradient needs at least 2 steps");
+        }
+        for(int i = 1; i < positions.length; i++) {
+            if(positions[i] < positions[i - 1]) {
+                throw new IllegalArgumentException("Stop positions must be increasing");
+            }
+        }
+
+        table = new int[steps];
+        int stop = 0;
+        int last = positions.length - 1;
+        for(int k = 0; k < steps; k++) {
+            double t = (double) k / (steps - 1);
+            while(stop < last && t > positions[stop + 1]) {
+                stop++;
+            }
+            if(t <= positions[0]) {
+                table[k] = colors[0];
+            }
+            else if(stop == last) {
+                table[k] = colors[last];
+            }
+            else {
+                double span = positions[stop + 1] - positions[stop];
+                double amount = span == 0 ? 1 : (t - positions[stop]) / span;
+                table[k] = Colors.lerpColor(colors[stop], colors[stop + 1], amount);
+            }
+        }
+    }
+
+    /**
+     * This method returns the number of table entries.
+     *
+     * @return the number of steps
+     */
+    public int steps() {
+        return table.length;
+    }
+
+    /**
+     * This method looks up the color nearest to position t.
+     *
+     * @param t between 0.0 and 1.0, clamped
+     * @return ARGB integer
+     */
+    public int color(double t) {
+        if (t < 0) t = 0;
+        if (t > 1) t = 1;
+        return table[(int) (t * (table.length - 1) + 0.5)];
+    }
+
+    /**
+     * This method fills length pixels with the whole gradient, from the
+     * color at 0.0 at offset to the color at 1.0 at the last pixel.
+     *
+     * @param pixels the pixel buffer
+     * @param offset the first pixel
+     * @param length the number of pixels
+     * @return the pixel buffer
+     */
+    public int[] fill(int[] pixels, int offset, int length) {
+        if(length == 1) {
+            pixels[offset] = table[0];
+            return pixels;
+        }
+        long last = table.length - 1;
+        long span = length - 1;
+        for(int i = 0; i < length; i++) {
+            pixels[offset + i] = table[(int) ((i * last * 2 + span) / (span * 2))];
+        }
+        return pixels;
+    }
+
+    /**
+     * This method maps each value to its gradient color.
+     *
+     * @param values positions between 0.0 and 1.0, clamped
+     * @param out the output colors
+     * @param offset the first value and output index
+     * @param length the number of values
+     * @return the output colors
+     */
+    public int[] map(double[] values, int[] out, int offset, int length) {
+        double scale = table.length - 1;
+        int end = offset + length;
+        for(int i = offset; i < end; i++) {
+            double t = values[i];
+            if (t < 0) t = 0;
+            if (t > 1) t = 1;
+            out[i] = table[(int) (t * scale + 0.5)];
+        }
+        return out;
+    }
+}
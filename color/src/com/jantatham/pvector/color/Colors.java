@@ -0,0 +1,240 @@
+package com.jantatham.pvector.color;
+
+/**
+ * The Colors Class handles packed ARGB integer colors. It has no
+ * dependencies outside the JDK; the JavaFX conversions live in ColorsFX.
+ *
+ * None of the methods allocate except colorIntegerToRGBA(int) and the
+ * first bulk lerpColor of a large buffer on each thread, which builds the
+ * thread's 64KB channel table. Later calls refill that table in place when
+ * the amount changes.
+ */
+public class Colors {
+
+    /**
+     * Buffers at least this long are interpolated through the thread's
+     * channel table instead of rounding every channel. Filling the table
+     * costs about as much as interpolating 32K pixels directly, and each
+     * pixel then takes about a quarter of the time. Shorter buffers still
+     * use the table if it already holds their amount.
+     */
+    static final int TABLE_THRESHOLD = 32768;
+
+    private static final ThreadLocal<ChannelTable> CHANNEL_TABLE = new ThreadLocal<>();
+
+    private Colors() {
+
+    }
+
+    /**
+     * This method extracts the alpha channel of a packed color.
+     *
+     * @param color ARGB integer
+     * @return alpha between 0 and 255
+     */
+    static public int alpha(int color) {
+        return (color >>> 24);
+    }
+
+    /**
+     * This method extracts the red channel of a packed color.
+     *
+     * @param color ARGB integer
+     * @return red between 0 and 255
+     */
+    static public int red(int color) {
+        return (color >> 16) & 255;
+    }
+
+    /**
+     * This method extracts the green channel of a packed color.
+     *
+     * @param color ARGB integer
+     * @return green between 0 and 255
+     */
+    static public int green(int color) {
+        return (color >> 8) & 255;
+    }
+
+    /**
+     * This method extracts the blue channel of a packed color.
+     *
+     * @param color ARGB integer
+     * @return blue between 0 and 255
+     */
+    static public int blue(int color) {
+        return color & 255;
+    }
+
+    /**
+     * This method packs four channels into an ARGB integer. Each channel is
+     * masked to 8 bits.
+     *
+     * @param a alpha between 0 and 255
+     * @param r red between 0 and 255
+     * @param g green between 0 and 255
+     * @param b blue between 0 and 255
+     * @return ARGB integer
+     */
+    static public int color(int a, int r, int g, int b) {
+        return ((a & 255) << 24) | ((r & 255) << 16) | ((g & 255) << 8) | (b & 255);
+    }
+
+    /**
+     * This method converts an RBGA integer into RGBA array of values.
+     *
+     * @param color RGBA integer
+     * @return array of RGBA values
+     */
+    static public int[] colorIntegerToRGBA(int color) {
+        return colorIntegerToRGBA(color, new int[4]);
+    }
+
+    /**
+     * This method converts an ARGB integer into RGBA values stored in the
+     * target array.
+     *
+     * @param color ARGB integer
+     * @param target array of at least four values
+     * @return target array
+     */
+    static public int[] colorIntegerToRGBA(int color, int[] target) {
+        target[0] = red(color);
+        target[1] = green(color);
+        target[2] = blue(color);
+        target[3] = alpha(color);
+        return target;
+    }
+
+    /**
+     * Calculates a color between two packed colors at a specific increment.
+     * Each channel is interpolated and rounded with Math.round, as in
+     * ColorsFX.lerpColorRGBFX.
+     *
+     * @param c1 interpolate from this color
+     * @param c2 interpolate to this color
+     * @param amount between 0.0 and 1.0
+     * @return ARGB integer
+     */
+    static public int lerpColor(int c1, int c2, double amount) {
+        if (amount < 0) amount = 0;
+        if (amount > 1) amount = 1;
+
+        return (lerpChannel(alpha(c1), alpha(c2), amount) << 24) |
+               (lerpChannel(red(c1), red(c2), amount) << 16) |
+               (lerpChannel(green(c1), green(c2), amount) << 8) |
+               (lerpChannel(blue(c1), blue(c2), amount));
+    }
+
+    /**
+     * Calculates the colors between two pixel buffers at a specific
+     * increment, writing length pixels starting at offset. The output may
+     * be either input buffer. Results are identical to calling lerpColor on
+     * each pair of pixels.
+     *
+     * @param from interpolate from these colors
+     * @param to interpolate to these colors
+     * @param amount between 0.0 and 1.0
+     * @param out the output colors
+     * @param offset the first pixel
+     * @param length the number of pixels
+     * @return the output colors
+     */
+    static public int[] lerpColor(int[] from, int[] to, double amount, int[] out, int offset, int length) {
+        if (amount < 0) amount = 0;
+        if (amount > 1) amount = 1;
+
+        int end = offset + length;
+        ChannelTable cached = CHANNEL_TABLE.get();
+        boolean hit = cached != null && cached.amount == amount;
+        if(!hit && length < TABLE_THRESHOLD) {
+            for(int i = offset; i < end; i++) {
+                out[i] = lerpColor(from[i], to[i], amount);
+            }
+            return out;
+        }
+
+        if(cached == null) {
+            cached = new ChannelTable();
+            CHANNEL_TABLE.set(cached);
+        }
+        if(!hit) {
+            cached.fill(amount);
+        }
+        byte[] table = cached.entries;
+        for(int i = offset; i < end; i++) {
+            int c1 = from[i];
+            int c2 = to[i];
+            out[i] = ((table[((c1 >>> 16) & 0xFF00) | (c2 >>> 24)] & 255) << 24) |
+                     ((table[((c1 >> 8) & 0xFF00) | ((c2 >> 16) & 255)] & 255) << 16) |
+                     ((table[(c1 & 0xFF00) | ((c2 >> 8) & 255)] & 255) << 8) |
+                     (table[((c1 << 8) & 0xFF00) | (c2 & 255)] & 255);
+        }
+        return out;
+    }
+
+    /**
+     * Calculates the colors between every pixel of a buffer and a single
+     * color at a specific increment, e.g. to fade an image towards a tint.
+     *
+     * @param from interpolate from these colors
+     * @param c2 interpolate to this color
+     * @param amount between 0.0 and 1.0
+     * @param out the output colors
+     * @param offset the first pixel
+     * @param length the number of pixels
+     * @return the output colors
+     */
+    static public int[] lerpColor(int[] from, int c2, double amount, int[] out, int offset, int length) {
+        if (amount < 0) amount = 0;
+        if (amount > 1) amount = 1;
+
+        int end = offset + length;
+        int a2 = alpha(c2), r2 = red(c2), g2 = green(c2), b2 = blue(c2);
+        for(int i = offset; i < end; i++) {
+            int c1 = from[i];
+            out[i] = (lerpChannel(alpha(c1), a2, amount) << 24) |
+                     (lerpChannel(red(c1), r2, amount) << 16) |
+                     (lerpChannel(green(c1), g2, amount) << 8) |
+                     (lerpChannel(blue(c1), b2, amount));
+        }
+        return out;
+    }
+
+    /**
+     * This method interpolates a single 8 bit channel, rounding the result.
+     *
+     * @param v1 interpolate from this value
+     * @param v2 interpolate to this value
+     * @param amount between 0.0 and 1.0
+     * @return the channel value
+     */
+    static int lerpChannel(int v1, int v2, double amount) {
+        return (int) Math.round(v1 + (v2 - v1) * amount);
+    }
+
+    /**
+     * The ChannelTable Class tabulates lerpChannel for every pair of channel
+     * values at one amount. The entry for (v1, v2) is at index (v1 << 8) | v2.
+     * Each thread keeps its own, so it can be refilled without allocating.
+     */
+    static final class ChannelTable {
+        final byte[] entries = new byte[256 * 256];
+        double amount = Double.NaN;
+
+        /**
+         * This method refills the table for a new amount.
+         *
+         * @param amount between 0.0 and 1.0
+         */
+        void fill(double amount) {
+            for(int v1 = 0; v1 < 256; v1++) {
+                int row = v1 << 8;
+                for(int v2 = 0; v2 < 256; v2++) {
+                    entries[row | v2] = (byte) lerpChannel(v1, v2, amount);
+                }
+            }
+            this.amount = amount;
+        }
+    }
+}
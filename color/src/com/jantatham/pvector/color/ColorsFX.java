@@ -0,0 +1,67 @@
+package com.jantatham.pvector.color;
+
+import javafx.scene.paint.Color;
+
+/**
+ * The ColorsFX Class adapts JavaFX colors to the packed integer colors used
+ * by Colors. It is the only class that needs JavaFX at run time.
+ *
+ */
+public class ColorsFX {
+
+    private ColorsFX() {
+
+    }
+
+    /**
+     * 	Calculates a color or colors between two color at a specific increment.
+     * @param c1 int: interpolate from this color
+     * @param c2 int: interpolate to this color
+     * @param amount between 0.0 and 1.0
+     * @return integer
+     */
+    static public int lerpColorRGBFX(Color c1, Color c2, double amount) {
+        if (amount < 0) amount = 0;
+        if (amount > 1) amount = 1;
+
+        int r1 = (int) (c1.getRed() * 255);
+        int g1 = (int) (c1.getGreen() * 255);
+        int b1 = (int) (c1.getBlue() * 255);
+        int a1 = (int) (c1.getOpacity());
+
+        int r2 = (int) (c2.getRed() * 255);
+        int g2 = (int) (c2.getGreen() * 255);
+        int b2 = (int) (c2.getBlue() * 255);
+        int a2 = (int) (c2.getOpacity());
+
+        return ((int)(Math.round(a1 + (a2-a1) * amount) << 24) |
+                (int)(Math.round(r1 + (r2-r1) * amount) << 16) |
+                (int)(Math.round(g1 + (g2-g1) * amount) << 8) |
+                (int)(Math.round(b1 + (b2-b1) * amount)));
+    }
+
+    /**
+     * This method converts a JavaFX color into an ARGB integer, rounding
+     * each channel to 8 bits.
+     *
+     * @param c the JavaFX color
+     * @return ARGB integer
+     */
+    static public int toARGB(Color c) {
+        return Colors.color((int) Math.round(c.getOpacity() * 255),
+                            (int) Math.round(c.getRed() * 255),
+                            (int) Math.round(c.getGreen() * 255),
+                            (int) Math.round(c.getBlue() * 255));
+    }
+
+    /**
+     * This method converts an ARGB integer into a JavaFX color.
+     *
+     * @param color ARGB integer
+     * @return the JavaFX color
+     */
+    static public Color fromARGB(int color) {
+        return Color.rgb(Colors.red(color), Colors.green(color), Colors.blue(color),
+                         Colors.alpha(color) / 255.0);
+    }
+}
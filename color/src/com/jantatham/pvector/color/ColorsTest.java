@@ -0,0 +1,107 @@
+package com.jantatham.pvector.color;
+
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+
+public class ColorsTest {
+    @org.junit.Test
+    public void colorIntegerToRGBA_splits_channels() throws Exception {
+        int[] rgba = Colors.colorIntegerToRGBA(0x80102030);
+        assertEquals(rgba[0], 0x10);
+        assertEquals(rgba[1], 0x20);
+        assertEquals(rgba[2], 0x30);
+        assertEquals(rgba[3], 0x80);
+    }
+
+    @org.junit.Test
+    public void colorIntegerToRGBA_fills_target() throws Exception {
+        int[] target = new int[4];
+        assertSame(Colors.colorIntegerToRGBA(0xFF0000FF, target), target);
+        assertEquals(target[2], 255);
+        assertEquals(target[3], 255);
+    }
+
+    @org.junit.Test
+    public void channels_pack_and_unpack() throws Exception {
+        int c = Colors.color(200, 10, 20, 30);
+        assertEquals(Colors.alpha(c), 200);
+        assertEquals(Colors.red(c), 10);
+        assertEquals(Colors.green(c), 20);
+        assertEquals(Colors.blue(c), 30);
+    }
+
+    @org.junit.Test
+    public void lerpColor_rounds_each_channel() throws Exception {
+        int c = Colors.lerpColor(Colors.color(0, 0, 0, 0), Colors.color(255, 101, 3, 1), 0.5);
+        assertEquals(Colors.alpha(c), 128);
+        assertEquals(Colors.red(c), 51);
+        assertEquals(Colors.green(c), 2);
+        assertEquals(Colors.blue(c), 1);
+    }
+
+    @org.junit.Test
+    public void lerpColor_clamps_amount() throws Exception {
+        assertEquals(Colors.lerpColor(0xFF000000, 0xFFFFFFFF, 2), 0xFFFFFFFF);
+        assertEquals(Colors.lerpColor(0xFF000000, 0xFFFFFFFF, -1), 0xFF000000);
+    }
+
+    @org.junit.Test
+    public void bulk_lerpColor_matches_single_lerpColor() throws Exception {
+        Random random = new Random(7);
+        int n = Colors.TABLE_THRESHOLD * 2;
+        int[] from = new int[n];
+        int[] to = new int[n];
+        for(int i = 0; i < n; i++) {
+            from[i] = random.nextInt();
+            to[i] = random.nextInt();
+        }
+        int[] out = Colors.lerpColor(from, to, 0.3, new int[n], 0, n);
+        int[] small = Colors.lerpColor(from, to, 0.3, new int[n], 0, 100);
+        for(int i = 0; i < n; i++) {
+            assertEquals(out[i], Colors.lerpColor(from[i], to[i], 0.3));
+        }
+        assertEquals(small[99], out[99]);
+    }
+
+    @org.junit.Test
+    public void bulk_lerpColor_refills_table_for_new_amounts() throws Exception {
+        Random random = new Random(9);
+        int n = Colors.TABLE_THRESHOLD;
+        int[] from = new int[n];
+        int[] to = new int[n];
+        for(int i = 0; i < n; i++) {
+            from[i] = random.nextInt();
+            to[i] = random.nextInt();
+        }
+        // large, small with the table's amount, then large with a new amount
+        double[] amounts = { 0.3, 0.3, 0.7 };
+        int[] lengths = { n, 100, n };
+        for(int k = 0; k < amounts.length; k++) {
+            int[] out = Colors.lerpColor(from, to, amounts[k], new int[n], 0, lengths[k]);
+            for(int i = 0; i < lengths[k]; i++) {
+                assertEquals(out[i], Colors.lerpColor(from[i], to[i], amounts[k]));
+            }
+        }
+    }
+
+    @org.junit.Test
+    public void gradient_matches_endpoints_and_midpoint() throws Exception {
+        ColorGradient gradient = new ColorGradient(0xFF000000, 0xFFFFFFFF, 256);
+        assertEquals(gradient.color(0), 0xFF000000);
+        assertEquals(gradient.color(1), 0xFFFFFFFF);
+        int[] pixels = gradient.fill(new int[3], 0, 3);
+        assertEquals(pixels[0], 0xFF000000);
+        assertEquals(pixels[1], gradient.color(0.5));
+        assertEquals(pixels[2], 0xFFFFFFFF);
+    }
+
+    @org.junit.Test
+    public void gradient_passes_through_stops() throws Exception {
+        int[] colors = {0xFFFF0000, 0xFF00FF00, 0xFF0000FF};
+        ColorGradient gradient = new ColorGradient(colors, new double[] {0, 0.5, 1}, 101);
+        assertEquals(gradient.color(0.5), 0xFF00FF00);
+        assertEquals(gradient.color(0.25), Colors.lerpColor(colors[0], colors[1], 0.5));
+    }
+}
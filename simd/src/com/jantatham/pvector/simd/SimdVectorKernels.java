@@ -0,0 +1,138 @@
+package com.jantatham.pvector.simd;
+
+import com.jantatham.pvector.VectorKernels;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The SimdVectorKernels Class implements the bulk kernels with the
+ * incubating Java Vector API, processing as many doubles per instruction as
+ * the preferred species of the CPU allows (four with AVX2, eight with
+ * AVX-512). The tail of each range runs through the scalar loop.
+ *
+ * The class is loaded reflectively by VectorKernels.get() and needs
+ * --add-modules jdk.incubator.vector at run time.
+ */
+public class SimdVectorKernels extends VectorKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    public void add(double[] a, double[] b, double[] out, int from, int to) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for(; i < bound; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, i);
+            va.add(vb).intoArray(out, i);
+        }
+        for(; i < to; i++) {
+            out[i] = a[i] + b[i];
+        }
+    }
+
+    @Override
+    public void sub(double[] a, double[] b, double[] out, int from, int to) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for(; i < bound; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, i);
+            va.sub(vb).intoArray(out, i);
+        }
+        for(; i < to; i++) {
+            out[i] = a[i] - b[i];
+        }
+    }
+
+    @Override
+    public void mult(double[] a, double n, double[] out, int from, int to) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for(; i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, i).mul(n).intoArray(out, i);
+        }
+        for(; i < to; i++) {
+            out[i] = a[i] * n;
+        }
+    }
+
+    @Override
+    public void dot(double[] ax, double[] ay, double[] az,
+                    double[] bx, double[] by, double[] bz,
+                    double[] out, int from, int to) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for(; i < bound; i += SPECIES.length()) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, ax, i).mul(DoubleVector.fromArray(SPECIES, bx, i));
+            DoubleVector y = DoubleVector.fromArray(SPECIES, ay, i).mul(DoubleVector.fromArray(SPECIES, by, i));
+            DoubleVector z = DoubleVector.fromArray(SPECIES, az, i).mul(DoubleVector.fromArray(SPECIES, bz, i));
+            x.add(y).add(z).intoArray(out, i);
+        }
+        for(; i < to; i++) {
+            out[i] = ax[i]*bx[i] + ay[i]*by[i] + az[i]*bz[i];
+        }
+    }
+
+    @Override
+    public void magSq(double[] x, double[] y, double[] z, double[] out, int from, int to) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for(; i < bound; i += SPECIES.length()) {
+            magSq(x, y, z, i).intoArray(out, i);
+        }
+        for(; i < to; i++) {
+            out[i] = x[i]*x[i] + y[i]*y[i] + z[i]*z[i];
+        }
+    }
+
+    @Override
+    public void mag(double[] x, double[] y, double[] z, double[] out, int from, int to) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for(; i < bound; i += SPECIES.length()) {
+            magSq(x, y, z, i).lanewise(VectorOperators.SQRT).intoArray(out, i);
+        }
+        for(; i < to; i++) {
+            out[i] = Math.sqrt(x[i]*x[i] + y[i]*y[i] + z[i]*z[i]);
+        }
+    }
+
+    @Override
+    public void normalize(double[] x, double[] y, double[] z, int from, int to) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for(; i < bound; i += SPECIES.length()) {
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, i);
+            DoubleVector vy = DoubleVector.fromArray(SPECIES, y, i);
+            DoubleVector vz = DoubleVector.fromArray(SPECIES, z, i);
+            DoubleVector m = vx.mul(vx).add(vy.mul(vy)).add(vz.mul(vz)).lanewise(VectorOperators.SQRT);
+            VectorMask<Double> nonZero = m.compare(VectorOperators.NE, 0.0);
+            vx.div(m, nonZero).intoArray(x, i);
+            vy.div(m, nonZero).intoArray(y, i);
+            vz.div(m, nonZero).intoArray(z, i);
+        }
+        for(; i < to; i++) {
+            double m = Math.sqrt(x[i]*x[i] + y[i]*y[i] + z[i]*z[i]);
+            if(m != 0) {
+                x[i] /= m;
+                y[i] /= m;
+                z[i] /= m;
+            }
+        }
+    }
+
+    private static DoubleVector magSq(double[] x, double[] y, double[] z, int i) {
+        DoubleVector vx = DoubleVector.fromArray(SPECIES, x, i);
+        DoubleVector vy = DoubleVector.fromArray(SPECIES, y, i);
+        DoubleVector vz = DoubleVector.fromArray(SPECIES, z, i);
+        return vx.mul(vx).add(vy.mul(vy)).add(vz.mul(vz));
+    }
+}
@@ -0,0 +1,70 @@
+package com.jantatham.pvector;
+
+/**
+ * The AbstractRotation3D Class applies a 3D rotation through its cached 3x3
+ * matrix, so every vector costs nine multiplies and six adds.
+ *
+ */
+abstract class AbstractRotation3D implements Rotation {
+
+    final double m00, m01, m02;
+    final double m10, m11, m12;
+    final double m20, m21, m22;
+
+    /**
+     * This method is a Constructor for the rotation matrix of the quaternion
+     * (w, x, y, z), which does not need to be normalized.
+     */
+    AbstractRotation3D(double w, double x, double y, double z) {
+        double n = w*w + x*x + y*y + z*z;
+        double s = n == 0 ? 0 : 2 / n;
+        double xx = x*x*s, yy = y*y*s, zz = z*z*s;
+        double xy = x*y*s, xz = x*z*s, yz = y*z*s;
+        double wx = w*x*s, wy = w*y*s, wz = w*z*s;
+
+        m00 = 1 - (yy + zz);  m01 = xy - wz;        m02 = xz + wy;
+        m10 = xy + wz;        m11 = 1 - (xx + zz);  m12 = yz - wx;
+        m20 = xz - wy;        m21 = yz + wx;        m22 = 1 - (xx + yy);
+    }
+
+    @Override
+    public PVector rotate(PVector v, PVector target) {
+        double x = m00 * v.x + m01 * v.y + m02 * v.z;
+        double y = m10 * v.x + m11 * v.y + m12 * v.z;
+        double z = m20 * v.x + m21 * v.y + m22 * v.z;
+        if(target == null) {
+            target = new PVector(x, y, z);
+        }
+        else {
+            target.set(x, y, z);
+        }
+        return target;
+    }
+
+    @Override
+    public PVector[] rotate(PVector[] vectors) {
+        for(PVector v : vectors) {
+            double x = v.x, y = v.y, z = v.z;
+            v.x = m00 * x + m01 * y + m02 * z;
+            v.y = m10 * x + m11 * y + m12 * z;
+            v.z = m20 * x + m21 * y + m22 * z;
+        }
+        return vectors;
+    }
+
+    @Override
+    public PVectorBuffer rotate(PVectorBuffer buffer, int from, int to) {
+        buffer.checkRange(from, to);
+        double[] bx = buffer.x, by = buffer.y, bz = buffer.z;
+        double a00 = m00, a01 = m01, a02 = m02;
+        double a10 = m10, a11 = m11, a12 = m12;
+        double a20 = m20, a21 = m21, a22 = m22;
+        for(int i = from; i < to; i++) {
+            double x = bx[i], y = by[i], z = bz[i];
+            bx[i] = a00 * x + a01 * y + a02 * z;
+            by[i] = a10 * x + a11 * y + a12 * z;
+            bz[i] = a20 * x + a21 * y + a22 * z;
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,241 @@
+package com.jantatham.pvector;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * The AtomicPVector Class is a vector shared between threads whose reads
+ * always see the x, y and z of one write, never a mix of two.
+ *
+ * Every value is an immutable snapshot published through an
+ * AtomicReference, so a read is a single volatile load and never blocks or
+ * retries, and updates are compare-and-set loops that never take a lock.
+ * Components are compared as Double.equals does, so NaN matches NaN and 0.0
+ * does not match -0.0.
+ */
+public class AtomicPVector {
+
+    private final AtomicReference<Snapshot> value;
+
+    /**
+     * This method is a Constructor for the zero vector.
+     */
+    public AtomicPVector() {
+        this(0, 0, 0);
+    }
+
+    /**
+     * This method is a Constructor for the vector (x, y, z).
+     *
+     * @param x the X component
+     * @param y the Y component
+     * @param z the Z component
+     */
+    public AtomicPVector(double x, double y, double z) {
+        value = new AtomicReference<>(new Snapshot(x, y, z));
+    }
+
+    /**
+     * This method is a Constructor holding a copy of the vector (v).
+     *
+     * @param v the vector
+     */
+    public AtomicPVector(PVector v) {
+        this(v.x, v.y, v.z);
+    }
+
+    /**
+     * This method reads the vector.
+     *
+     * @param target the vector to write to, or null for a new one
+     * @return the vector
+     */
+    public PVector get(PVector target) {
+        return value.get().copyTo(target);
+    }
+
+    /**
+     * This method returns the X component.
+     *
+     * @return the X component
+     */
+    public double x() {
+        return value.get().x;
+    }
+
+    /**
+     * This method returns the Y component.
+     *
+     * @return the Y component
+     */
+    public double y() {
+        return value.get().y;
+    }
+
+    /**
+     * This method returns the Z component.
+     *
+     * @return the Z component
+     */
+    public double z() {
+        return value.get().z;
+    }
+
+    /**
+     * This method sets the vector.
+     *
+     * @param x the X component
+     * @param y the Y component
+     * @param z the Z component
+     */
+    public void set(double x, double y, double z) {
+        value.set(new Snapshot(x, y, z));
+    }
+
+    /**
+     * This method sets the vector to a copy of the vector (v).
+     *
+     * @param v the vector
+     */
+    public void set(PVector v) {
+        set(v.x, v.y, v.z);
+    }
+
+    /**
+     * This method sets the vector and returns the previous one.
+     *
+     * @param v the new vector
+     * @param target the vector the previous value is written to, or null for
+     * a new one
+     * @return the previous vector
+     */
+    public PVector getAndSet(PVector v, PVector target) {
+        return value.getAndSet(new Snapshot(v.x, v.y, v.z)).copyTo(target);
+    }
+
+    /**
+     * This method sets the vector to update if it currently equals expect.
+     *
+     * @param expect the expected vector
+     * @param update the new vector
+     * @return true if the vector was set
+     */
+    public boolean compareAndSet(PVector expect, PVector update) {
+        Snapshot next = null;
+        for(;;) {
+            Snapshot current = value.get();
+            if(!current.equals(expect.x, expect.y, expect.z)) {
+                return false;
+            }
+            if(next == null) {
+                next = new Snapshot(update.x, update.y, update.z);
+            }
+            if(value.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * This method adds the vector (v) and returns the previous vector.
+     *
+     * @param v the vector to add
+     * @param target the vector the previous value is written to, or null for
+     * a new one
+     * @return the previous vector
+     */
+    public PVector getAndAdd(PVector v, PVector target) {
+        return add(v.x, v.y, v.z).copyTo(target);
+    }
+
+    /**
+     * This method adds the vector (v) and returns the new vector.
+     *
+     * @param v the vector to add
+     * @param target the vector the new value is written to, or null for a
+     * new one
+     * @return the new vector
+     */
+    public PVector addAndGet(PVector v, PVector target) {
+        Snapshot previous = add(v.x, v.y, v.z);
+        return new Snapshot(previous.x + v.x, previous.y + v.y, previous.z + v.z).copyTo(target);
+    }
+
+    /**
+     * This method replaces the vector with the result of the function. The
+     * function receives a fresh copy of the current vector, which it may
+     * modify and return, e.g. v -&gt; v.add(velocity).limit(max). It may be
+     * called more than once when other threads update concurrently, so it
+     * should have no other side effects.
+     *
+     * @param function the update function
+     * @return the new vector, as returned by the function
+     */
+    public PVector updateAndGet(UnaryOperator<PVector> function) {
+        for(;;) {
+            Snapshot current = value.get();
+            PVector next = function.apply(current.copyTo(null));
+            if(value.compareAndSet(current, new Snapshot(next.x, next.y, next.z))) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * This method replaces the vector with the result of the function and
+     * returns the previous vector.
+     *
+     * @see #updateAndGet(UnaryOperator)
+     * @param function the update function
+     * @return the previous vector
+     */
+    public PVector getAndUpdate(UnaryOperator<PVector> function) {
+        for(;;) {
+            Snapshot current = value.get();
+            PVector next = function.apply(current.copyTo(null));
+            if(value.compareAndSet(current, new Snapshot(next.x, next.y, next.z))) {
+                return current.copyTo(null);
+            }
+        }
+    }
+
+    /**
+     * This method adds (x, y, z) and returns the snapshot it replaced.
+     */
+    private Snapshot add(double x, double y, double z) {
+        for(;;) {
+            Snapshot current = value.get();
+            if(value.compareAndSet(current, new Snapshot(current.x + x, current.y + y, current.z + z))) {
+                return current;
+            }
+        }
+    }
+
+    private static final class Snapshot {
+        final double x;
+        final double y;
+        final double z;
+
+        Snapshot(double x, double y, double z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        boolean equals(double x, double y, double z) {
+            return Double.doubleToLongBits(this.x) == Double.doubleToLongBits(x)
+                    && Double.doubleToLongBits(this.y) == Double.doubleToLongBits(y)
+                    && Double.doubleToLongBits(this.z) == Double.doubleToLongBits(z);
+        }
+
+        PVector copyTo(PVector target) {
+            if(target == null) {
+                target = new PVector(x, y, z);
+            }
+            else {
+                target.set(x, y, z);
+            }
+            return target;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.jantatham.pvector;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class AtomicPVectorTest {
+    @org.junit.Test
+    public void compareAndSet_checks_every_component() throws Exception {
+        AtomicPVector v = new AtomicPVector(1, 2, 3);
+        assertFalse(v.compareAndSet(new PVector(1, 2, 4), new PVector(9, 9, 9)));
+        assertTrue(v.compareAndSet(new PVector(1, 2, 3), new PVector(4, 5, 6)));
+        assertEquals(v.get(null).y, 5.0, 0);
+    }
+
+    @org.junit.Test
+    public void add_and_update_return_old_and_new() throws Exception {
+        AtomicPVector v = new AtomicPVector(new PVector(1, 0, 0));
+        PVector previous = v.getAndAdd(new PVector(1, 1, 1), new PVector());
+        assertEquals(previous.x, 1.0, 0);
+        assertEquals(v.addAndGet(new PVector(1, 1, 1), null).x, 3.0, 0);
+
+        PVector next = v.updateAndGet(p -> p.mult(2));
+        assertEquals(next.x, 6.0, 0);
+        assertEquals(v.getAndUpdate(p -> p.set(0, 0, 0)).z, 4.0, 0);
+        assertEquals(v.x(), 0.0, 0);
+        assertEquals(v.getAndSet(new PVector(7, 8, 9), null).y, 0.0, 0);
+        assertEquals(v.z(), 9.0, 0);
+    }
+
+    @org.junit.Test
+    public void concurrent_adds_and_reads_are_consistent() throws Exception {
+        final AtomicPVector v = new AtomicPVector();
+        final AtomicBoolean torn = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            Future<?>[] writers = new Future<?>[4];
+            for(int t = 0; t < 4; t++) {
+                writers[t] = executor.submit(() -> {
+                    PVector one = new PVector(1, 2, 3);
+                    for(int i = 0; i < 50000; i++) {
+                        v.getAndAdd(one, null);
+                    }
+                });
+            }
+            Future<?> reader = executor.submit(() -> {
+                PVector p = new PVector();
+                for(int i = 0; i < 50000; i++) {
+                    v.get(p);
+                    if(p.y != 2 * p.x || p.z != 3 * p.x) {
+                        torn.set(true);
+                    }
+                }
+            });
+            for(Future<?> f : writers) {
+                f.get();
+            }
+            reader.get();
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertFalse(torn.get());
+        assertEquals(v.x(), 200000.0, 0);
+        assertEquals(v.z(), 600000.0, 0);
+    }
+}
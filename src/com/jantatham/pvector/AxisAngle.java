@@ -0,0 +1,102 @@
+package com.jantatham.pvector;
+
+/**
+ * The AxisAngle Class is a rotation by an angle around an axis. The sine
+ * and cosine of the angle are calculated once, when it is built.
+ *
+ */
+public class AxisAngle extends AbstractRotation3D {
+
+    private final PVector axis;
+    private final double angle;
+    private final Quaternion quaternion;
+
+    /**
+     * This method is a Constructor for the rotation by angle around the
+     * axis, which does not need to be a unit vector.
+     *
+     * @param axis the rotation axis
+     * @param angle the rotation angle
+     */
+    public AxisAngle(PVector axis, double angle) {
+        this(Quaternion.fromAxisAngle(axis, angle), axis, angle);
+    }
+
+    private AxisAngle(Quaternion q, PVector axis, double angle) {
+        super(q.w, q.x, q.y, q.z);
+        this.quaternion = q;
+        this.axis = axis.copy().normalize();
+        this.angle = angle;
+    }
+
+    /**
+     * This method creates the rotation around the X axis, matching
+     * PVector.rotateX.
+     *
+     * @param theta the rotation angle
+     * @return new rotation
+     */
+    static public AxisAngle rotationX(double theta) {
+        return new AxisAngle(new PVector(1, 0, 0), theta);
+    }
+
+    /**
+     * This method creates the rotation around the Y axis, matching
+     * PVector.rotateY.
+     *
+     * @param theta the rotation angle
+     * @return new rotation
+     */
+    static public AxisAngle rotationY(double theta) {
+        return new AxisAngle(new PVector(0, 1, 0), theta);
+    }
+
+    /**
+     * This method creates the rotation around the Z axis, matching
+     * PVector.rotateZ.
+     *
+     * @param theta the rotation angle
+     * @return new rotation
+     */
+    static public AxisAngle rotationZ(double theta) {
+        return new AxisAngle(new PVector(0, 0, 1), theta);
+    }
+
+    /**
+     * This method returns a copy of the unit rotation axis.
+     *
+     * @return the axis
+     */
+    public PVector axis() {
+        return axis.copy();
+    }
+
+    /**
+     * This method returns the rotation angle.
+     *
+     * @return the angle
+     */
+    public double angle() {
+        return angle;
+    }
+
+    /**
+     * This method returns the same rotation as a quaternion.
+     *
+     * @return the quaternion
+     */
+    public Quaternion toQuaternion() {
+        return quaternion;
+    }
+
+    /**
+     * This method creates the rotation that applies this rotation followed
+     * by the other one, without calling sin or cos.
+     *
+     * @param other the rotation applied second
+     * @return new quaternion
+     */
+    public Quaternion compose(AxisAngle other) {
+        return quaternion.compose(other.quaternion);
+    }
+}
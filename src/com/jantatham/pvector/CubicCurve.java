@@ -0,0 +1,641 @@
+package com.jantatham.pvector;
+
+import static java.lang.Math.*;
+
+/**
+ * The CubicCurve Class is a piecewise cubic curve through or near a list of
+ * PVector control points: a Bezier path, a Catmull-Rom spline or a uniform
+ * B-spline.
+ *
+ * The curve is parameterized by u in [0, 1], spread evenly over its
+ * segments. The control points are copied when the curve is created and
+ * each segment is stored as polynomial coefficients, so evaluating a point
+ * is three Horner steps per axis without any intermediate vector.
+ *
+ * Batch sampling writes into a PVectorBuffer, either evenly in u, through
+ * a BasisTable precomputed for a fixed number of samples per segment, or
+ * evenly by arc length. The arc length table is built on first use and
+ * cached, and a k-d tree over its points seeds the closest point queries.
+ * A curve is immutable, so it can be shared between threads.
+ */
+public class CubicCurve {
+
+    /**
+     * The Basis enum is the cubic basis of a curve, as the matrix M in
+     * P(t) = [t^3 t^2 t 1] M [P0 P1 P2 P3].
+     */
+    public enum Basis {
+        /**
+         * Cubic Bezier: segments share end points, so n = 3k + 1 points
+         * make k segments through every third point.
+         */
+        BEZIER(3, 1, new double[] {
+                -1,  3, -3, 1,
+                 3, -6,  3, 0,
+                -3,  3,  0, 0,
+                 1,  0,  0, 0 }),
+        /**
+         * Catmull-Rom: n points make n - 3 segments through P1 .. Pn-2.
+         */
+        CATMULL_ROM(1, 0.5, new double[] {
+                -1,  3, -3,  1,
+                 2, -5,  4, -1,
+                -1,  0,  1,  0,
+                 0,  2,  0,  0 }),
+        /**
+         * Uniform cubic B-spline: n points make n - 3 segments that
+         * approximate, but do not pass through, the points.
+         */
+        B_SPLINE(1, 1.0 / 6, new double[] {
+                -1,  3, -3, 1,
+                 3, -6,  3, 0,
+                -3,  0,  3, 0,
+                 1,  4,  1, 0 });
+
+        final int step;
+        final double[] matrix;
+
+        Basis(int step, double scale, double[] matrix) {
+            this.step = step;
+            for(int i = 0; i < 16; i++) {
+                matrix[i] *= scale;
+            }
+            this.matrix = matrix;
+        }
+
+        /**
+         * This method returns the number of segments made by a number of
+         * control points.
+         *
+         * @param points the number of control points
+         * @return the number of segments
+         */
+        public int segments(int points) {
+            return points < 4 ? 0 : (points - 4) / step + 1;
+        }
+
+        /**
+         * This method calculates the weights of the four control points of a
+         * segment at the parameter t.
+         *
+         * @param t the segment parameter, in [0, 1]
+         * @param out the four weights, or null for a new array
+         * @return the weights
+         */
+        public double[] weights(double t, double[] out) {
+            if(out == null) {
+                out = new double[4];
+            }
+            double t2 = t * t, t3 = t2 * t;
+            double[] m = matrix;
+            for(int j = 0; j < 4; j++) {
+                out[j] = t3 * m[j] + t2 * m[4 + j] + t * m[8 + j] + m[12 + j];
+            }
+            return out;
+        }
+    }
+
+    /**
+     * The BasisTable Class holds the control point weights of a basis at
+     * samples evenly spaced parameters t = k / samples, so sampling a curve
+     * at that resolution is four multiply-adds per axis and point.
+     */
+    public static final class BasisTable {
+        private final Basis basis;
+        private final int samples;
+        private final double[] weights;
+
+        /**
+         * This method is a Constructor for the table of a basis.
+         *
+         * @param basis the basis
+         * @param samples the number of samples per segment
+         */
+        public BasisTable(Basis basis, int samples) {
+            if(samples < 1) {
+                throw new IllegalArgumentException("Samples must be positive");
+            }
+            this.basis = basis;
+            this.samples = samples;
+            this.weights = new double[samples * 4 + 4];
+            double[] w = new double[4];
+            for(int k = 0; k <= samples; k++) {
+                basis.weights((double) k / samples, w);
+                System.arraycopy(w, 0, weights, k * 4, 4);
+            }
+        }
+
+        /**
+         * This method returns the basis of the table.
+         *
+         * @return the basis
+         */
+        public Basis basis() {
+            return basis;
+        }
+
+        /**
+         * This method returns the number of samples per segment.
+         *
+         * @return the samples per segment
+         */
+        public int samples() {
+            return samples;
+        }
+    }
+
+    /**
+     * The number of chords per segment of the arc length table.
+     */
+    private static final int ARC_SAMPLES = 64;
+
+    /**
+     * The number of nearest table vertices a closest point query starts
+     * from.
+     */
+    private static final int CANDIDATES = 16;
+
+    private final Basis basis;
+    private final PVectorBuffer points;
+    private final int segments;
+    // per segment and axis, the coefficients of t^3, t^2, t and 1
+    private final double[] coefficients;
+
+    private volatile ArcTable arcTable;
+
+    /**
+     * This method is a Constructor for a curve over the control points.
+     *
+     * @param basis the basis
+     * @param points the control points
+     */
+    public CubicCurve(Basis basis, PVector... points) {
+        this(basis, PVectorBuffer.fromArray(points));
+    }
+
+    /**
+     * This method is a Constructor for a curve over a copy of the control
+     * points in a buffer.
+     *
+     * @param basis the basis
+     * @param points the control points
+     */
+    public CubicCurve(Basis basis, PVectorBuffer points) {
+        int n = points.size();
+        segments = basis.segments(n);
+        if(segments == 0 || (basis == Basis.BEZIER && (n - 1) % 3 != 0)) {
+            throw new IllegalArgumentException(basis + " needs " + (basis == Basis.BEZIER ? "3k + 1" : "at least 4")
+                    + " control points, got " + n);
+        }
+        this.basis = basis;
+        this.points = points.copy();
+        coefficients = new double[segments * 12];
+        double[] m = basis.matrix;
+        double[][] axes = { this.points.x, this.points.y, this.points.z };
+        for(int s = 0; s < segments; s++) {
+            int first = s * basis.step;
+            for(int a = 0; a < 3; a++) {
+                double[] p = axes[a];
+                for(int k = 0; k < 4; k++) {
+                    coefficients[s * 12 + a * 4 + k] = m[k * 4] * p[first] + m[k * 4 + 1] * p[first + 1]
+                            + m[k * 4 + 2] * p[first + 2] + m[k * 4 + 3] * p[first + 3];
+                }
+            }
+        }
+    }
+
+    /**
+     * This method returns the basis of the curve.
+     *
+     * @return the basis
+     */
+    public Basis basis() {
+        return basis;
+    }
+
+    /**
+     * This method returns the number of segments.
+     *
+     * @return the number of segments
+     */
+    public int segments() {
+        return segments;
+    }
+
+    /**
+     * This method calculates the point of the curve at the parameter u.
+     *
+     * @param u the parameter, clamped to [0, 1]
+     * @param target the target vector, or null to create a new one
+     * @return the target vector
+     */
+    public PVector point(double u, PVector target) {
+        double scaled = clamp(u) * segments;
+        int s = segment(scaled);
+        double t = scaled - s;
+        int c = s * 12;
+        double[] k = coefficients;
+        double x = ((k[c] * t + k[c + 1]) * t + k[c + 2]) * t + k[c + 3];
+        double y = ((k[c + 4] * t + k[c + 5]) * t + k[c + 6]) * t + k[c + 7];
+        double z = ((k[c + 8] * t + k[c + 9]) * t + k[c + 10]) * t + k[c + 11];
+        return set(target, x, y, z);
+    }
+
+    /**
+     * This method calculates the derivative of the curve with respect to u
+     * at the parameter u, i.e. the tangent scaled by the speed along u.
+     *
+     * @param u the parameter, clamped to [0, 1]
+     * @param target the target vector, or null to create a new one
+     * @return the target vector
+     */
+    public PVector tangent(double u, PVector target) {
+        double scaled = clamp(u) * segments;
+        int s = segment(scaled);
+        double t = scaled - s;
+        int c = s * 12;
+        double[] k = coefficients;
+        double x = (3 * k[c] * t + 2 * k[c + 1]) * t + k[c + 2];
+        double y = (3 * k[c + 4] * t + 2 * k[c + 5]) * t + k[c + 6];
+        double z = (3 * k[c + 8] * t + 2 * k[c + 9]) * t + k[c + 10];
+        return set(target, x * segments, y * segments, z * segments);
+    }
+
+    /**
+     * This method samples the curve at count parameters evenly spaced over
+     * [0, 1], both ends included.
+     *
+     * @param count the number of samples, at least 2
+     * @param target the target buffer, at least count long, or null to
+     * create a new one
+     * @return the target buffer
+     */
+    public PVectorBuffer sample(int count, PVectorBuffer target) {
+        if(count < 2) {
+            throw new IllegalArgumentException("Count must be at least 2");
+        }
+        if(target == null) {
+            target = new PVectorBuffer(count);
+        }
+        target.checkRange(0, count);
+        double[] tx = target.x, ty = target.y, tz = target.z, k = coefficients;
+        double step = (double) segments / (count - 1);
+        for(int i = 0; i < count; i++) {
+            double scaled = i * step;
+            int s = segment(scaled);
+            double t = scaled - s;
+            int c = s * 12;
+            tx[i] = ((k[c] * t + k[c + 1]) * t + k[c + 2]) * t + k[c + 3];
+            ty[i] = ((k[c + 4] * t + k[c + 5]) * t + k[c + 6]) * t + k[c + 7];
+            tz[i] = ((k[c + 8] * t + k[c + 9]) * t + k[c + 10]) * t + k[c + 11];
+        }
+        return target;
+    }
+
+    /**
+     * This method samples every segment at the parameters of a basis table,
+     * writing segments() * table.samples() + 1 points: each segment from
+     * its start, then the end of the curve.
+     *
+     * @param table the basis table, of the curve's basis
+     * @param target the target buffer, or null to create a new one
+     * @return the target buffer
+     */
+    public PVectorBuffer sample(BasisTable table, PVectorBuffer target) {
+        if(table.basis != basis) {
+            throw new IllegalArgumentException("Table of " + table.basis + " used with a " + basis + " curve");
+        }
+        int samples = table.samples, count = segments * samples + 1;
+        if(target == null) {
+            target = new PVectorBuffer(count);
+        }
+        target.checkRange(0, count);
+        double[] px = points.x, py = points.y, pz = points.z;
+        double[] tx = target.x, ty = target.y, tz = target.z, w = table.weights;
+        int i = 0;
+        for(int s = 0; s < segments; s++) {
+            int p = s * basis.step;
+            int last = s == segments - 1 ? samples : samples - 1;
+            for(int k = 0; k <= last; k++) {
+                int j = k * 4;
+                double w0 = w[j], w1 = w[j + 1], w2 = w[j + 2], w3 = w[j + 3];
+                tx[i] = w0 * px[p] + w1 * px[p + 1] + w2 * px[p + 2] + w3 * px[p + 3];
+                ty[i] = w0 * py[p] + w1 * py[p + 1] + w2 * py[p + 2] + w3 * py[p + 3];
+                tz[i] = w0 * pz[p] + w1 * pz[p + 1] + w2 * pz[p + 2] + w3 * pz[p + 3];
+                i++;
+            }
+        }
+        return target;
+    }
+
+    /**
+     * This method returns the length of the curve, measured along the
+     * chords of the arc length table (64 per segment).
+     *
+     * @return the arc length
+     */
+    public double length() {
+        double[] lengths = arcTable().lengths;
+        return lengths[lengths.length - 1];
+    }
+
+    /**
+     * This method returns the parameter u at a distance along the curve.
+     *
+     * @param distance the distance from the start, clamped to [0, length()]
+     * @return the parameter
+     */
+    public double parameterAt(double distance) {
+        double[] lengths = arcTable().lengths;
+        int n = lengths.length - 1;
+        if(distance <= 0) {
+            return 0;
+        }
+        if(distance >= lengths[n]) {
+            return 1;
+        }
+        // the last table entry not beyond the distance
+        int lo = 0, hi = n;
+        while(hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if(lengths[mid] <= distance) {
+                lo = mid;
+            }
+            else {
+                hi = mid;
+            }
+        }
+        double chord = lengths[lo + 1] - lengths[lo];
+        double fraction = chord == 0 ? 0 : (distance - lengths[lo]) / chord;
+        return (lo + fraction) / n;
+    }
+
+    /**
+     * This method calculates the point at a distance along the curve.
+     *
+     * @param distance the distance from the start, clamped to [0, length()]
+     * @param target the target vector, or null to create a new one
+     * @return the target vector
+     */
+    public PVector pointAt(double distance, PVector target) {
+        return point(parameterAt(distance), target);
+    }
+
+    /**
+     * This method samples the curve at count points evenly spaced by arc
+     * length, both ends included.
+     *
+     * @param count the number of samples, at least 2
+     * @param target the target buffer, at least count long, or null to
+     * create a new one
+     * @return the target buffer
+     */
+    public PVectorBuffer sampleEvenly(int count, PVectorBuffer target) {
+        if(count < 2) {
+            throw new IllegalArgumentException("Count must be at least 2");
+        }
+        if(target == null) {
+            target = new PVectorBuffer(count);
+        }
+        target.checkRange(0, count);
+        double[] lengths = arcTable().lengths;
+        int n = lengths.length - 1;
+        double step = lengths[n] / (count - 1);
+        PVector v = new PVector();
+        int lo = 0;
+        for(int i = 0; i < count; i++) {
+            double distance = i == count - 1 ? lengths[n] : i * step;
+            // distances increase, so the table is walked once
+            while(lo < n - 1 && lengths[lo + 1] <= distance) {
+                lo++;
+            }
+            double chord = lengths[lo + 1] - lengths[lo];
+            double fraction = chord == 0 ? 0 : min(1, (distance - lengths[lo]) / chord);
+            point((lo + fraction) / n, v);
+            target.set(i, v.x, v.y, v.z);
+        }
+        return target;
+    }
+
+    /**
+     * This method finds the parameter of the point of the curve closest to
+     * the point (p). A k-d tree finds the vertices of the arc length table
+     * that can border the closest chord, and Newton steps on the squared
+     * distance refine the chords on both sides of each, each within its own
+     * segment.
+     *
+     * @param p the point
+     * @return the parameter of the closest point
+     */
+    public double closestParameter(PVector p) {
+        ArcTable table = arcTable();
+        double px = p.x, py = p.y, pz = p.z;
+        int[] ids = new int[CANDIDATES];
+        double[] distSq = new double[CANDIDATES];
+        int count = table.tree.nearest(px, py, pz, CANDIDATES, ids, distSq);
+        int n = table.lengths.length - 1;
+
+        // a point of a chord's arc is within about one chord length of its ends, so
+        // only chords with a vertex within reach can hold a closer point
+        double reach = sqrt(distSq[0]) + table.maxChord;
+        if(count == CANDIDATES && distSq[count - 1] <= reach * reach) {
+            // more vertices in reach than the nearest candidates hold
+            while((count = table.tree.withinRadius(px, py, pz, reach, ids, distSq)) == ids.length
+                    && ids.length <= n) {
+                ids = new int[ids.length * 4];
+                distSq = new double[ids.length];
+            }
+        }
+        double[] best = { Double.POSITIVE_INFINITY, 0 };
+        for(int i = 0; i < count; i++) {
+            if(distSq[i] < best[0]) {
+                best[0] = distSq[i];
+                best[1] = (double) ids[i] / n;
+            }
+        }
+        for(int i = 0; i < count; i++) {
+            int vertex = ids[i];
+            double distance = sqrt(distSq[i]);
+            if(vertex > 0) {
+                refine(table, vertex - 1, distance, px, py, pz, best);
+            }
+            if(vertex < n) {
+                refine(table, vertex, distance, px, py, pz, best);
+            }
+        }
+        return best[1];
+    }
+
+    /**
+     * This method finds the point of the curve closest to the point (p).
+     *
+     * @param p the point
+     * @param target the target vector, or null to create a new one
+     * @return the target vector
+     */
+    public PVector closestPoint(PVector p, PVector target) {
+        return point(closestParameter(p), target);
+    }
+
+    /**
+     * This method refines one chord of the arc length table, whose vertex is
+     * distance from p, into best, which holds the smallest squared distance
+     * and its parameter. A chord's short arc stays within about its length
+     * of the vertex, so chords too far away to beat best are skipped.
+     *
+     * The squared distance has a minimum inside the chord when f(t) =
+     * (C(t) - p) . C'(t) changes from negative to positive over it.
+     * Safeguarded Newton steps then find it, within the chord's own segment.
+     */
+    private void refine(ArcTable table, int chord, double distance, double px, double py, double pz,
+                        double[] best) {
+        double length = table.lengths[chord + 1] - table.lengths[chord];
+        double bound = distance - length;
+        if(bound > 0 && bound * bound >= best[0]) {
+            return;
+        }
+        double[] x = table.points.x, y = table.points.y, z = table.points.z;
+        PVectorBuffer leaving = table.leaving, arriving = table.arriving;
+        int end = chord + 1;
+        double f0 = (x[chord] - px) * leaving.x[chord] + (y[chord] - py) * leaving.y[chord]
+                + (z[chord] - pz) * leaving.z[chord];
+        double f1 = (x[end] - px) * arriving.x[end] + (y[end] - py) * arriving.y[end]
+                + (z[end] - pz) * arriving.z[end];
+        if(!(f0 < 0 && f1 > 0)) {
+            return;
+        }
+
+        int s = chord / ARC_SAMPLES;
+        double t0 = (double) (chord - s * ARC_SAMPLES) / ARC_SAMPLES, t1 = t0 + 1.0 / ARC_SAMPLES;
+        double[] k = coefficients;
+        int c = s * 12;
+        double lo = t0, hi = t1;
+        double t = t0 + (t1 - t0) * f0 / (f0 - f1);
+        for(int iteration = 0; iteration < 8; iteration++) {
+            double ex = value(k, c, t) - px, ey = value(k, c + 4, t) - py, ez = value(k, c + 8, t) - pz;
+            double sx = slope(k, c, t), sy = slope(k, c + 4, t), sz = slope(k, c + 8, t);
+            double f = ex * sx + ey * sy + ez * sz;
+            double df = sx*sx + sy*sy + sz*sz
+                    + ex * curvature(k, c, t) + ey * curvature(k, c + 4, t) + ez * curvature(k, c + 8, t);
+            if(f < 0) {
+                lo = t;
+            }
+            else {
+                hi = t;
+            }
+            double next = t - f / df;
+            if(!(df > 0 && next > lo && next < hi)) {
+                next = 0.5 * (lo + hi);
+            }
+            boolean done = abs(next - t) < 1e-12;
+            t = next;
+            if(done) {
+                break;
+            }
+        }
+        offer(s, t, px, py, pz, best);
+    }
+
+    private void offer(int s, double t, double px, double py, double pz, double[] best) {
+        double[] k = coefficients;
+        int c = s * 12;
+        double dx = value(k, c, t) - px, dy = value(k, c + 4, t) - py, dz = value(k, c + 8, t) - pz;
+        double dSq = dx*dx + dy*dy + dz*dz;
+        if(dSq < best[0]) {
+            best[0] = dSq;
+            best[1] = (s + t) / segments;
+        }
+    }
+
+    // the cubic with coefficients k[c .. c + 3] and its derivatives at t
+    private static double value(double[] k, int c, double t) {
+        return ((k[c] * t + k[c + 1]) * t + k[c + 2]) * t + k[c + 3];
+    }
+
+    private static double slope(double[] k, int c, double t) {
+        return (3 * k[c] * t + 2 * k[c + 1]) * t + k[c + 2];
+    }
+
+    private static double curvature(double[] k, int c, double t) {
+        return 6 * k[c] * t + 2 * k[c + 1];
+    }
+
+    /**
+     * This method returns the arc length table, building it on first use.
+     * Threads racing to build it each build an equal table and one wins.
+     */
+    private ArcTable arcTable() {
+        ArcTable table = arcTable;
+        if(table == null) {
+            arcTable = table = new ArcTable(this);
+        }
+        return table;
+    }
+
+    /**
+     * The ArcTable Class holds the cumulative chord lengths at ARC_SAMPLES
+     * parameters per segment, the points they join, a k-d tree over those
+     * points, and the derivatives at each point of the chords leaving and
+     * arriving at it, which differ where segments join without C1
+     * continuity. It is immutable, so one volatile field publishes all of it
+     * at once.
+     */
+    private static final class ArcTable {
+        final PVectorBuffer points;
+        final PVectorBuffer leaving;
+        final PVectorBuffer arriving;
+        final double[] lengths;
+        final double maxChord;
+        final KDTree tree;
+
+        ArcTable(CubicCurve curve) {
+            int n = curve.segments * ARC_SAMPLES;
+            points = curve.sample(n + 1, null);
+            leaving = new PVectorBuffer(n + 1);
+            arriving = new PVectorBuffer(n + 1);
+            double[] k = curve.coefficients;
+            for(int i = 0; i <= n; i++) {
+                int s = min(i / ARC_SAMPLES, curve.segments - 1);
+                double t = (double) (i - s * ARC_SAMPLES) / ARC_SAMPLES;
+                int c = s * 12;
+                leaving.set(i, slope(k, c, t), slope(k, c + 4, t), slope(k, c + 8, t));
+                if(i > 0 && t == 0) {
+                    // the end of the previous segment
+                    c -= 12;
+                    t = 1;
+                }
+                arriving.set(i, slope(k, c, t), slope(k, c + 4, t), slope(k, c + 8, t));
+            }
+
+            lengths = new double[n + 1];
+            double[] x = points.x, y = points.y, z = points.z;
+            double longest = 0;
+            for(int i = 1; i <= n; i++) {
+                double dx = x[i] - x[i - 1], dy = y[i] - y[i - 1], dz = z[i] - z[i - 1];
+                double chord = sqrt(dx*dx + dy*dy + dz*dz);
+                lengths[i] = lengths[i - 1] + chord;
+                longest = max(longest, chord);
+            }
+            maxChord = longest;
+            tree = new KDTree(points);
+        }
+    }
+
+    private int segment(double scaled) {
+        return min((int) scaled, segments - 1);
+    }
+
+    private static double clamp(double u) {
+        return u < 0 ? 0 : (u > 1 ? 1 : u);
+    }
+
+    private static PVector set(PVector target, double x, double y, double z) {
+        if(target == null) {
+            target = PVectorArena.obtain(x, y, z);
+        }
+        else {
+            target.set(x, y, z);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,192 @@
+package com.jantatham.pvector;
+
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+public class CubicCurveTest {
+    private static final PVector[] POINTS = {
+            new PVector(0, 0, 0), new PVector(1, 2, 0), new PVector(3, 2, 1), new PVector(4, 0, 1),
+            new PVector(5, -2, 1), new PVector(7, -1, 0), new PVector(8, 1, 2) };
+
+    private static void assertVector(PVector expected, PVector actual, double delta) {
+        assertEquals(expected.x, actual.x, delta);
+        assertEquals(expected.y, actual.y, delta);
+        assertEquals(expected.z, actual.z, delta);
+    }
+
+    // de Casteljau, built from lerp
+    private static PVector bezier(PVector p0, PVector p1, PVector p2, PVector p3, double t) {
+        PVector a = p0.copy().lerp(p1, t), b = p1.copy().lerp(p2, t), c = p2.copy().lerp(p3, t);
+        PVector d = a.lerp(b, t), e = b.lerp(c, t);
+        return d.lerp(e, t);
+    }
+
+    @org.junit.Test
+    public void bezier_matches_de_casteljau() throws Exception {
+        CubicCurve curve = new CubicCurve(CubicCurve.Basis.BEZIER, POINTS);
+        assertEquals(2, curve.segments());
+        assertVector(POINTS[0], curve.point(0, null), 1e-12);
+        assertVector(POINTS[3], curve.point(0.5, null), 1e-12);
+        assertVector(POINTS[6], curve.point(1, null), 1e-12);
+        for(int i = 0; i <= 10; i++) {
+            double t = i / 10.0;
+            assertVector(bezier(POINTS[0], POINTS[1], POINTS[2], POINTS[3], t), curve.point(t / 2, null), 1e-5);
+            assertVector(bezier(POINTS[3], POINTS[4], POINTS[5], POINTS[6], t), curve.point(0.5 + t / 2, null), 1e-5);
+        }
+        // the end tangents point at the neighbouring control points, scaled by 3 * segments
+        assertVector(PVector.sub(POINTS[1], POINTS[0]).mult(6), curve.tangent(0, null), 1e-12);
+        assertVector(PVector.sub(POINTS[6], POINTS[5]).mult(6), curve.tangent(1, null), 1e-12);
+    }
+
+    @org.junit.Test
+    public void catmull_rom_and_b_spline() throws Exception {
+        CubicCurve rom = new CubicCurve(CubicCurve.Basis.CATMULL_ROM, POINTS);
+        assertEquals(4, rom.segments());
+        for(int i = 0; i <= 4; i++) {
+            assertVector(POINTS[i + 1], rom.point(i / 4.0, null), 1e-12);
+        }
+        assertVector(PVector.sub(POINTS[2], POINTS[0]).mult(0.5 * 4), rom.tangent(0, null), 1e-12);
+
+        CubicCurve spline = new CubicCurve(CubicCurve.Basis.B_SPLINE, POINTS);
+        assertEquals(4, spline.segments());
+        for(int i = 0; i <= 4; i++) {
+            PVector expected = PVector.add(POINTS[i], POINTS[i + 2]).add(PVector.mult(POINTS[i + 1], 4)).div(6);
+            assertVector(expected, spline.point(i / 4.0, null), 1e-12);
+        }
+        // C2: the second differences match across a knot
+        double h = 1e-4;
+        PVector left = PVector.sub(spline.tangent(0.25 - h, null), spline.tangent(0.25 - 2 * h, null));
+        PVector right = PVector.sub(spline.tangent(0.25 + 2 * h, null), spline.tangent(0.25 + h, null));
+        assertVector(left, right, 1e-5);
+    }
+
+    @org.junit.Test
+    public void invalid_control_points() throws Exception {
+        try {
+            new CubicCurve(CubicCurve.Basis.BEZIER, POINTS[0], POINTS[1], POINTS[2], POINTS[3], POINTS[4]);
+            fail();
+        }
+        catch(IllegalArgumentException expected) {
+        }
+        try {
+            new CubicCurve(CubicCurve.Basis.B_SPLINE, POINTS[0], POINTS[1], POINTS[2]);
+            fail();
+        }
+        catch(IllegalArgumentException expected) {
+        }
+    }
+
+    @org.junit.Test
+    public void batch_sampling() throws Exception {
+        for(CubicCurve.Basis basis : CubicCurve.Basis.values()) {
+            CubicCurve curve = new CubicCurve(basis, POINTS);
+            PVectorBuffer even = curve.sample(17, null);
+            assertEquals(17, even.size());
+            for(int i = 0; i < 17; i++) {
+                assertVector(curve.point(i / 16.0, null), even.get(i, null), 1e-12);
+            }
+
+            CubicCurve.BasisTable table = new CubicCurve.BasisTable(basis, 8);
+            PVectorBuffer tabled = curve.sample(table, new PVectorBuffer(curve.segments() * 8 + 3));
+            for(int i = 0; i <= curve.segments() * 8; i++) {
+                assertVector(curve.point(i / (curve.segments() * 8.0), null), tabled.get(i, null), 1e-12);
+            }
+            assertVector(new PVector(), tabled.get(curve.segments() * 8 + 1, null), 0);
+        }
+        try {
+            new CubicCurve(CubicCurve.Basis.BEZIER, POINTS).sample(new CubicCurve.BasisTable(CubicCurve.Basis.B_SPLINE, 4), null);
+            fail();
+        }
+        catch(IllegalArgumentException expected) {
+        }
+        try {
+            new CubicCurve(CubicCurve.Basis.BEZIER, POINTS).sample(10, new PVectorBuffer(5));
+            fail();
+        }
+        catch(IndexOutOfBoundsException expected) {
+        }
+    }
+
+    @org.junit.Test
+    public void arc_length() throws Exception {
+        // collinear, evenly spaced Bezier points move at constant speed
+        CubicCurve line = new CubicCurve(CubicCurve.Basis.BEZIER,
+                new PVector(0, 0, 0), new PVector(1, 0, 0), new PVector(2, 0, 0), new PVector(3, 0, 0));
+        assertEquals(3, line.length(), 1e-12);
+        assertEquals(0.5, line.parameterAt(1.5), 1e-12);
+        assertEquals(0, line.parameterAt(-1), 0);
+        assertEquals(1, line.parameterAt(4), 0);
+
+        // a quarter circle of radius 1
+        double k = 0.5522847498;
+        CubicCurve arc = new CubicCurve(CubicCurve.Basis.BEZIER,
+                new PVector(1, 0, 0), new PVector(1, k, 0), new PVector(k, 1, 0), new PVector(0, 1, 0));
+        assertEquals(Math.PI / 2, arc.length(), 1e-3);
+
+        CubicCurve curve = new CubicCurve(CubicCurve.Basis.CATMULL_ROM, POINTS);
+        PVectorBuffer samples = curve.sampleEvenly(41, null);
+        assertVector(curve.point(0, null), samples.get(0, null), 1e-12);
+        assertVector(curve.point(1, null), samples.get(40, null), 1e-12);
+        double chord = curve.length() / 40;
+        for(int i = 1; i < 41; i++) {
+            double d = samples.get(i, null).dist(samples.get(i - 1, null));
+            assertEquals(chord, d, chord * 1e-2);
+            assertVector(curve.pointAt(i * chord, null), samples.get(i, null), 1e-9);
+        }
+    }
+
+    @org.junit.Test
+    public void closest_point() throws Exception {
+        Random random = new Random(3);
+        for(CubicCurve.Basis basis : CubicCurve.Basis.values()) {
+            CubicCurve curve = new CubicCurve(basis, POINTS);
+            PVectorBuffer dense = curve.sample(200001, null);
+            for(int i = 0; i < 50; i++) {
+                PVector p = new PVector((random.nextDouble() * 10 - 1), (random.nextDouble() * 6 - 3),
+                        (random.nextDouble() * 3 - 1));
+                double brute = Double.POSITIVE_INFINITY;
+                for(int j = 0; j < dense.size(); j++) {
+                    brute = Math.min(brute, dense.get(j, null).dist(p));
+                }
+                double found = curve.closestPoint(p, null).dist(p);
+                assertTrue(basis + " " + found + " > " + brute, found <= brute + 1e-6);
+            }
+            // a point on the curve is its own closest point
+            PVector on = curve.point(0.37, null);
+            assertEquals(0.37, curve.closestParameter(on), 1e-6);
+        }
+    }
+
+    @org.junit.Test
+    public void closest_point_across_segment_joins() throws Exception {
+        Random random = new Random(11);
+        PVector[] control = new PVector[37];
+        for(int i = 0; i < control.length; i++) {
+            control[i] = new PVector(random.nextDouble() * 20, random.nextDouble() * 20, random.nextDouble() * 4);
+        }
+        CubicCurve curve = new CubicCurve(CubicCurve.Basis.BEZIER, control);
+        assertEquals(12, curve.segments());
+        PVectorBuffer dense = curve.sample(200001, null);
+        for(int i = 0; i < 300; i++) {
+            PVector p;
+            if(i % 2 == 0) {
+                // near a join
+                p = control[3 * (1 + random.nextInt(11))].copy()
+                        .add(random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+            }
+            else {
+                p = new PVector(random.nextDouble() * 24 - 2, random.nextDouble() * 24 - 2, random.nextDouble() * 8 - 2);
+            }
+            double brute = Double.POSITIVE_INFINITY;
+            for(int j = 0; j < dense.size(); j++) {
+                double dx = dense.x[j] - p.x, dy = dense.y[j] - p.y, dz = dense.z[j] - p.z;
+                brute = Math.min(brute, dx*dx + dy*dy + dz*dz);
+            }
+            double found = curve.closestPoint(p, null).dist(p);
+            assertTrue(found + " > " + Math.sqrt(brute), found <= Math.sqrt(brute) + 1e-6);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.jantatham.pvector;
+
+import static java.lang.Math.*;
+
+/**
+ * The DistanceMatrix Class computes pairwise distances between two point
+ * sets into caller-provided arrays.
+ *
+ * The loops are cache-blocked: a tile of rows from a is compared with a
+ * tile of columns from b that stays in L1 cache. The result for rows
+ * [aFrom, aTo) and columns [bFrom, bTo) is written row-major, so entry
+ * (i, j) is at out[(i - aFrom) * (bTo - bFrom) + (j - bFrom)]. Matrices too
+ * large for one array, such as 50k x 50k, are computed a band of rows at a
+ * time through the range methods.
+ */
+public class DistanceMatrix {
+
+    static final int ROW_BLOCK = 64;
+    static final int COLUMN_BLOCK = 256;
+
+    private DistanceMatrix() {
+
+    }
+
+    /**
+     * This method calculates the squared distance between every point of a
+     * and every point of b.
+     *
+     * @param a the row points
+     * @param b the column points
+     * @param out the a.size() x b.size() matrix
+     * @return the matrix
+     */
+    static public double[] distSq(PVectorBuffer a, PVectorBuffer b, double[] out) {
+        return distSq(a, 0, a.size(), b, 0, b.size(), out);
+    }
+
+    /**
+     * This method calculates the squared distance between the points
+     * [aFrom, aTo) of a and [bFrom, bTo) of b.
+     *
+     * @param a the row points
+     * @param aFrom the first row
+     * @param aTo the row after the last
+     * @param b the column points
+     * @param bFrom the first column
+     * @param bTo the column after the last
+     * @param out the (aTo - aFrom) x (bTo - bFrom) matrix
+     * @return the matrix
+     */
+    static public double[] distSq(PVectorBuffer a, int aFrom, int aTo,
+                                  PVectorBuffer b, int bFrom, int bTo, double[] out) {
+        fill(a, aFrom, aTo, b, bFrom, bTo, out, false);
+        return out;
+    }
+
+    /**
+     * This method calculates the distance between every point of a and
+     * every point of b.
+     *
+     * @param a the row points
+     * @param b the column points
+     * @param out the a.size() x b.size() matrix
+     * @return the matrix
+     */
+    static public double[] dist(PVectorBuffer a, PVectorBuffer b, double[] out) {
+        return dist(a, 0, a.size(), b, 0, b.size(), out);
+    }
+
+    /**
+     * This method calculates the distance between the points [aFrom, aTo)
+     * of a and [bFrom, bTo) of b.
+     *
+     * @param a the row points
+     * @param aFrom the first row
+     * @param aTo the row after the last
+     * @param b the column points
+     * @param bFrom the first column
+     * @param bTo the column after the last
+     * @param out the (aTo - aFrom) x (bTo - bFrom) matrix
+     * @return the matrix
+     */
+    static public double[] dist(PVectorBuffer a, int aFrom, int aTo,
+                                PVectorBuffer b, int bFrom, int bTo, double[] out) {
+        fill(a, aFrom, aTo, b, bFrom, bTo, out, true);
+        return out;
+    }
+
+    /**
+     * This method calculates the distance matrix with the rows split across
+     * a ParallelVectorOps pool. Each row counts as b.size() operations
+     * towards the grain and threshold.
+     *
+     * @param a the row points
+     * @param b the column points
+     * @param out the a.size() x b.size() matrix
+     * @param ops the parallel executor
+     * @return the matrix
+     */
+    static public double[] dist(final PVectorBuffer a, final PVectorBuffer b, final double[] out,
+                                ParallelVectorOps ops) {
+        checkSize(a.size(), b.size(), out.length);
+        ops.run(a.size(), b.size(), (from, to) -> fillRows(a, from, to, 0, b, 0, b.size(), out, true));
+        return out;
+    }
+
+    /**
+     * This method marks every pair of points of a and b that are no
+     * further apart than threshold. It compares squared distances, so no
+     * square root is taken.
+     *
+     * @param a the row points
+     * @param b the column points
+     * @param threshold the largest distance marked
+     * @param out the a.size() x b.size() matrix of flags
+     * @return the number of pairs marked
+     */
+    static public int withinThreshold(PVectorBuffer a, PVectorBuffer b, double threshold, boolean[] out) {
+        return withinThreshold(a, 0, a.size(), b, 0, b.size(), threshold, out);
+    }
+
+    /**
+     * This method marks the pairs of the points [aFrom, aTo) of a and
+     * [bFrom, bTo) of b that are no further apart than threshold.
+     *
+     * @param a the row points
+     * @param aFrom the first row
+     * @param aTo the row after the last
+     * @param b the column points
+     * @param bFrom the first column
+     * @param bTo the column after the last
+     * @param threshold the largest distance marked
+     * @param out the (aTo - aFrom) x (bTo - bFrom) matrix of flags
+     * @return the number of pairs marked
+     */
+    static public int withinThreshold(PVectorBuffer a, int aFrom, int aTo,
+                                      PVectorBuffer b, int bFrom, int bTo,
+                                      double threshold, boolean[] out) {
+        a.checkRange(aFrom, aTo);
+        b.checkRange(bFrom, bTo);
+        int columns = bTo - bFrom;
+        checkSize(aTo - aFrom, columns, out.length);
+
+        double limit = threshold * threshold;
+        double[] ax = a.x, ay = a.y, az = a.z;
+        double[] bx = b.x, by = b.y, bz = b.z;
+        int count = 0;
+        for(int i0 = aFrom; i0 < aTo; i0 += ROW_BLOCK) {
+            int i1 = min(i0 + ROW_BLOCK, aTo);
+            for(int j0 = bFrom; j0 < bTo; j0 += COLUMN_BLOCK) {
+                int j1 = min(j0 + COLUMN_BLOCK, bTo);
+                for(int i = i0; i < i1; i++) {
+                    double x = ax[i], y = ay[i], z = az[i];
+                    int row = (i - aFrom) * columns - bFrom;
+                    for(int j = j0; j < j1; j++) {
+                        double dx = x - bx[j], dy = y - by[j], dz = z - bz[j];
+                        boolean within = dx*dx + dy*dy + dz*dz <= limit;
+                        out[row + j] = within;
+                        if(within) {
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void fill(PVectorBuffer a, int aFrom, int aTo,
+                             PVectorBuffer b, int bFrom, int bTo, double[] out, boolean root) {
+        a.checkRange(aFrom, aTo);
+        b.checkRange(bFrom, bTo);
+        checkSize(aTo - aFrom, bTo - bFrom, out.length);
+        fillRows(a, aFrom, aTo, aFrom, b, bFrom, bTo, out, root);
+    }
+
+    /**
+     * This method fills the rows [from, to) of a matrix whose first row is
+     * origin.
+     */
+    private static void fillRows(PVectorBuffer a, int from, int to, int origin,
+                                 PVectorBuffer b, int bFrom, int bTo, double[] out, boolean root) {
+        int columns = bTo - bFrom;
+        double[] ax = a.x, ay = a.y, az = a.z;
+        double[] bx = b.x, by = b.y, bz = b.z;
+        for(int i0 = from; i0 < to; i0 += ROW_BLOCK) {
+            int i1 = min(i0 + ROW_BLOCK, to);
+            for(int j0 = bFrom; j0 < bTo; j0 += COLUMN_BLOCK) {
+                int j1 = min(j0 + COLUMN_BLOCK, bTo);
+                for(int i = i0; i < i1; i++) {
+                    double x = ax[i], y = ay[i], z = az[i];
+                    int row = (i - origin) * columns - bFrom;
+                    for(int j = j0; j < j1; j++) {
+                        double dx = x - bx[j], dy = y - by[j], dz = z - bz[j];
+                        out[row + j] = dx*dx + dy*dy + dz*dz;
+                    }
+                    if(root) {
+                        for(int j = j0; j < j1; j++) {
+                            out[row + j] = sqrt(out[row + j]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void checkSize(int rows, int columns, int length) {
+        if((long) rows * columns > length) {
+            throw new IllegalArgumentException("Output holds " + length + " entries, "
+                    + rows + " x " + columns + " needed");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.jantatham.pvector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class DistanceMatrixTest {
+    private static final PVector MIN = new PVector(0, 0, 0), MAX = new PVector(10, 10, 10);
+
+    @org.junit.Test
+    public void dist_matches_pVector_dist() throws Exception {
+        PVectorBuffer a = TestVectors.uniformBuffer(150, 1, MIN, MAX);
+        PVectorBuffer b = TestVectors.uniformBuffer(300, 2, MIN, MAX);
+        double[] out = DistanceMatrix.dist(a, b, new double[150 * 300]);
+        double[] sq = DistanceMatrix.distSq(a, b, new double[150 * 300]);
+        for(int i = 0; i < 150; i += 7) {
+            for(int j = 0; j < 300; j += 11) {
+                PVector p = a.get(i, null);
+                PVector q = b.get(j, null);
+                assertEquals(out[i * 300 + j], p.dist(q), 0.000000001);
+                assertEquals(sq[i * 300 + j], p.distSq(q), 0.000000001);
+            }
+        }
+    }
+
+    @org.junit.Test
+    public void range_writes_sub_matrix() throws Exception {
+        PVectorBuffer a = TestVectors.uniformBuffer(20, 3, MIN, MAX);
+        PVectorBuffer b = TestVectors.uniformBuffer(30, 4, MIN, MAX);
+        double[] full = DistanceMatrix.distSq(a, b, new double[20 * 30]);
+        double[] band = DistanceMatrix.distSq(a, 5, 8, b, 10, 30, new double[3 * 20]);
+        assertEquals(band[0], full[5 * 30 + 10], 0);
+        assertEquals(band[2 * 20 + 19], full[7 * 30 + 29], 0);
+    }
+
+    @org.junit.Test
+    public void parallel_dist_matches_sequential() throws Exception {
+        PVectorBuffer a = TestVectors.uniformBuffer(500, 5, MIN, MAX);
+        PVectorBuffer b = TestVectors.uniformBuffer(400, 6, MIN, MAX);
+        double[] expected = DistanceMatrix.dist(a, b, new double[500 * 400]);
+        double[] actual;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            actual = DistanceMatrix.dist(a, b, new double[500 * 400], new ParallelVectorOps(pool, 50, 0));
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        for(int i = 0; i < expected.length; i++) {
+            assertEquals(actual[i], expected[i], 0);
+        }
+    }
+
+    @org.junit.Test
+    public void parallel_dist_splits_rows_with_default_grain() throws Exception {
+        final List<int[]> ranges = Collections.synchronizedList(new ArrayList<int[]>());
+        ParallelVectorOps ops = new ParallelVectorOps() {
+            @Override
+            public void run(int size, int cost, RangeAction action) {
+                super.run(size, cost, (from, to) -> {
+                    ranges.add(new int[] { from, to });
+                    action.apply(from, to);
+                });
+            }
+        };
+        PVectorBuffer a = TestVectors.uniformBuffer(1000, 9, MIN, MAX);
+        PVectorBuffer b = TestVectors.uniformBuffer(1000, 10, MIN, MAX);
+        double[] expected = DistanceMatrix.dist(a, b, new double[1000 * 1000]);
+        double[] actual = DistanceMatrix.dist(a, b, new double[1000 * 1000], ops);
+        assertTrue("ranges " + ranges.size(), ranges.size() > 1);
+        // the ranges cover every row once
+        ranges.sort((r1, r2) -> Integer.compare(r1[0], r2[0]));
+        int next = 0;
+        for(int[] range : ranges) {
+            assertEquals(next, range[0]);
+            assertTrue(range[1] > range[0]);
+            next = range[1];
+        }
+        assertEquals(1000, next);
+        for(int i = 0; i < expected.length; i++) {
+            assertEquals(actual[i], expected[i], 0);
+        }
+    }
+
+    @org.junit.Test
+    public void withinThreshold_counts_pairs() throws Exception {
+        PVectorBuffer a = PVectorBuffer.fromArray(new PVector[] { new PVector(0, 0, 0), new PVector(10, 0, 0) });
+        PVectorBuffer b = PVectorBuffer.fromArray(new PVector[] { new PVector(0, 0, 3), new PVector(0, 4, 3), new PVector(9, 0, 0) });
+        boolean[] out = new boolean[6];
+        assertEquals(DistanceMatrix.withinThreshold(a, b, 5, out), 3);
+        assertTrue(out[0]);
+        assertTrue(out[1]);
+        assertFalse(out[2]);
+        assertTrue(out[5]);
+    }
+
+    @org.junit.Test(expected = IllegalArgumentException.class)
+    public void output_too_small_is_rejected() throws Exception {
+        DistanceMatrix.dist(TestVectors.uniformBuffer(3, 7, MIN, MAX), TestVectors.uniformBuffer(3, 8, MIN, MAX), new double[8]);
+    }
+}
@@ -0,0 +1,397 @@
+package com.jantatham.pvector;
+
+/**
+ * The FastMath Class holds approximate versions of the PVector methods that
+ * go through sqrt, atan2, acos, sin and cos, for simulations that do not
+ * need full precision. They are opt-in: PVector and PVectorBuffer stay
+ * exact, and code that wants the approximations calls FastMath instead,
+ * either per vector or over a buffer range.
+ *
+ * Every approximation has a documented maximum error, published as a
+ * constant and checked by the tests:
+ *
+ *  - invSqrt: relative error below INV_SQRT_ERROR, so normalize, setMag and
+ *    limit leave magnitudes within that relative error of the exact ones.
+ *  - atan2 and heading: absolute error below ATAN_ERROR radians.
+ *  - acos and angleBetween: absolute error below ACOS_ERROR radians.
+ *  - sin and cos: absolute error below SIN_ERROR for |angle| up to
+ *    SIN_RANGE; the range reduction loses precision beyond it.
+ *
+ * The inverse square root is the bit-level initial guess refined by two
+ * Newton steps. On JVMs where 1 / Math.sqrt is a fast intrinsic it gains
+ * little; the polynomial trigonometric functions are where most of the time
+ * is saved.
+ */
+public final class FastMath {
+
+    public static final double INV_SQRT_ERROR = 5e-6;
+    public static final double ATAN_ERROR = 2e-6;
+    public static final double ACOS_ERROR = 3e-8;
+    public static final double SIN_ERROR = 1e-9;
+    public static final double SIN_RANGE = 1e4;
+
+    private static final double PI = Math.PI;
+    private static final double HALF_PI = Math.PI / 2;
+    private static final double TWO_PI = Math.PI * 2;
+    private static final double INV_TWO_PI = 1 / TWO_PI;
+
+    private FastMath() {
+    }
+
+    /**
+     * This method approximates 1 / sqrt(n) for n &gt; 0.
+     *
+     * @param n the number
+     * @return the inverse square root
+     */
+    static public double invSqrt(double n) {
+        double half = 0.5 * n;
+        double y = Double.longBitsToDouble(0x5fe6eb50c7b537a9L - (Double.doubleToRawLongBits(n) >> 1));
+        y = y * (1.5 - half * y * y);
+        y = y * (1.5 - half * y * y);
+        return y;
+    }
+
+    /**
+     * This method approximates atan2(y, x).
+     *
+     * @param y the ordinate
+     * @param x the abscissa
+     * @return the angle in radians, in [-PI, PI]
+     */
+    static public double atan2(double y, double x) {
+        double ax = Math.abs(x), ay = Math.abs(y);
+        if(ax == 0 && ay == 0) {
+            return 0;
+        }
+        // atan on [0, 1], then the octant
+        boolean swap = ay > ax;
+        double t = swap ? ax / ay : ay / ax;
+        double t2 = t * t;
+        double a = t * (0.99997726 + t2 * (-0.33262347 + t2 * (0.19354346
+                + t2 * (-0.11643287 + t2 * (0.05265332 + t2 * -0.01172120)))));
+        if(swap) {
+            a = HALF_PI - a;
+        }
+        if(x < 0) {
+            a = PI - a;
+        }
+        return y < 0 ? -a : a;
+    }
+
+    /**
+     * This method approximates acos(n) with the polynomial of Abramowitz
+     * and Stegun 4.4.46. Arguments outside [-1, 1] are clamped.
+     *
+     * @param n the cosine
+     * @return the angle in radians, in [0, PI]
+     */
+    static public double acos(double n) {
+        if(n >= 1) {
+            return 0;
+        }
+        if(n <= -1) {
+            return PI;
+        }
+        double x = Math.abs(n);
+        double p = 1.5707963050 + x * (-0.2145988016 + x * (0.0889789874 + x * (-0.0501743046
+                + x * (0.0308918810 + x * (-0.0170881256 + x * (0.0066700901 + x * -0.0012624911))))));
+        double a = Math.sqrt(1 - x) * p;
+        return n < 0 ? PI - a : a;
+    }
+
+    /**
+     * This method approximates sin(angle).
+     *
+     * @param angle the angle in radians
+     * @return the sine
+     */
+    static public double sin(double angle) {
+        // reduce to [-PI, PI], then to [-PI/2, PI/2] by sin(PI - x) = sin(x)
+        double x = angle - TWO_PI * Math.rint(angle * INV_TWO_PI);
+        if(x > HALF_PI) {
+            x = PI - x;
+        }
+        else if(x < -HALF_PI) {
+            x = -PI - x;
+        }
+        double x2 = x * x;
+        return x * (1 + x2 * (-1.0 / 6 + x2 * (1.0 / 120 + x2 * (-1.0 / 5040 + x2 * (1.0 / 362880
+                + x2 * (-1.0 / 39916800 + x2 * (1.0 / 6227020800L)))))));
+    }
+
+    /**
+     * This method approximates cos(angle).
+     *
+     * @param angle the angle in radians
+     * @return the cosine
+     */
+    static public double cos(double angle) {
+        return sin(angle + HALF_PI);
+    }
+
+    /**
+     * This method approximates the magnitude of the vector (v).
+     *
+     * @param v the vector
+     * @return the magnitude
+     */
+    static public double mag(PVector v) {
+        double mSq = v.x*v.x + v.y*v.y + v.z*v.z;
+        return mSq == 0 ? 0 : mSq * invSqrt(mSq);
+    }
+
+    /**
+     * This method normalizes the vector (v) to length 1. Zero vectors are
+     * left unchanged.
+     *
+     * @param v the vector
+     * @return the vector
+     */
+    static public PVector normalize(PVector v) {
+        double mSq = v.x*v.x + v.y*v.y + v.z*v.z;
+        if(mSq != 0) {
+            double inverse = invSqrt(mSq);
+            v.set(v.x * inverse, v.y * inverse, v.z * inverse);
+        }
+        return v;
+    }
+
+    /**
+     * This method sets the magnitude of the vector (v) to len. Zero vectors
+     * are left unchanged.
+     *
+     * @param v the vector
+     * @param len the new length of the vector
+     * @return the vector
+     */
+    static public PVector setMag(PVector v, double len) {
+        double mSq = v.x*v.x + v.y*v.y + v.z*v.z;
+        if(mSq != 0) {
+            double scale = len * invSqrt(mSq);
+            v.set(v.x * scale, v.y * scale, v.z * scale);
+        }
+        return v;
+    }
+
+    /**
+     * This method limits the magnitude of the vector (v) to max.
+     *
+     * @param v the vector
+     * @param max the maximum limit
+     * @return the vector
+     */
+    static public PVector limit(PVector v, double max) {
+        double mSq = v.x*v.x + v.y*v.y + v.z*v.z;
+        if(mSq > max * max) {
+            double scale = max * invSqrt(mSq);
+            v.set(v.x * scale, v.y * scale, v.z * scale);
+        }
+        return v;
+    }
+
+    /**
+     * This method approximates the 2D heading of the vector (v).
+     *
+     * @param v the vector
+     * @return the angle of rotation
+     */
+    static public double heading(PVector v) {
+        return atan2(v.y, v.x);
+    }
+
+    /**
+     * This method approximates the angle between two vectors, or 0 if either
+     * is the zero vector.
+     *
+     * @param v1 the first vector
+     * @param v2 the second vector
+     * @return the angle in radians
+     */
+    static public double angleBetween(PVector v1, PVector v2) {
+        double m1 = v1.x*v1.x + v1.y*v1.y + v1.z*v1.z;
+        double m2 = v2.x*v2.x + v2.y*v2.y + v2.z*v2.z;
+        if(m1 == 0 || m2 == 0) {
+            return 0.0;
+        }
+        double dot = v1.x*v2.x + v1.y*v2.y + v1.z*v2.z;
+        return acos(dot / Math.sqrt(m1 * m2));
+    }
+
+    /**
+     * This method approximates a unit 2D vector pointing at the angle.
+     *
+     * @param angle the angle
+     * @param target the target vector, or null to create a new one
+     * @return the target vector
+     */
+    static public PVector fromAngle(double angle, PVector target) {
+        if(target == null) {
+            target = PVectorArena.obtain(cos(angle), sin(angle), 0);
+        }
+        else {
+            target.set(cos(angle), sin(angle), 0);
+        }
+        return target;
+    }
+
+    /**
+     * This method rotates the vector (v) by the angle in 2D (X, Y).
+     *
+     * @param v the vector
+     * @param theta the rotation angle
+     * @return the vector
+     */
+    static public PVector rotate(PVector v, double theta) {
+        double cos = cos(theta);
+        double sin = sin(theta);
+        return v.set(v.x * cos - v.y * sin, v.x * sin + v.y * cos);
+    }
+
+    /**
+     * This method normalizes the vectors in the range [from, to) of a
+     * buffer.
+     *
+     * @param buffer the vectors
+     * @param from the first index
+     * @param to the index after the last
+     * @return the buffer
+     */
+    static public PVectorBuffer normalize(PVectorBuffer buffer, int from, int to) {
+        return setMag(buffer, from, to, 1);
+    }
+
+    /**
+     * This method sets the magnitude of the vectors in the range [from, to)
+     * of a buffer to len. Zero vectors are left unchanged.
+     *
+     * @param buffer the vectors
+     * @param from the first index
+     * @param to the index after the last
+     * @param len the new length of the vectors
+     * @return the buffer
+     */
+    static public PVectorBuffer setMag(PVectorBuffer buffer, int from, int to, double len) {
+        buffer.checkRange(from, to);
+        double[] bx = buffer.x, by = buffer.y, bz = buffer.z;
+        for(int i = from; i < to; i++) {
+            double mSq = bx[i]*bx[i] + by[i]*by[i] + bz[i]*bz[i];
+            if(mSq != 0) {
+                double scale = len * invSqrt(mSq);
+                bx[i] *= scale;
+                by[i] *= scale;
+                bz[i] *= scale;
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * This method limits the magnitude of the vectors in the range
+     * [from, to) of a buffer to max.
+     *
+     * @param buffer the vectors
+     * @param from the first index
+     * @param to the index after the last
+     * @param max the maximum limit
+     * @return the buffer
+     */
+    static public PVectorBuffer limit(PVectorBuffer buffer, int from, int to, double max) {
+        buffer.checkRange(from, to);
+        double[] bx = buffer.x, by = buffer.y, bz = buffer.z;
+        double maxSq = max * max;
+        for(int i = from; i < to; i++) {
+            double mSq = bx[i]*bx[i] + by[i]*by[i] + bz[i]*bz[i];
+            if(mSq > maxSq) {
+                double scale = max * invSqrt(mSq);
+                bx[i] *= scale;
+                by[i] *= scale;
+                bz[i] *= scale;
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * This method approximates the magnitudes of the vectors in the range
+     * [from, to) of a buffer.
+     *
+     * @param buffer the vectors
+     * @param from the first index
+     * @param to the index after the last
+     * @param out the magnitudes, written to the same indices as the vectors,
+     * or null for a new array of buffer.size() values
+     * @return the magnitudes
+     */
+    static public double[] mag(PVectorBuffer buffer, int from, int to, double[] out) {
+        buffer.checkRange(from, to);
+        if(out == null) {
+            out = new double[buffer.size()];
+        }
+        double[] bx = buffer.x, by = buffer.y, bz = buffer.z;
+        for(int i = from; i < to; i++) {
+            double mSq = bx[i]*bx[i] + by[i]*by[i] + bz[i]*bz[i];
+            out[i] = mSq == 0 ? 0 : mSq * invSqrt(mSq);
+        }
+        return out;
+    }
+
+    /**
+     * This method approximates the angles between the vectors in the range
+     * [from, to) of a and the vectors at the same indices of b. As with
+     * PVector.angleBetween a zero vector gives 0, and rounding that pushes
+     * the cosine past -1 or 1 gives PI or 0.
+     *
+     * @param a the first vectors
+     * @param b the second vectors
+     * @param from the first index
+     * @param to the index after the last
+     * @param out the angles, written to the same indices as the vectors, or
+     * null for a new array of a.size() values
+     * @return the angles
+     */
+    static public double[] angleBetween(PVectorBuffer a, PVectorBuffer b, int from, int to, double[] out) {
+        a.checkRange(from, to);
+        b.checkRange(from, to);
+        if(out == null) {
+            out = new double[a.size()];
+        }
+        double[] ax = a.x, ay = a.y, az = a.z;
+        double[] bx = b.x, by = b.y, bz = b.z;
+        for(int i = from; i < to; i++) {
+            double aSq = ax[i]*ax[i] + ay[i]*ay[i] + az[i]*az[i];
+            double bSq = bx[i]*bx[i] + by[i]*by[i] + bz[i]*bz[i];
+            if(aSq == 0 || bSq == 0) {
+                out[i] = 0;
+            }
+            else {
+                double dot = ax[i]*bx[i] + ay[i]*by[i] + az[i]*bz[i];
+                out[i] = acos(dot / (Math.sqrt(aSq) * Math.sqrt(bSq)));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * This method approximates the 2D headings of the vectors in the range
+     * [from, to) of a buffer.
+     *
+     * @param buffer the vectors
+     * @param from the first index
+     * @param to the index after the last
+     * @param out the headings, written to the same indices as the vectors,
+     * or null for a new array of buffer.size() values
+     * @return the headings
+     */
+    static public double[] heading(PVectorBuffer buffer, int from, int to, double[] out) {
+        buffer.checkRange(from, to);
+        if(out == null) {
+            out = new double[buffer.size()];
+        }
+        double[] bx = buffer.x, by = buffer.y;
+        for(int i = from; i < to; i++) {
+            out[i] = atan2(by[i], bx[i]);
+        }
+        return out;
+    }
+}
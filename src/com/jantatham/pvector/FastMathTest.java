@@ -0,0 +1,115 @@
+package com.jantatham.pvector;
+
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class FastMathTest {
+    @org.junit.Test
+    public void inv_sqrt_within_bound() throws Exception {
+        Random random = new Random(1);
+        double worst = 0;
+        for(int i = 0; i < 1000000; i++) {
+            double n = Math.exp(random.nextDouble() * 200 - 100);
+            worst = Math.max(worst, Math.abs(FastMath.invSqrt(n) * Math.sqrt(n) - 1));
+        }
+        assertTrue("invSqrt error " + worst, worst < FastMath.INV_SQRT_ERROR);
+    }
+
+    @org.junit.Test
+    public void trigonometry_within_bounds() throws Exception {
+        Random random = new Random(2);
+        double atan = 0, acos = 0, sin = 0, cos = 0;
+        for(int i = 0; i < 1000000; i++) {
+            double y = random.nextGaussian(), x = random.nextGaussian();
+            atan = Math.max(atan, Math.abs(FastMath.atan2(y, x) - Math.atan2(y, x)));
+            double c = random.nextDouble() * 2 - 1;
+            acos = Math.max(acos, Math.abs(FastMath.acos(c) - Math.acos(c)));
+            double angle = (random.nextDouble() * 2 - 1) * FastMath.SIN_RANGE;
+            sin = Math.max(sin, Math.abs(FastMath.sin(angle) - Math.sin(angle)));
+            cos = Math.max(cos, Math.abs(FastMath.cos(angle) - Math.cos(angle)));
+        }
+        assertTrue("atan2 error " + atan, atan < FastMath.ATAN_ERROR);
+        assertTrue("acos error " + acos, acos < FastMath.ACOS_ERROR);
+        assertTrue("sin error " + sin, sin < FastMath.SIN_ERROR);
+        assertTrue("cos error " + cos, cos < FastMath.SIN_ERROR);
+
+        assertEquals(FastMath.atan2(0, -1), Math.PI, FastMath.ATAN_ERROR);
+        assertEquals(FastMath.atan2(-1, 0), -Math.PI / 2, FastMath.ATAN_ERROR);
+        assertEquals(FastMath.atan2(0, 0), 0, 0);
+        assertEquals(FastMath.acos(-1), Math.PI, 0);
+        assertEquals(FastMath.acos(2), 0, 0);
+    }
+
+    @org.junit.Test
+    public void vector_methods_within_bounds() throws Exception {
+        Random random = new Random(3);
+        for(int i = 0; i < 10000; i++) {
+            PVector a = new PVector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).mult(100);
+            PVector b = new PVector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+            assertEquals(FastMath.mag(a), a.mag(), a.mag() * FastMath.INV_SQRT_ERROR);
+            assertEquals(FastMath.heading(a), a.heading(), FastMath.ATAN_ERROR);
+            assertEquals(FastMath.angleBetween(a, b), PVector.angleBetween(a, b), FastMath.ACOS_ERROR);
+
+            PVector expected = a.copy().normalize();
+            PVector actual = FastMath.normalize(a.copy());
+            assertEquals(actual.x, expected.x, FastMath.INV_SQRT_ERROR);
+            assertEquals(actual.mag(), 1, FastMath.INV_SQRT_ERROR);
+            assertEquals(FastMath.setMag(a.copy(), 3).mag(), 3, 3 * FastMath.INV_SQRT_ERROR);
+            assertEquals(FastMath.limit(a.copy(), 2).mag(), Math.min(a.mag(), 2), 2 * FastMath.INV_SQRT_ERROR);
+
+            double angle = random.nextDouble() * 20 - 10;
+            PVector rotated = FastMath.rotate(b.copy(), angle);
+            PVector exact = b.copy().rotate(angle);
+            assertEquals(rotated.x, exact.x, 10 * FastMath.SIN_ERROR);
+            assertEquals(rotated.y, exact.y, 10 * FastMath.SIN_ERROR);
+            assertEquals(FastMath.fromAngle(angle, null).y, Math.sin(angle), FastMath.SIN_ERROR);
+        }
+        PVector zero = FastMath.normalize(new PVector());
+        assertEquals(zero.x, 0, 0);
+    }
+
+    @org.junit.Test
+    public void buffer_methods_within_bounds() throws Exception {
+        Random random = new Random(4);
+        PVectorBuffer buffer = new PVectorBuffer(1000);
+        for(int i = 0; i < 1000; i++) {
+            buffer.set(i, random.nextGaussian() * 5, random.nextGaussian() * 5, random.nextGaussian() * 5);
+        }
+        double[] mags = FastMath.mag(buffer, 0, 1000, null);
+        double[] headings = FastMath.heading(buffer, 10, 20, new double[20]);
+        assertEquals(headings[10], Math.atan2(buffer.y[10], buffer.x[10]), FastMath.ATAN_ERROR);
+        assertEquals(headings[9], 0.0, 0);
+        PVectorBuffer limited = FastMath.limit(buffer.copy(), 0, 1000, 4);
+        FastMath.normalize(buffer, 0, 500);
+        FastMath.setMag(buffer, 500, 1000, 2);
+        for(int i = 0; i < 1000; i++) {
+            double m = i < 500 ? 1 : 2;
+            assertEquals(buffer.mag(i), m, m * FastMath.INV_SQRT_ERROR);
+            assertEquals(limited.mag(i), Math.min(mags[i], 4), 4 * FastMath.INV_SQRT_ERROR);
+        }
+    }
+
+    @org.junit.Test
+    public void buffer_angleBetween_within_bound() throws Exception {
+        PVectorBuffer a = TestVectors.randomBuffer(1000, 5);
+        PVectorBuffer b = TestVectors.randomBuffer(1000, 6);
+        a.set(100, 0, 0, 0);
+        b.set(101, 0, 0, 0);
+        b.set(102, a.get(102, null).mult(3));
+        b.set(103, a.get(103, null).mult(-0.5));
+        double[] out = FastMath.angleBetween(a, b, 100, 1000, null);
+        assertEquals(out.length, 1000);
+        assertEquals(out[99], 0.0, 0);
+        assertEquals(out[100], 0.0, 0);
+        assertEquals(out[101], 0.0, 0);
+        assertEquals(out[102], 0.0, FastMath.ACOS_ERROR);
+        assertEquals(out[103], Math.PI, FastMath.ACOS_ERROR);
+        double worst = 0;
+        for(int i = 104; i < 1000; i++) {
+            worst = Math.max(worst, Math.abs(out[i] - PVector.angleBetween(a.get(i, null), b.get(i, null))));
+        }
+        assertTrue("angleBetween error " + worst, worst < FastMath.ACOS_ERROR);
+    }
+}
@@ -0,0 +1,218 @@
+package com.jantatham.pvector;
+
+/**
+ * The FdLibm Class is a Java port of the fdlibm atan, atan2 and acos that
+ * StrictMath (and Math, which delegates to it for these functions) calls
+ * natively. The port returns bit-identical results, and being plain Java it
+ * inlines into the batch loops of PVectorBuffer instead of paying for a
+ * native call per element.
+ */
+final class FdLibm {
+
+    private static final double[] ATAN_HI = {
+            4.63647609000806093515e-01, // atan(0.5)
+            7.85398163397448278999e-01, // atan(1.0)
+            9.82793723247329054082e-01, // atan(1.5)
+            1.57079632679489655800e+00, // atan(inf)
+    };
+    private static final double[] ATAN_LO = {
+            2.26987774529616870924e-17,
+            3.06161699786838301793e-17,
+            1.39033110312309984516e-17,
+            6.12323399573676603587e-17,
+    };
+    private static final double
+            AT0 = 3.33333333333329318027e-01,
+            AT1 = -1.99999999998764832476e-01,
+            AT2 = 1.42857142725034663711e-01,
+            AT3 = -1.11111104054623557880e-01,
+            AT4 = 9.09088713343650656196e-02,
+            AT5 = -7.69187620504482999495e-02,
+            AT6 = 6.66107313738753120669e-02,
+            AT7 = -5.83357013379057348645e-02,
+            AT8 = 4.97687799461593236017e-02,
+            AT9 = -3.65315727442169155270e-02,
+            AT10 = 1.62858201153657823623e-02;
+
+    private static final double
+            PI_O_4 = 7.8539816339744827900e-01,
+            PI_O_2 = 1.5707963267948965580e+00,
+            PI = 3.1415926535897931160e+00,
+            PI_LO = 1.2246467991473531772e-16;
+
+    private static final double
+            PIO2_HI = 1.57079632679489655800e+00,
+            PIO2_LO = 6.12323399573676603587e-17,
+            PS0 = 1.66666666666666657415e-01,
+            PS1 = -3.25565818622400915405e-01,
+            PS2 = 2.01212532134862925881e-01,
+            PS3 = -4.00555345006794114027e-02,
+            PS4 = 7.91534994289814532176e-04,
+            PS5 = 3.47933107596021167570e-05,
+            QS1 = -2.40339491173441421878e+00,
+            QS2 = 2.02094576023350569471e+00,
+            QS3 = -6.88283971605453293030e-01,
+            QS4 = 7.70381505559019352791e-02;
+
+    private FdLibm() {
+    }
+
+    private static int hi(double x) {
+        return (int) (Double.doubleToRawLongBits(x) >> 32);
+    }
+
+    private static int lo(double x) {
+        return (int) Double.doubleToRawLongBits(x);
+    }
+
+    static double atan(double x) {
+        int hx = hi(x);
+        int ix = hx & 0x7fffffff;
+        int id;
+        if(ix >= 0x44100000) { // |x| >= 2^66
+            if(ix > 0x7ff00000 || (ix == 0x7ff00000 && lo(x) != 0)) {
+                return x + x; // NaN
+            }
+            return hx > 0 ? ATAN_HI[3] + ATAN_LO[3] : -ATAN_HI[3] - ATAN_LO[3];
+        }
+        if(ix < 0x3fdc0000) { // |x| < 0.4375
+            if(ix < 0x3e200000) { // |x| < 2^-29
+                return x;
+            }
+            id = -1;
+        }
+        else {
+            x = Math.abs(x);
+            if(ix < 0x3ff30000) { // |x| < 1.1875
+                if(ix < 0x3fe60000) { // 7/16 <= |x| < 11/16
+                    id = 0;
+                    x = (2.0 * x - 1.0) / (2.0 + x);
+                }
+                else { // 11/16 <= |x| < 19/16
+                    id = 1;
+                    x = (x - 1.0) / (x + 1.0);
+                }
+            }
+            else {
+                if(ix < 0x40038000) { // |x| < 2.4375
+                    id = 2;
+                    x = (x - 1.5) / (1.0 + 1.5 * x);
+                }
+                else { // 2.4375 <= |x| < 2^66
+                    id = 3;
+                    x = -1.0 / x;
+                }
+            }
+        }
+        double z = x * x;
+        double w = z * z;
+        double s1 = z * (AT0 + w * (AT2 + w * (AT4 + w * (AT6 + w * (AT8 + w * AT10)))));
+        double s2 = w * (AT1 + w * (AT3 + w * (AT5 + w * (AT7 + w * AT9))));
+        if(id < 0) {
+            return x - x * (s1 + s2);
+        }
+        z = ATAN_HI[id] - ((x * (s1 + s2) - ATAN_LO[id]) - x);
+        return hx < 0 ? -z : z;
+    }
+
+    static double atan2(double y, double x) {
+        int hx = hi(x), ix = hx & 0x7fffffff, lx = lo(x);
+        int hy = hi(y), iy = hy & 0x7fffffff, ly = lo(y);
+        if((ix | ((lx | -lx) >>> 31)) > 0x7ff00000 || (iy | ((ly | -ly) >>> 31)) > 0x7ff00000) {
+            return x + y; // NaN
+        }
+        if(((hx - 0x3ff00000) | lx) == 0) { // x = 1.0
+            return atan(y);
+        }
+        int m = ((hy >> 31) & 1) | ((hx >> 30) & 2); // 2 * sign(x) + sign(y)
+
+        if((iy | ly) == 0) { // y = 0
+            switch(m) {
+                case 0:
+                case 1: return y;
+                case 2: return PI;
+                default: return -PI;
+            }
+        }
+        if((ix | lx) == 0) { // x = 0
+            return hy < 0 ? -PI_O_2 : PI_O_2;
+        }
+        if(ix == 0x7ff00000) { // x is infinite
+            if(iy == 0x7ff00000) {
+                switch(m) {
+                    case 0: return PI_O_4;
+                    case 1: return -PI_O_4;
+                    case 2: return 3.0 * PI_O_4;
+                    default: return -3.0 * PI_O_4;
+                }
+            }
+            switch(m) {
+                case 0: return 0.0;
+                case 1: return -0.0;
+                case 2: return PI;
+                default: return -PI;
+            }
+        }
+        if(iy == 0x7ff00000) { // y is infinite
+            return hy < 0 ? -PI_O_2 : PI_O_2;
+        }
+
+        int k = (iy - ix) >> 20;
+        double z;
+        if(k > 60) { // |y/x| > 2^60
+            z = PI_O_2 + 0.5 * PI_LO;
+        }
+        else if(hx < 0 && k < -60) { // |y|/x < -2^60
+            z = 0.0;
+        }
+        else {
+            z = atan(Math.abs(y / x));
+        }
+        switch(m) {
+            case 0: return z;
+            case 1: return -z;
+            case 2: return PI - (z - PI_LO);
+            default: return (z - PI_LO) - PI;
+        }
+    }
+
+    static double acos(double x) {
+        int hx = hi(x);
+        int ix = hx & 0x7fffffff;
+        if(ix >= 0x3ff00000) { // |x| >= 1
+            if(((ix - 0x3ff00000) | lo(x)) == 0) { // |x| = 1
+                return hx > 0 ? 0.0 : PI + 2.0 * PIO2_LO;
+            }
+            return (x - x) / (x - x); // NaN
+        }
+        if(ix < 0x3fe00000) { // |x| < 0.5
+            if(ix <= 0x3c600000) { // |x| < 2^-57
+                return PIO2_HI + PIO2_LO;
+            }
+            double z = x * x;
+            double p = z * (PS0 + z * (PS1 + z * (PS2 + z * (PS3 + z * (PS4 + z * PS5)))));
+            double q = 1.0 + z * (QS1 + z * (QS2 + z * (QS3 + z * QS4)));
+            double r = p / q;
+            return PIO2_HI - (x - (PIO2_LO - x * r));
+        }
+        if(hx < 0) { // x < -0.5
+            double z = (1.0 + x) * 0.5;
+            double p = z * (PS0 + z * (PS1 + z * (PS2 + z * (PS3 + z * (PS4 + z * PS5)))));
+            double q = 1.0 + z * (QS1 + z * (QS2 + z * (QS3 + z * QS4)));
+            double s = Math.sqrt(z);
+            double r = p / q;
+            double w = r * s - PIO2_LO;
+            return PI - 2.0 * (s + w);
+        }
+        // x > 0.5
+        double z = (1.0 - x) * 0.5;
+        double s = Math.sqrt(z);
+        double df = Double.longBitsToDouble(Double.doubleToRawLongBits(s) & 0xffffffff00000000L);
+        double c = (z - df * df) / (s + df);
+        double p = z * (PS0 + z * (PS1 + z * (PS2 + z * (PS3 + z * (PS4 + z * PS5)))));
+        double q = 1.0 + z * (QS1 + z * (QS2 + z * (QS3 + z * QS4)));
+        double r = p / q;
+        double w = r * s + c;
+        return 2.0 * (df + w);
+    }
+}
@@ -0,0 +1,37 @@
+package com.jantatham.pvector;
+
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class FdLibmTest {
+    private static final double[] SPECIAL = { 0.0, -0.0, 1, -1, 0.5, -0.5, 0.4375, 1.1875, 2.4375, 1e-300, -1e300,
+            Double.MIN_VALUE, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN };
+
+    @org.junit.Test
+    public void atan2_matches_strict_math_bits() throws Exception {
+        for(double y : SPECIAL) {
+            for(double x : SPECIAL) {
+                assertEquals(Double.doubleToLongBits(FdLibm.atan2(y, x)), Double.doubleToLongBits(StrictMath.atan2(y, x)));
+            }
+        }
+        Random random = new Random(1);
+        for(int i = 0; i < 1000000; i++) {
+            double y = random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+            double x = random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+            assertEquals(Double.doubleToLongBits(FdLibm.atan2(y, x)), Double.doubleToLongBits(StrictMath.atan2(y, x)));
+        }
+    }
+
+    @org.junit.Test
+    public void acos_matches_strict_math_bits() throws Exception {
+        for(double x : SPECIAL) {
+            assertEquals(Double.doubleToLongBits(FdLibm.acos(x)), Double.doubleToLongBits(StrictMath.acos(x)));
+        }
+        Random random = new Random(2);
+        for(int i = 0; i < 1000000; i++) {
+            double x = (random.nextDouble() * 2 - 1) * (i % 3 == 0 ? 1e-10 : 1);
+            assertEquals(Double.doubleToLongBits(FdLibm.acos(x)), Double.doubleToLongBits(StrictMath.acos(x)));
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.jantatham.pvector;
+
+import java.util.Arrays;
+
+import static java.lang.Math.*;
+
+/**
+ * The Flock Class computes Reynolds flocking (separation, alignment and
+ * cohesion) over agents held in PVectorBuffers. Neighbours are found in a
+ * spatial hash whose cells are one perception radius wide, so each agent
+ * only looks at the agents in the 27 cells around it instead of every
+ * other agent.
+ *
+ * The hash is rebuilt every call with a counting sort: the agents are
+ * copied in cell order, so the agents of a cell sit next to each other in
+ * memory and a neighbour search reads a few short contiguous runs. Agents
+ * are also processed in cell order, so consecutive agents share most of
+ * their neighbours in cache.
+ *
+ * The weighted behaviours are added to a force buffer, so they can be
+ * combined with the Steering behaviours before the forces are applied,
+ * e.g. through ParticleSystem.applyForces. Only the maxNeighbours
+ * nearest neighbours are considered per agent, which bounds the cost of
+ * the behaviours in dense clusters.
+ */
+public class Flock {
+
+    public static final int DEFAULT_MAX_NEIGHBOURS = 32;
+
+    private final double perception;
+    private final double inverseCellSize;
+    private double separationRadius;
+    private double separationWeight = 1.5;
+    private double alignmentWeight = 1;
+    private double cohesionWeight = 1;
+    private double maxSpeed = 4;
+    private double maxForce = 0.1;
+    private int maxNeighbours = DEFAULT_MAX_NEIGHBOURS;
+
+    private int[] start;
+    private int mask;
+    private int[] bucket;
+    private int[] order;
+    private double[] px, py, pz;
+    private double[] vx, vy, vz;
+    private PVectorBuffer systemForce;
+
+    /**
+     * This method is a Constructor for a flock.
+     *
+     * @param perception the radius within which agents are neighbours
+     * @param capacity the expected number of agents
+     */
+    public Flock(double perception, int capacity) {
+        if(!(perception > 0)) {
+            throw new IllegalArgumentException("Perception must be positive");
+        }
+        this.perception = perception;
+        this.inverseCellSize = 1 / perception;
+        this.separationRadius = perception / 2;
+        allocate(Math.max(capacity, 16));
+    }
+
+    /**
+     * This method returns the radius within which agents are neighbours.
+     *
+     * @return the perception radius
+     */
+    public double perception() {
+        return perception;
+    }
+
+    /**
+     * This method sets the separation behaviour.
+     *
+     * @param weight the weight of the behaviour
+     * @param radius the distance below which neighbours repel
+     * @return this flock
+     */
+    public Flock setSeparation(double weight, double radius) {
+        this.separationWeight = weight;
+        this.separationRadius = radius;
+        return this;
+    }
+
+    /**
+     * This method sets the weight of the alignment behaviour.
+     *
+     * @param weight the weight of the behaviour
+     * @return this flock
+     */
+    public Flock setAlignment(double weight) {
+        this.alignmentWeight = weight;
+        return this;
+    }
+
+    /**
+     * This method sets the weight of the cohesion behaviour.
+     *
+     * @param weight the weight of the behaviour
+     * @return this flock
+     */
+    public Flock setCohesion(double weight) {
+        this.cohesionWeight = weight;
+        return this;
+    }
+
+    /**
+     * This method sets the speed of the desired velocities.
+     *
+     * @param maxSpeed the maximum speed
+     * @return this flock
+     */
+    public Flock setMaxSpeed(double maxSpeed) {
+        this.maxSpeed = maxSpeed;
+        return this;
+    }
+
+    /**
+     * This method sets the largest force of each behaviour.
+     *
+     * @param maxForce the maximum force
+     * @return this flock
+     */
+    public Flock setMaxForce(double maxForce) {
+        this.maxForce = maxForce;
+        return this;
+    }
+
+    /**
+     * This method sets the largest number of neighbours considered per
+     * agent.
+     *
+     * @param maxNeighbours the maximum number of neighbours
+     * @return this flock
+     */
+    public Flock setMaxNeighbours(int maxNeighbours) {
+        if(maxNeighbours < 1) {
+            throw new IllegalArgumentException("At least one neighbour must be considered");
+        }
+        this.maxNeighbours = maxNeighbours;
+        return this;
+    }
+
+    /**
+     * This method adds the flocking forces of the agents [0, count) to the
+     * force buffer.
+     *
+     * @param position the agent positions
+     * @param velocity the agent velocities
+     * @param count the number of agents
+     * @param force the buffer the forces are added to
+     * @return the force buffer
+     */
+    public PVectorBuffer steer(PVectorBuffer position, PVectorBuffer velocity, int count, PVectorBuffer force) {
+        Steering.checkRanges(position, velocity, force, 0, count);
+        index(position, velocity, count);
+        steer(0, count, force);
+        return force;
+    }
+
+    /**
+     * This method adds the flocking forces of the agents [0, count) to the
+     * force buffer, with the agents split across a ParallelVectorOps pool.
+     *
+     * @param position the agent positions
+     * @param velocity the agent velocities
+     * @param count the number of agents
+     * @param force the buffer the forces are added to
+     * @param ops the parallel executor
+     * @return the force buffer
+     */
+    public PVectorBuffer steer(PVectorBuffer position, PVectorBuffer velocity, int count,
+                               final PVectorBuffer force, ParallelVectorOps ops) {
+        Steering.checkRanges(position, velocity, force, 0, count);
+        index(position, velocity, count);
+        ops.run(count, (from, to) -> steer(from, to, force));
+        return force;
+    }
+
+    /**
+     * This method applies the flocking forces of the particles through
+     * ParticleSystem.applyForces, so they are divided by each particle's
+     * mass and static particles are not moved.
+     *
+     * @param system the particle system
+     * @return the particle system
+     */
+    public ParticleSystem steer(ParticleSystem system) {
+        int count = system.size();
+        steer(system.positions(), system.velocities(), count, systemForce(count));
+        return system.applyForces(systemForce);
+    }
+
+    /**
+     * This method applies the flocking forces of the particles through
+     * ParticleSystem.applyForces, with the agents split across a
+     * ParallelVectorOps pool.
+     *
+     * @param system the particle system
+     * @param ops the parallel executor
+     * @return the particle system
+     */
+    public ParticleSystem steer(ParticleSystem system, ParallelVectorOps ops) {
+        int count = system.size();
+        steer(system.positions(), system.velocities(), count, systemForce(count), ops);
+        return system.applyForces(systemForce);
+    }
+
+    /**
+     * This method returns the force buffer reused by steer(ParticleSystem),
+     * cleared over [0, count).
+     */
+    private PVectorBuffer systemForce(int count) {
+        if(systemForce == null || systemForce.size() < count) {
+            systemForce = new PVectorBuffer(Math.max(count, order.length));
+        }
+        else {
+            systemForce.mult(0, count, 0);
+        }
+        return systemForce;
+    }
+
+    /**
+     * This method counting sorts the agents by hash bucket. Afterwards the
+     * agents of bucket b are at the sorted indices [start[b], start[b + 1])
+     * and order maps a sorted index back to the agent.
+     */
+    private void index(PVectorBuffer position, PVectorBuffer velocity, int count) {
+        if(count > order.length) {
+            allocate(Math.max(count, order.length * 2));
+        }
+        double[] x = position.x, y = position.y, z = position.z;
+        int[] start = this.start, bucket = this.bucket, order = this.order;
+        Arrays.fill(start, 0);
+        for(int i = 0; i < count; i++) {
+            int b = hash(cell(x[i]), cell(y[i]), cell(z[i]));
+            bucket[i] = b;
+            start[b + 1]++;
+        }
+        for(int b = 1; b < start.length; b++) {
+            start[b] += start[b - 1];
+        }
+        for(int i = 0; i < count; i++) {
+            order[start[bucket[i]]++] = i;
+        }
+        // placing the agents moved each start up to the next bucket's start
+        System.arraycopy(start, 0, start, 1, start.length - 1);
+        start[0] = 0;
+
+        double[] u = velocity.x, v = velocity.y, w = velocity.z;
+        for(int s = 0; s < count; s++) {
+            int i = order[s];
+            px[s] = x[i];
+            py[s] = y[i];
+            pz[s] = z[i];
+            vx[s] = u[i];
+            vy[s] = v[i];
+            vz[s] = w[i];
+        }
+    }
+
+    /**
+     * This method steers the agents at the sorted indices [from, to). The
+     * index is only read, so ranges may run concurrently.
+     */
+    private void steer(int from, int to, PVectorBuffer force) {
+        double radiusSq = perception * perception;
+        double separationSq = separationRadius * separationRadius;
+        int[] start = this.start;
+        int k = maxNeighbours;
+        int[] visited = new int[27];
+        int[] nearest = new int[k];
+        double[] nearestSq = new double[k];
+        for(int s = from; s < to; s++) {
+            double x = px[s], y = py[s], z = pz[s];
+            int cx = cell(x), cy = cell(y), cz = cell(z);
+
+            // keep the k nearest neighbours, so a full neighbourhood does not
+            // favour the cells scanned first
+            int neighbours = 0, buckets = 0;
+            double bound = radiusSq;
+            for(int i = cx - 1; i <= cx + 1; i++) {
+                for(int j = cy - 1; j <= cy + 1; j++) {
+                    for(int l = cz - 1; l <= cz + 1; l++) {
+                        int b = hash(i, j, l);
+                        // two cells may share a bucket; visit it once
+                        int seen = 0;
+                        while(seen < buckets && visited[seen] != b) {
+                            seen++;
+                        }
+                        if(seen < buckets) {
+                            continue;
+                        }
+                        visited[buckets++] = b;
+
+                        for(int t = start[b], end = start[b + 1]; t < end; t++) {
+                            if(t == s) {
+                                continue;
+                            }
+                            double dx = x - px[t], dy = y - py[t], dz = z - pz[t];
+                            double d = dx*dx + dy*dy + dz*dz;
+                            if(d > bound) {
+                                continue;
+                            }
+                            neighbours = NeighbourHeap.offer(nearest, nearestSq, neighbours, k, t, d);
+                            if(neighbours == k) {
+                                bound = min(radiusSq, nearestSq[0]);
+                            }
+                        }
+                    }
+                }
+            }
+
+            double sx = 0, sy = 0, sz = 0;
+            double ax = 0, ay = 0, az = 0;
+            double gx = 0, gy = 0, gz = 0;
+            int close = 0;
+            for(int n = 0; n < neighbours; n++) {
+                int t = nearest[n];
+                double d = nearestSq[n];
+                ax += vx[t];
+                ay += vy[t];
+                az += vz[t];
+                gx += px[t];
+                gy += py[t];
+                gz += pz[t];
+                if(d > 0 && d < separationSq) {
+                    // away from the neighbour, weighted by 1 / distance
+                    sx += (x - px[t]) / d;
+                    sy += (y - py[t]) / d;
+                    sz += (z - pz[t]) / d;
+                    close++;
+                }
+            }
+
+            int agent = order[s];
+            if(close > 0) {
+                Steering.steer(sx, sy, sz, maxSpeed, maxForce, separationWeight, vx[s], vy[s], vz[s],
+                        force, agent);
+            }
+            if(neighbours > 0) {
+                Steering.steer(ax, ay, az, maxSpeed, maxForce, alignmentWeight, vx[s], vy[s], vz[s],
+                        force, agent);
+                double inverse = 1.0 / neighbours;
+                Steering.steer(gx * inverse - x, gy * inverse - y, gz * inverse - z,
+                        maxSpeed, maxForce, cohesionWeight, vx[s], vy[s], vz[s], force, agent);
+            }
+        }
+    }
+
+    private int cell(double v) {
+        return (int) floor(v * inverseCellSize);
+    }
+
+    private int hash(int cx, int cy, int cz) {
+        int h = cx * 73856093 ^ cy * 19349663 ^ cz * 83492791;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        int buckets = Integer.highestOneBit(Math.max(16, capacity * 2 - 1) << 1);
+        start = new int[buckets + 1];
+        mask = buckets - 1;
+        bucket = new int[capacity];
+        order = new int[capacity];
+        px = new double[capacity];
+        py = new double[capacity];
+        pz = new double[capacity];
+        vx = new double[capacity];
+        vy = new double[capacity];
+        vz = new double[capacity];
+    }
+}
@@ -0,0 +1,211 @@
+package com.jantatham.pvector;
+
+/**
+ * The KDTree Class is a balanced k-d tree over a fixed set of points, for
+ * static scenes where the index is built once and queried many times.
+ *
+ * The tree is stored implicitly: the points are reordered so that the
+ * median of every range is its split node, and each node splits along the
+ * axis with the largest spread. Point ids are the indices the points had
+ * in the array or buffer the tree was built from.
+ */
+public class KDTree implements SpatialIndex {
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final int[] ids;
+    private final byte[] axis;
+
+    /**
+     * This method is a Constructor for a tree over the vectors of a buffer.
+     * The coordinates are copied, so the buffer can change afterwards.
+     *
+     * @param points the points
+     */
+    public KDTree(PVectorBuffer points) {
+        int n = points.size();
+        x = new double[n];
+        y = new double[n];
+        z = new double[n];
+        ids = new int[n];
+        axis = new byte[n];
+        System.arraycopy(points.x, 0, x, 0, n);
+        System.arraycopy(points.y, 0, y, 0, n);
+        System.arraycopy(points.z, 0, z, 0, n);
+        for(int i = 0; i < n; i++) {
+            ids[i] = i;
+        }
+        build(0, n);
+    }
+
+    /**
+     * This method is a Constructor for a tree over an array of vectors.
+     *
+     * @param points the points
+     */
+    public KDTree(PVector[] points) {
+        this(PVectorBuffer.fromArray(points));
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * This method finds the k points nearest to the vector (p), closest
+     * first.
+     *
+     * @see SpatialIndex#nearest(double, double, double, int, int[], double[])
+     */
+    public int nearest(PVector p, int k, int[] ids, double[] distSq) {
+        return nearest(p.x, p.y, p.z, k, ids, distSq);
+    }
+
+    @Override
+    public int nearest(double qx, double qy, double qz, int k, int[] result, double[] distSq) {
+        k = Math.min(k, result.length);
+        int count = nearest(0, ids.length, qx, qy, qz, k, result, distSq, 0);
+        NeighbourHeap.sort(result, distSq, count);
+        return count;
+    }
+
+    /**
+     * This method finds the points within radius of the vector (p).
+     *
+     * @see SpatialIndex#withinRadius(double, double, double, double, int[], double[])
+     */
+    public int withinRadius(PVector p, double radius, int[] ids, double[] distSq) {
+        return withinRadius(p.x, p.y, p.z, radius, ids, distSq);
+    }
+
+    @Override
+    public int withinRadius(double qx, double qy, double qz, double radius, int[] result, double[] distSq) {
+        return withinRadius(0, ids.length, qx, qy, qz, radius * radius, result, distSq, 0);
+    }
+
+    private void build(int lo, int hi) {
+        while(hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            int a = widestAxis(lo, hi);
+            select(lo, hi - 1, mid, a);
+            axis[mid] = (byte) a;
+            build(lo, mid);
+            lo = mid + 1;
+        }
+    }
+
+    private int widestAxis(int lo, int hi) {
+        double minX = x[lo], maxX = minX, minY = y[lo], maxY = minY, minZ = z[lo], maxZ = minZ;
+        for(int i = lo + 1; i < hi; i++) {
+            minX = Math.min(minX, x[i]); maxX = Math.max(maxX, x[i]);
+            minY = Math.min(minY, y[i]); maxY = Math.max(maxY, y[i]);
+            minZ = Math.min(minZ, z[i]); maxZ = Math.max(maxZ, z[i]);
+        }
+        double sx = maxX - minX, sy = maxY - minY, sz = maxZ - minZ;
+        if(sx >= sy && sx >= sz) {
+            return 0;
+        }
+        return sy >= sz ? 1 : 2;
+    }
+
+    private double coordinate(int i, int a) {
+        return a == 0 ? x[i] : a == 1 ? y[i] : z[i];
+    }
+
+    /**
+     * This method partially sorts [lo, hi] along an axis so that index k
+     * holds the median and smaller values come before it (quickselect).
+     */
+    private void select(int lo, int hi, int k, int a) {
+        while(hi > lo) {
+            double pivot = coordinate((lo + hi) >>> 1, a);
+            int i = lo, j = hi;
+            while(i <= j) {
+                while(coordinate(i, a) < pivot) i++;
+                while(coordinate(j, a) > pivot) j--;
+                if(i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if(k <= j) {
+                hi = j;
+            }
+            else if(k >= i) {
+                lo = i;
+            }
+            else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        double t = x[i]; x[i] = x[j]; x[j] = t;
+        t = y[i]; y[i] = y[j]; y[j] = t;
+        t = z[i]; z[i] = z[j]; z[j] = t;
+        int id = ids[i]; ids[i] = ids[j]; ids[j] = id;
+    }
+
+    private int nearest(int lo, int hi, double qx, double qy, double qz,
+                        int k, int[] result, double[] distSq, int count) {
+        if(lo >= hi || k == 0) {
+            return count;
+        }
+        int mid = (lo + hi) >>> 1;
+        double dx = x[mid] - qx, dy = y[mid] - qy, dz = z[mid] - qz;
+        count = NeighbourHeap.offer(result, distSq, count, k, ids[mid], dx*dx + dy*dy + dz*dz);
+        if(hi - lo == 1) {
+            return count;
+        }
+
+        int a = axis[mid];
+        double diff = a == 0 ? qx - x[mid] : a == 1 ? qy - y[mid] : qz - z[mid];
+        if(diff < 0) {
+            count = nearest(lo, mid, qx, qy, qz, k, result, distSq, count);
+            if(diff * diff < NeighbourHeap.bound(distSq, count, k)) {
+                count = nearest(mid + 1, hi, qx, qy, qz, k, result, distSq, count);
+            }
+        }
+        else {
+            count = nearest(mid + 1, hi, qx, qy, qz, k, result, distSq, count);
+            if(diff * diff < NeighbourHeap.bound(distSq, count, k)) {
+                count = nearest(lo, mid, qx, qy, qz, k, result, distSq, count);
+            }
+        }
+        return count;
+    }
+
+    private int withinRadius(int lo, int hi, double qx, double qy, double qz,
+                             double radiusSq, int[] result, double[] distSq, int count) {
+        while(lo < hi && count < result.length) {
+            int mid = (lo + hi) >>> 1;
+            double dx = x[mid] - qx, dy = y[mid] - qy, dz = z[mid] - qz;
+            double d = dx*dx + dy*dy + dz*dz;
+            if(d <= radiusSq) {
+                if(distSq != null) {
+                    distSq[count] = d;
+                }
+                result[count++] = ids[mid];
+            }
+
+            int a = axis[mid];
+            double diff = a == 0 ? qx - x[mid] : a == 1 ? qy - y[mid] : qz - z[mid];
+            boolean bothSides = diff * diff <= radiusSq;
+            if(diff < 0) {
+                if(bothSides) {
+                    count = withinRadius(mid + 1, hi, qx, qy, qz, radiusSq, result, distSq, count);
+                }
+                hi = mid;
+            }
+            else {
+                if(bothSides) {
+                    count = withinRadius(lo, mid, qx, qy, qz, radiusSq, result, distSq, count);
+                }
+                lo = mid + 1;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,80 @@
+package com.jantatham.pvector;
+
+/**
+ * The NeighbourHeap Class keeps the k best neighbours of a query as a
+ * max-heap stored in the caller's id and distance arrays, so k-nearest
+ * searches need no allocation. The worst neighbour kept is at index 0.
+ */
+final class NeighbourHeap {
+
+    private NeighbourHeap() {
+
+    }
+
+    /**
+     * This method offers a candidate to a heap holding up to k entries.
+     *
+     * @return the new number of entries
+     */
+    static int offer(int[] ids, double[] distSq, int count, int k, int id, double d) {
+        if(count < k) {
+            int i = count++;
+            while(i > 0) {
+                int parent = (i - 1) >> 1;
+                if(distSq[parent] >= d) {
+                    break;
+                }
+                ids[i] = ids[parent];
+                distSq[i] = distSq[parent];
+                i = parent;
+            }
+            ids[i] = id;
+            distSq[i] = d;
+        }
+        else if(k > 0 && d < distSq[0]) {
+            siftDown(ids, distSq, 0, count, id, d);
+        }
+        return count;
+    }
+
+    /**
+     * This method returns the distance a candidate must beat to enter a heap
+     * holding up to k entries.
+     */
+    static double bound(double[] distSq, int count, int k) {
+        return count < k ? Double.POSITIVE_INFINITY : distSq[0];
+    }
+
+    /**
+     * This method sorts the heap entries by increasing distance.
+     */
+    static void sort(int[] ids, double[] distSq, int count) {
+        for(int end = count - 1; end > 0; end--) {
+            int id = ids[end];
+            double d = distSq[end];
+            ids[end] = ids[0];
+            distSq[end] = distSq[0];
+            siftDown(ids, distSq, 0, end, id, d);
+        }
+    }
+
+    private static void siftDown(int[] ids, double[] distSq, int i, int count, int id, double d) {
+        while(true) {
+            int child = 2 * i + 1;
+            if(child >= count) {
+                break;
+            }
+            if(child + 1 < count && distSq[child + 1] > distSq[child]) {
+                child++;
+            }
+            if(distSq[child] <= d) {
+                break;
+            }
+            ids[i] = ids[child];
+            distSq[i] = distSq[child];
+            i = child;
+        }
+        ids[i] = id;
+        distSq[i] = d;
+    }
+}
@@ -0,0 +1,185 @@
+package com.jantatham.pvector;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The OffHeapArena Class owns the native memory of a group of
+ * OffHeapVectorStores. The memory is allocated as direct ByteBuffers, so it
+ * lives outside the garbage collected heap, and it is released as soon as
+ * the arena is closed instead of whenever the buffers are collected. If
+ * the JDK refuses to free a buffer, close reports it rather than silently
+ * leaving the memory to the garbage collector.
+ *
+ * After close every store of the arena throws IllegalStateException. An
+ * arena and its stores are not thread-safe.
+ */
+public class OffHeapArena implements AutoCloseable {
+
+    private static final Object UNSAFE = unsafe();
+    private static final Method INVOKE_CLEANER = invokeCleaner();
+    private static final Method CLEAN = cleaner();
+
+    private final List<OffHeapVectorStore> stores = new ArrayList<>();
+    private long byteSize;
+    private boolean open = true;
+
+    /**
+     * This method allocates a store of zero vectors.
+     *
+     * @param size the number of vectors
+     * @param precision the width of each coordinate
+     * @return the store
+     */
+    public OffHeapVectorStore allocate(long size, OffHeapVectorStore.Precision precision) {
+        return allocate(size, precision, OffHeapVectorStore.CHUNK_SHIFT);
+    }
+
+    OffHeapVectorStore allocate(long size, OffHeapVectorStore.Precision precision, int chunkShift) {
+        checkOpen();
+        if(size < 0) {
+            throw new IllegalArgumentException("Size must not be negative");
+        }
+        OffHeapVectorStore store = new OffHeapVectorStore(this, size, precision, chunkShift);
+        stores.add(store);
+        return store;
+    }
+
+    /**
+     * This method allocates a store holding a copy of the vectors of a
+     * buffer.
+     *
+     * @param buffer the vectors to copy
+     * @param precision the width of each coordinate
+     * @return the store
+     */
+    public OffHeapVectorStore copyOf(PVectorBuffer buffer, OffHeapVectorStore.Precision precision) {
+        OffHeapVectorStore store = allocate(buffer.size(), precision);
+        store.copyFrom(buffer, 0, buffer.size(), 0);
+        return store;
+    }
+
+    /**
+     * This method reports whether the arena is still open.
+     *
+     * @return true until close is called
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * This method returns the number of native bytes held by the arena.
+     *
+     * @return the number of bytes
+     */
+    public long byteSize() {
+        return byteSize;
+    }
+
+    /**
+     * This method releases the memory of every store. Closing a closed
+     * arena does nothing.
+     *
+     * @throws IllegalStateException if a buffer could not be freed; the
+     *         arena is closed anyway and that memory is left to the garbage
+     *         collector
+     */
+    @Override
+    public void close() {
+        if(!open) {
+            return;
+        }
+        open = false;
+        int failed = 0;
+        for(OffHeapVectorStore store : stores) {
+            for(ByteBuffer chunk : store.release()) {
+                if(!free(chunk)) {
+                    failed++;
+                }
+            }
+        }
+        stores.clear();
+        byteSize = 0;
+        if(failed > 0) {
+            throw new IllegalStateException(failed + " buffers could not be freed");
+        }
+    }
+
+    ByteBuffer allocateChunk(int bytes) {
+        ByteBuffer chunk = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        byteSize += bytes;
+        return chunk;
+    }
+
+    void checkOpen() {
+        if(!open) {
+            throw new IllegalStateException("Arena is closed");
+        }
+    }
+
+    /**
+     * This method frees the memory of a direct buffer, or unmaps a mapped
+     * one, now.
+     *
+     * @param buffer the buffer, which must not be used afterwards
+     * @return false if the JDK offers no way to free it, or refused, so
+     *         that the memory is left to the garbage collector
+     */
+    static boolean free(ByteBuffer buffer) {
+        try {
+            if(INVOKE_CLEANER != null) {
+                // JDK 9 and later
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                return true;
+            }
+            if(CLEAN != null) {
+                // JDK 8
+                Method getCleaner = buffer.getClass().getMethod("cleaner");
+                getCleaner.setAccessible(true);
+                Object cleaner = getCleaner.invoke(buffer);
+                if(cleaner != null) {
+                    CLEAN.invoke(cleaner);
+                }
+                return true;
+            }
+        }
+        catch(ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+        return false;
+    }
+
+    private static Object unsafe() {
+        try {
+            Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return field.get(null);
+        }
+        catch(ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Method invokeCleaner() {
+        try {
+            return UNSAFE == null ? null : UNSAFE.getClass().getMethod("invokeCleaner", ByteBuffer.class);
+        }
+        catch(ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Method cleaner() {
+        try {
+            return Class.forName("sun.misc.Cleaner").getMethod("clean");
+        }
+        catch(ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
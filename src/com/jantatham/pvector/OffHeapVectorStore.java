@@ -0,0 +1,676 @@
+package com.jantatham.pvector;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+
+import static java.lang.Math.*;
+
+/**
+ * The OffHeapVectorStore Class holds a batch of vectors in native memory
+ * owned by an OffHeapArena, for datasets too large to keep on the garbage
+ * collected heap. Indices are longs, so a store can hold billions of
+ * vectors.
+ *
+ * The memory is split into chunks of 2^20 vectors. Within a chunk the
+ * coordinates are stored as three runs (structure-of-arrays) of floats or
+ * doubles, depending on the precision. Bulk operations stream the store
+ * through a small on-heap PVectorBuffer block and run the matching
+ * PVectorBuffer method on it, so they have the same semantics; with FLOAT
+ * precision the results are rounded to float when written back.
+ */
+public class OffHeapVectorStore {
+
+    /**
+     * The width of each stored coordinate.
+     */
+    public enum Precision {
+        FLOAT(4),
+        DOUBLE(8);
+
+        public final int bytes;
+
+        Precision(int bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    static final int CHUNK_SHIFT = 20;
+    static final int BLOCK = 4096;
+
+    private final OffHeapArena arena;
+    private final long size;
+    private final Precision precision;
+    private final int chunkShift;
+    private final int chunkMask;
+    private final int chunkLength;
+
+    private ByteBuffer[] chunks;
+    private DoubleBuffer[] doubles;
+    private FloatBuffer[] floats;
+    private PVectorBuffer block;
+    private PVectorBuffer otherBlock;
+
+    OffHeapVectorStore(OffHeapArena arena, long size, Precision precision, int chunkShift) {
+        this.arena = arena;
+        this.size = size;
+        this.precision = precision;
+        this.chunkShift = chunkShift;
+        this.chunkLength = 1 << chunkShift;
+        this.chunkMask = chunkLength - 1;
+
+        int count = (int) ((size + chunkMask) >>> chunkShift);
+        chunks = new ByteBuffer[count];
+        if(precision == Precision.DOUBLE) {
+            doubles = new DoubleBuffer[count];
+        }
+        else {
+            floats = new FloatBuffer[count];
+        }
+        for(int c = 0; c < count; c++) {
+            chunks[c] = arena.allocateChunk(3 * chunkLength(c) * precision.bytes);
+            if(doubles != null) {
+                doubles[c] = chunks[c].asDoubleBuffer();
+            }
+            else {
+                floats[c] = chunks[c].asFloatBuffer();
+            }
+        }
+    }
+
+    /**
+     * This method returns the number of vectors in the store.
+     *
+     * @return the number of vectors
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * This method returns the width of each stored coordinate.
+     *
+     * @return the precision
+     */
+    public Precision precision() {
+        return precision;
+    }
+
+    /**
+     * This method returns the arena that owns the memory.
+     *
+     * @return the arena
+     */
+    public OffHeapArena arena() {
+        return arena;
+    }
+
+    /**
+     * This method returns the X component at index i.
+     *
+     * @param i the index
+     * @return the X component
+     */
+    public double x(long i) {
+        return get(i, 0);
+    }
+
+    /**
+     * This method returns the Y component at index i.
+     *
+     * @param i the index
+     * @return the Y component
+     */
+    public double y(long i) {
+        return get(i, 1);
+    }
+
+    /**
+     * This method returns the Z component at index i.
+     *
+     * @param i the index
+     * @return the Z component
+     */
+    public double z(long i) {
+        return get(i, 2);
+    }
+
+    /**
+     * This method gets the vector at index i.
+     *
+     * @param i the index
+     * @param target the vector to write to, or null for a new one
+     * @return the vector
+     */
+    public PVector get(long i, PVector target) {
+        if(target == null) {
+            target = new PVector(x(i), y(i), z(i));
+        }
+        else {
+            target.set(x(i), y(i), z(i));
+        }
+        return target;
+    }
+
+    /**
+     * This method sets the vector at index i.
+     *
+     * @param i the index
+     * @param x the X component
+     * @param y the Y component
+     * @param z the Z component
+     * @return this store
+     */
+    public OffHeapVectorStore set(long i, double x, double y, double z) {
+        put(i, 0, x);
+        put(i, 1, y);
+        put(i, 2, z);
+        return this;
+    }
+
+    /**
+     * This method sets the vector at index i.
+     *
+     * @param i the index
+     * @param v the vector
+     * @return this store
+     */
+    public OffHeapVectorStore set(long i, PVector v) {
+        return set(i, v.x, v.y, v.z);
+    }
+
+    /**
+     * This method calculates the magnitude (length) of the vector at index i.
+     *
+     * @param i the index
+     * @return vector magnitude
+     */
+    public double mag(long i) {
+        return sqrt(magSq(i));
+    }
+
+    /**
+     * This method calculates the magnitude (length) of the vector at index i,
+     * squared.
+     *
+     * @param i the index
+     * @return squared vector magnitude
+     */
+    public double magSq(long i) {
+        double x = x(i), y = y(i), z = z(i);
+        return x*x + y*y + z*z;
+    }
+
+    /**
+     * This method copies the vectors [from, to) of a buffer into the store,
+     * starting at index offset.
+     *
+     * @param source the buffer
+     * @param from the first buffer index
+     * @param to the buffer index after the last
+     * @param offset the first store index
+     * @return this store
+     */
+    public OffHeapVectorStore copyFrom(PVectorBuffer source, int from, int to, long offset) {
+        source.checkRange(from, to);
+        checkRange(offset, offset + (to - from));
+        write(offset, source, from, to - from);
+        return this;
+    }
+
+    /**
+     * This method copies the vectors starting at index offset into the
+     * range [from, to) of a buffer.
+     *
+     * @param offset the first store index
+     * @param target the buffer
+     * @param from the first buffer index
+     * @param to the buffer index after the last
+     * @return the buffer
+     */
+    public PVectorBuffer copyTo(long offset, PVectorBuffer target, int from, int to) {
+        target.checkRange(from, to);
+        checkRange(offset, offset + (to - from));
+        read(offset, target, from, to - from);
+        return target;
+    }
+
+    /**
+     * This method adds the vector (x, y, z) to every vector.
+     *
+     * @param x the X component
+     * @param y the Y component
+     * @param z the Z component
+     * @return this store
+     */
+    public OffHeapVectorStore add(double x, double y, double z) {
+        return add(0, size, x, y, z);
+    }
+
+    /**
+     * This method adds the vector (x, y, z) to the vectors in the range
+     * [from, to).
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param x the X component
+     * @param y the Y component
+     * @param z the Z component
+     * @return this store
+     */
+    public OffHeapVectorStore add(long from, long to, final double x, final double y, final double z) {
+        return apply(from, to, null, (b, o, n) -> b.add(0, n, x, y, z));
+    }
+
+    /**
+     * This method adds the vector (v) to every vector.
+     *
+     * @param v the vector
+     * @return this store
+     */
+    public OffHeapVectorStore add(PVector v) {
+        return add(0, size, v.x, v.y, v.z);
+    }
+
+    /**
+     * This method adds the vectors of another store of the same size.
+     *
+     * @param other the other store
+     * @return this store
+     */
+    public OffHeapVectorStore add(OffHeapVectorStore other) {
+        return add(0, size, other);
+    }
+
+    /**
+     * This method adds the vectors of another store in the range [from, to).
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param other the other store
+     * @return this store
+     */
+    public OffHeapVectorStore add(long from, long to, OffHeapVectorStore other) {
+        return apply(from, to, other, (b, o, n) -> b.add(0, n, o));
+    }
+
+    /**
+     * This method subtracts the vector (x, y, z) from every vector.
+     *
+     * @param x the X component
+     * @param y the Y component
+     * @param z the Z component
+     * @return this store
+     */
+    public OffHeapVectorStore sub(double x, double y, double z) {
+        return sub(0, size, x, y, z);
+    }
+
+    /**
+     * This method subtracts the vector (x, y, z) from the vectors in the
+     * range [from, to).
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param x the X component
+     * @param y the Y component
+     * @param z the Z component
+     * @return this store
+     */
+    public OffHeapVectorStore sub(long from, long to, final double x, final double y, final double z) {
+        return apply(from, to, null, (b, o, n) -> b.sub(0, n, x, y, z));
+    }
+
+    /**
+     * This method subtracts the vector (v) from every vector.
+     *
+     * @param v the vector
+     * @return this store
+     */
+    public OffHeapVectorStore sub(PVector v) {
+        return sub(0, size, v.x, v.y, v.z);
+    }
+
+    /**
+     * This method subtracts the vectors of another store of the same size.
+     *
+     * @param other the other store
+     * @return this store
+     */
+    public OffHeapVectorStore sub(OffHeapVectorStore other) {
+        return sub(0, size, other);
+    }
+
+    /**
+     * This method subtracts the vectors of another store in the range
+     * [from, to).
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param other the other store
+     * @return this store
+     */
+    public OffHeapVectorStore sub(long from, long to, OffHeapVectorStore other) {
+        return apply(from, to, other, (b, o, n) -> b.sub(0, n, o));
+    }
+
+    /**
+     * This method multiplies every vector by a scalar.
+     *
+     * @param n the scalar multiplier
+     * @return this store
+     */
+    public OffHeapVectorStore mult(double n) {
+        return mult(0, size, n);
+    }
+
+    /**
+     * This method multiplies the vectors in the range [from, to) by a scalar.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param n the scalar multiplier
+     * @return this store
+     */
+    public OffHeapVectorStore mult(long from, long to, final double n) {
+        return apply(from, to, null, (b, o, count) -> b.mult(0, count, n));
+    }
+
+    /**
+     * This method divides every vector by a scalar.
+     *
+     * @param n the scalar divider
+     * @return this store
+     */
+    public OffHeapVectorStore div(double n) {
+        return div(0, size, n);
+    }
+
+    /**
+     * This method divides the vectors in the range [from, to) by a scalar.
+     * As with PVector.div a zero divider leaves the vectors unchanged.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param n the scalar divider
+     * @return this store
+     */
+    public OffHeapVectorStore div(long from, long to, final double n) {
+        if(n == 0) {
+            System.out.println("Warning: There is a divide overflow error");
+            return this;
+        }
+        return apply(from, to, null, (b, o, count) -> b.div(0, count, n));
+    }
+
+    /**
+     * This method normalizes every vector to a length of 1.
+     *
+     * @return this store
+     */
+    public OffHeapVectorStore normalize() {
+        return normalize(0, size);
+    }
+
+    /**
+     * This method normalizes the vectors in the range [from, to).
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @return this store
+     */
+    public OffHeapVectorStore normalize(long from, long to) {
+        return apply(from, to, null, (b, o, n) -> b.normalize(0, n));
+    }
+
+    /**
+     * This method limits the magnitude of every vector to max.
+     *
+     * @param max the maximum limit
+     * @return this store
+     */
+    public OffHeapVectorStore limit(double max) {
+        return limit(0, size, max);
+    }
+
+    /**
+     * This method limits the magnitude of the vectors in the range
+     * [from, to) to max.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param max the maximum limit
+     * @return this store
+     */
+    public OffHeapVectorStore limit(long from, long to, final double max) {
+        return apply(from, to, null, (b, o, n) -> b.limit(0, n, max));
+    }
+
+    /**
+     * This method sets the magnitude of every vector to len.
+     *
+     * @param len the new length of the vectors
+     * @return this store
+     */
+    public OffHeapVectorStore setMag(double len) {
+        return setMag(0, size, len);
+    }
+
+    /**
+     * This method sets the magnitude of the vectors in the range [from, to)
+     * to len.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param len the new length of the vectors
+     * @return this store
+     */
+    public OffHeapVectorStore setMag(long from, long to, final double len) {
+        return apply(from, to, null, (b, o, n) -> b.setMag(0, n, len));
+    }
+
+    /**
+     * This method linear interpolates every vector towards the vector (v).
+     *
+     * @param v the vector to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return this store
+     */
+    public OffHeapVectorStore lerp(PVector v, double amount) {
+        return lerp(0, size, v.x, v.y, v.z, amount);
+    }
+
+    /**
+     * This method linear interpolates the vectors in the range [from, to)
+     * towards the vector (x, y, z).
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param x the X component to interpolate to
+     * @param y the Y component to interpolate to
+     * @param z the Z component to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return this store
+     */
+    public OffHeapVectorStore lerp(long from, long to, final double x, final double y, final double z,
+                                   final double amount) {
+        return apply(from, to, null, (b, o, n) -> b.lerp(0, n, x, y, z, amount));
+    }
+
+    /**
+     * This method linear interpolates every vector towards the vectors of
+     * another store of the same size.
+     *
+     * @param other the store to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return this store
+     */
+    public OffHeapVectorStore lerp(OffHeapVectorStore other, double amount) {
+        return lerp(0, size, other, amount);
+    }
+
+    /**
+     * This method linear interpolates the vectors in the range [from, to)
+     * towards the vectors of another store.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param other the store to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return this store
+     */
+    public OffHeapVectorStore lerp(long from, long to, OffHeapVectorStore other, final double amount) {
+        return apply(from, to, other, (b, o, n) -> b.lerp(0, n, o, amount));
+    }
+
+    /**
+     * This method gives up the chunks when the arena closes, so that no
+     * further access reaches freed memory.
+     */
+    ByteBuffer[] release() {
+        ByteBuffer[] released = chunks;
+        chunks = null;
+        doubles = null;
+        floats = null;
+        block = null;
+        otherBlock = null;
+        return released;
+    }
+
+    /**
+     * The BlockAction interface is a PVectorBuffer operation on the first n
+     * vectors of a block, with the matching block of another store when
+     * there is one.
+     */
+    private interface BlockAction {
+        void apply(PVectorBuffer block, PVectorBuffer other, int n);
+    }
+
+    private OffHeapVectorStore apply(long from, long to, OffHeapVectorStore other, BlockAction action) {
+        checkRange(from, to);
+        if(other != null) {
+            other.checkRange(from, to);
+        }
+        if(block == null) {
+            block = new PVectorBuffer(BLOCK);
+            otherBlock = new PVectorBuffer(BLOCK);
+        }
+        for(long i = from; i < to; i += BLOCK) {
+            int n = (int) min(BLOCK, to - i);
+            read(i, block, 0, n);
+            if(other != null) {
+                other.read(i, otherBlock, 0, n);
+            }
+            action.apply(block, otherBlock, n);
+            write(i, block, 0, n);
+        }
+        return this;
+    }
+
+    /**
+     * This method reads n vectors starting at index i into the buffer,
+     * crossing chunk boundaries as needed.
+     */
+    private void read(long i, PVectorBuffer target, int offset, int n) {
+        while(n > 0) {
+            int c = (int) (i >>> chunkShift);
+            int at = (int) (i & chunkMask);
+            int length = chunkLength(c);
+            int count = min(n, length - at);
+            if(doubles != null) {
+                DoubleBuffer d = doubles[c];
+                d.position(at);
+                d.get(target.x, offset, count);
+                d.position(length + at);
+                d.get(target.y, offset, count);
+                d.position(2 * length + at);
+                d.get(target.z, offset, count);
+            }
+            else {
+                FloatBuffer f = floats[c];
+                for(int k = 0; k < count; k++) {
+                    target.x[offset + k] = f.get(at + k);
+                    target.y[offset + k] = f.get(length + at + k);
+                    target.z[offset + k] = f.get(2 * length + at + k);
+                }
+            }
+            i += count;
+            offset += count;
+            n -= count;
+        }
+    }
+
+    /**
+     * This method writes n vectors of the buffer starting at index i,
+     * crossing chunk boundaries as needed.
+     */
+    private void write(long i, PVectorBuffer source, int offset, int n) {
+        while(n > 0) {
+            int c = (int) (i >>> chunkShift);
+            int at = (int) (i & chunkMask);
+            int length = chunkLength(c);
+            int count = min(n, length - at);
+            if(doubles != null) {
+                DoubleBuffer d = doubles[c];
+                d.position(at);
+                d.put(source.x, offset, count);
+                d.position(length + at);
+                d.put(source.y, offset, count);
+                d.position(2 * length + at);
+                d.put(source.z, offset, count);
+            }
+            else {
+                FloatBuffer f = floats[c];
+                for(int k = 0; k < count; k++) {
+                    f.put(at + k, (float) source.x[offset + k]);
+                    f.put(length + at + k, (float) source.y[offset + k]);
+                    f.put(2 * length + at + k, (float) source.z[offset + k]);
+                }
+            }
+            i += count;
+            offset += count;
+            n -= count;
+        }
+    }
+
+    private double get(long i, int axis) {
+        checkIndex(i);
+        int c = (int) (i >>> chunkShift);
+        int at = axis * chunkLength(c) + (int) (i & chunkMask);
+        return doubles != null ? doubles[c].get(at) : floats[c].get(at);
+    }
+
+    private void put(long i, int axis, double v) {
+        checkIndex(i);
+        int c = (int) (i >>> chunkShift);
+        int at = axis * chunkLength(c) + (int) (i & chunkMask);
+        if(doubles != null) {
+            doubles[c].put(at, v);
+        }
+        else {
+            floats[c].put(at, (float) v);
+        }
+    }
+
+    /**
+     * This method returns the number of vectors in chunk c; only the last
+     * chunk may be shorter than the chunk length.
+     */
+    private int chunkLength(int c) {
+        return (int) min(chunkLength, size - ((long) c << chunkShift));
+    }
+
+    private void checkIndex(long i) {
+        arena.checkOpen();
+        if(i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " outside store of size " + size);
+        }
+    }
+
+    void checkRange(long from, long to) {
+        arena.checkOpen();
+        if(from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") outside store of size " + size);
+        }
+    }
+}
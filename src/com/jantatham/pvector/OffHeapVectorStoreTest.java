@@ -0,0 +1,94 @@
+package com.jantatham.pvector;
+
+import java.nio.ByteBuffer;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+public class OffHeapVectorStoreTest {
+    private static final PVector MIN = new PVector(-5, -5, -5), MAX = new PVector(5, 5, 5);
+
+    @org.junit.Test
+    public void set_and_get_across_chunks() throws Exception {
+        try(OffHeapArena arena = new OffHeapArena()) {
+            OffHeapVectorStore store = arena.allocate(10, OffHeapVectorStore.Precision.DOUBLE, 2);
+            for(int i = 0; i < 10; i++) {
+                store.set(i, i, i * 2, i * 3);
+            }
+            PVector v = store.get(9, null);
+            assertEquals(v.x, 9.0, 0);
+            assertEquals(v.y, 18.0, 0);
+            assertEquals(v.z, 27.0, 0);
+            assertEquals(store.z(5), 15.0, 0);
+            assertEquals(arena.byteSize(), 3 * 10 * 8L);
+        }
+    }
+
+    @org.junit.Test
+    public void bulk_ops_match_buffer() throws Exception {
+        PVectorBuffer a = TestVectors.uniformBuffer(5000, 1, MIN, MAX);
+        PVectorBuffer b = TestVectors.uniformBuffer(5000, 2, MIN, MAX);
+        try(OffHeapArena arena = new OffHeapArena()) {
+            OffHeapVectorStore storeA = arena.allocate(5000, OffHeapVectorStore.Precision.DOUBLE, 10);
+            OffHeapVectorStore storeB = arena.allocate(5000, OffHeapVectorStore.Precision.DOUBLE, 12);
+            storeA.copyFrom(a, 0, 5000, 0);
+            storeB.copyFrom(b, 0, 5000, 0);
+
+            a.add(b).mult(3).limit(6).lerp(new PVector(1, 2, 3), 0.25).normalize(10, 4000);
+            storeA.add(storeB).mult(3).limit(6).lerp(new PVector(1, 2, 3), 0.25).normalize(10, 4000);
+
+            PVectorBuffer actual = storeA.copyTo(0, new PVectorBuffer(5000), 0, 5000);
+            for(int i = 0; i < 5000; i++) {
+                assertEquals(actual.x[i], a.x[i], 0);
+                assertEquals(actual.y[i], a.y[i], 0);
+                assertEquals(actual.z[i], a.z[i], 0);
+            }
+        }
+    }
+
+    @org.junit.Test
+    public void float_precision_rounds_to_float() throws Exception {
+        try(OffHeapArena arena = new OffHeapArena()) {
+            OffHeapVectorStore store = arena.allocate(3, OffHeapVectorStore.Precision.FLOAT);
+            store.set(1, 0.1, 0.2, 0.3).setMag(1);
+            PVector expected = new PVector(0.1, 0.2, 0.3).normalize();
+            assertEquals(store.x(1), (float) expected.x, 0);
+            assertEquals(store.mag(1), 1.0, 0.000001);
+            assertEquals(store.mag(0), 0.0, 0);
+            assertEquals(arena.byteSize(), 3 * 3 * 4L);
+        }
+    }
+
+    @org.junit.Test
+    public void closed_arena_rejects_access() throws Exception {
+        OffHeapArena arena = new OffHeapArena();
+        OffHeapVectorStore store = arena.allocate(4, OffHeapVectorStore.Precision.DOUBLE);
+        arena.close();
+        assertFalse(arena.isOpen());
+        assertEquals(arena.byteSize(), 0L);
+        try {
+            store.x(0);
+            fail();
+        }
+        catch(IllegalStateException e) {
+            // expected
+        }
+        try {
+            store.mult(2);
+            fail();
+        }
+        catch(IllegalStateException e) {
+            // expected
+        }
+        arena.close();
+    }
+
+    @org.junit.Test
+    public void free_reports_whether_memory_was_released() throws Exception {
+        assertTrue(OffHeapArena.free(ByteBuffer.allocateDirect(64)));
+        // heap buffers have no native memory to free
+        assertFalse(OffHeapArena.free(ByteBuffer.allocate(64)));
+    }
+}
@@ -0,0 +1,238 @@
+package com.jantatham.pvector;
+
+import static java.lang.Math.*;
+
+/**
+ * The PMatrix2D Class is a 3x3 affine matrix for 2D transformations. The
+ * bottom row is always (0, 0, 1) and is not stored.
+ *
+ * The transformation methods post-multiply, so in
+ * m.translate(..).rotate(..).scale(..) the scale is applied to a point
+ * first and the translation last.
+ */
+public class PMatrix2D {
+
+    public double m00, m01, m02;
+    public double m10, m11, m12;
+
+    /**
+     * This method is a Constructor for the identity matrix.
+     */
+    public PMatrix2D() {
+        reset();
+    }
+
+    /**
+     * This method is a Constructor for the matrix with the given top two
+     * rows.
+     */
+    public PMatrix2D(double m00, double m01, double m02,
+                     double m10, double m11, double m12) {
+        set(m00, m01, m02, m10, m11, m12);
+    }
+
+    /**
+     * This method sets the matrix to the identity.
+     *
+     * @return this matrix
+     */
+    public PMatrix2D reset() {
+        return set(1, 0, 0, 0, 1, 0);
+    }
+
+    /**
+     * This method sets the top two rows of the matrix.
+     *
+     * @return this matrix
+     */
+    public PMatrix2D set(double m00, double m01, double m02,
+                         double m10, double m11, double m12) {
+        this.m00 = m00; this.m01 = m01; this.m02 = m02;
+        this.m10 = m10; this.m11 = m11; this.m12 = m12;
+        return this;
+    }
+
+    /**
+     * This method copies the components of another matrix.
+     *
+     * @param m the matrix
+     * @return this matrix
+     */
+    public PMatrix2D set(PMatrix2D m) {
+        return set(m.m00, m.m01, m.m02, m.m10, m.m11, m.m12);
+    }
+
+    /**
+     * This method creates a copy of the matrix.
+     *
+     * @return new matrix
+     */
+    public PMatrix2D copy() {
+        return new PMatrix2D(m00, m01, m02, m10, m11, m12);
+    }
+
+    /**
+     * This method post-multiplies a translation.
+     *
+     * @param tx the X translation
+     * @param ty the Y translation
+     * @return this matrix
+     */
+    public PMatrix2D translate(double tx, double ty) {
+        m02 += tx*m00 + ty*m01;
+        m12 += tx*m10 + ty*m11;
+        return this;
+    }
+
+    /**
+     * This method post-multiplies a rotation by angle theta, in the same
+     * direction as PVector.rotate.
+     *
+     * @param theta the rotation angle
+     * @return this matrix
+     */
+    public PMatrix2D rotate(double theta) {
+        double c = cos(theta);
+        double s = sin(theta);
+        return apply(c, -s, 0, s, c, 0);
+    }
+
+    /**
+     * This method post-multiplies a scale.
+     *
+     * @param sx the X scale
+     * @param sy the Y scale
+     * @return this matrix
+     */
+    public PMatrix2D scale(double sx, double sy) {
+        m00 *= sx; m01 *= sy;
+        m10 *= sx; m11 *= sy;
+        return this;
+    }
+
+    /**
+     * This method post-multiplies another matrix: this = this * m.
+     *
+     * @param m the matrix
+     * @return this matrix
+     */
+    public PMatrix2D apply(PMatrix2D m) {
+        return apply(m.m00, m.m01, m.m02, m.m10, m.m11, m.m12);
+    }
+
+    /**
+     * This method post-multiplies the matrix with the given top two rows.
+     *
+     * @return this matrix
+     */
+    public PMatrix2D apply(double n00, double n01, double n02,
+                           double n10, double n11, double n12) {
+        return set(m00*n00 + m01*n10, m00*n01 + m01*n11, m00*n02 + m01*n12 + m02,
+                   m10*n00 + m11*n10, m10*n01 + m11*n11, m10*n02 + m11*n12 + m12);
+    }
+
+    /**
+     * This method pre-multiplies another matrix: this = m * this.
+     *
+     * @param m the matrix
+     * @return this matrix
+     */
+    public PMatrix2D preApply(PMatrix2D m) {
+        return set(m.m00*m00 + m.m01*m10, m.m00*m01 + m.m01*m11, m.m00*m02 + m.m01*m12 + m.m02,
+                   m.m10*m00 + m.m11*m10, m.m10*m01 + m.m11*m11, m.m10*m02 + m.m11*m12 + m.m12);
+    }
+
+    /**
+     * This method calculates the determinant of the matrix.
+     *
+     * @return the determinant
+     */
+    public double determinant() {
+        return m00*m11 - m01*m10;
+    }
+
+    /**
+     * This method inverts the matrix in place. A singular matrix is left
+     * unchanged.
+     *
+     * @return true if the matrix was inverted
+     */
+    public boolean invert() {
+        double det = determinant();
+        if(det == 0) {
+            return false;
+        }
+        double i00 = m11 / det, i01 = -m01 / det;
+        double i10 = -m10 / det, i11 = m00 / det;
+        set(i00, i01, -(i00*m02 + i01*m12),
+            i10, i11, -(i10*m02 + i11*m12));
+        return true;
+    }
+
+    /**
+     * This method transforms the X,Y components of the vector (v) and binds
+     * the result to the target vector, which may be v. Z is copied unchanged.
+     *
+     * @param v the vector
+     * @param target the target vector, or null to create a new one
+     * @return target vector
+     */
+    public PVector transform(PVector v, PVector target) {
+        double x = m00*v.x + m01*v.y + m02;
+        double y = m10*v.x + m11*v.y + m12;
+        if(target == null) {
+            target = new PVector(x, y, v.z);
+        }
+        else {
+            target.set(x, y, v.z);
+        }
+        return target;
+    }
+
+    /**
+     * This method transforms every vector of the array in place.
+     *
+     * @param vectors the vectors
+     * @return the vectors
+     */
+    public PVector[] transform(PVector[] vectors) {
+        for(PVector v : vectors) {
+            double x = v.x;
+            v.x = m00*x + m01*v.y + m02;
+            v.y = m10*x + m11*v.y + m12;
+        }
+        return vectors;
+    }
+
+    /**
+     * This method transforms the vectors of the source buffer in the range
+     * [from, to) into the same indices of the target buffer, which may be
+     * the source.
+     *
+     * @param source the source buffer
+     * @param target the target buffer
+     * @param from the first index
+     * @param to the index after the last
+     * @return target buffer
+     */
+    public PVectorBuffer transform(PVectorBuffer source, PVectorBuffer target, int from, int to) {
+        source.checkRange(from, to);
+        target.checkRange(from, to);
+        double[] sx = source.x, sy = source.y, sz = source.z;
+        double[] tx = target.x, ty = target.y, tz = target.z;
+        double a00 = m00, a01 = m01, a02 = m02;
+        double a10 = m10, a11 = m11, a12 = m12;
+        for(int i = from; i < to; i++) {
+            double x = sx[i], y = sy[i];
+            tx[i] = a00*x + a01*y + a02;
+            ty[i] = a10*x + a11*y + a12;
+            tz[i] = sz[i];
+        }
+        return target;
+    }
+
+    @Override
+    public String toString() {
+        return "PMatrix2D[" + m00 + ", " + m01 + ", " + m02 + "; " + m10 + ", " + m11 + ", " + m12 + "]";
+    }
+}
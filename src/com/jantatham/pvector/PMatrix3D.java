@@ -0,0 +1,396 @@
+package com.jantatham.pvector;
+
+import static java.lang.Math.*;
+
+/**
+ * The PMatrix3D Class is a 4x4 matrix for 3D transformations.
+ *
+ * The transformation methods post-multiply, so in
+ * m.translate(..).rotateY(..).scale(..) the scale is applied to a point
+ * first and the translation last. Building a whole model-view chain into
+ * one matrix and then calling the batch transform costs a single pass per
+ * point.
+ */
+public class PMatrix3D {
+
+    public double m00, m01, m02, m03;
+    public double m10, m11, m12, m13;
+    public double m20, m21, m22, m23;
+    public double m30, m31, m32, m33;
+
+    /**
+     * This method is a Constructor for the identity matrix.
+     */
+    public PMatrix3D() {
+        reset();
+    }
+
+    /**
+     * This method is a Constructor for the matrix with the given rows.
+     */
+    public PMatrix3D(double m00, double m01, double m02, double m03,
+                     double m10, double m11, double m12, double m13,
+                     double m20, double m21, double m22, double m23,
+                     double m30, double m31, double m32, double m33) {
+        set(m00, m01, m02, m03, m10, m11, m12, m13, m20, m21, m22, m23, m30, m31, m32, m33);
+    }
+
+    /**
+     * This method sets the matrix to the identity.
+     *
+     * @return this matrix
+     */
+    public PMatrix3D reset() {
+        return set(1, 0, 0, 0,
+                   0, 1, 0, 0,
+                   0, 0, 1, 0,
+                   0, 0, 0, 1);
+    }
+
+    /**
+     * This method sets every component of the matrix, row by row.
+     *
+     * @return this matrix
+     */
+    public PMatrix3D set(double m00, double m01, double m02, double m03,
+                         double m10, double m11, double m12, double m13,
+                         double m20, double m21, double m22, double m23,
+                         double m30, double m31, double m32, double m33) {
+        this.m00 = m00; this.m01 = m01; this.m02 = m02; this.m03 = m03;
+        this.m10 = m10; this.m11 = m11; this.m12 = m12; this.m13 = m13;
+        this.m20 = m20; this.m21 = m21; this.m22 = m22; this.m23 = m23;
+        this.m30 = m30; this.m31 = m31; this.m32 = m32; this.m33 = m33;
+        return this;
+    }
+
+    /**
+     * This method copies the components of another matrix.
+     *
+     * @param m the matrix
+     * @return this matrix
+     */
+    public PMatrix3D set(PMatrix3D m) {
+        return set(m.m00, m.m01, m.m02, m.m03,
+                   m.m10, m.m11, m.m12, m.m13,
+                   m.m20, m.m21, m.m22, m.m23,
+                   m.m30, m.m31, m.m32, m.m33);
+    }
+
+    /**
+     * This method creates a copy of the matrix.
+     *
+     * @return new matrix
+     */
+    public PMatrix3D copy() {
+        return new PMatrix3D().set(this);
+    }
+
+    /**
+     * This method post-multiplies a translation.
+     *
+     * @param tx the X translation
+     * @param ty the Y translation
+     * @param tz the Z translation
+     * @return this matrix
+     */
+    public PMatrix3D translate(double tx, double ty, double tz) {
+        m03 += tx*m00 + ty*m01 + tz*m02;
+        m13 += tx*m10 + ty*m11 + tz*m12;
+        m23 += tx*m20 + ty*m21 + tz*m22;
+        m33 += tx*m30 + ty*m31 + tz*m32;
+        return this;
+    }
+
+    /**
+     * This method post-multiplies a rotation around the X axis, in the same
+     * direction as PVector.rotateX.
+     *
+     * @param theta the rotation angle
+     * @return this matrix
+     */
+    public PMatrix3D rotateX(double theta) {
+        double c = cos(theta);
+        double s = sin(theta);
+        return apply(1, 0, 0, 0,
+                     0, c, -s, 0,
+                     0, s, c, 0,
+                     0, 0, 0, 1);
+    }
+
+    /**
+     * This method post-multiplies a rotation around the Y axis, in the same
+     * direction as PVector.rotateY.
+     *
+     * @param theta the rotation angle
+     * @return this matrix
+     */
+    public PMatrix3D rotateY(double theta) {
+        double c = cos(theta);
+        double s = sin(theta);
+        return apply(c, 0, s, 0,
+                     0, 1, 0, 0,
+                     -s, 0, c, 0,
+                     0, 0, 0, 1);
+    }
+
+    /**
+     * This method post-multiplies a rotation around the Z axis, in the same
+     * direction as PVector.rotateZ.
+     *
+     * @param theta the rotation angle
+     * @return this matrix
+     */
+    public PMatrix3D rotateZ(double theta) {
+        double c = cos(theta);
+        double s = sin(theta);
+        return apply(c, -s, 0, 0,
+                     s, c, 0, 0,
+                     0, 0, 1, 0,
+                     0, 0, 0, 1);
+    }
+
+    /**
+     * This method post-multiplies a quaternion rotation.
+     *
+     * @param q the rotation
+     * @return this matrix
+     */
+    public PMatrix3D rotate(Quaternion q) {
+        return rotate((AbstractRotation3D) q);
+    }
+
+    /**
+     * This method post-multiplies an axis-angle rotation.
+     *
+     * @param r the rotation
+     * @return this matrix
+     */
+    public PMatrix3D rotate(AxisAngle r) {
+        return rotate((AbstractRotation3D) r);
+    }
+
+    private PMatrix3D rotate(AbstractRotation3D r) {
+        return apply(r.m00, r.m01, r.m02, 0,
+                     r.m10, r.m11, r.m12, 0,
+                     r.m20, r.m21, r.m22, 0,
+                     0, 0, 0, 1);
+    }
+
+    /**
+     * This method post-multiplies a scale.
+     *
+     * @param sx the X scale
+     * @param sy the Y scale
+     * @param sz the Z scale
+     * @return this matrix
+     */
+    public PMatrix3D scale(double sx, double sy, double sz) {
+        m00 *= sx; m01 *= sy; m02 *= sz;
+        m10 *= sx; m11 *= sy; m12 *= sz;
+        m20 *= sx; m21 *= sy; m22 *= sz;
+        m30 *= sx; m31 *= sy; m32 *= sz;
+        return this;
+    }
+
+    /**
+     * This method post-multiplies another matrix: this = this * m.
+     *
+     * @param m the matrix
+     * @return this matrix
+     */
+    public PMatrix3D apply(PMatrix3D m) {
+        return apply(m.m00, m.m01, m.m02, m.m03,
+                     m.m10, m.m11, m.m12, m.m13,
+                     m.m20, m.m21, m.m22, m.m23,
+                     m.m30, m.m31, m.m32, m.m33);
+    }
+
+    /**
+     * This method post-multiplies the matrix with the given rows.
+     *
+     * @return this matrix
+     */
+    public PMatrix3D apply(double n00, double n01, double n02, double n03,
+                           double n10, double n11, double n12, double n13,
+                           double n20, double n21, double n22, double n23,
+                           double n30, double n31, double n32, double n33) {
+        return set(m00*n00 + m01*n10 + m02*n20 + m03*n30,
+                   m00*n01 + m01*n11 + m02*n21 + m03*n31,
+                   m00*n02 + m01*n12 + m02*n22 + m03*n32,
+                   m00*n03 + m01*n13 + m02*n23 + m03*n33,
+
+                   m10*n00 + m11*n10 + m12*n20 + m13*n30,
+                   m10*n01 + m11*n11 + m12*n21 + m13*n31,
+                   m10*n02 + m11*n12 + m12*n22 + m13*n32,
+                   m10*n03 + m11*n13 + m12*n23 + m13*n33,
+
+                   m20*n00 + m21*n10 + m22*n20 + m23*n30,
+                   m20*n01 + m21*n11 + m22*n21 + m23*n31,
+                   m20*n02 + m21*n12 + m22*n22 + m23*n32,
+                   m20*n03 + m21*n13 + m22*n23 + m23*n33,
+
+                   m30*n00 + m31*n10 + m32*n20 + m33*n30,
+                   m30*n01 + m31*n11 + m32*n21 + m33*n31,
+                   m30*n02 + m31*n12 + m32*n22 + m33*n32,
+                   m30*n03 + m31*n13 + m32*n23 + m33*n33);
+    }
+
+    /**
+     * This method pre-multiplies another matrix: this = m * this.
+     *
+     * @param m the matrix
+     * @return this matrix
+     */
+    public PMatrix3D preApply(PMatrix3D m) {
+        PMatrix3D product = m.copy().apply(this);
+        return set(product);
+    }
+
+    /**
+     * This method calculates the determinant of the matrix.
+     *
+     * @return the determinant
+     */
+    public double determinant() {
+        double s0 = m00*m11 - m10*m01, s1 = m00*m12 - m10*m02, s2 = m00*m13 - m10*m03;
+        double s3 = m01*m12 - m11*m02, s4 = m01*m13 - m11*m03, s5 = m02*m13 - m12*m03;
+        double c5 = m22*m33 - m32*m23, c4 = m21*m33 - m31*m23, c3 = m21*m32 - m31*m22;
+        double c2 = m20*m33 - m30*m23, c1 = m20*m32 - m30*m22, c0 = m20*m31 - m30*m21;
+        return s0*c5 - s1*c4 + s2*c3 + s3*c2 - s4*c1 + s5*c0;
+    }
+
+    /**
+     * This method inverts the matrix in place. A singular matrix is left
+     * unchanged.
+     *
+     * @return true if the matrix was inverted
+     */
+    public boolean invert() {
+        double s0 = m00*m11 - m10*m01, s1 = m00*m12 - m10*m02, s2 = m00*m13 - m10*m03;
+        double s3 = m01*m12 - m11*m02, s4 = m01*m13 - m11*m03, s5 = m02*m13 - m12*m03;
+        double c5 = m22*m33 - m32*m23, c4 = m21*m33 - m31*m23, c3 = m21*m32 - m31*m22;
+        double c2 = m20*m33 - m30*m23, c1 = m20*m32 - m30*m22, c0 = m20*m31 - m30*m21;
+
+        double det = s0*c5 - s1*c4 + s2*c3 + s3*c2 - s4*c1 + s5*c0;
+        if(det == 0) {
+            return false;
+        }
+        double inv = 1 / det;
+
+        set(( m11*c5 - m12*c4 + m13*c3) * inv,
+            (-m01*c5 + m02*c4 - m03*c3) * inv,
+            ( m31*s5 - m32*s4 + m33*s3) * inv,
+            (-m21*s5 + m22*s4 - m23*s3) * inv,
+
+            (-m10*c5 + m12*c2 - m13*c1) * inv,
+            ( m00*c5 - m02*c2 + m03*c1) * inv,
+            (-m30*s5 + m32*s2 - m33*s1) * inv,
+            ( m20*s5 - m22*s2 + m23*s1) * inv,
+
+            ( m10*c4 - m11*c2 + m13*c0) * inv,
+            (-m00*c4 + m01*c2 - m03*c0) * inv,
+            ( m30*s4 - m31*s2 + m33*s0) * inv,
+            (-m20*s4 + m21*s2 - m23*s0) * inv,
+
+            (-m10*c3 + m11*c1 - m12*c0) * inv,
+            ( m00*c3 - m01*c1 + m02*c0) * inv,
+            (-m30*s3 + m31*s1 - m32*s0) * inv,
+            ( m20*s3 - m21*s1 + m22*s0) * inv);
+        return true;
+    }
+
+    /**
+     * This method reports whether the bottom row is (0, 0, 0, 1), in which
+     * case points are transformed without a perspective divide.
+     *
+     * @return true for an affine matrix
+     */
+    public boolean isAffine() {
+        return m30 == 0 && m31 == 0 && m32 == 0 && m33 == 1;
+    }
+
+    /**
+     * This method transforms the point (v) and binds the result to the
+     * target vector, which may be v. A projective matrix divides the result
+     * by its W component.
+     *
+     * @param v the point
+     * @param target the target vector, or null to create a new one
+     * @return target vector
+     */
+    public PVector transform(PVector v, PVector target) {
+        double x = m00*v.x + m01*v.y + m02*v.z + m03;
+        double y = m10*v.x + m11*v.y + m12*v.z + m13;
+        double z = m20*v.x + m21*v.y + m22*v.z + m23;
+        double w = m30*v.x + m31*v.y + m32*v.z + m33;
+        if(w != 1 && w != 0) {
+            x /= w;
+            y /= w;
+            z /= w;
+        }
+        if(target == null) {
+            target = new PVector(x, y, z);
+        }
+        else {
+            target.set(x, y, z);
+        }
+        return target;
+    }
+
+    /**
+     * This method transforms every point of the array in place.
+     *
+     * @param vectors the points
+     * @return the points
+     */
+    public PVector[] transform(PVector[] vectors) {
+        for(PVector v : vectors) {
+            transform(v, v);
+        }
+        return vectors;
+    }
+
+    /**
+     * This method transforms the points of the source buffer in the range
+     * [from, to) into the same indices of the target buffer, which may be
+     * the source.
+     *
+     * @param source the source buffer
+     * @param target the target buffer
+     * @param from the first index
+     * @param to the index after the last
+     * @return target buffer
+     */
+    public PVectorBuffer transform(PVectorBuffer source, PVectorBuffer target, int from, int to) {
+        source.checkRange(from, to);
+        target.checkRange(from, to);
+        if(!isAffine()) {
+            PVector v = new PVector();
+            for(int i = from; i < to; i++) {
+                target.set(i, transform(source.get(i, v), v));
+            }
+            return target;
+        }
+
+        double[] sx = source.x, sy = source.y, sz = source.z;
+        double[] tx = target.x, ty = target.y, tz = target.z;
+        double a00 = m00, a01 = m01, a02 = m02, a03 = m03;
+        double a10 = m10, a11 = m11, a12 = m12, a13 = m13;
+        double a20 = m20, a21 = m21, a22 = m22, a23 = m23;
+        for(int i = from; i < to; i++) {
+            double x = sx[i], y = sy[i], z = sz[i];
+            tx[i] = a00*x + a01*y + a02*z + a03;
+            ty[i] = a10*x + a11*y + a12*z + a13;
+            tz[i] = a20*x + a21*y + a22*z + a23;
+        }
+        return target;
+    }
+
+    @Override
+    public String toString() {
+        return "PMatrix3D[" + m00 + ", " + m01 + ", " + m02 + ", " + m03 + "; "
+                + m10 + ", " + m11 + ", " + m12 + ", " + m13 + "; "
+                + m20 + ", " + m21 + ", " + m22 + ", " + m23 + "; "
+                + m30 + ", " + m31 + ", " + m32 + ", " + m33 + "]";
+    }
+}
@@ -0,0 +1,99 @@
+package com.jantatham.pvector;
+
+import static java.lang.Math.PI;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class PMatrixTest {
+    private static void assertVector(PVector actual, PVector expected) {
+        assertEquals(actual.x, expected.x, 0.000001);
+        assertEquals(actual.y, expected.y, 0.000001);
+        assertEquals(actual.z, expected.z, 0.000001);
+    }
+
+    @org.junit.Test
+    public void matrix2D_translate_rotate_scale() throws Exception {
+        PMatrix2D m = new PMatrix2D().translate(10, 20).rotate(PI/2).scale(2, 3);
+        PVector result = m.transform(new PVector(1, 1, 5), null);
+        assertVector(result, new PVector(7, 22, 5));
+    }
+
+    @org.junit.Test
+    public void matrix2D_invert() throws Exception {
+        PMatrix2D m = new PMatrix2D().translate(10, 20).rotate(0.3).scale(2, 3);
+        PMatrix2D inverse = m.copy();
+        assertTrue(inverse.invert());
+        PVector pv = new PVector(3, 4);
+        assertVector(inverse.transform(m.transform(pv, null), null), pv);
+        assertFalse(new PMatrix2D().scale(0, 1).invert());
+    }
+
+    @org.junit.Test
+    public void matrix2D_batch_matches_single() throws Exception {
+        PMatrix2D m = new PMatrix2D().translate(1, 2).rotate(0.7);
+        PVector[] vectors = { new PVector(1, 2, 3), new PVector(4, 5, 6) };
+        PVectorBuffer buffer = PVectorBuffer.fromArray(vectors);
+        PVector expected = m.transform(vectors[1], null);
+        m.transform(vectors);
+        m.transform(buffer, buffer, 0, buffer.size());
+        assertVector(vectors[1], expected);
+        assertVector(buffer.get(1, null), expected);
+    }
+
+    @org.junit.Test
+    public void matrix3D_rotations_match_pVector() throws Exception {
+        PVector pv = new PVector(3, 4, 5);
+        assertVector(new PMatrix3D().rotateX(0.4).transform(pv, null), pv.copy().rotateX(0.4));
+        assertVector(new PMatrix3D().rotateY(0.4).transform(pv, null), pv.copy().rotateY(0.4));
+        assertVector(new PMatrix3D().rotateZ(0.4).transform(pv, null), pv.copy().rotateZ(0.4));
+        assertVector(new PMatrix3D().rotate(AxisAngle.rotationY(0.4)).transform(pv, null), pv.copy().rotateY(0.4));
+    }
+
+    @org.junit.Test
+    public void matrix3D_composition_order() throws Exception {
+        PMatrix3D m = new PMatrix3D().translate(10, 0, 0).rotateZ(PI/2).scale(2, 2, 2);
+        assertVector(m.transform(new PVector(1, 0, 0), null), new PVector(10, 2, 0));
+
+        PMatrix3D t = new PMatrix3D().translate(10, 0, 0);
+        PMatrix3D r = new PMatrix3D().rotateZ(PI/2);
+        PMatrix3D pre = r.copy().preApply(t);
+        PMatrix3D post = t.copy().apply(r);
+        assertVector(pre.transform(new PVector(1, 0, 0), null), post.transform(new PVector(1, 0, 0), null));
+    }
+
+    @org.junit.Test
+    public void matrix3D_invert() throws Exception {
+        PMatrix3D m = new PMatrix3D().translate(1, 2, 3).rotateX(0.3).rotateY(-1.2).scale(2, 3, 4);
+        PMatrix3D product = m.copy();
+        assertTrue(product.invert());
+        product.apply(m);
+        assertEquals(product.m00, 1, 0.000001);
+        assertEquals(product.m11, 1, 0.000001);
+        assertEquals(product.m22, 1, 0.000001);
+        assertEquals(product.m33, 1, 0.000001);
+        assertEquals(product.m03, 0, 0.000001);
+        assertEquals(product.m12, 0, 0.000001);
+        assertEquals(m.determinant(), 24, 0.000001);
+    }
+
+    @org.junit.Test
+    public void matrix3D_batch_matches_single() throws Exception {
+        PMatrix3D m = new PMatrix3D().translate(1, 2, 3).rotateX(0.3).scale(2, 2, 2);
+        PVectorBuffer source = PVectorBuffer.fromArray(new PVector[] { new PVector(1, 2, 3), new PVector(-4, 5, 6) });
+        PVectorBuffer target = new PVectorBuffer(2);
+        m.transform(source, target, 0, 2);
+        assertVector(target.get(1, null), m.transform(new PVector(-4, 5, 6), null));
+    }
+
+    @org.junit.Test
+    public void matrix3D_projective_divides_by_w() throws Exception {
+        PMatrix3D m = new PMatrix3D(1, 0, 0, 0,
+                                    0, 1, 0, 0,
+                                    0, 0, 1, 0,
+                                    0, 0, 1, 0);
+        PVectorBuffer buffer = PVectorBuffer.fromArray(new PVector[] { new PVector(2, 4, 2) });
+        m.transform(buffer, buffer, 0, 1);
+        assertVector(buffer.get(0, null), new PVector(1, 2, 1));
+    }
+}
@@ -1,12 +1,13 @@
 package com.jantatham.pvector;
 
-import javafx.scene.paint.Color;
-
 import static java.lang.Math.*;
 
 /**
  * The PVector Class handles the 2D and 3D vector translations.
  *
+ * Methods that take a target vector create a new one when the target is
+ * null. Inside a PVectorArena frame they take it from the thread's arena
+ * instead.
  */
 public class PVector {
 
@@ -113,7 +114,7 @@ public class PVector {
      */
     static public PVector add(PVector v1, PVector v2, PVector target) {
         if(target == null) {
-            target = new PVector(v1.x+v2.x, v1.y+v2.y, v1.z+v2.z);
+            target = PVectorArena.obtain(v1.x+v2.x, v1.y+v2.y, v1.z+v2.z);
         }
         else {
             target.set(v1.x+v2.x, v1.y+v2.y, v1.z+v2.z);
@@ -145,22 +146,6 @@ public class PVector {
         return Math.acos(angle);
     }
 
-    /**
-     * This method converts an RBGA integer into RGBA array of values.
-     *
-     * @param color RGBA integer
-     * @return array of RGBA values
-     */
-    public int[] colorIntegerToRGBA(int color) {
-        int a = (color >> 24) & 255;
-        int r = (color >> 16) & 255;
-        int g = (color >> 8) & 255;
-        int b = (color >> 0) & 255;
-
-        int[] rgba = {r,g,b,a};
-        return rgba;
-    }
-
     /**
      * This method creates a copy of the current vector by returning a new
      * vector.
@@ -181,7 +166,9 @@ public class PVector {
      * @return the euclidean distance
      */
     public double dist(double x1, double y1, double x2, double y2) {
-        return sqrt(Math.pow((x1 - x2),2) + Math.pow((y1 - y2),2));
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return sqrt(dx*dx + dy*dy);
     }
 
     /**
@@ -191,7 +178,7 @@ public class PVector {
      * @return the euclidean distance
      */
     public double dist(PVector p) {
-        return sqrt(Math.pow((this.x - p.x),2) + Math.pow((this.y - p.y),2));
+        return sqrt(distSq(p));
     }
 
     /**
@@ -202,7 +189,32 @@ public class PVector {
      * @return the euclidean distance
      */
     public double dist(PVector pv1, PVector pv2) {
-        return sqrt(Math.pow((pv1.x - pv2.x),2) + Math.pow((pv1.y - pv2.y),2));
+        return sqrt(distSq(pv1, pv2));
+    }
+
+    /**
+     * This method calculates the distance between two points, squared. It
+     * avoids the square root, so prefer it for comparing distances.
+     *
+     * @param p a vector
+     * @return the euclidean distance squared
+     */
+    public double distSq(PVector p) {
+        double dx = x - p.x;
+        double dy = y - p.y;
+        double dz = z - p.z;
+        return dx*dx + dy*dy + dz*dz;
+    }
+
+    /**
+     * This method calculates the distance between two points, squared.
+     *
+     * @param pv1 the first vector
+     * @param pv2 the second vector
+     * @return the euclidean distance squared
+     */
+    public double distSq(PVector pv1, PVector pv2) {
+        return pv1.distSq(pv2);
     }
 
     /**
@@ -247,7 +259,7 @@ public class PVector {
     static public PVector div(PVector v1, double n, PVector target) {
         if(n != 0) {
             if (target == null) {
-                target = new PVector(v1.x / n, v1.y / n, v1.z / n);
+                target = PVectorArena.obtain(v1.x / n, v1.y / n, v1.z / n);
             } else {
                 target.set(v1.x / n, v1.y / n, v1.z / n);
             }
@@ -300,7 +312,7 @@ public class PVector {
      */
     static public PVector fromAngle(double angle, PVector target) {
         if(target == null) {
-            target = new PVector(cos(angle), sin(angle), 0);
+            target = PVectorArena.obtain(cos(angle), sin(angle), 0);
         }
         else {
             target.set(cos(angle), sin(angle), 0);
@@ -359,7 +371,7 @@ public class PVector {
      * @return this vector
      */
     public PVector lerp(PVector vec1, PVector vec2, double amount) {
-        PVector vec = vec1.copy();
+        PVector vec = PVectorArena.obtain(vec1.x, vec1.y, vec1.z);
         vec.lerp(vec2, amount);
         return vec;
     }
@@ -383,33 +395,6 @@ public class PVector {
         return this;
     }
 
-    /**
-     * 	Calculates a color or colors between two color at a specific increment.
-     * @param c1 int: interpolate from this color
-     * @param c2 int: interpolate to this color
-     * @param amount between 0.0 and 1.0
-     * @return integer
-     */
-    public int lerpColorRGBFX(Color c1, Color c2, double amount) {
-        if (amount < 0) amount = 0;
-        if (amount > 1) amount = 1;
-
-        int r1 = (int) (c1.getRed() * 255);
-        int g1 = (int) (c1.getGreen() * 255);
-        int b1 = (int) (c1.getBlue() * 255);
-        int a1 = (int) (c1.getOpacity());
-
-        int r2 = (int) (c2.getRed() * 255);
-        int g2 = (int) (c2.getGreen() * 255);
-        int b2 = (int) (c2.getBlue() * 255);
-        int a2 = (int) (c2.getOpacity());
-
-        return ((int)(Math.round(a1 + (a2-a1) * amount) << 24) |
-                (int)(Math.round(r1 + (r2-r1) * amount) << 16) |
-                (int)(Math.round(g1 + (g2-g1) * amount) << 8) |
-                (int)(Math.round(b1 + (b2-b1) * amount)));
-    }
-
     /**
      *
      * @param max the maximum limit
@@ -490,7 +475,7 @@ public class PVector {
      */
     static public PVector mult(PVector v1, double n, PVector target) {
         if(target == null) {
-            target = new PVector(v1.x*n, v1.y*n, v1.z*n);
+            target = PVectorArena.obtain(v1.x*n, v1.y*n, v1.z*n);
         }
         else {
             target.set(v1.x*n, v1.y*n, v1.z*n);
@@ -520,7 +505,7 @@ public class PVector {
      */
     public PVector normalize(PVector vec) {
         if(vec == null) {
-            vec = new PVector();
+            vec = PVectorArena.obtain(0, 0, 0);
         }
         double m = mag();
         if(m > 0) {
@@ -541,9 +526,11 @@ public class PVector {
      * @return this vector
      */
     public PVector rotate(double theta) {
+        double cos = cos(theta);
+        double sin = sin(theta);
         double oldX = this.x;
-        this.x = (this.x * cos(theta)) - (this.y * sin(theta));
-        this.y = (oldX * sin(theta)) + (this.y * cos(theta));
+        this.x = (this.x * cos) - (this.y * sin);
+        this.y = (oldX * sin) + (this.y * cos);
         return this;
     }
 
@@ -555,9 +542,11 @@ public class PVector {
      * @return the new vector
      */
     public PVector rotateX(double theta) {
+        double cos = cos(theta);
+        double sin = sin(theta);
         double oldY = this.y;
-        this.y = (this.y * cos(theta)) - (this.z * sin(theta));
-        this.z = (oldY * sin(theta)) + (this.z * cos(theta));
+        this.y = (this.y * cos) - (this.z * sin);
+        this.z = (oldY * sin) + (this.z * cos);
         return this;
     }
 
@@ -568,9 +557,11 @@ public class PVector {
      * @return the new vector
      */
     public PVector rotateY(double theta) {
+        double cos = cos(theta);
+        double sin = sin(theta);
         double oldZ = this.z;
-        this.z = (this.z * cos(theta)) - (this.x * sin(theta));
-        this.x = (oldZ * sin(theta)) + (this.z * cos(theta));
+        this.z = (this.z * cos) - (this.x * sin);
+        this.x = (oldZ * sin) + (this.x * cos);
         return this;
     }
 
@@ -581,9 +572,11 @@ public class PVector {
      * @return the new vector
      */
     public PVector rotateZ(double theta) {
+        double cos = cos(theta);
+        double sin = sin(theta);
         double oldX = this.x;
-        this.x = (this.x * cos(theta)) - (this.y * sin(theta));
-        this.y = (oldX * sin(theta)) + (this.y * cos(theta));
+        this.x = (this.x * cos) - (this.y * sin);
+        this.y = (oldX * sin) + (this.y * cos);
         return this;
     }
 
@@ -765,7 +758,7 @@ public class PVector {
      */
     static public PVector sub(PVector v1, PVector v2, PVector target) {
         if(target == null) {
-            target = new PVector(v1.x-v2.x, v1.y-v2.y, v1.z-v2.z);
+            target = PVectorArena.obtain(v1.x-v2.x, v1.y-v2.y, v1.z-v2.z);
         }
         else {
             target.set(v1.x-v2.x, v1.y-v2.y, v1.z-v2.z);
@@ -0,0 +1,291 @@
+package com.jantatham.pvector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The PVectorArena Class is a per-thread pool of scratch vectors for the
+ * PVector methods that create a new vector when their target is null, such
+ * as PVector.add(v1, v2, null), PVector.fromAngle(angle, null),
+ * lerp(v1, v2, amount) and normalize(null).
+ *
+ * While a frame is open on a thread, those methods take their result from
+ * the thread's arena instead of allocating it. Closing the frame releases
+ * every vector taken since it was opened in one step, and the next frame
+ * reuses the same objects, so a steady frame loop stops allocating once the
+ * arena has grown to the frame's needs:
+ *
+ *     try(PVectorArena.Frame frame = PVectorArena.begin()) {
+ *         PVector steer = PVector.sub(target, pos, null).setMag(speed);
+ *         ...
+ *     }
+ *
+ * A vector taken from an arena must not be used after its frame closes.
+ * Frames nest; closing an inner frame releases only the vectors taken
+ * inside it. Without an open frame the methods allocate as before.
+ *
+ * With tracking on, every allocation made for a null target outside a frame
+ * is counted by the call site that asked for it, so allocationReport() lists
+ * the places in a hot loop that still allocate.
+ */
+public final class PVectorArena {
+
+    /**
+     * The arena of each thread that has opened a frame. Threads that never
+     * do, such as pool workers running other code, get none.
+     */
+    private static final ThreadLocal<PVectorArena> ARENA = new ThreadLocal<>();
+
+    /**
+     * The number of open frames on all threads plus one while tracking. While
+     * it is zero a null target costs one volatile read; otherwise it costs a
+     * thread local lookup as well.
+     */
+    private static final AtomicInteger ENGAGED = new AtomicInteger();
+
+    private static volatile boolean tracking;
+    private static final ConcurrentHashMap<String, LongAdder> SITES = new ConcurrentHashMap<>();
+
+    private PVector[] vectors;
+    private int used;
+    private int[] marks = new int[8];
+    private Frame[] frames = new Frame[8];
+    private int depth;
+    private int peak;
+
+    private PVectorArena(int capacity) {
+        vectors = new PVector[capacity];
+        for(int i = 0; i < capacity; i++) {
+            vectors[i] = new PVector();
+        }
+    }
+
+    /**
+     * This method opens a frame on the current thread's arena. The Frame
+     * objects are reused by later frames of the same depth, so opening a
+     * frame does not allocate either.
+     *
+     * @return the frame, to be closed by the same thread
+     */
+    static public Frame begin() {
+        PVectorArena arena = current();
+        if(arena.depth == arena.marks.length) {
+            arena.marks = Arrays.copyOf(arena.marks, arena.depth * 2);
+            arena.frames = Arrays.copyOf(arena.frames, arena.depth * 2);
+        }
+        Frame frame = arena.frames[arena.depth];
+        if(frame == null) {
+            frame = arena.frames[arena.depth] = new Frame(arena, arena.depth + 1);
+        }
+        frame.closed = false;
+        arena.marks[arena.depth++] = arena.used;
+        ENGAGED.incrementAndGet();
+        return frame;
+    }
+
+    /**
+     * This method returns the current thread's arena, creating it on first
+     * use.
+     *
+     * @return the arena
+     */
+    static public PVectorArena current() {
+        PVectorArena arena = ARENA.get();
+        if(arena == null) {
+            arena = new PVectorArena(256);
+            ARENA.set(arena);
+        }
+        return arena;
+    }
+
+    /**
+     * This method returns the current thread's arena, or null if the thread
+     * has never opened a frame.
+     */
+    static PVectorArena peek() {
+        return ARENA.get();
+    }
+
+    /**
+     * This method returns the number of vectors taken from the arena in its
+     * open frames.
+     *
+     * @return the vectors in use
+     */
+    public int used() {
+        return used;
+    }
+
+    /**
+     * This method returns the number of vectors the arena holds.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return vectors.length;
+    }
+
+    /**
+     * This method returns the most vectors ever in use at once.
+     *
+     * @return the high water mark
+     */
+    public int peak() {
+        return peak;
+    }
+
+    /**
+     * This method returns the number of open frames.
+     *
+     * @return the frame depth
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * This method turns allocation tracking on or off for all threads.
+     * Tracking captures a stack trace per allocation, so it is for finding
+     * call sites, not for production.
+     *
+     * @param enabled true to track allocations
+     */
+    static public synchronized void setTracking(boolean enabled) {
+        if(enabled != tracking) {
+            tracking = enabled;
+            if(enabled) {
+                ENGAGED.incrementAndGet();
+            }
+            else {
+                ENGAGED.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * This method returns true if allocation tracking is on.
+     *
+     * @return true if tracking
+     */
+    static public boolean isTracking() {
+        return tracking;
+    }
+
+    /**
+     * This method returns the call sites that allocated a vector for a null
+     * target outside a frame while tracking was on, with their counts, most
+     * frequent first.
+     *
+     * @return the call sites and their allocation counts
+     */
+    static public Map<String, Long> allocationReport() {
+        List<Map.Entry<String, LongAdder>> entries = new ArrayList<>(SITES.entrySet());
+        Collections.sort(entries, (a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()));
+        Map<String, Long> report = new LinkedHashMap<>();
+        for(Map.Entry<String, LongAdder> e : entries) {
+            report.put(e.getKey(), e.getValue().sum());
+        }
+        return report;
+    }
+
+    /**
+     * This method clears the allocation report.
+     */
+    static public void clearAllocationReport() {
+        SITES.clear();
+    }
+
+    /**
+     * This method returns a vector set to (x, y, z), taken from the current
+     * thread's arena if it has an open frame and allocated otherwise.
+     */
+    static PVector obtain(double x, double y, double z) {
+        if(ENGAGED.get() == 0) {
+            return new PVector(x, y, z);
+        }
+        PVectorArena arena = peek();
+        if(arena != null && arena.depth > 0) {
+            return arena.take().set(x, y, z);
+        }
+        if(tracking) {
+            record();
+        }
+        return new PVector(x, y, z);
+    }
+
+    private PVector take() {
+        if(used == vectors.length) {
+            int capacity = vectors.length * 2;
+            vectors = Arrays.copyOf(vectors, capacity);
+            for(int i = used; i < capacity; i++) {
+                vectors[i] = new PVector();
+            }
+        }
+        PVector v = vectors[used++];
+        if(used > peak) {
+            peak = used;
+        }
+        return v;
+    }
+
+    private static void record() {
+        String site = "unknown";
+        for(StackTraceElement e : new Throwable().getStackTrace()) {
+            String name = e.getClassName();
+            if(!name.equals(PVector.class.getName()) && !name.equals(PVectorArena.class.getName())) {
+                site = e.toString();
+                break;
+            }
+        }
+        SITES.computeIfAbsent(site, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * The Frame Class is an open frame of an arena. Closing it releases the
+     * vectors taken since it was opened. Closing a frame twice has no
+     * effect until the frame object is reused by the next begin().
+     */
+    public static final class Frame implements AutoCloseable {
+        private final PVectorArena arena;
+        private final int depth;
+        private boolean closed;
+
+        private Frame(PVectorArena arena, int depth) {
+            this.arena = arena;
+            this.depth = depth;
+        }
+
+        /**
+         * This method returns the arena of the frame.
+         *
+         * @return the arena
+         */
+        public PVectorArena arena() {
+            return arena;
+        }
+
+        /**
+         * This method releases the vectors taken in the frame. Frames must be
+         * closed innermost first, on the thread that opened them.
+         */
+        @Override
+        public void close() {
+            if(closed) {
+                return;
+            }
+            if(ARENA.get() != arena || arena.depth != depth) {
+                throw new IllegalStateException("Frames must be closed innermost first by the thread that opened them");
+            }
+            closed = true;
+            arena.used = arena.marks[--arena.depth];
+            ENGAGED.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.jantatham.pvector;
+
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNotSame;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+public class PVectorArenaTest {
+    @org.junit.Test
+    public void other_threads_get_no_arena() throws Exception {
+        final PVector[] result = new PVector[1];
+        final boolean[] hasArena = new boolean[1];
+        try(PVectorArena.Frame frame = PVectorArena.begin()) {
+            Thread thread = new Thread(() -> {
+                result[0] = PVector.add(new PVector(1, 2, 3), new PVector(1, 1, 1), null);
+                hasArena[0] = PVectorArena.peek() != null;
+            });
+            thread.start();
+            thread.join();
+            assertSame(frame.arena(), PVectorArena.peek());
+        }
+        assertFalse(hasArena[0]);
+        assertEquals(result[0].x, 2.0, 0);
+        assertEquals(result[0].z, 4.0, 0);
+    }
+
+    @org.junit.Test
+    public void frame_reuses_vectors() throws Exception {
+        PVector a = new PVector(1, 2, 3);
+        PVector b = new PVector(4, 5, 6);
+        PVector first;
+        try(PVectorArena.Frame frame = PVectorArena.begin()) {
+            first = PVector.add(a, b, null);
+            assertEquals(first.z, 9, 0);
+            PVector second = PVector.sub(a, b);
+            assertNotSame(first, second);
+            assertEquals(frame.arena().used(), 2);
+        }
+        assertEquals(PVectorArena.current().used(), 0);
+        try(PVectorArena.Frame frame = PVectorArena.begin()) {
+            PVector again = PVector.fromAngle(0, null);
+            assertSame(again, first);
+            assertEquals(frame.arena().used(), 1);
+            assertEquals(again.x, 1, 0);
+            assertEquals(again.z, 0, 0);
+        }
+    }
+
+    @org.junit.Test
+    public void nested_frames_release_inner_vectors() throws Exception {
+        PVector a = new PVector(3, 4, 0);
+        try(PVectorArena.Frame outer = PVectorArena.begin()) {
+            PVector kept = a.normalize(null);
+            try(PVectorArena.Frame inner = PVectorArena.begin()) {
+                PVector.mult(a, 2, null);
+                a.lerp(a, kept, 0.5);
+                assertEquals(outer.arena().used(), 3);
+                assertEquals(inner.arena().depth(), 2);
+            }
+            assertEquals(outer.arena().used(), 1);
+            assertEquals(kept.x, 0.6, 1e-12);
+        }
+    }
+
+    @org.junit.Test
+    public void without_frame_allocates() throws Exception {
+        PVector a = new PVector(1, 1, 1);
+        assertNotSame(PVector.div(a, 2, null), PVector.div(a, 2, null));
+    }
+
+    @org.junit.Test(expected = IllegalStateException.class)
+    public void frames_close_innermost_first() throws Exception {
+        PVectorArena.Frame outer = PVectorArena.begin();
+        PVectorArena.Frame inner = PVectorArena.begin();
+        try {
+            outer.close();
+        }
+        finally {
+            inner.close();
+            outer.close();
+        }
+    }
+
+    @org.junit.Test
+    public void tracking_reports_call_sites() throws Exception {
+        PVectorArena.clearAllocationReport();
+        PVectorArena.setTracking(true);
+        try {
+            PVector a = new PVector(1, 1, 1);
+            for(int i = 0; i < 5; i++) {
+                PVector.add(a, a, null);
+            }
+            try(PVectorArena.Frame frame = PVectorArena.begin()) {
+                PVector.add(a, a, null);
+                assertEquals(frame.arena().used(), 1);
+            }
+        }
+        finally {
+            PVectorArena.setTracking(false);
+        }
+        Map<String, Long> report = PVectorArena.allocationReport();
+        assertEquals(report.size(), 1);
+        Map.Entry<String, Long> site = report.entrySet().iterator().next();
+        assertTrue(site.getKey().contains("tracking_reports_call_sites"));
+        assertEquals((long) site.getValue(), 5L);
+        PVectorArena.clearAllocationReport();
+    }
+}
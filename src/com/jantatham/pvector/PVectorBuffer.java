@@ -0,0 +1,782 @@
+package com.jantatham.pvector;
+
+import static java.lang.Math.*;
+
+/**
+ * The PVectorBuffer Class stores a batch of 2D and 3D vectors as three
+ * parallel arrays (structure-of-arrays) so that bulk operations walk
+ * contiguous memory instead of chasing one object per vector.
+ *
+ * Every bulk method works over the whole buffer or over the range
+ * [from, to) and mirrors the semantics of the matching PVector method.
+ */
+public class PVectorBuffer {
+
+    public final double[] x;
+    public final double[] y;
+    public final double[] z;
+
+    private final int size;
+
+    /**
+     * This method is a Constructor for a buffer of zero vectors.
+     *
+     * @param size the number of vectors
+     */
+    public PVectorBuffer(int size) {
+        this(new double[size], new double[size], new double[size]);
+    }
+
+    /**
+     * This method is a Constructor that wraps existing coordinate arrays
+     * without copying them.
+     *
+     * @param x the X components
+     * @param y the Y components
+     * @param z the Z components
+     */
+    public PVectorBuffer(double[] x, double[] y, double[] z) {
+        if(x.length != y.length || x.length != z.length) {
+            throw new IllegalArgumentException("Coordinate arrays must have the same length");
+        }
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.size = x.length;
+    }
+
+    /**
+     * This method creates a buffer holding a copy of the vectors.
+     *
+     * @param vectors the vectors to copy
+     * @return new buffer
+     */
+    static public PVectorBuffer fromArray(PVector[] vectors) {
+        PVectorBuffer buffer = new PVectorBuffer(vectors.length);
+        buffer.set(vectors, 0);
+        return buffer;
+    }
+
+    /**
+     * This method returns the number of vectors in the buffer.
+     *
+     * @return the number of vectors
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method copies the vector at index i into the target vector.
+     *
+     * @param i the index
+     * @param target the target vector, or null to create a new one
+     * @return target vector
+     */
+    public PVector get(int i, PVector target) {
+        if(target == null) {
+            target = new PVector(x[i], y[i], z[i]);
+        }
+        else {
+            target.set(x[i], y[i], z[i]);
+        }
+        return target;
+    }
+
+    /**
+     * This method sets the X, Y and Z components of the vector at index i.
+     *
+     * @param i the index
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @param z the Z scalar
+     * @return this buffer
+     */
+    public PVectorBuffer set(int i, double x, double y, double z) {
+        this.x[i] = x;
+        this.y[i] = y;
+        this.z[i] = z;
+        return this;
+    }
+
+    /**
+     * This method sets the vector at index i from the vector (v).
+     *
+     * @param i the index
+     * @param v the vector
+     * @return this buffer
+     */
+    public PVectorBuffer set(int i, PVector v) {
+        return set(i, v.x, v.y, v.z);
+    }
+
+    /**
+     * This method copies the vectors into the buffer starting at offset.
+     *
+     * @param vectors the vectors to copy
+     * @param offset the first index written
+     * @return this buffer
+     */
+    public PVectorBuffer set(PVector[] vectors, int offset) {
+        for(int i = 0; i < vectors.length; i++) {
+            PVector v = vectors[i];
+            x[offset + i] = v.x;
+            y[offset + i] = v.y;
+            z[offset + i] = v.z;
+        }
+        return this;
+    }
+
+    /**
+     * This method copies the vectors in the range [from, to) of another
+     * buffer into this buffer at the same indices.
+     *
+     * @param other the source buffer
+     * @param from the first index
+     * @param to the index after the last
+     * @return this buffer
+     */
+    public PVectorBuffer set(PVectorBuffer other, int from, int to) {
+        checkRange(from, to);
+        int n = to - from;
+        System.arraycopy(other.x, from, x, from, n);
+        System.arraycopy(other.y, from, y, from, n);
+        System.arraycopy(other.z, from, z, from, n);
+        return this;
+    }
+
+    /**
+     * This method returns a sequential VectorStream over every vector of the
+     * buffer.
+     *
+     * @return the stream
+     */
+    public VectorStream stream() {
+        return VectorStream.of(this);
+    }
+
+    /**
+     * This method creates a copy of the buffer.
+     *
+     * @return new buffer
+     */
+    public PVectorBuffer copy() {
+        return new PVectorBuffer(x.clone(), y.clone(), z.clone());
+    }
+
+    /**
+     * This method copies the buffer into a new array of vectors.
+     *
+     * @return new array of vectors
+     */
+    public PVector[] toArray() {
+        PVector[] vectors = new PVector[size];
+        for(int i = 0; i < size; i++) {
+            vectors[i] = new PVector(x[i], y[i], z[i]);
+        }
+        return vectors;
+    }
+
+    /**
+     * This method copies the buffer into the target vectors, reusing any
+     * vector already present in the array.
+     *
+     * @param target the target array, at least size() long
+     * @return target array
+     */
+    public PVector[] toArray(PVector[] target) {
+        for(int i = 0; i < size; i++) {
+            if(target[i] == null) {
+                target[i] = new PVector(x[i], y[i], z[i]);
+            }
+            else {
+                target[i].set(x[i], y[i], z[i]);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * This method adds the X, Y and Z components to every vector.
+     *
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @param z the Z scalar
+     * @return this buffer
+     */
+    public PVectorBuffer add(double x, double y, double z) {
+        return add(0, size, x, y, z);
+    }
+
+    /**
+     * This method adds the X, Y and Z components to the vectors in the
+     * range [from, to).
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @param z the Z scalar
+     * @return this buffer
+     */
+    public PVectorBuffer add(int from, int to, double x, double y, double z) {
+        checkRange(from, to);
+        double[] bx = this.x, by = this.y, bz = this.z;
+        for(int i = from; i < to; i++) {
+            bx[i] += x;
+            by[i] += y;
+            bz[i] += z;
+        }
+        return this;
+    }
+
+    /**
+     * This method adds the vector (v) to every vector.
+     *
+     * @param v the vector
+     * @return this buffer
+     */
+    public PVectorBuffer add(PVector v) {
+        return add(0, size, v.x, v.y, v.z);
+    }
+
+    /**
+     * This method adds the vectors of another buffer to the vectors of this
+     * buffer, index by index.
+     *
+     * @param other the other buffer
+     * @return this buffer
+     */
+    public PVectorBuffer add(PVectorBuffer other) {
+        return add(0, size, other);
+    }
+
+    /**
+     * This method adds the vectors of another buffer to the vectors of this
+     * buffer in the range [from, to).
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param other the other buffer
+     * @return this buffer
+     */
+    public PVectorBuffer add(int from, int to, PVectorBuffer other) {
+        checkRange(from, to);
+        other.checkRange(from, to);
+        double[] bx = x, by = y, bz = z;
+        double[] ox = other.x, oy = other.y, oz = other.z;
+        for(int i = from; i < to; i++) {
+            bx[i] += ox[i];
+            by[i] += oy[i];
+            bz[i] += oz[i];
+        }
+        return this;
+    }
+
+    /**
+     * This method subtracts the X, Y and Z components from every vector.
+     *
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @param z the Z scalar
+     * @return this buffer
+     */
+    public PVectorBuffer sub(double x, double y, double z) {
+        return sub(0, size, x, y, z);
+    }
+
+    /**
+     * This method subtracts the X, Y and Z components from the vectors in
+     * the range [from, to).
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @param z the Z scalar
+     * @return this buffer
+     */
+    public PVectorBuffer sub(int from, int to, double x, double y, double z) {
+        checkRange(from, to);
+        double[] bx = this.x, by = this.y, bz = this.z;
+        for(int i = from; i < to; i++) {
+            bx[i] -= x;
+            by[i] -= y;
+            bz[i] -= z;
+        }
+        return this;
+    }
+
+    /**
+     * This method subtracts the vector (v) from every vector.
+     *
+     * @param v the vector
+     * @return this buffer
+     */
+    public PVectorBuffer sub(PVector v) {
+        return sub(0, size, v.x, v.y, v.z);
+    }
+
+    /**
+     * This method subtracts the vectors of another buffer from the vectors
+     * of this buffer, index by index.
+     *
+     * @param other the other buffer
+     * @return this buffer
+     */
+    public PVectorBuffer sub(PVectorBuffer other) {
+        return sub(0, size, other);
+    }
+
+    /**
+     * This method subtracts the vectors of another buffer from the vectors
+     * of this buffer in the range [from, to).
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param other the other buffer
+     * @return this buffer
+     */
+    public PVectorBuffer sub(int from, int to, PVectorBuffer other) {
+        checkRange(from, to);
+        other.checkRange(from, to);
+        double[] bx = x, by = y, bz = z;
+        double[] ox = other.x, oy = other.y, oz = other.z;
+        for(int i = from; i < to; i++) {
+            bx[i] -= ox[i];
+            by[i] -= oy[i];
+            bz[i] -= oz[i];
+        }
+        return this;
+    }
+
+    /**
+     * This method multiplies every vector by a scalar.
+     *
+     * @param n the scalar multiplier
+     * @return this buffer
+     */
+    public PVectorBuffer mult(double n) {
+        return mult(0, size, n);
+    }
+
+    /**
+     * This method multiplies the vectors in the range [from, to) by a
+     * scalar.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param n the scalar multiplier
+     * @return this buffer
+     */
+    public PVectorBuffer mult(int from, int to, double n) {
+        checkRange(from, to);
+        double[] bx = x, by = y, bz = z;
+        for(int i = from; i < to; i++) {
+            bx[i] *= n;
+            by[i] *= n;
+            bz[i] *= n;
+        }
+        return this;
+    }
+
+    /**
+     * This method divides every vector by a scalar.
+     *
+     * @param n the scalar divider
+     * @return this buffer
+     */
+    public PVectorBuffer div(double n) {
+        return div(0, size, n);
+    }
+
+    /**
+     * This method divides the vectors in the range [from, to) by a scalar.
+     * As with PVector.div a zero divider leaves the vectors unchanged.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param n the scalar divider
+     * @return this buffer
+     */
+    public PVectorBuffer div(int from, int to, double n) {
+        checkRange(from, to);
+        if(n == 0) {
+            System.out.println("Warning: There is a divide overflow error");
+            return this;
+        }
+        double[] bx = x, by = y, bz = z;
+        for(int i = from; i < to; i++) {
+            bx[i] /= n;
+            by[i] /= n;
+            bz[i] /= n;
+        }
+        return this;
+    }
+
+    /**
+     * This method calculates the magnitude (length) of the vector at index i.
+     *
+     * @param i the index
+     * @return vector magnitude
+     */
+    public double mag(int i) {
+        return sqrt(magSq(i));
+    }
+
+    /**
+     * This method calculates the magnitude (length) of the vector at index i,
+     * squared.
+     *
+     * @param i the index
+     * @return vector magnitude squared
+     */
+    public double magSq(int i) {
+        return x[i]*x[i] + y[i]*y[i] + z[i]*z[i];
+    }
+
+    /**
+     * This method creates a buffer of 2D unit vectors pointing at the
+     * angles, as PVector.fromAngle does.
+     *
+     * @param angles the angles
+     * @param target the target buffer, at least angles.length long, or null
+     * to create a new one
+     * @return target buffer
+     */
+    static public PVectorBuffer fromAngle(double[] angles, PVectorBuffer target) {
+        if(target == null) {
+            target = new PVectorBuffer(angles.length);
+        }
+        return target.fromAngle(0, angles.length, angles);
+    }
+
+    /**
+     * This method sets the vectors in the range [from, to) to 2D unit
+     * vectors pointing at the angles at the same indices.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param angles the angles
+     * @return this buffer
+     */
+    public PVectorBuffer fromAngle(int from, int to, double[] angles) {
+        checkRange(from, to);
+        if(to > angles.length) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") outside " + angles.length + " angles");
+        }
+        double[] bx = x, by = y, bz = z;
+        for(int i = from; i < to; i++) {
+            double angle = angles[i];
+            bx[i] = cos(angle);
+            by[i] = sin(angle);
+            bz[i] = 0;
+        }
+        return this;
+    }
+
+    /**
+     * This method calculates the 2D heading of every vector, as
+     * PVector.heading does. The batch heading and angleBetween methods use a
+     * Java port of the StrictMath algorithms, so they return the same bits
+     * as the per-vector methods without a native call per vector.
+     *
+     * @param out the headings, at least size() long
+     * @return the headings
+     */
+    public double[] heading(double[] out) {
+        return heading(0, size, out);
+    }
+
+    /**
+     * This method calculates the 2D heading of the vectors in the range
+     * [from, to), written to the same indices of out.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param out the headings, or null for a new array of size() values
+     * @return the headings
+     */
+    public double[] heading(int from, int to, double[] out) {
+        checkRange(from, to);
+        if(out == null) {
+            out = new double[size];
+        }
+        double[] bx = x, by = y;
+        for(int i = from; i < to; i++) {
+            out[i] = FdLibm.atan2(by[i], bx[i]);
+        }
+        return out;
+    }
+
+    /**
+     * This method calculates the angle between every vector and the vector
+     * at the same index of another buffer, as PVector.angleBetween does: 0
+     * when either is the zero vector, and the cosine clamped to [-1, 1].
+     *
+     * @param other the other buffer
+     * @param out the angles, at least size() long
+     * @return the angles
+     */
+    public double[] angleBetween(PVectorBuffer other, double[] out) {
+        return angleBetween(0, size, other, out);
+    }
+
+    /**
+     * This method calculates the angle between the vectors in the range
+     * [from, to) and the vectors at the same indices of another buffer.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param other the other buffer
+     * @param out the angles, or null for a new array of size() values
+     * @return the angles
+     */
+    public double[] angleBetween(int from, int to, PVectorBuffer other, double[] out) {
+        checkRange(from, to);
+        other.checkRange(from, to);
+        if(out == null) {
+            out = new double[size];
+        }
+        double[] bx = x, by = y, bz = z;
+        double[] ox = other.x, oy = other.y, oz = other.z;
+        for(int i = from; i < to; i++) {
+            out[i] = angleBetween(bx[i], by[i], bz[i], ox[i], oy[i], oz[i]);
+        }
+        return out;
+    }
+
+    /**
+     * This method calculates the angle between every vector in the range
+     * [from, to) and the vector (v).
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param v the vector
+     * @param out the angles, or null for a new array of size() values
+     * @return the angles
+     */
+    public double[] angleBetween(int from, int to, PVector v, double[] out) {
+        checkRange(from, to);
+        if(out == null) {
+            out = new double[size];
+        }
+        double vx = v.x, vy = v.y, vz = v.z;
+        double[] bx = x, by = y, bz = z;
+        for(int i = from; i < to; i++) {
+            out[i] = angleBetween(bx[i], by[i], bz[i], vx, vy, vz);
+        }
+        return out;
+    }
+
+    /**
+     * This method calculates the angle between two vectors given as
+     * components, with the semantics of PVector.angleBetween.
+     */
+    static double angleBetween(double ax, double ay, double az, double bx, double by, double bz) {
+        double aSq = ax*ax + ay*ay + az*az;
+        double bSq = bx*bx + by*by + bz*bz;
+        if(aSq == 0 || bSq == 0) {
+            return 0.0;
+        }
+        double angle = (ax*bx + ay*by + az*bz) / (sqrt(aSq) * sqrt(bSq));
+        if(angle <= -1) {
+            return Math.PI;
+        }
+        else if(angle >= 1) {
+            return 0;
+        }
+        return FdLibm.acos(angle);
+    }
+
+    /**
+     * This method normalizes every vector to length 1.
+     *
+     * @return this buffer
+     */
+    public PVectorBuffer normalize() {
+        return normalize(0, size);
+    }
+
+    /**
+     * This method normalizes the vectors in the range [from, to) to length 1.
+     * Zero vectors are left unchanged.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @return this buffer
+     */
+    public PVectorBuffer normalize(int from, int to) {
+        checkRange(from, to);
+        double[] bx = x, by = y, bz = z;
+        for(int i = from; i < to; i++) {
+            double m = sqrt(bx[i]*bx[i] + by[i]*by[i] + bz[i]*bz[i]);
+            if(m != 0) {
+                bx[i] /= m;
+                by[i] /= m;
+                bz[i] /= m;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * This method limits the magnitude of every vector to max.
+     *
+     * @param max the maximum limit
+     * @return this buffer
+     */
+    public PVectorBuffer limit(double max) {
+        return limit(0, size, max);
+    }
+
+    /**
+     * This method limits the magnitude of the vectors in the range
+     * [from, to) to max.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param max the maximum limit
+     * @return this buffer
+     */
+    public PVectorBuffer limit(int from, int to, double max) {
+        checkRange(from, to);
+        double[] bx = x, by = y, bz = z;
+        double maxSq = max * max;
+        for(int i = from; i < to; i++) {
+            double mSq = bx[i]*bx[i] + by[i]*by[i] + bz[i]*bz[i];
+            if(mSq > maxSq) {
+                double m = sqrt(mSq);
+                bx[i] = bx[i] / m * max;
+                by[i] = by[i] / m * max;
+                bz[i] = bz[i] / m * max;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * This method sets the magnitude of every vector to len.
+     *
+     * @param len the new length of the vectors
+     * @return this buffer
+     */
+    public PVectorBuffer setMag(double len) {
+        return setMag(0, size, len);
+    }
+
+    /**
+     * This method sets the magnitude of the vectors in the range [from, to)
+     * to len. Zero vectors are left unchanged.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param len the new length of the vectors
+     * @return this buffer
+     */
+    public PVectorBuffer setMag(int from, int to, double len) {
+        checkRange(from, to);
+        double[] bx = x, by = y, bz = z;
+        for(int i = from; i < to; i++) {
+            double m = sqrt(bx[i]*bx[i] + by[i]*by[i] + bz[i]*bz[i]);
+            if(m != 0) {
+                bx[i] = bx[i] / m * len;
+                by[i] = by[i] / m * len;
+                bz[i] = bz[i] / m * len;
+            }
+            else {
+                bx[i] *= len;
+                by[i] *= len;
+                bz[i] *= len;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * This method linear interpolates every vector towards the vector (v).
+     *
+     * @param v the vector to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return this buffer
+     */
+    public PVectorBuffer lerp(PVector v, double amount) {
+        return lerp(0, size, v.x, v.y, v.z, amount);
+    }
+
+    /**
+     * This method linear interpolates the vectors in the range [from, to)
+     * towards the X, Y and Z components.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param x the X component to interpolate to
+     * @param y the Y component to interpolate to
+     * @param z the Z component to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return this buffer
+     */
+    public PVectorBuffer lerp(int from, int to, double x, double y, double z, double amount) {
+        checkRange(from, to);
+        if (amount < 0) amount = 0;
+        if (amount > 1) amount = 1;
+
+        double[] bx = this.x, by = this.y, bz = this.z;
+        for(int i = from; i < to; i++) {
+            bx[i] = bx[i] + (x - bx[i]) * amount;
+            by[i] = by[i] + (y - by[i]) * amount;
+            bz[i] = bz[i] + (z - bz[i]) * amount;
+        }
+        return this;
+    }
+
+    /**
+     * This method linear interpolates the vectors of this buffer towards the
+     * vectors of another buffer, index by index.
+     *
+     * @param other the buffer to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return this buffer
+     */
+    public PVectorBuffer lerp(PVectorBuffer other, double amount) {
+        return lerp(0, size, other, amount);
+    }
+
+    /**
+     * This method linear interpolates the vectors in the range [from, to)
+     * towards the vectors of another buffer.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param other the buffer to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return this buffer
+     */
+    public PVectorBuffer lerp(int from, int to, PVectorBuffer other, double amount) {
+        checkRange(from, to);
+        other.checkRange(from, to);
+        if (amount < 0) amount = 0;
+        if (amount > 1) amount = 1;
+
+        double[] bx = x, by = y, bz = z;
+        double[] ox = other.x, oy = other.y, oz = other.z;
+        for(int i = from; i < to; i++) {
+            bx[i] = bx[i] + (ox[i] - bx[i]) * amount;
+            by[i] = by[i] + (oy[i] - by[i]) * amount;
+            bz[i] = bz[i] + (oz[i] - bz[i]) * amount;
+        }
+        return this;
+    }
+
+    /**
+     * This method checks that the range [from, to) lies inside the buffer.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     */
+    void checkRange(int from, int to) {
+        if(from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") outside buffer of size " + size);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.jantatham.pvector;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+
+public class PVectorBufferTest {
+    @org.junit.Test
+    public void fromArray_and_toArray_round_trip() throws Exception {
+        PVector[] vectors = { new PVector(1,2,3), new PVector(4,5,6) };
+        PVectorBuffer buffer = PVectorBuffer.fromArray(vectors);
+        PVector[] result = buffer.toArray();
+        assertEquals(buffer.size(), 2);
+        assertEquals(result[1].x, 4, 0);
+        assertEquals(result[1].y, 5, 0);
+        assertEquals(result[1].z, 6, 0);
+    }
+
+    @org.junit.Test
+    public void toArray_reuses_target_vectors() throws Exception {
+        PVectorBuffer buffer = new PVectorBuffer(1).set(0, 7, 8, 9);
+        PVector existing = new PVector();
+        PVector[] target = { existing };
+        buffer.toArray(target);
+        assertSame(target[0], existing);
+        assertEquals(existing.z, 9, 0);
+    }
+
+    @org.junit.Test
+    public void add_buffer_to_buffer() throws Exception {
+        PVectorBuffer b1 = PVectorBuffer.fromArray(new PVector[] { new PVector(1,2,3), new PVector(1,1,1) });
+        PVectorBuffer b2 = PVectorBuffer.fromArray(new PVector[] { new PVector(5,6,7), new PVector(2,2,2) });
+        b1.add(b2);
+        assertEquals(b1.x[0], 6, 0);
+        assertEquals(b1.y[0], 8, 0);
+        assertEquals(b1.z[0], 10, 0);
+        assertEquals(b1.x[1], 3, 0);
+    }
+
+    @org.junit.Test
+    public void sub_vector_from_range() throws Exception {
+        PVectorBuffer buffer = PVectorBuffer.fromArray(new PVector[] { new PVector(10,10,10), new PVector(10,10,10) });
+        buffer.sub(1, 2, 3, 2, 1);
+        assertEquals(buffer.x[0], 10, 0);
+        assertEquals(buffer.x[1], 7, 0);
+        assertEquals(buffer.y[1], 8, 0);
+        assertEquals(buffer.z[1], 9, 0);
+    }
+
+    @org.junit.Test
+    public void mult_and_div_by_scalar() throws Exception {
+        PVectorBuffer buffer = new PVectorBuffer(1).set(0, 4, 8, 16);
+        buffer.mult(3).div(2);
+        assertEquals(buffer.x[0], 6, 0);
+        assertEquals(buffer.y[0], 12, 0);
+        assertEquals(buffer.z[0], 24, 0);
+    }
+
+    @org.junit.Test
+    public void normalize_matches_pVector() throws Exception {
+        PVector pv = new PVector(10, 20, 30);
+        PVectorBuffer buffer = PVectorBuffer.fromArray(new PVector[] { pv.copy(), new PVector() });
+        pv.normalize();
+        buffer.normalize();
+        assertEquals(buffer.x[0], pv.x, 0);
+        assertEquals(buffer.y[0], pv.y, 0);
+        assertEquals(buffer.z[0], pv.z, 0);
+        assertEquals(buffer.x[1], 0, 0);
+    }
+
+    @org.junit.Test
+    public void limit_matches_pVector() throws Exception {
+        PVector pv = new PVector(10, 20, 2);
+        PVectorBuffer buffer = PVectorBuffer.fromArray(new PVector[] { pv.copy(), new PVector(1,1,1) });
+        pv.limit(5);
+        buffer.limit(5);
+        assertEquals(buffer.x[0], pv.x, 0);
+        assertEquals(buffer.y[0], pv.y, 0);
+        assertEquals(buffer.x[1], 1, 0);
+    }
+
+    @org.junit.Test
+    public void setMag_sets_length() throws Exception {
+        PVectorBuffer buffer = new PVectorBuffer(1).set(0, 3, 4, 0);
+        buffer.setMag(10);
+        assertEquals(buffer.mag(0), 10, 0.000001);
+        assertEquals(buffer.x[0], 6, 0.000001);
+    }
+
+    @org.junit.Test
+    public void lerp_towards_buffer() throws Exception {
+        PVectorBuffer b1 = new PVectorBuffer(1).set(0, 0, 0, 0);
+        PVectorBuffer b2 = new PVectorBuffer(1).set(0, 10, 20, 30);
+        b1.lerp(b2, 0.5);
+        assertEquals(b1.x[0], 5, 0);
+        assertEquals(b1.y[0], 10, 0);
+        assertEquals(b1.z[0], 15, 0);
+        b1.lerp(b2, 2);
+        assertEquals(b1.x[0], 10, 0);
+    }
+
+    @org.junit.Test(expected = IndexOutOfBoundsException.class)
+    public void range_outside_buffer_is_rejected() throws Exception {
+        new PVectorBuffer(2).mult(0, 3, 2);
+    }
+
+    @org.junit.Test
+    public void heading_and_angleBetween_match_pvector() throws Exception {
+        PVector[] a = { new PVector(1, 0, 0), new PVector(0, 0, 0), new PVector(-1, -1, 2), new PVector(3, 4, 0) };
+        PVector[] b = { new PVector(0, 1, 0), new PVector(1, 1, 1), new PVector(2, 2, -4), new PVector(6, 8, 0) };
+        PVectorBuffer ba = PVectorBuffer.fromArray(a);
+        PVectorBuffer bb = PVectorBuffer.fromArray(b);
+        double[] headings = ba.heading(new double[4]);
+        double[] angles = ba.angleBetween(bb, null);
+        for(int i = 0; i < 4; i++) {
+            assertEquals(headings[i], a[i].heading(), 0);
+            assertEquals(angles[i], PVector.angleBetween(a[i], b[i]), 1e-15);
+        }
+        assertEquals(angles[1], 0, 0);
+        assertEquals(angles[2], Math.PI, 0);
+        assertEquals(angles[3], 0, 0);
+
+        double[] toX = ba.angleBetween(2, 4, new PVector(1, 0, 0), new double[4]);
+        assertEquals(toX[0], 0, 0);
+        assertEquals(toX[3], Math.acos(0.6), 1e-15);
+    }
+
+    @org.junit.Test
+    public void fromAngle_fills_buffer() throws Exception {
+        double[] angles = { 0, Math.PI / 2, 1 };
+        PVectorBuffer buffer = PVectorBuffer.fromAngle(angles, null);
+        for(int i = 0; i < 3; i++) {
+            PVector expected = PVector.fromAngle(angles[i]);
+            assertEquals(buffer.x[i], expected.x, 0);
+            assertEquals(buffer.y[i], expected.y, 0);
+            assertEquals(buffer.z[i], 0, 0);
+        }
+    }
+}
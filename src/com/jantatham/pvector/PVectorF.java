@@ -0,0 +1,744 @@
+package com.jantatham.pvector;
+
+import static java.lang.Math.*;
+
+/**
+ * The PVectorF Class is the single precision counterpart of PVector. It has
+ * the same methods and semantics with float components, for rendering and
+ * game state that does not need double precision.
+ *
+ * Magnitudes and angles are calculated in double and rounded once to float.
+ * toPVector widens to a PVector exactly; from rounds each double component
+ * to the nearest float.
+ */
+public class PVectorF {
+
+    public float x;
+    public float y;
+    public float z;
+
+    /**
+     * This method is a Constructor for an empty vector
+     */
+    public PVectorF() {
+
+    }
+
+    /**
+     * This method is a Constructor for a 2D vector
+     *
+     * @param x the X scalar
+     * @param y the Y scalar
+     */
+    public PVectorF(float x, float y) {
+        this.x = x;
+        this.y = y;
+        this.z = 0.0f;
+    }
+
+    /**
+     * This method is a Constructor for a 3D vector
+     *
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @param z the Z scalar
+     */
+    public PVectorF(float x, float y, float z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    /**
+     * This method converts a double precision vector, rounding each
+     * component to the nearest float.
+     *
+     * @param v the double precision vector
+     * @param target the target vector, or null to create a new one
+     * @return target vector
+     */
+    static public PVectorF from(PVector v, PVectorF target) {
+        if(target == null) {
+            target = new PVectorF((float) v.x, (float) v.y, (float) v.z);
+        }
+        else {
+            target.set((float) v.x, (float) v.y, (float) v.z);
+        }
+        return target;
+    }
+
+    /**
+     * This method widens the vector to double precision. The conversion is
+     * exact.
+     *
+     * @param target the target vector, or null to create a new one
+     * @return target vector
+     */
+    public PVector toPVector(PVector target) {
+        if(target == null) {
+            target = new PVector(x, y, z);
+        }
+        else {
+            target.set(x, y, z);
+        }
+        return target;
+    }
+
+    /**
+     * This method adds the X and Y scalars to the current vectors
+     * components.
+     *
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @return this vector
+     */
+    public PVectorF add(float x, float y) {
+        this.x += x;
+        this.y += y;
+        return this;
+    }
+
+    /**
+     * This method adds the X,Y and Z components to the current vectors
+     * components.
+     *
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @param z the Z scalar
+     * @return this vector
+     */
+    public PVectorF add(float x, float y, float z) {
+        this.x += x;
+        this.y += y;
+        this.z += z;
+        return this;
+    }
+
+    /**
+     * This method adds the Vectors components to the Vector that called the
+     * method.
+     *
+     * @param v the first vector
+     * @return this vector.
+     */
+    public PVectorF add(PVectorF v) {
+        x += v.x;
+        y += v.y;
+        z += v.z;
+        return this;
+    }
+
+    /**
+     * This method adds v1 and v2 together and binds the components to a new
+     * vector.
+     *
+     * @param v1 the first vector
+     * @param v2 the second vector
+     * @return new vector
+     */
+    static public PVectorF add(PVectorF v1, PVectorF v2) {
+        return add(v1, v2, null);
+    }
+
+    /**
+     * This method adds v1 and v2 together and binds the components to the
+     * target vector.
+     *
+     * @param v1 the first vector
+     * @param v2 the second vector
+     * @param target the target vector
+     * @return target vector
+     */
+    static public PVectorF add(PVectorF v1, PVectorF v2, PVectorF target) {
+        if(target == null) {
+            target = new PVectorF(v1.x+v2.x, v1.y+v2.y, v1.z+v2.z);
+        }
+        else {
+            target.set(v1.x+v2.x, v1.y+v2.y, v1.z+v2.z);
+        }
+        return target;
+    }
+
+    /**
+     * This method calculates the angle between two vectors, or 0 if either
+     * is the zero vector.
+     *
+     * @param v1 the first vector
+     * @param v2 the second vector
+     * @return the angle in radians
+     */
+    static public float angleBetween(PVectorF v1, PVectorF v2) {
+        if(v1.x == 0 && v1.y == 0 && v1.z == 0) {
+            return 0.0f;
+        }
+
+        if(v2.x == 0 && v2.y == 0 && v2.z == 0) {
+            return 0.0f;
+        }
+
+        double dot = (double) v1.x*v2.x + (double) v1.y*v2.y + (double) v1.z*v2.z;
+        double angle = dot / (v1.magDouble() * v2.magDouble());
+
+        if(angle <= -1) {
+            return (float) Math.PI;
+        }
+        else if (angle >= 1) {
+            return 0;
+        }
+
+        return (float) Math.acos(angle);
+    }
+
+    /**
+     * This method creates a copy of the current vector by returning a new
+     * vector.
+     *
+     * @return new vector
+     */
+    public PVectorF copy() {
+        return new PVectorF(x, y, z);
+    }
+
+    /**
+     * This method calculates the distance between two points.
+     *
+     * @param p a vector
+     * @return the euclidean distance
+     */
+    public float dist(PVectorF p) {
+        double dx = x - p.x;
+        double dy = y - p.y;
+        double dz = z - p.z;
+        return (float) sqrt(dx*dx + dy*dy + dz*dz);
+    }
+
+    /**
+     * This method calculates the distance between two points.
+     *
+     * @param pv1 the first vector
+     * @param pv2 the second vector
+     * @return the euclidean distance
+     */
+    static public float dist(PVectorF pv1, PVectorF pv2) {
+        return pv1.dist(pv2);
+    }
+
+    /**
+     * This method calculates the distance between two points, squared. It
+     * avoids the square root, so prefer it for comparing distances.
+     *
+     * @param p a vector
+     * @return the euclidean distance squared
+     */
+    public float distSq(PVectorF p) {
+        float dx = x - p.x;
+        float dy = y - p.y;
+        float dz = z - p.z;
+        return dx*dx + dy*dy + dz*dz;
+    }
+
+    /**
+     * This method divides the current vector by a the scalar (n).
+     *
+     * @param n the scalar divider
+     * @return this vector
+     */
+    public PVectorF div(float n) {
+        if(n != 0) {
+            this.x /= n;
+            this.y /= n;
+            this.z /= n;
+        }
+        else {
+            System.out.println("Warning: There is a divide overflow error");
+        }
+        return this;
+    }
+
+    /**
+     * This method divides the vector (v1) by the scalar (n) and sets the
+     * results to the new vector.
+     *
+     * @param v1 the vector
+     * @param n the scalar divider
+     * @return the new vector
+     */
+    static public PVectorF div(PVectorF v1, float n) {
+        return div(v1, n, null);
+    }
+
+    /**
+     * This method divides the vector (v1) by the scalar (n) and sets the
+     * results to the target vector.
+     *
+     * @param v1 the vector
+     * @param n the scalar divider
+     * @param target the target vector
+     * @return the target vector
+     */
+    static public PVectorF div(PVectorF v1, float n, PVectorF target) {
+        if(n != 0) {
+            if (target == null) {
+                target = new PVectorF(v1.x / n, v1.y / n, v1.z / n);
+            } else {
+                target.set(v1.x / n, v1.y / n, v1.z / n);
+            }
+        }
+        else {
+            System.out.println("Warning: There is a divide overflow error");
+        }
+        return target;
+    }
+
+    /**
+     * This method calculates the dot product of two vectors.
+     *
+     * @param v a vector
+     * @return the dot product
+     */
+    public float dot(PVectorF v) {
+        return x*v.x + y*v.y + z*v.z;
+    }
+
+    /**
+     * This method calculate the dot product of the vector passing in the
+     * X,Y,Z components.
+     *
+     * @param x the X component of the vector
+     * @param y the Y component of the vector
+     * @param z the Z component of the vector
+     * @return the dot product
+     */
+    public float dot(float x, float y, float z) {
+        return this.x*x + this.y*y + this.z*z;
+    }
+
+    /**
+     * This method creates a unit 2D vector pointing at the angle.
+     *
+     * @param angle the angle
+     * @return the PVectorF
+     */
+    static public PVectorF fromAngle(float angle) {
+        return fromAngle(angle, null);
+    }
+
+    /**
+     * This method sets the target to a unit 2D vector pointing at the angle.
+     *
+     * @param angle the angle
+     * @param target the target PVectorF
+     * @return the PVectorF
+     */
+    static public PVectorF fromAngle(float angle, PVectorF target) {
+        if(target == null) {
+            target = new PVectorF((float) cos(angle), (float) sin(angle), 0);
+        }
+        else {
+            target.set((float) cos(angle), (float) sin(angle), 0);
+        }
+
+        return target;
+    }
+
+    /**
+     * This method calculates the angle of rotation for this vector in 2D only.
+     *
+     * @return the angle of rotation
+     */
+    public float heading() {
+        return (float) atan2(y, x);
+    }
+
+    /**
+     * This method calculates the angle of rotation for a 2D Vector
+     *
+     * @param vx the target X vector
+     * @param vy the target Y vector
+     * @return the angle
+     */
+    public float heading(float vx, float vy) {
+        return (float) (atan2(vy, vx) - atan2(y, x));
+    }
+
+    /**
+     * This method linear interpolates the vector towards the vector (vec).
+     *
+     * @param vec the vector to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return this vector
+     */
+    public PVectorF lerp(PVectorF vec, float amount) {
+        return lerp(vec.x, vec.y, vec.z, amount);
+    }
+
+    /**
+     * This method linear interpolates between two vectors into a new
+     * vector.
+     *
+     * @param vec1 the vector to interpolate from
+     * @param vec2 the vector to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return the new vector
+     */
+    static public PVectorF lerp(PVectorF vec1, PVectorF vec2, float amount) {
+        return vec1.copy().lerp(vec2, amount);
+    }
+
+    /**
+     * This method linear interpolates the vector towards the X, Y and Z
+     * components.
+     *
+     * @param x the X component to interpolate to
+     * @param y the Y component to interpolate to
+     * @param z the Z component to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return this vector
+     */
+    public PVectorF lerp(float x, float y, float z, float amount) {
+        if (amount < 0) amount = 0;
+        if (amount > 1) amount = 1;
+
+        this.x = (this.x + (x-this.x) * amount);
+        this.y = (this.y + (y-this.y) * amount);
+        this.z = (this.z + (z-this.z) * amount);
+        return this;
+    }
+
+    /**
+     * This method limits the magnitude of the vector to max.
+     *
+     * @param max the maximum limit
+     * @return the vector
+     */
+    public PVectorF limit(float max) {
+        if(this.magSq() > max * max) {
+            this.normalize();
+            this.mult(max);
+        }
+        return this;
+    }
+
+    /**
+     * This method calculates the magnitude (length) of the vector
+     *
+     * @return vector magnitude
+     */
+    public float mag() {
+        return (float) magDouble();
+    }
+
+    /**
+     * This method calculates the magnitude (length) of the vector, squared.
+     *
+     * @return vector magnitude squared
+     */
+    public float magSq() {
+        return x*x + y*y + z*z;
+    }
+
+    /**
+     * This method multiplies the current vector by a scalar.
+     *
+     * @param n the scalar multiplier
+     * @return this vector
+     */
+    public PVectorF mult(float n) {
+        this.x *= n;
+        this.y *= n;
+        this.z *= n;
+        return this;
+    }
+
+    /**
+     * This method multiplies the vector (v1) by a scalar and binds the
+     * results to a new vector.
+     *
+     * @param v1 the vector
+     * @param n the scalar multiplier
+     * @return the new vector
+     */
+    static public PVectorF mult(PVectorF v1, float n) {
+        return mult(v1, n, null);
+    }
+
+    /**
+     * This method multiplies the vector (v1) by a scalar sets results to
+     * the target vector (target).
+     *
+     * @param v1 the vector
+     * @param n the scalar multiplier
+     * @param target the target vector
+     * @return the new vector
+     */
+    static public PVectorF mult(PVectorF v1, float n, PVectorF target) {
+        if(target == null) {
+            target = new PVectorF(v1.x*n, v1.y*n, v1.z*n);
+        }
+        else {
+            target.set(v1.x*n, v1.y*n, v1.z*n);
+        }
+        return target;
+    }
+
+    /**
+     * This method normalizes the vector to length 1 making it a unit vector.
+     *
+     * @return this vector
+     */
+    public PVectorF normalize() {
+        double m = magDouble();
+        if(m != 0) {
+            set((float) (x / m), (float) (y / m), (float) (z / m));
+        }
+        return this;
+    }
+
+    /**
+     * This method writes the normalized vector into the target, leaving this
+     * vector unchanged.
+     *
+     * @param target the target vector, or null to create a new one
+     * @return target vector
+     */
+    public PVectorF normalize(PVectorF target) {
+        if(target == null) {
+            target = new PVectorF();
+        }
+        target.set(x, y, z);
+        return target.normalize();
+    }
+
+    /**
+     * This method rotates the vector by the specified angle using 2D vectors
+     * only (X,Y).
+     *
+     * @param theta the rotation angle
+     * @return this vector
+     */
+    public PVectorF rotate(float theta) {
+        return rotateZ(theta);
+    }
+
+    /**
+     * This method rotates the vector in the X axis by angle theta.
+     *
+     * @param theta the angle of rotation
+     * @return this vector
+     */
+    public PVectorF rotateX(float theta) {
+        double cos = cos(theta);
+        double sin = sin(theta);
+        float oldY = this.y;
+        this.y = (float) ((this.y * cos) - (this.z * sin));
+        this.z = (float) ((oldY * sin) + (this.z * cos));
+        return this;
+    }
+
+    /**
+     * This method rotates the vector in the Y axis by angle theta.
+     *
+     * @param theta the angle of rotation
+     * @return this vector
+     */
+    public PVectorF rotateY(float theta) {
+        double cos = cos(theta);
+        double sin = sin(theta);
+        float oldZ = this.z;
+        this.z = (float) ((this.z * cos) - (this.x * sin));
+        this.x = (float) ((oldZ * sin) + (this.x * cos));
+        return this;
+    }
+
+    /**
+     * This method rotates the vector in the Z axis by angle theta.
+     *
+     * @param theta the angle of rotation
+     * @return this vector
+     */
+    public PVectorF rotateZ(float theta) {
+        double cos = cos(theta);
+        double sin = sin(theta);
+        float oldX = this.x;
+        this.x = (float) ((this.x * cos) - (this.y * sin));
+        this.y = (float) ((oldX * sin) + (this.y * cos));
+        return this;
+    }
+
+    /**
+     * This method sets X and Y components on the current vector.
+     *
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @return this vector
+     */
+    public PVectorF set(float x, float y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
+    /**
+     * This method sets X, Y and Z components on the current vector.
+     *
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @param z the Z scalar
+     * @return this vector
+     */
+    public PVectorF set(float x, float y, float z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    /**
+     * This method sets the currents components based on the vector (v)
+     * components.
+     *
+     * @param v the vector
+     * @return this vector
+     */
+    public PVectorF set(PVectorF v) {
+        x = v.x;
+        y = v.y;
+        z = v.z;
+        return this;
+    }
+
+    /**
+     * This method sets the magnitude of the vector to the value used for the
+     * len parameter.
+     *
+     * @param len the new length of the vector
+     * @return this vector
+     */
+    public PVectorF setMag(float len) {
+        normalize();
+        mult(len);
+        return this;
+    }
+
+    /**
+     * This method writes the vector with its magnitude set to len into the
+     * target, leaving this vector unchanged.
+     *
+     * @param target the target vector, or null to create a new one
+     * @param len the new length of the vector
+     * @return target vector
+     */
+    public PVectorF setMag(PVectorF target, float len) {
+        return normalize(target).mult(len);
+    }
+
+    /**
+     * This method sets the currents vector X component.
+     *
+     * @param x the X scalar
+     * @return this vector
+     */
+    public PVectorF setX(float x) {
+        this.x = x;
+        return this;
+    }
+
+    /**
+     * This method sets the currents vector Y component.
+     *
+     * @param y the Y scalar
+     * @return this vector
+     */
+    public PVectorF setY(float y) {
+        this.y = y;
+        return this;
+    }
+
+    /**
+     * This method sets the currents vector Z component.
+     *
+     * @param z the Z scalar
+     * @return this vector
+     */
+    public PVectorF setZ(float z) {
+        this.z = z;
+        return this;
+    }
+
+    /**
+     * This method subtracts the X and Y scalars from the current vector.
+     *
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @return this vector
+     */
+    public PVectorF sub(float x, float y) {
+        this.x -= x;
+        this.y -= y;
+        return this;
+    }
+
+    /**
+     * This method subtracts the X, Y and Z scalars from the current vector.
+     *
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @param z the Z scalar
+     * @return this vector
+     */
+    public PVectorF sub(float x, float y, float z) {
+        this.x -= x;
+        this.y -= y;
+        this.z -= z;
+        return this;
+    }
+
+    /**
+     * This method subtracts the Vectors components from the Vector that called
+     * the method.
+     *
+     * @param v the vector
+     * @return this vector
+     */
+    public PVectorF sub(PVectorF v) {
+        x -= v.x;
+        y -= v.y;
+        z -= v.z;
+        return this;
+    }
+
+    /**
+     * This method subtracts Vector 2 from Vector 1 and binds the components
+     * to a new Vector.
+     *
+     * @param v1 the first vector
+     * @param v2 the second vector
+     * @return the new vector
+     */
+    static public PVectorF sub(PVectorF v1, PVectorF v2) {
+        return sub(v1, v2, null);
+    }
+
+    /**
+     * This method subtracts Vector 2 from Vector 1 and binds the components
+     * to the target Vector
+     *
+     * @param v1 the first vector
+     * @param v2 the second vector
+     * @param target the target vector
+     * @return target Vector
+     */
+    static public PVectorF sub(PVectorF v1, PVectorF v2, PVectorF target) {
+        if(target == null) {
+            target = new PVectorF(v1.x-v2.x, v1.y-v2.y, v1.z-v2.z);
+        }
+        else {
+            target.set(v1.x-v2.x, v1.y-v2.y, v1.z-v2.z);
+        }
+        return target;
+    }
+
+    private double magDouble() {
+        return sqrt((double) x*x + (double) y*y + (double) z*z);
+    }
+}
@@ -0,0 +1,684 @@
+package com.jantatham.pvector;
+
+import static java.lang.Math.*;
+
+/**
+ * The PVectorFBuffer Class is the single precision counterpart of
+ * PVectorBuffer: a batch of vectors stored as three parallel float arrays.
+ * It takes half the memory and memory bandwidth of a PVectorBuffer, and its
+ * loops fill twice as many SIMD lanes.
+ *
+ * Every bulk method works over the whole buffer or over the range
+ * [from, to) and mirrors the semantics of the matching PVectorF method.
+ * Magnitudes are calculated in float to keep the loops in float lanes, so
+ * results may differ from PVectorF in the last bit. toBuffer widens to a PVectorBuffer exactly; from rounds each double
+ * component to the nearest float.
+ */
+public class PVectorFBuffer {
+
+    public final float[] x;
+    public final float[] y;
+    public final float[] z;
+
+    private final int size;
+
+    /**
+     * This method is a Constructor for a buffer of zero vectors.
+     *
+     * @param size the number of vectors
+     */
+    public PVectorFBuffer(int size) {
+        this(new float[size], new float[size], new float[size]);
+    }
+
+    /**
+     * This method is a Constructor that wraps existing coordinate arrays
+     * without copying them.
+     *
+     * @param x the X components
+     * @param y the Y components
+     * @param z the Z components
+     */
+    public PVectorFBuffer(float[] x, float[] y, float[] z) {
+        if(x.length != y.length || x.length != z.length) {
+            throw new IllegalArgumentException("Coordinate arrays must have the same length");
+        }
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.size = x.length;
+    }
+
+    /**
+     * This method creates a buffer holding a copy of the vectors.
+     *
+     * @param vectors the vectors to copy
+     * @return new buffer
+     */
+    static public PVectorFBuffer fromArray(PVectorF[] vectors) {
+        PVectorFBuffer buffer = new PVectorFBuffer(vectors.length);
+        buffer.set(vectors, 0);
+        return buffer;
+    }
+
+    /**
+     * This method creates a buffer holding the vectors [from, to) of a
+     * double precision buffer, each component rounded to the nearest float.
+     *
+     * @param source the double precision vectors
+     * @param from the first index
+     * @param to the index after the last
+     * @return new buffer
+     */
+    static public PVectorFBuffer from(PVectorBuffer source, int from, int to) {
+        source.checkRange(from, to);
+        PVectorFBuffer buffer = new PVectorFBuffer(to - from);
+        float[] bx = buffer.x, by = buffer.y, bz = buffer.z;
+        double[] sx = source.x, sy = source.y, sz = source.z;
+        for(int i = from; i < to; i++) {
+            bx[i - from] = (float) sx[i];
+            by[i - from] = (float) sy[i];
+            bz[i - from] = (float) sz[i];
+        }
+        return buffer;
+    }
+
+    /**
+     * This method creates a buffer holding every vector of a double
+     * precision buffer, each component rounded to the nearest float.
+     *
+     * @param source the double precision vectors
+     * @return new buffer
+     */
+    static public PVectorFBuffer from(PVectorBuffer source) {
+        return from(source, 0, source.size());
+    }
+
+    /**
+     * This method widens the buffer into a new double precision buffer. The
+     * conversion is exact.
+     *
+     * @return new buffer
+     */
+    public PVectorBuffer toBuffer() {
+        return toBuffer(new PVectorBuffer(size), 0);
+    }
+
+    /**
+     * This method widens the buffer into a double precision buffer from
+     * index offset on. The conversion is exact.
+     *
+     * @param target the double precision buffer
+     * @param offset the first index written
+     * @return target buffer
+     */
+    public PVectorBuffer toBuffer(PVectorBuffer target, int offset) {
+        target.checkRange(offset, offset + size);
+        double[] tx = target.x, ty = target.y, tz = target.z;
+        for(int i = 0; i < size; i++) {
+            tx[offset + i] = x[i];
+            ty[offset + i] = y[i];
+            tz[offset + i] = z[i];
+        }
+        return target;
+    }
+
+    /**
+     * This method returns the number of vectors in the buffer.
+     *
+     * @return the number of vectors
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method copies the vector at index i into the target vector.
+     *
+     * @param i the index
+     * @param target the target vector, or null to create a new one
+     * @return target vector
+     */
+    public PVectorF get(int i, PVectorF target) {
+        if(target == null) {
+            target = new PVectorF(x[i], y[i], z[i]);
+        }
+        else {
+            target.set(x[i], y[i], z[i]);
+        }
+        return target;
+    }
+
+    /**
+     * This method sets the X, Y and Z components of the vector at index i.
+     *
+     * @param i the index
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @param z the Z scalar
+     * @return this buffer
+     */
+    public PVectorFBuffer set(int i, float x, float y, float z) {
+        this.x[i] = x;
+        this.y[i] = y;
+        this.z[i] = z;
+        return this;
+    }
+
+    /**
+     * This method sets the vector at index i from the vector (v).
+     *
+     * @param i the index
+     * @param v the vector
+     * @return this buffer
+     */
+    public PVectorFBuffer set(int i, PVectorF v) {
+        return set(i, v.x, v.y, v.z);
+    }
+
+    /**
+     * This method copies the vectors into the buffer starting at offset.
+     *
+     * @param vectors the vectors to copy
+     * @param offset the first index written
+     * @return this buffer
+     */
+    public PVectorFBuffer set(PVectorF[] vectors, int offset) {
+        for(int i = 0; i < vectors.length; i++) {
+            PVectorF v = vectors[i];
+            x[offset + i] = v.x;
+            y[offset + i] = v.y;
+            z[offset + i] = v.z;
+        }
+        return this;
+    }
+
+    /**
+     * This method copies the vectors in the range [from, to) of another
+     * buffer into this buffer at the same indices.
+     *
+     * @param other the source buffer
+     * @param from the first index
+     * @param to the index after the last
+     * @return this buffer
+     */
+    public PVectorFBuffer set(PVectorFBuffer other, int from, int to) {
+        checkRange(from, to);
+        int n = to - from;
+        System.arraycopy(other.x, from, x, from, n);
+        System.arraycopy(other.y, from, y, from, n);
+        System.arraycopy(other.z, from, z, from, n);
+        return this;
+    }
+
+    /**
+     * This method creates a copy of the buffer.
+     *
+     * @return new buffer
+     */
+    public PVectorFBuffer copy() {
+        return new PVectorFBuffer(x.clone(), y.clone(), z.clone());
+    }
+
+    /**
+     * This method copies the buffer into a new array of vectors.
+     *
+     * @return new array of vectors
+     */
+    public PVectorF[] toArray() {
+        PVectorF[] vectors = new PVectorF[size];
+        for(int i = 0; i < size; i++) {
+            vectors[i] = new PVectorF(x[i], y[i], z[i]);
+        }
+        return vectors;
+    }
+
+    /**
+     * This method copies the buffer into the target vectors, reusing any
+     * vector already present in the array.
+     *
+     * @param target the target array, at least size() long
+     * @return target array
+     */
+    public PVectorF[] toArray(PVectorF[] target) {
+        for(int i = 0; i < size; i++) {
+            if(target[i] == null) {
+                target[i] = new PVectorF(x[i], y[i], z[i]);
+            }
+            else {
+                target[i].set(x[i], y[i], z[i]);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * This method adds the X, Y and Z components to every vector.
+     *
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @param z the Z scalar
+     * @return this buffer
+     */
+    public PVectorFBuffer add(float x, float y, float z) {
+        return add(0, size, x, y, z);
+    }
+
+    /**
+     * This method adds the X, Y and Z components to the vectors in the
+     * range [from, to).
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @param z the Z scalar
+     * @return this buffer
+     */
+    public PVectorFBuffer add(int from, int to, float x, float y, float z) {
+        checkRange(from, to);
+        float[] bx = this.x, by = this.y, bz = this.z;
+        for(int i = from; i < to; i++) {
+            bx[i] += x;
+            by[i] += y;
+            bz[i] += z;
+        }
+        return this;
+    }
+
+    /**
+     * This method adds the vector (v) to every vector.
+     *
+     * @param v the vector
+     * @return this buffer
+     */
+    public PVectorFBuffer add(PVectorF v) {
+        return add(0, size, v.x, v.y, v.z);
+    }
+
+    /**
+     * This method adds the vectors of another buffer to the vectors of this
+     * buffer, index by index.
+     *
+     * @param other the other buffer
+     * @return this buffer
+     */
+    public PVectorFBuffer add(PVectorFBuffer other) {
+        return add(0, size, other);
+    }
+
+    /**
+     * This method adds the vectors of another buffer to the vectors of this
+     * buffer in the range [from, to).
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param other the other buffer
+     * @return this buffer
+     */
+    public PVectorFBuffer add(int from, int to, PVectorFBuffer other) {
+        checkRange(from, to);
+        other.checkRange(from, to);
+        float[] bx = x, by = y, bz = z;
+        float[] ox = other.x, oy = other.y, oz = other.z;
+        for(int i = from; i < to; i++) {
+            bx[i] += ox[i];
+            by[i] += oy[i];
+            bz[i] += oz[i];
+        }
+        return this;
+    }
+
+    /**
+     * This method subtracts the X, Y and Z components from every vector.
+     *
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @param z the Z scalar
+     * @return this buffer
+     */
+    public PVectorFBuffer sub(float x, float y, float z) {
+        return sub(0, size, x, y, z);
+    }
+
+    /**
+     * This method subtracts the X, Y and Z components from the vectors in
+     * the range [from, to).
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param x the X scalar
+     * @param y the Y scalar
+     * @param z the Z scalar
+     * @return this buffer
+     */
+    public PVectorFBuffer sub(int from, int to, float x, float y, float z) {
+        checkRange(from, to);
+        float[] bx = this.x, by = this.y, bz = this.z;
+        for(int i = from; i < to; i++) {
+            bx[i] -= x;
+            by[i] -= y;
+            bz[i] -= z;
+        }
+        return this;
+    }
+
+    /**
+     * This method subtracts the vector (v) from every vector.
+     *
+     * @param v the vector
+     * @return this buffer
+     */
+    public PVectorFBuffer sub(PVectorF v) {
+        return sub(0, size, v.x, v.y, v.z);
+    }
+
+    /**
+     * This method subtracts the vectors of another buffer from the vectors
+     * of this buffer, index by index.
+     *
+     * @param other the other buffer
+     * @return this buffer
+     */
+    public PVectorFBuffer sub(PVectorFBuffer other) {
+        return sub(0, size, other);
+    }
+
+    /**
+     * This method subtracts the vectors of another buffer from the vectors
+     * of this buffer in the range [from, to).
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param other the other buffer
+     * @return this buffer
+     */
+    public PVectorFBuffer sub(int from, int to, PVectorFBuffer other) {
+        checkRange(from, to);
+        other.checkRange(from, to);
+        float[] bx = x, by = y, bz = z;
+        float[] ox = other.x, oy = other.y, oz = other.z;
+        for(int i = from; i < to; i++) {
+            bx[i] -= ox[i];
+            by[i] -= oy[i];
+            bz[i] -= oz[i];
+        }
+        return this;
+    }
+
+    /**
+     * This method multiplies every vector by a scalar.
+     *
+     * @param n the scalar multiplier
+     * @return this buffer
+     */
+    public PVectorFBuffer mult(float n) {
+        return mult(0, size, n);
+    }
+
+    /**
+     * This method multiplies the vectors in the range [from, to) by a
+     * scalar.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param n the scalar multiplier
+     * @return this buffer
+     */
+    public PVectorFBuffer mult(int from, int to, float n) {
+        checkRange(from, to);
+        float[] bx = x, by = y, bz = z;
+        for(int i = from; i < to; i++) {
+            bx[i] *= n;
+            by[i] *= n;
+            bz[i] *= n;
+        }
+        return this;
+    }
+
+    /**
+     * This method divides every vector by a scalar.
+     *
+     * @param n the scalar divider
+     * @return this buffer
+     */
+    public PVectorFBuffer div(float n) {
+        return div(0, size, n);
+    }
+
+    /**
+     * This method divides the vectors in the range [from, to) by a scalar.
+     * As with PVectorF.div a zero divider leaves the vectors unchanged.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param n the scalar divider
+     * @return this buffer
+     */
+    public PVectorFBuffer div(int from, int to, float n) {
+        checkRange(from, to);
+        if(n == 0) {
+            System.out.println("Warning: There is a divide overflow error");
+            return this;
+        }
+        float[] bx = x, by = y, bz = z;
+        for(int i = from; i < to; i++) {
+            bx[i] /= n;
+            by[i] /= n;
+            bz[i] /= n;
+        }
+        return this;
+    }
+
+    /**
+     * This method calculates the magnitude (length) of the vector at index i.
+     *
+     * @param i the index
+     * @return vector magnitude
+     */
+    public float mag(int i) {
+        return (float) sqrt(magSq(i));
+    }
+
+    /**
+     * This method calculates the magnitude (length) of the vector at index i,
+     * squared.
+     *
+     * @param i the index
+     * @return vector magnitude squared
+     */
+    public float magSq(int i) {
+        return x[i]*x[i] + y[i]*y[i] + z[i]*z[i];
+    }
+
+    /**
+     * This method normalizes every vector to length 1.
+     *
+     * @return this buffer
+     */
+    public PVectorFBuffer normalize() {
+        return normalize(0, size);
+    }
+
+    /**
+     * This method normalizes the vectors in the range [from, to) to length 1.
+     * Zero vectors are left unchanged.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @return this buffer
+     */
+    public PVectorFBuffer normalize(int from, int to) {
+        checkRange(from, to);
+        float[] bx = x, by = y, bz = z;
+        for(int i = from; i < to; i++) {
+            float m = (float) sqrt(bx[i]*bx[i] + by[i]*by[i] + bz[i]*bz[i]);
+            if(m != 0) {
+                bx[i] /= m;
+                by[i] /= m;
+                bz[i] /= m;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * This method limits the magnitude of every vector to max.
+     *
+     * @param max the maximum limit
+     * @return this buffer
+     */
+    public PVectorFBuffer limit(float max) {
+        return limit(0, size, max);
+    }
+
+    /**
+     * This method limits the magnitude of the vectors in the range
+     * [from, to) to max.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param max the maximum limit
+     * @return this buffer
+     */
+    public PVectorFBuffer limit(int from, int to, float max) {
+        checkRange(from, to);
+        float[] bx = x, by = y, bz = z;
+        float maxSq = max * max;
+        for(int i = from; i < to; i++) {
+            float mSq = bx[i]*bx[i] + by[i]*by[i] + bz[i]*bz[i];
+            if(mSq > maxSq) {
+                float m = (float) sqrt(mSq);
+                bx[i] = bx[i] / m * max;
+                by[i] = by[i] / m * max;
+                bz[i] = bz[i] / m * max;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * This method sets the magnitude of every vector to len.
+     *
+     * @param len the new length of the vectors
+     * @return this buffer
+     */
+    public PVectorFBuffer setMag(float len) {
+        return setMag(0, size, len);
+    }
+
+    /**
+     * This method sets the magnitude of the vectors in the range [from, to)
+     * to len. Zero vectors are left unchanged.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param len the new length of the vectors
+     * @return this buffer
+     */
+    public PVectorFBuffer setMag(int from, int to, float len) {
+        checkRange(from, to);
+        float[] bx = x, by = y, bz = z;
+        for(int i = from; i < to; i++) {
+            float m = (float) sqrt(bx[i]*bx[i] + by[i]*by[i] + bz[i]*bz[i]);
+            if(m != 0) {
+                bx[i] = bx[i] / m * len;
+                by[i] = by[i] / m * len;
+                bz[i] = bz[i] / m * len;
+            }
+            else {
+                bx[i] *= len;
+                by[i] *= len;
+                bz[i] *= len;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * This method linear interpolates every vector towards the vector (v).
+     *
+     * @param v the vector to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return this buffer
+     */
+    public PVectorFBuffer lerp(PVectorF v, float amount) {
+        return lerp(0, size, v.x, v.y, v.z, amount);
+    }
+
+    /**
+     * This method linear interpolates the vectors in the range [from, to)
+     * towards the X, Y and Z components.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param x the X component to interpolate to
+     * @param y the Y component to interpolate to
+     * @param z the Z component to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return this buffer
+     */
+    public PVectorFBuffer lerp(int from, int to, float x, float y, float z, float amount) {
+        checkRange(from, to);
+        if (amount < 0) amount = 0;
+        if (amount > 1) amount = 1;
+
+        float[] bx = this.x, by = this.y, bz = this.z;
+        for(int i = from; i < to; i++) {
+            bx[i] = bx[i] + (x - bx[i]) * amount;
+            by[i] = by[i] + (y - by[i]) * amount;
+            bz[i] = bz[i] + (z - bz[i]) * amount;
+        }
+        return this;
+    }
+
+    /**
+     * This method linear interpolates the vectors of this buffer towards the
+     * vectors of another buffer, index by index.
+     *
+     * @param other the buffer to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return this buffer
+     */
+    public PVectorFBuffer lerp(PVectorFBuffer other, float amount) {
+        return lerp(0, size, other, amount);
+    }
+
+    /**
+     * This method linear interpolates the vectors in the range [from, to)
+     * towards the vectors of another buffer.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param other the buffer to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return this buffer
+     */
+    public PVectorFBuffer lerp(int from, int to, PVectorFBuffer other, float amount) {
+        checkRange(from, to);
+        other.checkRange(from, to);
+        if (amount < 0) amount = 0;
+        if (amount > 1) amount = 1;
+
+        float[] bx = x, by = y, bz = z;
+        float[] ox = other.x, oy = other.y, oz = other.z;
+        for(int i = from; i < to; i++) {
+            bx[i] = bx[i] + (ox[i] - bx[i]) * amount;
+            by[i] = by[i] + (oy[i] - by[i]) * amount;
+            bz[i] = bz[i] + (oz[i] - bz[i]) * amount;
+        }
+        return this;
+    }
+
+    /**
+     * This method checks that the range [from, to) lies inside the buffer.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     */
+    void checkRange(int from, int to) {
+        if(from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") outside buffer of size " + size);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.jantatham.pvector;
+
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class PVectorFTest {
+    @org.junit.Test
+    public void matches_pvector_within_float_precision() throws Exception {
+        Random random = new Random(1);
+        for(int i = 0; i < 1000; i++) {
+            PVectorF a = new PVectorF(random.nextFloat() * 10 - 5, random.nextFloat() * 10 - 5, random.nextFloat() * 10 - 5);
+            PVectorF b = new PVectorF(random.nextFloat() * 10 - 5, random.nextFloat() * 10 - 5, random.nextFloat() * 10 - 5);
+            PVector da = a.toPVector(null);
+            PVector db = b.toPVector(null);
+
+            assertEquals(PVectorF.angleBetween(a, b), PVector.angleBetween(da, db), 1e-5);
+            assertEquals(a.heading(), da.heading(), 1e-6);
+            assertEquals(a.dist(b), da.dist(db), 1e-5);
+
+            a.sub(b).normalize().mult(3).rotate(0.7f).lerp(b, 0.25f).limit(2);
+            da.sub(db).normalize().mult(3).rotate(0.7).lerp(db, 0.25).limit(2);
+            assertEquals(a.x, da.x, 1e-5);
+            assertEquals(a.y, da.y, 1e-5);
+            assertEquals(a.z, da.z, 1e-5);
+        }
+    }
+
+    @org.junit.Test
+    public void conversions() throws Exception {
+        PVector d = new PVector(0.1, 1e-50, 3);
+        PVectorF f = PVectorF.from(d, null);
+        assertEquals(f.x, 0.1f, 0);
+        assertEquals(f.y, 0f, 0);
+        // widening is exact
+        PVector back = f.toPVector(new PVector());
+        assertEquals(back.x, (double) 0.1f, 0);
+        assertEquals(PVectorF.from(back, null).x, f.x, 0);
+    }
+
+    @org.junit.Test
+    public void fromAngle_and_setMag() throws Exception {
+        PVectorF v = PVectorF.fromAngle((float) Math.PI / 2);
+        assertEquals(v.x, 0, 1e-7);
+        assertEquals(v.y, 1, 0);
+        PVectorF target = new PVectorF(3, 4, 0).setMag(null, 10);
+        assertEquals(target.x, 6, 1e-6);
+        assertEquals(target.y, 8, 1e-6);
+        assertEquals(new PVectorF(1, 2, 3).dot(1, 1, 1), 6, 0);
+    }
+
+    @org.junit.Test
+    public void buffer_matches_vectors() throws Exception {
+        Random random = new Random(2);
+        PVectorBuffer doubles = new PVectorBuffer(100);
+        for(int i = 0; i < 100; i++) {
+            doubles.set(i, random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+        }
+        PVectorFBuffer floats = PVectorFBuffer.from(doubles);
+        PVectorF[] vectors = floats.toArray();
+        PVectorF offset = new PVectorF(1, -2, 0.5f);
+        floats.add(offset).mult(2).setMag(3).limit(2.5f).lerp(offset, 0.5f);
+        for(int i = 0; i < 100; i++) {
+            PVectorF v = vectors[i].add(offset).mult(2).setMag(3).limit(2.5f).lerp(offset, 0.5f);
+            assertEquals(floats.x[i], v.x, 1e-6);
+            assertEquals(floats.y[i], v.y, 1e-6);
+            assertEquals(floats.z[i], v.z, 1e-6);
+        }
+
+        PVectorBuffer widened = PVectorFBuffer.from(doubles, 10, 20).toBuffer();
+        assertEquals(widened.size(), 10);
+        assertEquals(widened.x[0], (double) (float) doubles.x[10], 0);
+    }
+}
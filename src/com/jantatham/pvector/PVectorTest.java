@@ -91,6 +91,22 @@ public class PVectorTest {
         assertEquals(p.dist(pv1,pv2), 78.10249, 0.001);
     }
 
+    @org.junit.Test
+    public void dist_includes_z() throws Exception {
+        PVector pv1 = new PVector(1,2,3);
+        PVector pv2 = new PVector(4,6,15);
+        assertEquals(pv1.dist(pv2), 13, 0.000001);
+        assertEquals(pv1.dist(pv1, pv2), 13, 0.000001);
+    }
+
+    @org.junit.Test
+    public void distSq_pVectors() throws Exception {
+        PVector pv1 = new PVector(1,2,3);
+        PVector pv2 = new PVector(4,6,15);
+        assertEquals(pv1.distSq(pv2), 169, 0);
+        assertEquals(pv1.distSq(pv2, pv1), 169, 0);
+    }
+
     @org.junit.Test
     public void div_pVector_by_scalar() throws Exception {
         PVector pv = new PVector(4,8,16);
@@ -199,6 +215,43 @@ public class PVectorTest {
 
     }
 
+    @org.junit.Test
+    public void rotate_2D_vector() throws Exception {
+        PVector pv = new PVector(1, 0);
+        pv.rotate(PI/2);
+        assertEquals(pv.x, 0, 0.000001);
+        assertEquals(pv.y, 1, 0.000001);
+    }
+
+    @org.junit.Test
+    public void rotateX_vector() throws Exception {
+        PVector pv = new PVector(0, 1, 0);
+        pv.rotateX(PI/2);
+        assertEquals(pv.y, 0, 0.000001);
+        assertEquals(pv.z, 1, 0.000001);
+    }
+
+    @org.junit.Test
+    public void rotateY_vector() throws Exception {
+        PVector pv = new PVector(1, 0, 0);
+        pv.rotateY(PI/2);
+        assertEquals(pv.x, 0, 0.000001);
+        assertEquals(pv.z, -1, 0.000001);
+
+        pv = new PVector(3, 4, 5);
+        pv.rotateY(0.3);
+        assertEquals(pv.mag(), new PVector(3, 4, 5).mag(), 0.000001);
+    }
+
+    @org.junit.Test
+    public void rotateZ_vector() throws Exception {
+        PVector pv = new PVector(1, 0, 7);
+        pv.rotateZ(PI/2);
+        assertEquals(pv.x, 0, 0.000001);
+        assertEquals(pv.y, 1, 0.000001);
+        assertEquals(pv.z, 7, 0);
+    }
+
     @org.junit.Test
     public void set_xy_values() throws Exception {
         PVector pv = new PVector(5,6,7);
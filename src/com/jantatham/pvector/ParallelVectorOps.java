@@ -0,0 +1,474 @@
+package com.jantatham.pvector;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+import static java.lang.Math.*;
+
+/**
+ * The ParallelVectorOps Class runs bulk PVectorBuffer operations on a
+ * ForkJoinPool. A buffer is split in halves until each range holds at most
+ * grain vectors, and buffers smaller than the sequential threshold run on
+ * the calling thread without forking.
+ *
+ * Reductions split the same way whatever the pool size and add the partial
+ * results in a fixed order, so they are deterministic from run to run.
+ */
+public class ParallelVectorOps {
+
+    public static final int DEFAULT_GRAIN = 16 * 1024;
+    public static final int DEFAULT_THRESHOLD = 64 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int grain;
+    private final int threshold;
+
+    /**
+     * This method is a Constructor using the common pool and the default
+     * grain and threshold.
+     */
+    public ParallelVectorOps() {
+        this(ForkJoinPool.commonPool(), DEFAULT_GRAIN, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * This method is a Constructor for a configured executor.
+     *
+     * @param pool the pool the work runs on
+     * @param grain the largest range handled by one task
+     * @param threshold the smallest buffer that is split across the pool
+     */
+    public ParallelVectorOps(ForkJoinPool pool, int grain, int threshold) {
+        if(grain < 1) {
+            throw new IllegalArgumentException("Grain must be at least 1");
+        }
+        this.pool = pool;
+        this.grain = grain;
+        this.threshold = threshold;
+    }
+
+    /**
+     * This method returns the pool the work runs on.
+     *
+     * @return the pool
+     */
+    public ForkJoinPool pool() {
+        return pool;
+    }
+
+    /**
+     * This method returns the largest range handled by one task.
+     *
+     * @return the grain size
+     */
+    public int grain() {
+        return grain;
+    }
+
+    /**
+     * This method returns the smallest buffer that is split across the pool.
+     *
+     * @return the sequential threshold
+     */
+    public int threshold() {
+        return threshold;
+    }
+
+    /**
+     * This method adds the vectors of another buffer to the target buffer.
+     *
+     * @param target the buffer to add to
+     * @param other the other buffer
+     * @return target buffer
+     */
+    public PVectorBuffer add(final PVectorBuffer target, final PVectorBuffer other) {
+        checkSizes(target, other);
+        run(target.size(), (from, to) -> target.add(from, to, other));
+        return target;
+    }
+
+    /**
+     * This method adds the vector (v) to every vector of the target buffer.
+     *
+     * @param target the buffer to add to
+     * @param v the vector
+     * @return target buffer
+     */
+    public PVectorBuffer add(final PVectorBuffer target, PVector v) {
+        final double x = v.x, y = v.y, z = v.z;
+        run(target.size(), (from, to) -> target.add(from, to, x, y, z));
+        return target;
+    }
+
+    /**
+     * This method multiplies every vector of the target buffer by a scalar.
+     *
+     * @param target the buffer
+     * @param n the scalar multiplier
+     * @return target buffer
+     */
+    public PVectorBuffer mult(final PVectorBuffer target, final double n) {
+        run(target.size(), (from, to) -> target.mult(from, to, n));
+        return target;
+    }
+
+    /**
+     * This method normalizes every vector of the target buffer.
+     *
+     * @param target the buffer
+     * @return target buffer
+     */
+    public PVectorBuffer normalize(final PVectorBuffer target) {
+        run(target.size(), target::normalize);
+        return target;
+    }
+
+    /**
+     * This method limits the magnitude of every vector of the target buffer.
+     *
+     * @param target the buffer
+     * @param max the maximum limit
+     * @return target buffer
+     */
+    public PVectorBuffer limit(final PVectorBuffer target, final double max) {
+        run(target.size(), (from, to) -> target.limit(from, to, max));
+        return target;
+    }
+
+    /**
+     * This method linear interpolates the vectors of the target buffer
+     * towards the vectors of another buffer.
+     *
+     * @param target the buffer
+     * @param other the buffer to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return target buffer
+     */
+    public PVectorBuffer lerp(final PVectorBuffer target, final PVectorBuffer other, final double amount) {
+        checkSizes(target, other);
+        run(target.size(), (from, to) -> target.lerp(from, to, other, amount));
+        return target;
+    }
+
+    /**
+     * This method linear interpolates every vector of the target buffer
+     * towards the vector (v).
+     *
+     * @param target the buffer
+     * @param v the vector to interpolate to
+     * @param amount between 0.0 and 1.0
+     * @return target buffer
+     */
+    public PVectorBuffer lerp(final PVectorBuffer target, PVector v, final double amount) {
+        final double x = v.x, y = v.y, z = v.z;
+        run(target.size(), (from, to) -> target.lerp(from, to, x, y, z, amount));
+        return target;
+    }
+
+    /**
+     * This method calculates the dot product of each pair of vectors.
+     *
+     * @param a the first buffer
+     * @param b the second buffer
+     * @param out the dot products, at least a.size() long
+     * @return the dot products
+     */
+    public double[] dot(final PVectorBuffer a, final PVectorBuffer b, final double[] out) {
+        checkSizes(a, b);
+        final VectorKernels kernels = VectorKernels.get();
+        run(a.size(), (from, to) -> kernels.dot(a.x, a.y, a.z, b.x, b.y, b.z, out, from, to));
+        return out;
+    }
+
+    /**
+     * This method calculates the sum of the dot products of each pair of
+     * vectors, e.g. the total work of a set of forces over displacements.
+     *
+     * @param a the first buffer
+     * @param b the second buffer
+     * @return the sum of the dot products
+     */
+    public double dotSum(final PVectorBuffer a, final PVectorBuffer b) {
+        checkSizes(a, b);
+        final double[] ax = a.x, ay = a.y, az = a.z;
+        final double[] bx = b.x, by = b.y, bz = b.z;
+        return sum(a.size(), (from, to) -> {
+            double sum = 0;
+            for(int i = from; i < to; i++) {
+                sum += ax[i]*bx[i] + ay[i]*by[i] + az[i]*bz[i];
+            }
+            return sum;
+        });
+    }
+
+    /**
+     * This method calculates the euclidean distance from every vector of
+     * the buffer to the point (p).
+     *
+     * @param points the buffer
+     * @param p the point
+     * @param out the distances, at least points.size() long
+     * @return the distances
+     */
+    public double[] dist(final PVectorBuffer points, PVector p, final double[] out) {
+        final double px = p.x, py = p.y, pz = p.z;
+        final double[] x = points.x, y = points.y, z = points.z;
+        run(points.size(), (from, to) -> {
+            for(int i = from; i < to; i++) {
+                double dx = x[i] - px, dy = y[i] - py, dz = z[i] - pz;
+                out[i] = sqrt(dx*dx + dy*dy + dz*dz);
+            }
+        });
+        return out;
+    }
+
+    /**
+     * This method calculates the 2D heading of every vector of the buffer.
+     *
+     * @param vectors the buffer
+     * @param out the headings, at least vectors.size() long
+     * @return the headings
+     */
+    public double[] heading(final PVectorBuffer vectors, final double[] out) {
+        run(vectors.size(), (from, to) -> vectors.heading(from, to, out));
+        return out;
+    }
+
+    /**
+     * This method calculates the angle between each pair of vectors.
+     *
+     * @param a the first buffer
+     * @param b the second buffer
+     * @param out the angles, at least a.size() long
+     * @return the angles
+     */
+    public double[] angleBetween(final PVectorBuffer a, final PVectorBuffer b, final double[] out) {
+        checkSizes(a, b);
+        run(a.size(), (from, to) -> a.angleBetween(from, to, b, out));
+        return out;
+    }
+
+    /**
+     * This method sets every vector of the target to the 2D unit vector
+     * pointing at the angle at the same index.
+     *
+     * @param angles the angles
+     * @param target the target buffer, at most angles.length long
+     * @return the target buffer
+     */
+    public PVectorBuffer fromAngle(final double[] angles, final PVectorBuffer target) {
+        run(target.size(), (from, to) -> target.fromAngle(from, to, angles));
+        return target;
+    }
+
+    /**
+     * This method runs an action over the range [0, size), splitting it
+     * across the pool when size reaches the sequential threshold.
+     *
+     * @param size the number of elements
+     * @param action the action applied to each range
+     */
+    public void run(int size, RangeAction action) {
+        if(size < threshold || size <= grain) {
+            action.apply(0, size);
+        }
+        else {
+            pool.invoke(new ActionTask(action, 0, size, grain));
+        }
+    }
+
+    /**
+     * This method runs an action over the range [0, size) where each element
+     * costs about cost vector operations, such as a row of a distance
+     * matrix. The grain and threshold are scaled down by cost, so ranges
+     * hold about grain vector operations.
+     *
+     * @param size the number of elements
+     * @param cost the vector operations per element
+     * @param action the action applied to each range
+     */
+    public void run(int size, int cost, RangeAction action) {
+        cost = max(1, cost);
+        int rows = max(1, grain / cost);
+        if((long) size * cost < threshold || size <= rows) {
+            action.apply(0, size);
+        }
+        else {
+            pool.invoke(new ActionTask(action, 0, size, rows));
+        }
+    }
+
+    /**
+     * This method adds up a reduction over the range [0, size). The ranges
+     * and the order their results are combined in depend only on size and
+     * grain, so the result does not change with the number of threads.
+     *
+     * @param size the number of elements
+     * @param reduction the reduction applied to each range
+     * @return the sum of the range results
+     */
+    public double sum(int size, RangeSum reduction) {
+        if(size < threshold || size <= grain) {
+            return SumTask.compute(reduction, 0, size, grain);
+        }
+        return pool.invoke(new SumTask(reduction, 0, size, grain));
+    }
+
+    /**
+     * This method combines a reduction over the range [0, size) into one
+     * result. As with sum, the ranges and the order results are combined in
+     * depend only on size and grain.
+     *
+     * @param size the number of elements
+     * @param reduction the reduction applied to each range
+     * @param combiner combines the results of two adjacent ranges
+     * @param <T> the result type
+     * @return the combined result
+     */
+    public <T> T reduce(int size, RangeReduction<T> reduction, BinaryOperator<T> combiner) {
+        if(size < threshold || size <= grain) {
+            return ReduceTask.compute(reduction, combiner, 0, size, grain);
+        }
+        return pool.invoke(new ReduceTask<>(reduction, combiner, 0, size, grain));
+    }
+
+    private static void checkSizes(PVectorBuffer a, PVectorBuffer b) {
+        if(a.size() != b.size()) {
+            throw new IllegalArgumentException("Buffers must have the same size");
+        }
+    }
+
+    /**
+     * The RangeAction interface is work applied to the range [from, to).
+     */
+    public interface RangeAction {
+        void apply(int from, int to);
+    }
+
+    /**
+     * The RangeSum interface is a reduction of the range [from, to).
+     */
+    public interface RangeSum {
+        double apply(int from, int to);
+    }
+
+    /**
+     * The RangeReduction interface reduces the range [from, to) to a result.
+     */
+    public interface RangeReduction<T> {
+        T apply(int from, int to);
+    }
+
+    private static class ActionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeAction action;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        ActionTask(RangeAction action, int from, int to, int grain) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= grain) {
+                action.apply(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ActionTask(action, from, mid, grain), new ActionTask(action, mid, to, grain));
+        }
+    }
+
+    private static class SumTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeSum reduction;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        SumTask(RangeSum reduction, int from, int to, int grain) {
+            this.reduction = reduction;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        /**
+         * This method is the sequential form of the task; it splits the
+         * range exactly as the parallel form does.
+         */
+        static double compute(RangeSum reduction, int from, int to, int grain) {
+            if(to - from <= grain) {
+                return reduction.apply(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            return compute(reduction, from, mid, grain) + compute(reduction, mid, to, grain);
+        }
+
+        @Override
+        protected Double compute() {
+            if(to - from <= grain) {
+                return reduction.apply(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            SumTask left = new SumTask(reduction, from, mid, grain);
+            SumTask right = new SumTask(reduction, mid, to, grain);
+            left.fork();
+            double r = right.compute();
+            return left.join() + r;
+        }
+    }
+
+    private static class ReduceTask<T> extends RecursiveTask<T> {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeReduction<T> reduction;
+        private final BinaryOperator<T> combiner;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        ReduceTask(RangeReduction<T> reduction, BinaryOperator<T> combiner, int from, int to, int grain) {
+            this.reduction = reduction;
+            this.combiner = combiner;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        /**
+         * This method is the sequential form of the task; it splits the
+         * range exactly as the parallel form does.
+         */
+        static <T> T compute(RangeReduction<T> reduction, BinaryOperator<T> combiner, int from, int to, int grain) {
+            if(to - from <= grain) {
+                return reduction.apply(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            return combiner.apply(compute(reduction, combiner, from, mid, grain),
+                    compute(reduction, combiner, mid, to, grain));
+        }
+
+        @Override
+        protected T compute() {
+            if(to - from <= grain) {
+                return reduction.apply(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            ReduceTask<T> left = new ReduceTask<>(reduction, combiner, from, mid, grain);
+            ReduceTask<T> right = new ReduceTask<>(reduction, combiner, mid, to, grain);
+            left.fork();
+            T r = right.compute();
+            return combiner.apply(left.join(), r);
+        }
+    }
+}
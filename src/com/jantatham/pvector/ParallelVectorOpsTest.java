@@ -0,0 +1,91 @@
+package com.jantatham.pvector;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class ParallelVectorOpsTest {
+    @org.junit.Test
+    public void parallel_matches_sequential() throws Exception {
+        PVectorBuffer expected = TestVectors.randomBuffer(10000, 1);
+        PVectorBuffer other = TestVectors.randomBuffer(10000, 2);
+        PVectorBuffer actual = expected.copy();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelVectorOps ops = new ParallelVectorOps(pool, 100, 0);
+            ops.normalize(ops.lerp(ops.limit(ops.mult(ops.add(actual, other), 3), 2), other, 0.25));
+        }
+        finally {
+            pool.shutdownNow();
+        }
+
+        expected.add(other).mult(3).limit(2).lerp(other, 0.25).normalize();
+        for(int i = 0; i < expected.size(); i++) {
+            assertEquals(actual.x[i], expected.x[i], 0);
+            assertEquals(actual.y[i], expected.y[i], 0);
+            assertEquals(actual.z[i], expected.z[i], 0);
+        }
+    }
+
+    @org.junit.Test
+    public void dot_and_dist_per_vector() throws Exception {
+        PVectorBuffer a = TestVectors.randomBuffer(1000, 3);
+        PVectorBuffer b = TestVectors.randomBuffer(1000, 4);
+        PVector p = new PVector(1, 2, 3);
+        double[] dots, dists;
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            ParallelVectorOps ops = new ParallelVectorOps(pool, 64, 0);
+            dots = ops.dot(a, b, new double[1000]);
+            dists = ops.dist(a, p, new double[1000]);
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        assertEquals(dots[999], a.get(999, null).dot(b.get(999, null)), 0);
+        PVector d = a.get(999, null).sub(p);
+        assertEquals(dists[999], d.mag(), 0.0000001);
+    }
+
+    @org.junit.Test
+    public void dotSum_is_deterministic_across_pools() throws Exception {
+        PVectorBuffer a = TestVectors.randomBuffer(100000, 5);
+        PVectorBuffer b = TestVectors.randomBuffer(100000, 6);
+        // a threshold above the size never touches the pool
+        double sequential = new ParallelVectorOps(ForkJoinPool.commonPool(), 1000, Integer.MAX_VALUE).dotSum(a, b);
+        for(int threads = 1; threads <= 8; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                double parallel = new ParallelVectorOps(pool, 1000, 0).dotSum(a, b);
+                assertEquals(parallel, sequential, 0);
+            }
+            finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    @org.junit.Test
+    public void batch_angles_match_sequential() throws Exception {
+        PVectorBuffer a = TestVectors.randomBuffer(5000, 7);
+        PVectorBuffer b = TestVectors.randomBuffer(5000, 8);
+        double[] headings, angles;
+        PVectorBuffer unit;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelVectorOps ops = new ParallelVectorOps(pool, 100, 0);
+            headings = ops.heading(a, new double[5000]);
+            angles = ops.angleBetween(a, b, new double[5000]);
+            unit = ops.fromAngle(headings, new PVectorBuffer(5000));
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        double[] expectedAngles = a.angleBetween(b, null);
+        for(int i = 0; i < 5000; i++) {
+            assertEquals(headings[i], Math.atan2(a.y[i], a.x[i]), 0);
+            assertEquals(angles[i], expectedAngles[i], 0);
+            assertEquals(unit.x[i], Math.cos(headings[i]), 0);
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package com.jantatham.pvector;
+
+import static java.lang.Math.*;
+
+/**
+ * The ParticleSystem Class integrates a fixed-capacity set of particles
+ * whose position, velocity and acceleration live in PVectorBuffers, so a
+ * step is a tight loop over primitive arrays with no allocation.
+ *
+ * Forces are accumulated into the acceleration with applyForce and cleared
+ * after every step, the same way a Processing sketch calls
+ * acceleration.mult(0). Speeds are capped with the semantics of
+ * PVector.limit.
+ */
+public class ParticleSystem {
+
+    /**
+     * The integration schemes a particle system can step with.
+     */
+    public enum Integrator {
+        /** position += velocity * dt, then velocity += acceleration * dt */
+        EULER,
+        /**
+         * velocity += acceleration * dt, then position += velocity * dt.
+         * This is velocity.add(acceleration).limit(max); position.add(velocity)
+         * with dt = 1.
+         */
+        SEMI_IMPLICIT_EULER,
+        /**
+         * position += (position - previous) + acceleration * dt * dt. The
+         * velocity is derived from the displacement, so positions may be
+         * moved directly (e.g. by constraints) between steps.
+         */
+        VERLET
+    }
+
+    private final PVectorBuffer position;
+    private final PVectorBuffer velocity;
+    private final PVectorBuffer acceleration;
+    private final PVectorBuffer previous;
+    private final double[] inverseMass;
+    private final double[] age;
+    private final double[] lifetime;
+
+    private Integrator integrator;
+    private double maxSpeed = Double.POSITIVE_INFINITY;
+    private double lastStep = 1;
+    private int size;
+
+    /**
+     * This method is a Constructor for an empty particle system.
+     *
+     * @param capacity the largest number of live particles
+     * @param integrator the integration scheme
+     */
+    public ParticleSystem(int capacity, Integrator integrator) {
+        position = new PVectorBuffer(capacity);
+        velocity = new PVectorBuffer(capacity);
+        acceleration = new PVectorBuffer(capacity);
+        previous = new PVectorBuffer(capacity);
+        inverseMass = new double[capacity];
+        age = new double[capacity];
+        lifetime = new double[capacity];
+        this.integrator = integrator;
+    }
+
+    /**
+     * This method returns the number of particles.
+     *
+     * @return the number of particles
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method returns the largest number of particles.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return inverseMass.length;
+    }
+
+    /**
+     * This method returns the positions. Only indices below size() hold
+     * particles.
+     *
+     * @return the position buffer
+     */
+    public PVectorBuffer positions() {
+        return position;
+    }
+
+    /**
+     * This method returns the velocities. Only indices below size() hold
+     * particles.
+     *
+     * @return the velocity buffer
+     */
+    public PVectorBuffer velocities() {
+        return velocity;
+    }
+
+    /**
+     * This method returns the accelerations accumulated since the last step.
+     * Only indices below size() hold particles.
+     *
+     * @return the acceleration buffer
+     */
+    public PVectorBuffer accelerations() {
+        return acceleration;
+    }
+
+    /**
+     * This method returns the integration scheme.
+     *
+     * @return the integrator
+     */
+    public Integrator integrator() {
+        return integrator;
+    }
+
+    /**
+     * This method sets the integration scheme.
+     *
+     * @param integrator the integrator
+     * @return this system
+     */
+    public ParticleSystem setIntegrator(Integrator integrator) {
+        if(integrator == Integrator.VERLET && this.integrator != Integrator.VERLET) {
+            resetPrevious(0, size);
+        }
+        this.integrator = integrator;
+        return this;
+    }
+
+    /**
+     * This method returns the speed limit.
+     *
+     * @return the maximum speed
+     */
+    public double maxSpeed() {
+        return maxSpeed;
+    }
+
+    /**
+     * This method sets the speed limit applied after every step.
+     *
+     * @param maxSpeed the maximum speed, or infinity for none
+     * @return this system
+     */
+    public ParticleSystem setMaxSpeed(double maxSpeed) {
+        this.maxSpeed = maxSpeed;
+        return this;
+    }
+
+    /**
+     * This method adds a particle of mass 1.
+     *
+     * @param p the position
+     * @param v the velocity
+     * @param lifetime the time the particle lives for, or infinity
+     * @return the particle index, or -1 if the system is full
+     */
+    public int spawn(PVector p, PVector v, double lifetime) {
+        return spawn(p.x, p.y, p.z, v.x, v.y, v.z, 1, lifetime);
+    }
+
+    /**
+     * This method adds a particle.
+     *
+     * @param x the X position
+     * @param y the Y position
+     * @param z the Z position
+     * @param vx the X velocity
+     * @param vy the Y velocity
+     * @param vz the Z velocity
+     * @param mass the mass, which divides applied forces
+     * @param lifetime the time the particle lives for, or infinity
+     * @return the particle index, or -1 if the system is full
+     */
+    public int spawn(double x, double y, double z, double vx, double vy, double vz,
+                     double mass, double lifetime) {
+        if(size == capacity()) {
+            return -1;
+        }
+        int i = size++;
+        position.set(i, x, y, z);
+        velocity.set(i, vx, vy, vz);
+        acceleration.set(i, 0, 0, 0);
+        inverseMass[i] = mass == 0 ? 0 : 1 / mass;
+        age[i] = 0;
+        this.lifetime[i] = lifetime;
+        resetPrevious(i, i + 1);
+        return i;
+    }
+
+    /**
+     * This method adds a force to one particle, scaled by its inverse mass.
+     *
+     * @param i the particle index
+     * @param fx the X force
+     * @param fy the Y force
+     * @param fz the Z force
+     * @return this system
+     */
+    public ParticleSystem applyForce(int i, double fx, double fy, double fz) {
+        checkIndex(i);
+        double m = inverseMass[i];
+        acceleration.x[i] += fx * m;
+        acceleration.y[i] += fy * m;
+        acceleration.z[i] += fz * m;
+        return this;
+    }
+
+    /**
+     * This method adds the same force to every particle, scaled by each
+     * particle's inverse mass.
+     *
+     * @param f the force
+     * @return this system
+     */
+    public ParticleSystem applyForce(PVector f) {
+        double fx = f.x, fy = f.y, fz = f.z;
+        double[] ax = acceleration.x, ay = acceleration.y, az = acceleration.z;
+        double[] im = inverseMass;
+        for(int i = 0, n = size; i < n; i++) {
+            ax[i] += fx * im[i];
+            ay[i] += fy * im[i];
+            az[i] += fz * im[i];
+        }
+        return this;
+    }
+
+    /**
+     * This method adds the same acceleration to every particle whatever its
+     * mass, e.g. gravity.
+     *
+     * @param g the acceleration
+     * @return this system
+     */
+    public ParticleSystem accelerate(PVector g) {
+        acceleration.add(0, size, g.x, g.y, g.z);
+        return this;
+    }
+
+    /**
+     * This method adds a force to every particle, one force per particle.
+     *
+     * @param forces the forces, indexed like the particles
+     * @return this system
+     */
+    public ParticleSystem applyForces(PVectorBuffer forces) {
+        forces.checkRange(0, size);
+        double[] ax = acceleration.x, ay = acceleration.y, az = acceleration.z;
+        double[] fx = forces.x, fy = forces.y, fz = forces.z;
+        double[] im = inverseMass;
+        for(int i = 0, n = size; i < n; i++) {
+            ax[i] += fx[i] * im[i];
+            ay[i] += fy[i] * im[i];
+            az[i] += fz[i] * im[i];
+        }
+        return this;
+    }
+
+    /**
+     * This method advances every particle by the time step dt, ages it and
+     * clears the accumulated accelerations. Dead particles stay in place
+     * until compact() is called. A step of 0 does nothing, so the Verlet
+     * velocities and step ratio stay valid.
+     *
+     * @param dt the time step
+     * @return this system
+     */
+    public ParticleSystem step(double dt) {
+        if(dt == 0) {
+            return this;
+        }
+        switch(integrator) {
+            case EULER:
+                stepEuler(dt);
+                break;
+            case SEMI_IMPLICIT_EULER:
+                stepSemiImplicitEuler(dt);
+                break;
+            case VERLET:
+                stepVerlet(dt);
+                break;
+        }
+        lastStep = dt;
+
+        double[] a = age;
+        for(int i = 0, n = size; i < n; i++) {
+            a[i] += dt;
+        }
+        acceleration.mult(0, size, 0);
+        return this;
+    }
+
+    private void stepEuler(double dt) {
+        double[] px = position.x, py = position.y, pz = position.z;
+        double[] vx = velocity.x, vy = velocity.y, vz = velocity.z;
+        double[] ax = acceleration.x, ay = acceleration.y, az = acceleration.z;
+        for(int i = 0, n = size; i < n; i++) {
+            px[i] += vx[i] * dt;
+            py[i] += vy[i] * dt;
+            pz[i] += vz[i] * dt;
+            vx[i] += ax[i] * dt;
+            vy[i] += ay[i] * dt;
+            vz[i] += az[i] * dt;
+        }
+        velocity.limit(0, size, maxSpeed);
+    }
+
+    private void stepSemiImplicitEuler(double dt) {
+        double[] px = position.x, py = position.y, pz = position.z;
+        double[] vx = velocity.x, vy = velocity.y, vz = velocity.z;
+        double[] ax = acceleration.x, ay = acceleration.y, az = acceleration.z;
+        double max = maxSpeed, maxSq = max * max;
+        for(int i = 0, n = size; i < n; i++) {
+            double x = vx[i] + ax[i] * dt;
+            double y = vy[i] + ay[i] * dt;
+            double z = vz[i] + az[i] * dt;
+            double mSq = x*x + y*y + z*z;
+            if(mSq > maxSq) {
+                double m = sqrt(mSq);
+                x = x / m * max;
+                y = y / m * max;
+                z = z / m * max;
+            }
+            vx[i] = x;
+            vy[i] = y;
+            vz[i] = z;
+            px[i] += x * dt;
+            py[i] += y * dt;
+            pz[i] += z * dt;
+        }
+    }
+
+    private void stepVerlet(double dt) {
+        double[] px = position.x, py = position.y, pz = position.z;
+        double[] qx = previous.x, qy = previous.y, qz = previous.z;
+        double[] vx = velocity.x, vy = velocity.y, vz = velocity.z;
+        double[] ax = acceleration.x, ay = acceleration.y, az = acceleration.z;
+        double ratio = dt / lastStep;
+        double dtSq = dt * dt;
+        double max = maxSpeed * dt, maxSq = max * max;
+        for(int i = 0, n = size; i < n; i++) {
+            double dx = (px[i] - qx[i]) * ratio + ax[i] * dtSq;
+            double dy = (py[i] - qy[i]) * ratio + ay[i] * dtSq;
+            double dz = (pz[i] - qz[i]) * ratio + az[i] * dtSq;
+            double mSq = dx*dx + dy*dy + dz*dz;
+            if(mSq > maxSq) {
+                double m = sqrt(mSq);
+                dx = dx / m * max;
+                dy = dy / m * max;
+                dz = dz / m * max;
+            }
+            qx[i] = px[i];
+            qy[i] = py[i];
+            qz[i] = pz[i];
+            px[i] += dx;
+            py[i] += dy;
+            pz[i] += dz;
+            vx[i] = dx / dt;
+            vy[i] = dy / dt;
+            vz[i] = dz / dt;
+        }
+    }
+
+    /**
+     * This method reports whether a particle has outlived its lifetime.
+     *
+     * @param i the particle index
+     * @return true if the particle is dead
+     */
+    public boolean isDead(int i) {
+        checkIndex(i);
+        return age[i] >= lifetime[i];
+    }
+
+    /**
+     * This method ends a particle's life; it is removed by the next
+     * compact().
+     *
+     * @param i the particle index
+     * @return this system
+     */
+    public ParticleSystem kill(int i) {
+        checkIndex(i);
+        lifetime[i] = age[i];
+        return this;
+    }
+
+    /**
+     * This method returns how long a particle has lived.
+     *
+     * @param i the particle index
+     * @return the age
+     */
+    public double age(int i) {
+        checkIndex(i);
+        return age[i];
+    }
+
+    /**
+     * This method removes the dead particles, moving the live ones down so
+     * they keep their relative order. Indices of live particles change.
+     *
+     * @return the number of particles removed
+     */
+    public int compact() {
+        int n = size;
+        int live = 0;
+        for(int i = 0; i < n; i++) {
+            if(age[i] >= lifetime[i]) {
+                continue;
+            }
+            if(live != i) {
+                move(i, live);
+            }
+            live++;
+        }
+        size = live;
+        return n - live;
+    }
+
+    private void move(int from, int to) {
+        move(position, from, to);
+        move(velocity, from, to);
+        move(acceleration, from, to);
+        move(previous, from, to);
+        inverseMass[to] = inverseMass[from];
+        age[to] = age[from];
+        lifetime[to] = lifetime[from];
+    }
+
+    private static void move(PVectorBuffer buffer, int from, int to) {
+        buffer.x[to] = buffer.x[from];
+        buffer.y[to] = buffer.y[from];
+        buffer.z[to] = buffer.z[from];
+    }
+
+    /**
+     * This method sets the previous positions so that the next Verlet step
+     * continues with the current velocities.
+     */
+    private void resetPrevious(int from, int to) {
+        double dt = lastStep;
+        for(int i = from; i < to; i++) {
+            previous.x[i] = position.x[i] - velocity.x[i] * dt;
+            previous.y[i] = position.y[i] - velocity.y[i] * dt;
+            previous.z[i] = position.z[i] - velocity.z[i] * dt;
+        }
+    }
+
+    private void checkIndex(int i) {
+        if(i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Particle " + i + " outside system of size " + size);
+        }
+    }
+}
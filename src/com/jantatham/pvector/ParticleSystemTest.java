@@ -0,0 +1,110 @@
+package com.jantatham.pvector;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class ParticleSystemTest {
+    @org.junit.Test
+    public void semiImplicitEuler_matches_pVector_loop() throws Exception {
+        ParticleSystem system = new ParticleSystem(2, ParticleSystem.Integrator.SEMI_IMPLICIT_EULER);
+        system.setMaxSpeed(4);
+        system.spawn(new PVector(1, 2, 3), new PVector(1, 0, 0), Double.POSITIVE_INFINITY);
+
+        PVector position = new PVector(1, 2, 3);
+        PVector velocity = new PVector(1, 0, 0);
+        PVector acceleration = new PVector(0.5, 1, 0);
+        for(int i = 0; i < 10; i++) {
+            system.accelerate(acceleration);
+            system.step(1);
+            velocity.add(acceleration).limit(4);
+            position.add(velocity);
+        }
+        PVector p = system.positions().get(0, null);
+        PVector v = system.velocities().get(0, null);
+        assertEquals(p.x, position.x, 0.000000001);
+        assertEquals(p.y, position.y, 0.000000001);
+        assertEquals(p.z, position.z, 0.000000001);
+        assertEquals(v.mag(), 4, 0.000000001);
+    }
+
+    @org.junit.Test
+    public void euler_moves_before_accelerating() throws Exception {
+        ParticleSystem system = new ParticleSystem(1, ParticleSystem.Integrator.EULER);
+        system.spawn(new PVector(), new PVector(1, 0, 0), Double.POSITIVE_INFINITY);
+        system.accelerate(new PVector(2, 0, 0)).step(0.5);
+        assertEquals(system.positions().x[0], 0.5, 0);
+        assertEquals(system.velocities().x[0], 2.0, 0);
+        assertEquals(system.accelerations().x[0], 0.0, 0);
+    }
+
+    @org.junit.Test
+    public void verlet_matches_semiImplicitEuler_for_fixed_step() throws Exception {
+        ParticleSystem verlet = new ParticleSystem(1, ParticleSystem.Integrator.VERLET);
+        ParticleSystem euler = new ParticleSystem(1, ParticleSystem.Integrator.SEMI_IMPLICIT_EULER);
+        verlet.spawn(new PVector(0, 10, 0), new PVector(1, 2, 0), Double.POSITIVE_INFINITY);
+        euler.spawn(new PVector(0, 10, 0), new PVector(1, 2, 0), Double.POSITIVE_INFINITY);
+        PVector gravity = new PVector(0, -9.81, 0);
+        for(int i = 0; i < 100; i++) {
+            verlet.accelerate(gravity).step(0.01);
+            euler.accelerate(gravity).step(0.01);
+        }
+        assertEquals(verlet.positions().x[0], euler.positions().x[0], 0.000000001);
+        assertEquals(verlet.positions().y[0], euler.positions().y[0], 0.000000001);
+        assertEquals(verlet.velocities().y[0], euler.velocities().y[0], 0.000001);
+    }
+
+    @org.junit.Test
+    public void zero_step_is_a_no_op() throws Exception {
+        ParticleSystem system = new ParticleSystem(1, ParticleSystem.Integrator.VERLET);
+        system.spawn(new PVector(0, 0, 0), new PVector(1, 0, 0), Double.POSITIVE_INFINITY);
+        system.step(0.1);
+        system.step(0);
+        assertEquals(system.positions().x[0], 0.1, 1e-12);
+        assertEquals(system.velocities().x[0], 1.0, 1e-12);
+        system.step(0.1);
+        assertEquals(system.positions().x[0], 0.2, 1e-12);
+        assertEquals(system.velocities().x[0], 1.0, 1e-12);
+    }
+
+    @org.junit.Test
+    public void applyForce_divides_by_mass() throws Exception {
+        ParticleSystem system = new ParticleSystem(2, ParticleSystem.Integrator.EULER);
+        system.spawn(0, 0, 0, 0, 0, 0, 2, Double.POSITIVE_INFINITY);
+        system.spawn(0, 0, 0, 0, 0, 0, 4, Double.POSITIVE_INFINITY);
+        system.applyForce(new PVector(8, 0, 0));
+        system.applyForce(1, 0, 4, 0);
+        assertEquals(system.accelerations().x[0], 4.0, 0);
+        assertEquals(system.accelerations().x[1], 2.0, 0);
+        assertEquals(system.accelerations().y[1], 1.0, 0);
+    }
+
+    @org.junit.Test
+    public void spawn_returns_minus_one_when_full() throws Exception {
+        ParticleSystem system = new ParticleSystem(1, ParticleSystem.Integrator.EULER);
+        assertEquals(system.spawn(new PVector(), new PVector(), 1), 0);
+        assertEquals(system.spawn(new PVector(), new PVector(), 1), -1);
+    }
+
+    @org.junit.Test
+    public void compact_removes_dead_and_keeps_order() throws Exception {
+        ParticleSystem system = new ParticleSystem(4, ParticleSystem.Integrator.EULER);
+        system.spawn(new PVector(0, 0, 0), new PVector(), 1);
+        system.spawn(new PVector(1, 0, 0), new PVector(), 5);
+        system.spawn(new PVector(2, 0, 0), new PVector(), 1);
+        system.spawn(new PVector(3, 0, 0), new PVector(), Double.POSITIVE_INFINITY);
+        system.step(1);
+        assertTrue(system.isDead(0));
+        assertFalse(system.isDead(1));
+
+        assertEquals(system.compact(), 2);
+        assertEquals(system.size(), 2);
+        assertEquals(system.positions().x[0], 1.0, 0);
+        assertEquals(system.positions().x[1], 3.0, 0);
+        assertEquals(system.age(0), 1.0, 0);
+
+        system.kill(0);
+        assertEquals(system.compact(), 1);
+        assertEquals(system.positions().x[0], 3.0, 0);
+    }
+}
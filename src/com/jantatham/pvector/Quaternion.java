@@ -0,0 +1,115 @@
+package com.jantatham.pvector;
+
+import static java.lang.Math.*;
+
+/**
+ * The Quaternion Class is an immutable 3D rotation. Quaternions compose
+ * with a single multiplication and no trigonometry, which makes them the
+ * natural way to chain rotations before applying them to many vectors.
+ *
+ */
+public class Quaternion extends AbstractRotation3D {
+
+    public static final Quaternion IDENTITY = new Quaternion(1, 0, 0, 0);
+
+    public final double w;
+    public final double x;
+    public final double y;
+    public final double z;
+
+    /**
+     * This method is a Constructor for the quaternion w + xi + yj + zk. The
+     * rotation it applies is that of the normalized quaternion.
+     *
+     * @param w the scalar part
+     * @param x the i component
+     * @param y the j component
+     * @param z the k component
+     */
+    public Quaternion(double w, double x, double y, double z) {
+        super(w, x, y, z);
+        this.w = w;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    /**
+     * This method creates the rotation by angle around the axis, which does
+     * not need to be a unit vector.
+     *
+     * @param axis the rotation axis
+     * @param angle the rotation angle
+     * @return new quaternion
+     */
+    static public Quaternion fromAxisAngle(PVector axis, double angle) {
+        double m = axis.mag();
+        if(m == 0) {
+            return IDENTITY;
+        }
+        double s = sin(angle / 2) / m;
+        return new Quaternion(cos(angle / 2), axis.x * s, axis.y * s, axis.z * s);
+    }
+
+    /**
+     * This method multiplies this quaternion by q. The product applies q
+     * first and this quaternion second.
+     *
+     * @param q the other quaternion
+     * @return new quaternion
+     */
+    public Quaternion mult(Quaternion q) {
+        return new Quaternion(w*q.w - x*q.x - y*q.y - z*q.z,
+                              w*q.x + x*q.w + y*q.z - z*q.y,
+                              w*q.y - x*q.z + y*q.w + z*q.x,
+                              w*q.z + x*q.y - y*q.x + z*q.w);
+    }
+
+    /**
+     * This method creates the rotation that applies this rotation followed
+     * by the other one.
+     *
+     * @param other the rotation applied second
+     * @return new quaternion
+     */
+    public Quaternion compose(Quaternion other) {
+        return other.mult(this);
+    }
+
+    /**
+     * This method creates the conjugate, which for a unit quaternion is the
+     * inverse rotation.
+     *
+     * @return new quaternion
+     */
+    public Quaternion conjugate() {
+        return new Quaternion(w, -x, -y, -z);
+    }
+
+    /**
+     * This method calculates the norm (length) of the quaternion.
+     *
+     * @return the norm
+     */
+    public double mag() {
+        return sqrt(w*w + x*x + y*y + z*z);
+    }
+
+    /**
+     * This method creates the unit quaternion with the same rotation.
+     *
+     * @return new quaternion
+     */
+    public Quaternion normalize() {
+        double m = mag();
+        if(m == 0) {
+            return IDENTITY;
+        }
+        return new Quaternion(w / m, x / m, y / m, z / m);
+    }
+
+    @Override
+    public String toString() {
+        return "Quaternion[" + w + ", " + x + ", " + y + ", " + z + "]";
+    }
+}
@@ -0,0 +1,40 @@
+package com.jantatham.pvector;
+
+/**
+ * The Rotation interface is implemented by the precomputed rotations
+ * (Rotation2D, AxisAngle and Quaternion). A rotation caches its sine and
+ * cosine terms when it is built, so applying it costs only multiplies and
+ * adds however many vectors it is applied to.
+ *
+ */
+public interface Rotation {
+
+    /**
+     * This method rotates the vector (v) and binds the result to the target
+     * vector, which may be v itself.
+     *
+     * @param v the vector
+     * @param target the target vector, or null to create a new one
+     * @return target vector
+     */
+    PVector rotate(PVector v, PVector target);
+
+    /**
+     * This method rotates every vector of the array in place.
+     *
+     * @param vectors the vectors
+     * @return the vectors
+     */
+    PVector[] rotate(PVector[] vectors);
+
+    /**
+     * This method rotates the vectors of the buffer in the range [from, to)
+     * in place.
+     *
+     * @param buffer the buffer
+     * @param from the first index
+     * @param to the index after the last
+     * @return the buffer
+     */
+    PVectorBuffer rotate(PVectorBuffer buffer, int from, int to);
+}
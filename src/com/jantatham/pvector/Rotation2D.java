@@ -0,0 +1,96 @@
+package com.jantatham.pvector;
+
+/**
+ * The Rotation2D Class is a rotation by a fixed angle in the X,Y plane. It
+ * rotates vectors the same way as PVector.rotate and leaves Z unchanged.
+ *
+ */
+public class Rotation2D implements Rotation {
+
+    private final double angle;
+    private final double cos;
+    private final double sin;
+
+    /**
+     * This method is a Constructor for a rotation by the angle theta.
+     *
+     * @param theta the rotation angle
+     */
+    public Rotation2D(double theta) {
+        this(theta, Math.cos(theta), Math.sin(theta));
+    }
+
+    private Rotation2D(double angle, double cos, double sin) {
+        this.angle = angle;
+        this.cos = cos;
+        this.sin = sin;
+    }
+
+    /**
+     * This method returns the rotation angle.
+     *
+     * @return the angle
+     */
+    public double angle() {
+        return angle;
+    }
+
+    /**
+     * This method creates the rotation that applies this rotation followed
+     * by the other one, without calling sin or cos.
+     *
+     * @param other the rotation applied second
+     * @return new rotation
+     */
+    public Rotation2D compose(Rotation2D other) {
+        return new Rotation2D(angle + other.angle,
+                              cos * other.cos - sin * other.sin,
+                              sin * other.cos + cos * other.sin);
+    }
+
+    /**
+     * This method creates the rotation that undoes this rotation.
+     *
+     * @return new rotation
+     */
+    public Rotation2D inverse() {
+        return new Rotation2D(-angle, cos, -sin);
+    }
+
+    @Override
+    public PVector rotate(PVector v, PVector target) {
+        double x = v.x * cos - v.y * sin;
+        double y = v.x * sin + v.y * cos;
+        if(target == null) {
+            target = new PVector(x, y, v.z);
+        }
+        else {
+            target.set(x, y, v.z);
+        }
+        return target;
+    }
+
+    @Override
+    public PVector[] rotate(PVector[] vectors) {
+        double c = cos, s = sin;
+        for(PVector v : vectors) {
+            double oldX = v.x;
+            v.x = oldX * c - v.y * s;
+            v.y = oldX * s + v.y * c;
+        }
+        return vectors;
+    }
+
+    @Override
+    public PVectorBuffer rotate(PVectorBuffer buffer, int from, int to) {
+        buffer.checkRange(from, to);
+        double[] bx = buffer.x, by = buffer.y;
+        double c = cos, s = sin;
+        for(int i = from; i < to; i++) {
+            double oldX = bx[i];
+            bx[i] = oldX * c - by[i] * s;
+            by[i] = oldX * s + by[i] * c;
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,70 @@
+package com.jantatham.pvector;
+
+import static java.lang.Math.PI;
+import static junit.framework.TestCase.assertEquals;
+
+public class RotationTest {
+    private static void assertVector(PVector actual, PVector expected) {
+        assertEquals(actual.x, expected.x, 0.000001);
+        assertEquals(actual.y, expected.y, 0.000001);
+        assertEquals(actual.z, expected.z, 0.000001);
+    }
+
+    @org.junit.Test
+    public void rotation2D_matches_rotate() throws Exception {
+        PVector pv = new PVector(3, 4, 5);
+        PVector result = new Rotation2D(0.7).rotate(pv, null);
+        assertVector(result, pv.copy().rotate(0.7));
+    }
+
+    @org.junit.Test
+    public void rotation2D_compose_adds_angles() throws Exception {
+        Rotation2D r = new Rotation2D(0.3).compose(new Rotation2D(0.5));
+        assertEquals(r.angle(), 0.8, 0.000001);
+        assertVector(r.rotate(new PVector(1, 2), null), new PVector(1, 2).rotate(0.8));
+        assertVector(r.compose(r.inverse()).rotate(new PVector(1, 2), null), new PVector(1, 2));
+    }
+
+    @org.junit.Test
+    public void axisAngle_matches_per_axis_rotations() throws Exception {
+        PVector pv = new PVector(3, 4, 5);
+        assertVector(AxisAngle.rotationX(0.4).rotate(pv, null), pv.copy().rotateX(0.4));
+        assertVector(AxisAngle.rotationY(0.4).rotate(pv, null), pv.copy().rotateY(0.4));
+        assertVector(AxisAngle.rotationZ(0.4).rotate(pv, null), pv.copy().rotateZ(0.4));
+    }
+
+    @org.junit.Test
+    public void axisAngle_rotates_around_diagonal() throws Exception {
+        AxisAngle r = new AxisAngle(new PVector(1, 1, 1), 2 * PI / 3);
+        assertVector(r.rotate(new PVector(1, 0, 0), null), new PVector(0, 1, 0));
+    }
+
+    @org.junit.Test
+    public void quaternion_compose_applies_in_order() throws Exception {
+        AxisAngle first = AxisAngle.rotationX(0.4);
+        AxisAngle second = AxisAngle.rotationZ(1.1);
+        PVector pv = new PVector(3, 4, 5);
+        PVector expected = pv.copy().rotateX(0.4).rotateZ(1.1);
+        assertVector(first.compose(second).rotate(pv, null), expected);
+        assertVector(first.toQuaternion().compose(second.toQuaternion()).rotate(pv, null), expected);
+    }
+
+    @org.junit.Test
+    public void quaternion_conjugate_undoes_rotation() throws Exception {
+        Quaternion q = Quaternion.fromAxisAngle(new PVector(1, 2, 3), 0.9);
+        PVector pv = new PVector(3, 4, 5);
+        assertVector(q.conjugate().rotate(q.rotate(pv, null), null), pv);
+        assertEquals(q.mag(), 1, 0.000001);
+    }
+
+    @org.junit.Test
+    public void rotate_array_and_buffer() throws Exception {
+        AxisAngle r = AxisAngle.rotationY(0.25);
+        PVector[] vectors = { new PVector(1, 2, 3), new PVector(-4, 5, 6) };
+        PVectorBuffer buffer = PVectorBuffer.fromArray(vectors);
+        r.rotate(vectors);
+        r.rotate(buffer, 0, buffer.size());
+        assertVector(vectors[1], new PVector(-4, 5, 6).rotateY(0.25));
+        assertVector(buffer.get(1, null), vectors[1]);
+    }
+}
@@ -0,0 +1,72 @@
+package com.jantatham.pvector;
+
+import static java.lang.Math.*;
+
+/**
+ * The ScalarVectorKernels Class is the plain Java fallback used when the
+ * SIMD engine is not available. The loops are kept simple enough for the
+ * JIT to unroll and, where it can, auto-vectorize.
+ */
+class ScalarVectorKernels extends VectorKernels {
+
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+
+    @Override
+    public void add(double[] a, double[] b, double[] out, int from, int to) {
+        for(int i = from; i < to; i++) {
+            out[i] = a[i] + b[i];
+        }
+    }
+
+    @Override
+    public void sub(double[] a, double[] b, double[] out, int from, int to) {
+        for(int i = from; i < to; i++) {
+            out[i] = a[i] - b[i];
+        }
+    }
+
+    @Override
+    public void mult(double[] a, double n, double[] out, int from, int to) {
+        for(int i = from; i < to; i++) {
+            out[i] = a[i] * n;
+        }
+    }
+
+    @Override
+    public void dot(double[] ax, double[] ay, double[] az,
+                    double[] bx, double[] by, double[] bz,
+                    double[] out, int from, int to) {
+        for(int i = from; i < to; i++) {
+            out[i] = ax[i]*bx[i] + ay[i]*by[i] + az[i]*bz[i];
+        }
+    }
+
+    @Override
+    public void magSq(double[] x, double[] y, double[] z, double[] out, int from, int to) {
+        for(int i = from; i < to; i++) {
+            out[i] = x[i]*x[i] + y[i]*y[i] + z[i]*z[i];
+        }
+    }
+
+    @Override
+    public void mag(double[] x, double[] y, double[] z, double[] out, int from, int to) {
+        for(int i = from; i < to; i++) {
+            out[i] = sqrt(x[i]*x[i] + y[i]*y[i] + z[i]*z[i]);
+        }
+    }
+
+    @Override
+    public void normalize(double[] x, double[] y, double[] z, int from, int to) {
+        for(int i = from; i < to; i++) {
+            double m = sqrt(x[i]*x[i] + y[i]*y[i] + z[i]*z[i]);
+            if(m != 0) {
+                x[i] /= m;
+                y[i] /= m;
+                z[i] /= m;
+            }
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.jantatham.pvector;
+
+import java.util.Arrays;
+
+/**
+ * The SpatialHash Class is a uniform grid stored in a hash table, for
+ * dynamic scenes where points move every frame. Moving a point only relinks
+ * it when it crosses into another cell.
+ *
+ * Points are identified by non-negative integer ids chosen by the caller,
+ * typically their index in a PVector array or PVectorBuffer. The cell size
+ * should be close to the typical query radius.
+ */
+public class SpatialHash implements SpatialIndex {
+
+    private static final int EMPTY = -1;
+
+    private final double cellSize;
+    private final double inverseCellSize;
+    private final int[] head;
+    private final int mask;
+
+    private int[] next;
+    private int[] prev;
+    private int[] cellX;
+    private int[] cellY;
+    private int[] cellZ;
+    private double[] px;
+    private double[] py;
+    private double[] pz;
+    private boolean[] present;
+    private int size;
+
+    private int minCellX, minCellY, minCellZ;
+    private int maxCellX, maxCellY, maxCellZ;
+
+    /**
+     * This method is a Constructor for an empty hash.
+     *
+     * @param cellSize the edge length of a grid cell
+     * @param capacity the expected number of points
+     */
+    public SpatialHash(double cellSize, int capacity) {
+        if(!(cellSize > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1 / cellSize;
+        int buckets = Integer.highestOneBit(Math.max(16, capacity * 2 - 1) << 1);
+        head = new int[buckets];
+        mask = buckets - 1;
+        allocate(Math.max(capacity, 16));
+        clear();
+    }
+
+    /**
+     * This method returns the edge length of a grid cell.
+     *
+     * @return the cell size
+     */
+    public double cellSize() {
+        return cellSize;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method removes every point.
+     */
+    public void clear() {
+        Arrays.fill(head, EMPTY);
+        Arrays.fill(present, false);
+        size = 0;
+        minCellX = minCellY = minCellZ = Integer.MAX_VALUE;
+        maxCellX = maxCellY = maxCellZ = Integer.MIN_VALUE;
+    }
+
+    /**
+     * This method replaces the contents with the vectors of a buffer, using
+     * their indices as ids.
+     *
+     * @param points the points
+     */
+    public void build(PVectorBuffer points) {
+        clear();
+        update(points);
+    }
+
+    /**
+     * This method moves every point to the position at its index in the
+     * buffer, inserting points that are not yet present.
+     *
+     * @param points the points
+     */
+    public void update(PVectorBuffer points) {
+        double[] bx = points.x, by = points.y, bz = points.z;
+        for(int i = 0, n = points.size(); i < n; i++) {
+            update(i, bx[i], by[i], bz[i]);
+        }
+    }
+
+    /**
+     * This method reports whether a point with the id is present.
+     *
+     * @param id the point id
+     * @return true if present
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < present.length && present[id];
+    }
+
+    /**
+     * This method inserts the point or moves it if it is already present.
+     *
+     * @param id the point id
+     * @param p the position
+     */
+    public void update(int id, PVector p) {
+        update(id, p.x, p.y, p.z);
+    }
+
+    /**
+     * This method inserts the point or moves it if it is already present.
+     *
+     * @param id the point id
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     */
+    public void update(int id, double x, double y, double z) {
+        if(id < 0) {
+            throw new IllegalArgumentException("Ids must not be negative");
+        }
+        if(id >= present.length) {
+            allocate(Math.max(id + 1, present.length * 2));
+        }
+        int cx = cell(x), cy = cell(y), cz = cell(z);
+        px[id] = x;
+        py[id] = y;
+        pz[id] = z;
+        if(present[id]) {
+            if(cellX[id] == cx && cellY[id] == cy && cellZ[id] == cz) {
+                return;
+            }
+            unlink(id);
+        }
+        else {
+            present[id] = true;
+            size++;
+        }
+        link(id, cx, cy, cz);
+    }
+
+    /**
+     * This method removes the point.
+     *
+     * @param id the point id
+     * @return true if the point was present
+     */
+    public boolean remove(int id) {
+        if(!contains(id)) {
+            return false;
+        }
+        unlink(id);
+        present[id] = false;
+        size--;
+        return true;
+    }
+
+    /**
+     * This method finds the k points nearest to the vector (p), closest
+     * first.
+     *
+     * @see SpatialIndex#nearest(double, double, double, int, int[], double[])
+     */
+    public int nearest(PVector p, int k, int[] ids, double[] distSq) {
+        return nearest(p.x, p.y, p.z, k, ids, distSq);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The search visits shells of cells around the query until the k-th
+     * neighbour is closer than any unvisited cell. Once the next shell has
+     * more cells than there are points, it scans the points instead.
+     */
+    @Override
+    public int nearest(double x, double y, double z, int k, int[] ids, double[] distSq) {
+        k = Math.min(k, ids.length);
+        if(k <= 0 || size == 0) {
+            return 0;
+        }
+        int cx = cell(x), cy = cell(y), cz = cell(z);
+        int count = 0;
+        int first = Math.max(gap(cx, minCellX, maxCellX),
+                    Math.max(gap(cy, minCellY, maxCellY), gap(cz, minCellZ, maxCellZ)));
+        for(int s = first; ; s++) {
+            int x0 = Math.max(cx - s, minCellX), x1 = Math.min(cx + s, maxCellX);
+            int y0 = Math.max(cy - s, minCellY), y1 = Math.min(cy + s, maxCellY);
+            int z0 = Math.max(cz - s, minCellZ), z1 = Math.min(cz + s, maxCellZ);
+            if(shellCells(cx, cy, cz, s) > size) {
+                count = nearestScan(x, y, z, k, ids, distSq);
+                break;
+            }
+            for(int i = x0; i <= x1; i++) {
+                boolean edgeX = i == cx - s || i == cx + s;
+                for(int j = y0; j <= y1; j++) {
+                    boolean edgeY = edgeX || j == cy - s || j == cy + s;
+                    int step = edgeY ? 1 : 2 * s;
+                    int l = edgeY ? z0 : cz - s;
+                    for(; l <= z1; l += step) {
+                        if(l < z0) {
+                            continue;
+                        }
+                        count = nearestInCell(i, j, l, x, y, z, k, ids, distSq, count);
+                    }
+                }
+            }
+
+            double reach = s * cellSize;
+            boolean covered = cx - s <= minCellX && cx + s >= maxCellX
+                    && cy - s <= minCellY && cy + s >= maxCellY
+                    && cz - s <= minCellZ && cz + s >= maxCellZ;
+            if(covered || (count == k && distSq[0] <= reach * reach)) {
+                break;
+            }
+        }
+        NeighbourHeap.sort(ids, distSq, count);
+        return count;
+    }
+
+    /**
+     * This method finds the points within radius of the vector (p).
+     *
+     * @see SpatialIndex#withinRadius(double, double, double, double, int[], double[])
+     */
+    public int withinRadius(PVector p, double radius, int[] ids, double[] distSq) {
+        return withinRadius(p.x, p.y, p.z, radius, ids, distSq);
+    }
+
+    @Override
+    public int withinRadius(double x, double y, double z, double radius, int[] ids, double[] distSq) {
+        if(size == 0) {
+            return 0;
+        }
+        double radiusSq = radius * radius;
+        int x0 = Math.max(cell(x - radius), minCellX), x1 = Math.min(cell(x + radius), maxCellX);
+        int y0 = Math.max(cell(y - radius), minCellY), y1 = Math.min(cell(y + radius), maxCellY);
+        int z0 = Math.max(cell(z - radius), minCellZ), z1 = Math.min(cell(z + radius), maxCellZ);
+        if(x0 > x1 || y0 > y1 || z0 > z1) {
+            return 0;
+        }
+        long cells = (long) (x1 - x0 + 1) * (y1 - y0 + 1) * (z1 - z0 + 1);
+        if(cells > size) {
+            return scan(x, y, z, radiusSq, ids, distSq);
+        }
+
+        int count = 0;
+        for(int i = x0; i <= x1; i++) {
+            for(int j = y0; j <= y1; j++) {
+                for(int l = z0; l <= z1; l++) {
+                    for(int id = head[hash(i, j, l)]; id != EMPTY; id = next[id]) {
+                        if(cellX[id] != i || cellY[id] != j || cellZ[id] != l) {
+                            continue;
+                        }
+                        double dx = px[id] - x, dy = py[id] - y, dz = pz[id] - z;
+                        double d = dx*dx + dy*dy + dz*dz;
+                        if(d <= radiusSq) {
+                            if(count == ids.length) {
+                                return count;
+                            }
+                            if(distSq != null) {
+                                distSq[count] = d;
+                            }
+                            ids[count++] = id;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private int scan(double x, double y, double z, double radiusSq, int[] ids, double[] distSq) {
+        int count = 0;
+        for(int id = 0; id < present.length && count < ids.length; id++) {
+            if(!present[id]) {
+                continue;
+            }
+            double dx = px[id] - x, dy = py[id] - y, dz = pz[id] - z;
+            double d = dx*dx + dy*dy + dz*dz;
+            if(d <= radiusSq) {
+                if(distSq != null) {
+                    distSq[count] = d;
+                }
+                ids[count++] = id;
+            }
+        }
+        return count;
+    }
+
+    private int nearestScan(double x, double y, double z, int k, int[] ids, double[] distSq) {
+        int count = 0;
+        for(int id = 0; id < present.length; id++) {
+            if(present[id]) {
+                double dx = px[id] - x, dy = py[id] - y, dz = pz[id] - z;
+                count = NeighbourHeap.offer(ids, distSq, count, k, id, dx*dx + dy*dy + dz*dz);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * This method counts the occupied-range cells of the shell at distance s
+     * around the cell (cx, cy, cz).
+     */
+    private long shellCells(int cx, int cy, int cz, int s) {
+        return boxCells(cx, cy, cz, s) - boxCells(cx, cy, cz, s - 1);
+    }
+
+    private long boxCells(int cx, int cy, int cz, int s) {
+        if(s < 0) {
+            return 0;
+        }
+        long nx = Math.min(cx + s, maxCellX) - Math.max(cx - s, minCellX) + 1;
+        long ny = Math.min(cy + s, maxCellY) - Math.max(cy - s, minCellY) + 1;
+        long nz = Math.min(cz + s, maxCellZ) - Math.max(cz - s, minCellZ) + 1;
+        return nx <= 0 || ny <= 0 || nz <= 0 ? 0 : nx * ny * nz;
+    }
+
+    private int nearestInCell(int i, int j, int l, double x, double y, double z,
+                              int k, int[] ids, double[] distSq, int count) {
+        for(int id = head[hash(i, j, l)]; id != EMPTY; id = next[id]) {
+            if(cellX[id] != i || cellY[id] != j || cellZ[id] != l) {
+                continue;
+            }
+            double dx = px[id] - x, dy = py[id] - y, dz = pz[id] - z;
+            count = NeighbourHeap.offer(ids, distSq, count, k, id, dx*dx + dy*dy + dz*dz);
+        }
+        return count;
+    }
+
+    private static int gap(int c, int min, int max) {
+        return c < min ? min - c : c > max ? c - max : 0;
+    }
+
+    private int cell(double v) {
+        return (int) Math.floor(v * inverseCellSize);
+    }
+
+    private int hash(int cx, int cy, int cz) {
+        int h = cx * 73856093 ^ cy * 19349663 ^ cz * 83492791;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void link(int id, int cx, int cy, int cz) {
+        cellX[id] = cx;
+        cellY[id] = cy;
+        cellZ[id] = cz;
+        int bucket = hash(cx, cy, cz);
+        int first = head[bucket];
+        next[id] = first;
+        prev[id] = EMPTY;
+        if(first != EMPTY) {
+            prev[first] = id;
+        }
+        head[bucket] = id;
+
+        if(cx < minCellX) minCellX = cx;
+        if(cx > maxCellX) maxCellX = cx;
+        if(cy < minCellY) minCellY = cy;
+        if(cy > maxCellY) maxCellY = cy;
+        if(cz < minCellZ) minCellZ = cz;
+        if(cz > maxCellZ) maxCellZ = cz;
+    }
+
+    private void unlink(int id) {
+        int p = prev[id], n = next[id];
+        if(p != EMPTY) {
+            next[p] = n;
+        }
+        else {
+            head[hash(cellX[id], cellY[id], cellZ[id])] = n;
+        }
+        if(n != EMPTY) {
+            prev[n] = p;
+        }
+    }
+
+    private void allocate(int capacity) {
+        next = grow(next, capacity);
+        prev = grow(prev, capacity);
+        cellX = grow(cellX, capacity);
+        cellY = grow(cellY, capacity);
+        cellZ = grow(cellZ, capacity);
+        px = grow(px, capacity);
+        py = grow(py, capacity);
+        pz = grow(pz, capacity);
+        present = present == null ? new boolean[capacity] : Arrays.copyOf(present, capacity);
+    }
+
+    private static int[] grow(int[] a, int capacity) {
+        return a == null ? new int[capacity] : Arrays.copyOf(a, capacity);
+    }
+
+    private static double[] grow(double[] a, int capacity) {
+        return a == null ? new double[capacity] : Arrays.copyOf(a, capacity);
+    }
+}
@@ -0,0 +1,47 @@
+package com.jantatham.pvector;
+
+/**
+ * The SpatialIndex interface answers nearest-neighbour and radius queries
+ * over a set of points identified by integer ids.
+ *
+ * Queries write into caller-supplied arrays and never allocate, so one set
+ * of result buffers can be reused for every query of a frame.
+ */
+public interface SpatialIndex {
+
+    /**
+     * This method returns the number of points in the index.
+     *
+     * @return the number of points
+     */
+    int size();
+
+    /**
+     * This method finds the k points nearest to (x, y, z), closest first.
+     * At most min(k, ids.length) points are returned.
+     *
+     * @param x the query X coordinate
+     * @param y the query Y coordinate
+     * @param z the query Z coordinate
+     * @param k the number of neighbours wanted
+     * @param ids the ids of the neighbours found
+     * @param distSq the squared distances of the neighbours found, at least
+     *               as long as ids
+     * @return the number of neighbours found
+     */
+    int nearest(double x, double y, double z, int k, int[] ids, double[] distSq);
+
+    /**
+     * This method finds the points within radius of (x, y, z), in no
+     * particular order. The search stops once ids is full.
+     *
+     * @param x the query X coordinate
+     * @param y the query Y coordinate
+     * @param z the query Z coordinate
+     * @param radius the search radius
+     * @param ids the ids of the points found
+     * @param distSq the squared distances of the points found, or null
+     * @return the number of points found
+     */
+    int withinRadius(double x, double y, double z, double radius, int[] ids, double[] distSq);
+}
@@ -0,0 +1,119 @@
+package com.jantatham.pvector;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class SpatialIndexTest {
+    private static final PVector MIN = new PVector(0, 0, 0), MAX = new PVector(100, 100, 10);
+
+    private static double[] sortedDistances(PVectorBuffer points, PVector q) {
+        double[] d = new double[points.size()];
+        for(int i = 0; i < d.length; i++) {
+            double dx = points.x[i] - q.x, dy = points.y[i] - q.y, dz = points.z[i] - q.z;
+            d[i] = dx*dx + dy*dy + dz*dz;
+        }
+        Arrays.sort(d);
+        return d;
+    }
+
+    private static void checkNearest(SpatialIndex index, PVectorBuffer points, PVector q, int k) {
+        int[] ids = new int[k];
+        double[] distSq = new double[k];
+        int found = index.nearest(q.x, q.y, q.z, k, ids, distSq);
+        double[] expected = sortedDistances(points, q);
+        assertEquals(found, Math.min(k, points.size()));
+        for(int i = 0; i < found; i++) {
+            assertEquals(distSq[i], expected[i], 0);
+            PVector p = points.get(ids[i], null);
+            assertEquals(p.copy().sub(q).magSq(), distSq[i], 0.0000001);
+        }
+    }
+
+    private static void checkRadius(SpatialIndex index, PVectorBuffer points, PVector q, double r) {
+        int[] ids = new int[points.size()];
+        int found = index.withinRadius(q.x, q.y, q.z, r, ids, null);
+        int expected = 0;
+        for(double d : sortedDistances(points, q)) {
+            if(d <= r * r) expected++;
+        }
+        assertEquals(found, expected);
+        for(int i = 0; i < found; i++) {
+            assertTrue(points.get(ids[i], null).sub(q).magSq() <= r * r);
+        }
+    }
+
+    @org.junit.Test
+    public void kdTree_matches_brute_force() throws Exception {
+        PVectorBuffer points = TestVectors.uniformBuffer(2000, 1, MIN, MAX);
+        KDTree tree = new KDTree(points);
+        Random random = new Random(2);
+        for(int i = 0; i < 50; i++) {
+            PVector q = new PVector(random.nextDouble() * 120 - 10, random.nextDouble() * 120 - 10, 5);
+            checkNearest(tree, points, q, 1 + i % 12);
+            checkRadius(tree, points, q, random.nextDouble() * 15);
+        }
+    }
+
+    @org.junit.Test
+    public void spatialHash_matches_brute_force() throws Exception {
+        PVectorBuffer points = TestVectors.uniformBuffer(2000, 3, MIN, MAX);
+        SpatialHash hash = new SpatialHash(5, points.size());
+        hash.build(points);
+        Random random = new Random(4);
+        for(int i = 0; i < 50; i++) {
+            PVector q = new PVector(random.nextDouble() * 120 - 10, random.nextDouble() * 120 - 10, 5);
+            checkNearest(hash, points, q, 1 + i % 12);
+            checkRadius(hash, points, q, random.nextDouble() * 15);
+        }
+        checkNearest(hash, points, new PVector(1000, 1000, 1000), 3);
+    }
+
+    @org.junit.Test(timeout = 2000)
+    public void spatialHash_nearest_with_sparse_points() throws Exception {
+        PVectorBuffer points = new PVectorBuffer(3);
+        points.set(1, 500, 500, 500);
+        points.set(2, 1000, 1000, 1000);
+        SpatialHash hash = new SpatialHash(1, points.size());
+        hash.build(points);
+        checkNearest(hash, points, new PVector(250, 250, 250), 4);
+        checkNearest(hash, points, new PVector(1, 1, 1), 2);
+        checkNearest(hash, points, new PVector(999, 1000, 1001), 1);
+        checkNearest(hash, points, new PVector(-3000, 0, 0), 3);
+    }
+
+    @org.junit.Test
+    public void spatialHash_follows_moving_points() throws Exception {
+        PVectorBuffer points = TestVectors.uniformBuffer(500, 5, MIN, MAX);
+        SpatialHash hash = new SpatialHash(4, 16);
+        hash.build(points);
+        points.add(13, -7, 2);
+        hash.update(points);
+        assertEquals(hash.size(), 500);
+        checkNearest(hash, points, new PVector(50, 50, 5), 8);
+        checkRadius(hash, points, new PVector(30, 60, 5), 9);
+    }
+
+    @org.junit.Test
+    public void spatialHash_remove_point() throws Exception {
+        SpatialHash hash = new SpatialHash(1, 4);
+        hash.update(0, new PVector(0.5, 0.5, 0));
+        hash.update(1, new PVector(0.6, 0.5, 0));
+        assertTrue(hash.remove(0));
+        assertFalse(hash.contains(0));
+        int[] ids = new int[2];
+        assertEquals(hash.withinRadius(new PVector(0.5, 0.5, 0), 1, ids, null), 1);
+        assertEquals(ids[0], 1);
+    }
+
+    @org.junit.Test
+    public void withinRadius_stops_when_result_is_full() throws Exception {
+        PVectorBuffer points = TestVectors.uniformBuffer(100, 6, MIN, MAX);
+        int[] ids = new int[3];
+        assertEquals(new KDTree(points).withinRadius(50, 50, 5, 1000, ids, null), 3);
+        assertEquals(new SpatialHash(10, 100).withinRadius(50, 50, 5, 1000, ids, null), 0);
+    }
+}
@@ -0,0 +1,136 @@
+package com.jantatham.pvector;
+
+import static java.lang.Math.*;
+
+/**
+ * The Steering Class computes Reynolds steering behaviours over agents held
+ * in PVectorBuffers. Each method adds weight * steer to the force buffer,
+ * where steer is the desired velocity minus the current velocity limited to
+ * maxForce, so several behaviours combine by calling them in turn on the
+ * same force buffer.
+ *
+ * @see Flock
+ */
+public class Steering {
+
+    private Steering() {
+
+    }
+
+    /**
+     * This method steers the agents [from, to) towards the target at full
+     * speed.
+     *
+     * @param position the agent positions
+     * @param velocity the agent velocities
+     * @param from the first agent
+     * @param to the agent after the last
+     * @param target the point to seek
+     * @param maxSpeed the speed of the desired velocity
+     * @param maxForce the largest steering force
+     * @param weight the weight of the behaviour
+     * @param force the buffer the forces are added to
+     * @return the force buffer
+     */
+    static public PVectorBuffer seek(PVectorBuffer position, PVectorBuffer velocity, int from, int to,
+                                     PVector target, double maxSpeed, double maxForce, double weight,
+                                     PVectorBuffer force) {
+        return arrive(position, velocity, from, to, target, 0, maxSpeed, maxForce, weight, force);
+    }
+
+    /**
+     * This method steers the agents [from, to) away from the target at full
+     * speed.
+     *
+     * @param position the agent positions
+     * @param velocity the agent velocities
+     * @param from the first agent
+     * @param to the agent after the last
+     * @param target the point to flee
+     * @param maxSpeed the speed of the desired velocity
+     * @param maxForce the largest steering force
+     * @param weight the weight of the behaviour
+     * @param force the buffer the forces are added to
+     * @return the force buffer
+     */
+    static public PVectorBuffer flee(PVectorBuffer position, PVectorBuffer velocity, int from, int to,
+                                     PVector target, double maxSpeed, double maxForce, double weight,
+                                     PVectorBuffer force) {
+        checkRanges(position, velocity, force, from, to);
+        double tx = target.x, ty = target.y, tz = target.z;
+        double[] px = position.x, py = position.y, pz = position.z;
+        double[] vx = velocity.x, vy = velocity.y, vz = velocity.z;
+        for(int i = from; i < to; i++) {
+            steer(px[i] - tx, py[i] - ty, pz[i] - tz, maxSpeed, maxForce, weight,
+                    vx[i], vy[i], vz[i], force, i);
+        }
+        return force;
+    }
+
+    /**
+     * This method steers the agents [from, to) towards the target, slowing
+     * down linearly inside slowingRadius so they stop on it.
+     *
+     * @param position the agent positions
+     * @param velocity the agent velocities
+     * @param from the first agent
+     * @param to the agent after the last
+     * @param target the point to arrive at
+     * @param slowingRadius the distance at which agents start to slow down
+     * @param maxSpeed the speed of the desired velocity
+     * @param maxForce the largest steering force
+     * @param weight the weight of the behaviour
+     * @param force the buffer the forces are added to
+     * @return the force buffer
+     */
+    static public PVectorBuffer arrive(PVectorBuffer position, PVectorBuffer velocity, int from, int to,
+                                       PVector target, double slowingRadius, double maxSpeed,
+                                       double maxForce, double weight, PVectorBuffer force) {
+        checkRanges(position, velocity, force, from, to);
+        double tx = target.x, ty = target.y, tz = target.z;
+        double[] px = position.x, py = position.y, pz = position.z;
+        double[] vx = velocity.x, vy = velocity.y, vz = velocity.z;
+        double slowingSq = slowingRadius * slowingRadius;
+        for(int i = from; i < to; i++) {
+            double dx = tx - px[i], dy = ty - py[i], dz = tz - pz[i];
+            double speed = maxSpeed;
+            double dSq = dx*dx + dy*dy + dz*dz;
+            if(dSq < slowingSq) {
+                speed = maxSpeed * sqrt(dSq) / slowingRadius;
+            }
+            steer(dx, dy, dz, speed, maxForce, weight, vx[i], vy[i], vz[i], force, i);
+        }
+        return force;
+    }
+
+    /**
+     * This method adds the steering force for agent i, moving at
+     * (vx, vy, vz), towards the direction (dx, dy, dz) at the given speed.
+     * A zero direction desires a stop.
+     */
+    static void steer(double dx, double dy, double dz, double speed, double maxForce, double weight,
+                      double vx, double vy, double vz, PVectorBuffer force, int i) {
+        double m = sqrt(dx*dx + dy*dy + dz*dz);
+        double scale = m == 0 ? 0 : speed / m;
+        double sx = dx * scale - vx;
+        double sy = dy * scale - vy;
+        double sz = dz * scale - vz;
+        double sSq = sx*sx + sy*sy + sz*sz;
+        if(sSq > maxForce * maxForce) {
+            double s = maxForce / sqrt(sSq);
+            sx *= s;
+            sy *= s;
+            sz *= s;
+        }
+        force.x[i] += sx * weight;
+        force.y[i] += sy * weight;
+        force.z[i] += sz * weight;
+    }
+
+    static void checkRanges(PVectorBuffer position, PVectorBuffer velocity, PVectorBuffer force,
+                            int from, int to) {
+        position.checkRange(from, to);
+        velocity.checkRange(from, to);
+        force.checkRange(from, to);
+    }
+}
@@ -0,0 +1,133 @@
+package com.jantatham.pvector;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class SteeringTest {
+    private static PVectorBuffer single(double x, double y, double z) {
+        return PVectorBuffer.fromArray(new PVector[] { new PVector(x, y, z) });
+    }
+
+    @org.junit.Test
+    public void seek_matches_pVector_formula() throws Exception {
+        PVector position = new PVector(1, 2, 0);
+        PVector velocity = new PVector(0, 1, 0);
+        PVector target = new PVector(10, 5, 0);
+        PVectorBuffer force = new PVectorBuffer(1);
+        Steering.seek(single(1, 2, 0), single(0, 1, 0), 0, 1, target, 4, 0.5, 2, force);
+
+        PVector expected = PVector.sub(target, position).setMag(4).sub(velocity).limit(0.5).mult(2);
+        assertEquals(force.x[0], expected.x, 0.000000001);
+        assertEquals(force.y[0], expected.y, 0.000000001);
+        assertEquals(force.z[0], expected.z, 0.000000001);
+    }
+
+    @org.junit.Test
+    public void arrive_slows_inside_radius() throws Exception {
+        PVectorBuffer force = new PVectorBuffer(1);
+        Steering.arrive(single(0, 0, 0), single(0, 0, 0), 0, 1, new PVector(2, 0, 0), 8, 4, 10, 1, force);
+        assertEquals(force.x[0], 1.0, 0.000000001);
+    }
+
+    @org.junit.Test
+    public void flee_points_away() throws Exception {
+        PVectorBuffer force = new PVectorBuffer(1);
+        Steering.flee(single(0, 0, 0), single(0, 0, 0), 0, 1, new PVector(1, 0, 0), 4, 10, 1, force);
+        assertEquals(force.x[0], -4.0, 0.000000001);
+    }
+
+    @org.junit.Test
+    public void flock_separates_close_agents() throws Exception {
+        PVectorBuffer position = PVectorBuffer.fromArray(new PVector[] { new PVector(0, 0, 0), new PVector(1, 0, 0) });
+        PVectorBuffer velocity = new PVectorBuffer(2);
+        PVectorBuffer force = new PVectorBuffer(2);
+        new Flock(10, 2).setSeparation(1, 5).setAlignment(0).setCohesion(0)
+                .steer(position, velocity, 2, force);
+        assertTrue(force.x[0] < 0);
+        assertTrue(force.x[1] > 0);
+    }
+
+    @org.junit.Test
+    public void flock_aligns_and_coheres() throws Exception {
+        PVectorBuffer position = PVectorBuffer.fromArray(new PVector[] { new PVector(0, 0, 0), new PVector(6, 0, 0) });
+        PVectorBuffer velocity = PVectorBuffer.fromArray(new PVector[] { new PVector(), new PVector(0, 1, 0) });
+        PVectorBuffer force = new PVectorBuffer(2);
+        Flock flock = new Flock(10, 2).setSeparation(0, 5).setCohesion(0);
+        flock.steer(position, velocity, 2, force);
+        assertEquals(force.x[0], 0.0, 0);
+        assertTrue(force.y[0] > 0);
+
+        force.mult(0);
+        flock.setAlignment(0).setCohesion(1).steer(position, velocity, 2, force);
+        assertTrue(force.x[0] > 0);
+        assertTrue(force.x[1] < 0);
+    }
+
+    @org.junit.Test
+    public void flock_ignores_agents_beyond_perception() throws Exception {
+        PVectorBuffer position = PVectorBuffer.fromArray(new PVector[] { new PVector(0, 0, 0), new PVector(50, 0, 0) });
+        PVectorBuffer velocity = PVectorBuffer.fromArray(new PVector[] { new PVector(), new PVector(0, 1, 0) });
+        PVectorBuffer force = new PVectorBuffer(2);
+        new Flock(10, 2).steer(position, velocity, 2, force);
+        assertEquals(force.magSq(0), 0.0, 0);
+        assertEquals(force.magSq(1), 0.0, 0);
+    }
+
+    @org.junit.Test
+    public void flock_keeps_nearest_neighbours() throws Exception {
+        // 40 far agents in the cell scanned first, 40 near ones in agent 0's own cell
+        int n = 81;
+        PVectorBuffer position = new PVectorBuffer(n);
+        for(int i = 1; i <= 40; i++) {
+            position.set(i, -5, 0.01 * i, 0);
+            position.set(40 + i, 1, 0.01 * i, 0);
+        }
+        PVectorBuffer force = new Flock(10, n).setSeparation(0, 5).setAlignment(0)
+                .steer(position, new PVectorBuffer(n), n, new PVectorBuffer(n));
+        assertTrue(force.x[0] > 0);
+    }
+
+    @org.junit.Test
+    public void flock_steers_particles_by_mass() throws Exception {
+        ParticleSystem system = new ParticleSystem(3, ParticleSystem.Integrator.EULER);
+        system.spawn(0, 0, 0, 0, 0, 0, 1, Double.POSITIVE_INFINITY);
+        system.spawn(6, 0, 0, 0, 0, 0, 2, Double.POSITIVE_INFINITY);
+        system.spawn(3, 3, 0, 0, 0, 0, 0, Double.POSITIVE_INFINITY);
+        PVectorBuffer force = new Flock(10, 3).setAlignment(0)
+                .steer(system.positions(), system.velocities(), 3, new PVectorBuffer(3));
+        new Flock(10, 3).setAlignment(0).steer(system);
+        assertEquals(system.accelerations().x[0], force.x[0], 0);
+        assertEquals(system.accelerations().x[1], force.x[1] / 2, 0);
+        assertEquals(system.accelerations().magSq(2), 0.0, 0);
+        assertTrue(force.magSq(2) > 0);
+    }
+
+    @org.junit.Test
+    public void parallel_flock_matches_sequential() throws Exception {
+        Random random = new Random(7);
+        int n = 2000;
+        PVectorBuffer position = new PVectorBuffer(n);
+        PVectorBuffer velocity = new PVectorBuffer(n);
+        for(int i = 0; i < n; i++) {
+            position.set(i, random.nextDouble() * 100, random.nextDouble() * 100, 0);
+            velocity.set(i, random.nextDouble() - 0.5, random.nextDouble() - 0.5, 0);
+        }
+        PVectorBuffer expected = new Flock(5, n).steer(position, velocity, n, new PVectorBuffer(n));
+        PVectorBuffer actual;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            actual = new Flock(5, n).steer(position, velocity, n, new PVectorBuffer(n),
+                    new ParallelVectorOps(pool, 100, 0));
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        for(int i = 0; i < n; i++) {
+            assertEquals(actual.x[i], expected.x[i], 0);
+            assertEquals(actual.y[i], expected.y[i], 0);
+        }
+    }
+}
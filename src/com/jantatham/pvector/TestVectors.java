@@ -0,0 +1,51 @@
+package com.jantatham.pvector;
+
+import java.util.Random;
+
+/**
+ * The TestVectors Class builds the seeded random buffers shared by the
+ * tests.
+ */
+final class TestVectors {
+
+    private TestVectors() {
+    }
+
+    /**
+     * This method creates a buffer of n vectors with standard normal
+     * components.
+     *
+     * @param n the number of vectors
+     * @param seed the random seed
+     * @return the buffer
+     */
+    static PVectorBuffer randomBuffer(int n, long seed) {
+        Random random = new Random(seed);
+        PVectorBuffer buffer = new PVectorBuffer(n);
+        for(int i = 0; i < n; i++) {
+            buffer.set(i, random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+        }
+        return buffer;
+    }
+
+    /**
+     * This method creates a buffer of n vectors uniformly distributed in the
+     * box from min (inclusive) to max (exclusive).
+     *
+     * @param n the number of vectors
+     * @param seed the random seed
+     * @param min the lower corner
+     * @param max the upper corner
+     * @return the buffer
+     */
+    static PVectorBuffer uniformBuffer(int n, long seed, PVector min, PVector max) {
+        Random random = new Random(seed);
+        double sx = max.x - min.x, sy = max.y - min.y, sz = max.z - min.z;
+        PVectorBuffer buffer = new PVectorBuffer(n);
+        for(int i = 0; i < n; i++) {
+            buffer.set(i, random.nextDouble() * sx + min.x, random.nextDouble() * sy + min.y,
+                    random.nextDouble() * sz + min.z);
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,80 @@
+package com.jantatham.pvector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The Trajectory Class describes the binary trajectory file format shared
+ * by TrajectoryWriter and TrajectoryReader.
+ *
+ * A file is a 64 byte header followed by one frame per tick. A frame holds
+ * the X components of every agent, then the Y components, then the Z
+ * components, as little-endian floats or doubles, so the coordinate of any
+ * (tick, agent) is at a fixed offset. The header holds:
+ *
+ * <pre>
+ *  0  int   magic "PVTR"
+ *  4  int   format version
+ *  8  int   agents per tick
+ * 12  int   bytes per coordinate (4 or 8)
+ * 16  long  ticks written
+ * </pre>
+ *
+ * The tick count is updated after every frame, so a file whose writer
+ * stopped early still opens with every completed tick.
+ */
+final class Trajectory {
+
+    static final int MAGIC = 0x50565452;
+    static final int VERSION = 1;
+    static final int HEADER = 64;
+    static final int TICKS = 16;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * The size of one mapped window of the file. Windows hold whole frames.
+     */
+    static final long WINDOW = 64L * 1024 * 1024;
+
+    private Trajectory() {
+
+    }
+
+    static long frameBytes(int agents, OffHeapVectorStore.Precision precision) {
+        long bytes = 3L * agents * precision.bytes;
+        if(agents < 1 || bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A tick must hold between 1 and "
+                    + Integer.MAX_VALUE / (3 * precision.bytes) + " agents");
+        }
+        return bytes;
+    }
+
+    static long ticksPerWindow(long frameBytes) {
+        return Math.max(1, WINDOW / frameBytes);
+    }
+
+    static void writeHeader(ByteBuffer header, int agents, OffHeapVectorStore.Precision precision) {
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(8, agents);
+        header.putInt(12, precision.bytes);
+        header.putLong(TICKS, 0);
+    }
+
+    static OffHeapVectorStore.Precision precision(ByteBuffer header) throws IOException {
+        if(header.getInt(0) != MAGIC) {
+            throw new IOException("Not a trajectory file");
+        }
+        if(header.getInt(4) != VERSION) {
+            throw new IOException("Unsupported trajectory version " + header.getInt(4));
+        }
+        int bytes = header.getInt(12);
+        for(OffHeapVectorStore.Precision p : OffHeapVectorStore.Precision.values()) {
+            if(p.bytes == bytes) {
+                return p;
+            }
+        }
+        throw new IOException("Unsupported coordinate width " + bytes);
+    }
+}
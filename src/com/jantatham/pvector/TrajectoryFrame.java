@@ -0,0 +1,134 @@
+package com.jantatham.pvector;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * The TrajectoryFrame Class is a read-only view of the agent positions of
+ * one tick of a trajectory file. It reads the mapped file directly, so
+ * creating a frame copies nothing.
+ *
+ * @see TrajectoryReader#frame(long)
+ */
+public class TrajectoryFrame {
+
+    private final long tick;
+    private final int size;
+    private final DoubleBuffer doubles;
+    private final FloatBuffer floats;
+
+    TrajectoryFrame(long tick, int size, ByteBuffer bytes, OffHeapVectorStore.Precision precision) {
+        this.tick = tick;
+        this.size = size;
+        if(precision == OffHeapVectorStore.Precision.DOUBLE) {
+            doubles = bytes.asDoubleBuffer();
+            floats = null;
+        }
+        else {
+            doubles = null;
+            floats = bytes.asFloatBuffer();
+        }
+    }
+
+    /**
+     * This method returns the tick the frame shows.
+     *
+     * @return the tick
+     */
+    public long tick() {
+        return tick;
+    }
+
+    /**
+     * This method returns the number of agents.
+     *
+     * @return the number of agents
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method returns the X component of agent i.
+     *
+     * @param i the agent
+     * @return the X component
+     */
+    public double x(int i) {
+        return get(check(i));
+    }
+
+    /**
+     * This method returns the Y component of agent i.
+     *
+     * @param i the agent
+     * @return the Y component
+     */
+    public double y(int i) {
+        return get(size + check(i));
+    }
+
+    /**
+     * This method returns the Z component of agent i.
+     *
+     * @param i the agent
+     * @return the Z component
+     */
+    public double z(int i) {
+        return get(2 * size + check(i));
+    }
+
+    /**
+     * This method gets the position of agent i.
+     *
+     * @param i the agent
+     * @param target the vector to write to, or null for a new one
+     * @return the position
+     */
+    public PVector get(int i, PVector target) {
+        if(target == null) {
+            target = new PVector(x(i), y(i), z(i));
+        }
+        else {
+            target.set(x(i), y(i), z(i));
+        }
+        return target;
+    }
+
+    /**
+     * This method copies every position into a buffer, e.g. to interpolate
+     * between ticks with the PVectorBuffer methods.
+     *
+     * @param target the buffer, at least size() long
+     * @return the buffer
+     */
+    public PVectorBuffer copyTo(PVectorBuffer target) {
+        target.checkRange(0, size);
+        if(doubles != null) {
+            DoubleBuffer d = doubles.duplicate();
+            d.get(target.x, 0, size);
+            d.get(target.y, 0, size);
+            d.get(target.z, 0, size);
+        }
+        else {
+            for(int i = 0; i < size; i++) {
+                target.x[i] = floats.get(i);
+                target.y[i] = floats.get(size + i);
+                target.z[i] = floats.get(2 * size + i);
+            }
+        }
+        return target;
+    }
+
+    private double get(int at) {
+        return doubles != null ? doubles.get(at) : floats.get(at);
+    }
+
+    private int check(int i) {
+        if(i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Agent " + i + " outside frame of " + size + " agents");
+        }
+        return i;
+    }
+}
@@ -0,0 +1,199 @@
+package com.jantatham.pvector;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The TrajectoryReader Class replays a trajectory file. The file is mapped
+ * read-only in windows as they are first needed, so any (tick, agent)
+ * coordinate is read in constant time and a whole tick is available as a
+ * TrajectoryFrame view of the mapped pages without copying.
+ *
+ * Frames stay readable after the reader is closed; the mapping is released
+ * once they are garbage collected. A reader may be shared between threads
+ * once its windows are mapped, but mapping is not synchronized.
+ *
+ * @see TrajectoryWriter
+ */
+public class TrajectoryReader implements Closeable {
+
+    private final FileChannel channel;
+    private final int agents;
+    private final OffHeapVectorStore.Precision precision;
+    private final long ticks;
+    private final long frameBytes;
+    private final long ticksPerWindow;
+    private final MappedByteBuffer[] windows;
+
+    /**
+     * This method is a Constructor that opens a trajectory file.
+     *
+     * @param path the file
+     * @throws IOException if the file cannot be opened or is not a trajectory
+     */
+    public TrajectoryReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if(channel.size() < Trajectory.HEADER) {
+                throw new IOException("Not a trajectory file");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Trajectory.HEADER);
+            header.order(Trajectory.ORDER);
+            precision = Trajectory.precision(header);
+            agents = header.getInt(8);
+            frameBytes = Trajectory.frameBytes(agents, precision);
+            ticksPerWindow = Trajectory.ticksPerWindow(frameBytes);
+            // a writer that stopped early may have mapped past its last tick
+            ticks = Math.min(header.getLong(Trajectory.TICKS), (channel.size() - Trajectory.HEADER) / frameBytes);
+            windows = new MappedByteBuffer[(int) ((ticks + ticksPerWindow - 1) / ticksPerWindow)];
+        }
+        catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * This method returns the number of agents in every tick.
+     *
+     * @return the number of agents
+     */
+    public int agents() {
+        return agents;
+    }
+
+    /**
+     * This method returns the width of each stored coordinate.
+     *
+     * @return the precision
+     */
+    public OffHeapVectorStore.Precision precision() {
+        return precision;
+    }
+
+    /**
+     * This method returns the number of ticks in the file.
+     *
+     * @return the number of ticks
+     */
+    public long ticks() {
+        return ticks;
+    }
+
+    /**
+     * This method returns the X component of an agent at a tick.
+     *
+     * @param tick the tick
+     * @param agent the agent
+     * @return the X component
+     * @throws IOException if the file cannot be mapped
+     */
+    public double x(long tick, int agent) throws IOException {
+        return coordinate(tick, agent, 0);
+    }
+
+    /**
+     * This method returns the Y component of an agent at a tick.
+     *
+     * @param tick the tick
+     * @param agent the agent
+     * @return the Y component
+     * @throws IOException if the file cannot be mapped
+     */
+    public double y(long tick, int agent) throws IOException {
+        return coordinate(tick, agent, 1);
+    }
+
+    /**
+     * This method returns the Z component of an agent at a tick.
+     *
+     * @param tick the tick
+     * @param agent the agent
+     * @return the Z component
+     * @throws IOException if the file cannot be mapped
+     */
+    public double z(long tick, int agent) throws IOException {
+        return coordinate(tick, agent, 2);
+    }
+
+    /**
+     * This method gets the position of an agent at a tick.
+     *
+     * @param tick the tick
+     * @param agent the agent
+     * @param target the vector to write to, or null for a new one
+     * @return the position
+     * @throws IOException if the file cannot be mapped
+     */
+    public PVector get(long tick, int agent, PVector target) throws IOException {
+        double x = x(tick, agent), y = y(tick, agent), z = z(tick, agent);
+        if(target == null) {
+            target = new PVector(x, y, z);
+        }
+        else {
+            target.set(x, y, z);
+        }
+        return target;
+    }
+
+    /**
+     * This method returns a view of a whole tick. No coordinates are
+     * copied.
+     *
+     * @param tick the tick
+     * @return the frame
+     * @throws IOException if the file cannot be mapped
+     */
+    public TrajectoryFrame frame(long tick) throws IOException {
+        ByteBuffer view = window(tick).duplicate();
+        int at = offset(tick);
+        view.position(at);
+        view.limit(at + (int) frameBytes);
+        return new TrajectoryFrame(tick, agents, view.slice().order(Trajectory.ORDER), precision);
+    }
+
+    /**
+     * This method closes the file. Frames already returned stay readable.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private double coordinate(long tick, int agent, int axis) throws IOException {
+        if(agent < 0 || agent >= agents) {
+            throw new IndexOutOfBoundsException("Agent " + agent + " outside tick of " + agents + " agents");
+        }
+        int at = offset(tick) + (axis * agents + agent) * precision.bytes;
+        MappedByteBuffer window = window(tick);
+        return precision == OffHeapVectorStore.Precision.DOUBLE ? window.getDouble(at) : window.getFloat(at);
+    }
+
+    private int offset(long tick) {
+        return (int) ((tick % ticksPerWindow) * frameBytes);
+    }
+
+    private MappedByteBuffer window(long tick) throws IOException {
+        if(tick < 0 || tick >= ticks) {
+            throw new IndexOutOfBoundsException("Tick " + tick + " outside trajectory of " + ticks + " ticks");
+        }
+        int w = (int) (tick / ticksPerWindow);
+        MappedByteBuffer window = windows[w];
+        if(window == null) {
+            long first = w * ticksPerWindow;
+            long count = Math.min(ticksPerWindow, ticks - first);
+            window = channel.map(FileChannel.MapMode.READ_ONLY,
+                    Trajectory.HEADER + first * frameBytes, count * frameBytes);
+            window.order(Trajectory.ORDER);
+            windows[w] = window;
+        }
+        return window;
+    }
+}
@@ -0,0 +1,124 @@
+package com.jantatham.pvector;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.fail;
+
+public class TrajectoryTest {
+    private static PVectorBuffer tick(int agents, int t) {
+        PVectorBuffer buffer = new PVectorBuffer(agents);
+        for(int i = 0; i < agents; i++) {
+            buffer.set(i, t + i * 0.5, t - i, i * 0.25);
+        }
+        return buffer;
+    }
+
+    @org.junit.Test
+    public void write_then_read_random_access() throws Exception {
+        Path path = Files.createTempFile("trajectory", ".pvt");
+        try {
+            try(TrajectoryWriter writer = TrajectoryWriter.create(path, 5, OffHeapVectorStore.Precision.DOUBLE)) {
+                for(int t = 0; t < 20; t++) {
+                    writer.append(tick(5, t));
+                }
+                assertEquals(writer.ticks(), 20L);
+            }
+            assertEquals(Files.size(path), 64 + 20 * 5 * 3 * 8L);
+
+            try(TrajectoryReader reader = new TrajectoryReader(path)) {
+                assertEquals(reader.ticks(), 20L);
+                assertEquals(reader.agents(), 5);
+                assertEquals(reader.x(13, 4), 15.0, 0);
+                assertEquals(reader.y(13, 4), 9.0, 0);
+                PVector p = reader.get(7, 2, null);
+                assertEquals(p.x, 8.0, 0);
+                assertEquals(p.z, 0.5, 0);
+            }
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @org.junit.Test
+    public void frame_views_a_tick() throws Exception {
+        Path path = Files.createTempFile("trajectory", ".pvt");
+        try {
+            try(TrajectoryWriter writer = TrajectoryWriter.create(path, 4, OffHeapVectorStore.Precision.FLOAT)) {
+                writer.append(tick(4, 0));
+                writer.append(new PVector[] { new PVector(1, 2, 3), new PVector(4, 5, 6),
+                        new PVector(7, 8, 9), new PVector(0.1, 0.2, 0.3) });
+            }
+            try(TrajectoryReader reader = new TrajectoryReader(path)) {
+                TrajectoryFrame frame = reader.frame(1);
+                assertEquals(frame.tick(), 1L);
+                assertEquals(frame.y(1), 5.0, 0);
+                assertEquals(frame.z(3), (float) 0.3, 0);
+
+                PVectorBuffer buffer = frame.copyTo(new PVectorBuffer(4));
+                assertEquals(buffer.x[2], 7.0, 0);
+                assertEquals(buffer.z[0], 3.0, 0);
+            }
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @org.junit.Test
+    public void open_appends_to_existing_file() throws Exception {
+        Path path = Files.createTempFile("trajectory", ".pvt");
+        try {
+            try(TrajectoryWriter writer = TrajectoryWriter.create(path, 3, OffHeapVectorStore.Precision.DOUBLE)) {
+                writer.append(tick(3, 0));
+            }
+            try(TrajectoryWriter writer = TrajectoryWriter.open(path)) {
+                assertEquals(writer.ticks(), 1L);
+                writer.append(tick(3, 1));
+            }
+            try(TrajectoryReader reader = new TrajectoryReader(path)) {
+                assertEquals(reader.ticks(), 2L);
+                assertEquals(reader.x(0, 1), 0.5, 0);
+                assertEquals(reader.x(1, 1), 1.5, 0);
+            }
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @org.junit.Test
+    public void rejects_other_files() throws Exception {
+        Path path = Files.createTempFile("trajectory", ".txt");
+        try {
+            Files.write(path, new byte[100]);
+            new TrajectoryReader(path).close();
+            fail();
+        }
+        catch(IOException e) {
+            // expected
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @org.junit.Test
+    public void open_rejects_short_files() throws Exception {
+        Path path = Files.createTempFile("trajectory", ".pvt");
+        try {
+            Files.write(path, new byte[10]);
+            TrajectoryWriter.open(path).close();
+            fail();
+        }
+        catch(IOException e) {
+            // expected
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+}
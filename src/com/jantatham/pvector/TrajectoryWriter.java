@@ -0,0 +1,259 @@
+package com.jantatham.pvector;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The TrajectoryWriter Class appends one frame of agent positions per tick
+ * to a trajectory file. The file is written through memory-mapped windows
+ * of the FileChannel, so a frame is a few bulk copies into the page cache
+ * with no per-vector formatting or system calls.
+ *
+ * A writer is not thread-safe.
+ *
+ * @see TrajectoryReader
+ */
+public class TrajectoryWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final int agents;
+    private final OffHeapVectorStore.Precision precision;
+    private final long frameBytes;
+    private final long ticksPerWindow;
+
+    private long ticks;
+    private MappedByteBuffer window;
+    private DoubleBuffer doubles;
+    private FloatBuffer floats;
+    private long windowStart = -1;
+
+    private TrajectoryWriter(FileChannel channel, int agents, OffHeapVectorStore.Precision precision,
+                             long ticks) throws IOException {
+        this.channel = channel;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, Trajectory.HEADER);
+        this.header.order(Trajectory.ORDER);
+        this.agents = agents;
+        this.precision = precision;
+        this.frameBytes = Trajectory.frameBytes(agents, precision);
+        this.ticksPerWindow = Trajectory.ticksPerWindow(frameBytes);
+        this.ticks = ticks;
+    }
+
+    /**
+     * This method creates a trajectory file, replacing any existing file.
+     *
+     * @param path the file
+     * @param agents the number of agents in every tick
+     * @param precision the width of each stored coordinate
+     * @return the writer
+     * @throws IOException if the file cannot be created
+     */
+    static public TrajectoryWriter create(Path path, int agents, OffHeapVectorStore.Precision precision)
+            throws IOException {
+        Trajectory.frameBytes(agents, precision);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            TrajectoryWriter writer = new TrajectoryWriter(channel, agents, precision, 0);
+            Trajectory.writeHeader(writer.header, agents, precision);
+            return writer;
+        }
+        catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * This method opens an existing trajectory file to append more ticks.
+     *
+     * @param path the file
+     * @return the writer
+     * @throws IOException if the file cannot be opened or is not a trajectory
+     */
+    static public TrajectoryWriter open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            // a heap copy: a mapping would stay open until the GC found it
+            ByteBuffer header = ByteBuffer.allocate(Trajectory.HEADER).order(Trajectory.ORDER);
+            while(header.hasRemaining()) {
+                if(channel.read(header, header.position()) < 0) {
+                    throw new IOException("Not a trajectory file");
+                }
+            }
+            header.flip();
+            OffHeapVectorStore.Precision precision = Trajectory.precision(header);
+            return new TrajectoryWriter(channel, header.getInt(8), precision, header.getLong(Trajectory.TICKS));
+        }
+        catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * This method returns the number of agents in every tick.
+     *
+     * @return the number of agents
+     */
+    public int agents() {
+        return agents;
+    }
+
+    /**
+     * This method returns the width of each stored coordinate.
+     *
+     * @return the precision
+     */
+    public OffHeapVectorStore.Precision precision() {
+        return precision;
+    }
+
+    /**
+     * This method returns the number of ticks in the file.
+     *
+     * @return the number of ticks
+     */
+    public long ticks() {
+        return ticks;
+    }
+
+    /**
+     * This method appends the vectors of a buffer as the next tick.
+     *
+     * @param positions the agent positions, agents() long
+     * @return this writer
+     * @throws IOException if the file cannot grow
+     */
+    public TrajectoryWriter append(PVectorBuffer positions) throws IOException {
+        if(positions.size() != agents) {
+            throw new IllegalArgumentException("Tick holds " + positions.size() + " agents, "
+                    + agents + " expected");
+        }
+        int at = position();
+        if(doubles != null) {
+            DoubleBuffer d = doubles;
+            d.position(at);
+            d.put(positions.x, 0, agents);
+            d.put(positions.y, 0, agents);
+            d.put(positions.z, 0, agents);
+        }
+        else {
+            FloatBuffer f = floats;
+            double[] x = positions.x, y = positions.y, z = positions.z;
+            for(int i = 0; i < agents; i++) {
+                f.put(at + i, (float) x[i]);
+                f.put(at + agents + i, (float) y[i]);
+                f.put(at + 2 * agents + i, (float) z[i]);
+            }
+        }
+        header.putLong(Trajectory.TICKS, ++ticks);
+        return this;
+    }
+
+    /**
+     * This method appends the vectors of an array as the next tick.
+     *
+     * @param positions the agent positions, agents() long
+     * @return this writer
+     * @throws IOException if the file cannot grow
+     */
+    public TrajectoryWriter append(PVector[] positions) throws IOException {
+        if(positions.length != agents) {
+            throw new IllegalArgumentException("Tick holds " + positions.length + " agents, "
+                    + agents + " expected");
+        }
+        int at = position();
+        for(int i = 0; i < agents; i++) {
+            PVector p = positions[i];
+            if(doubles != null) {
+                doubles.put(at + i, p.x);
+                doubles.put(at + agents + i, p.y);
+                doubles.put(at + 2 * agents + i, p.z);
+            }
+            else {
+                floats.put(at + i, (float) p.x);
+                floats.put(at + agents + i, (float) p.y);
+                floats.put(at + 2 * agents + i, (float) p.z);
+            }
+        }
+        header.putLong(Trajectory.TICKS, ++ticks);
+        return this;
+    }
+
+    /**
+     * This method writes the mapped pages of the file to the storage device.
+     */
+    public void flush() {
+        if(window != null) {
+            window.force();
+        }
+        header.force();
+    }
+
+    /**
+     * This method flushes the file, trims it to the ticks written and closes
+     * it.
+     *
+     * @throws IOException if the file cannot be trimmed or closed
+     */
+    @Override
+    public void close() throws IOException {
+        if(!channel.isOpen()) {
+            return;
+        }
+        try {
+            flush();
+            unmap();
+            OffHeapArena.free(header);
+            channel.truncate(Trajectory.HEADER + ticks * frameBytes);
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * This method maps the window holding the next tick, if it is not
+     * mapped yet, and returns the element index of the tick within it.
+     */
+    private int position() throws IOException {
+        if(!channel.isOpen()) {
+            throw new IllegalStateException("Writer is closed");
+        }
+        long start = ticks - ticks % ticksPerWindow;
+        if(start != windowStart) {
+            unmap();
+            window = channel.map(FileChannel.MapMode.READ_WRITE,
+                    Trajectory.HEADER + start * frameBytes, ticksPerWindow * frameBytes);
+            window.order(Trajectory.ORDER);
+            if(precision == OffHeapVectorStore.Precision.DOUBLE) {
+                doubles = window.asDoubleBuffer();
+            }
+            else {
+                floats = window.asFloatBuffer();
+            }
+            windowStart = start;
+        }
+        return (int) ((ticks - start) * 3 * agents);
+    }
+
+    private void unmap() {
+        if(window != null) {
+            window.force();
+            OffHeapArena.free(window);
+            window = null;
+            doubles = null;
+            floats = null;
+            windowStart = -1;
+        }
+    }
+}
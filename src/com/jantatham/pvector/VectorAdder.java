@@ -0,0 +1,191 @@
+package com.jantatham.pvector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The VectorAdder Class accumulates a vector sum from many threads, like
+ * java.util.concurrent.atomic.DoubleAdder does for one component.
+ *
+ * The sum is spread over striped cells, each on its own cache lines. A
+ * thread adds into the cell picked by its probe with a compare-and-set per
+ * component and moves to another cell when the CAS fails, so threads that
+ * collide spread out and add without waiting on each other.
+ *
+ * sum is not an atomic snapshot: adds that run concurrently with it may or
+ * may not be included. Like DoubleAdder, the order of the additions is not
+ * fixed, so sums of non-integral values may differ in the last bits from
+ * run to run.
+ */
+public class VectorAdder {
+
+    /**
+     * The distance in longs between two cells, 128 bytes, so cells do not
+     * share a cache line even with adjacent-line prefetching.
+     */
+    private static final int STRIDE = 16;
+
+    private static final AtomicInteger SEED = new AtomicInteger();
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(
+            () -> new int[] { mix(SEED.getAndAdd(0x9e3779b9)) });
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    /**
+     * This method is a Constructor with four cells per available processor.
+     */
+    public VectorAdder() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * This method is a Constructor with a given number of cells, rounded up
+     * to a power of two.
+     *
+     * @param stripes the number of cells
+     */
+    public VectorAdder(int stripes) {
+        if(stripes < 1 || stripes > 1 << 20) {
+            throw new IllegalArgumentException("Stripes must be between 1 and " + (1 << 20));
+        }
+        int n = Integer.highestOneBit(stripes);
+        if(n < stripes) {
+            n <<= 1;
+        }
+        // one cell of padding in front of the first
+        cells = new AtomicLongArray((n + 1) * STRIDE);
+        mask = n - 1;
+    }
+
+    /**
+     * This method returns the number of cells.
+     *
+     * @return the number of cells
+     */
+    public int stripes() {
+        return mask + 1;
+    }
+
+    /**
+     * This method adds the vector (v) to the sum.
+     *
+     * @param v the vector
+     */
+    public void add(PVector v) {
+        add(v.x, v.y, v.z);
+    }
+
+    /**
+     * This method adds the vector (x, y, z) to the sum. It can be called
+     * from any thread.
+     *
+     * @param x the X component
+     * @param y the Y component
+     * @param z the Z component
+     */
+    public void add(double x, double y, double z) {
+        int[] probe = PROBE.get();
+        int h = probe[0];
+        if(x != 0) {
+            h = add(h, 0, x);
+        }
+        if(y != 0) {
+            h = add(h, 1, y);
+        }
+        if(z != 0) {
+            h = add(h, 2, z);
+        }
+        probe[0] = h;
+    }
+
+    /**
+     * This method adds one component, moving the probe on every failed CAS,
+     * and returns the probe that succeeded.
+     */
+    private int add(int h, int component, double v) {
+        AtomicLongArray a = cells;
+        for(;;) {
+            int i = ((h & mask) + 1) * STRIDE + component;
+            long current = a.get(i);
+            long next = Double.doubleToRawLongBits(Double.longBitsToDouble(current) + v);
+            if(a.compareAndSet(i, current, next)) {
+                return h;
+            }
+            // xorshift to another cell
+            h ^= h << 13;
+            h ^= h >>> 17;
+            h ^= h << 5;
+        }
+    }
+
+    /**
+     * This method calculates the current sum.
+     *
+     * @param target the vector to write to, or null for a new one
+     * @return the sum
+     */
+    public PVector sum(PVector target) {
+        double x = 0, y = 0, z = 0;
+        for(int c = 0; c <= mask; c++) {
+            int i = (c + 1) * STRIDE;
+            x += Double.longBitsToDouble(cells.get(i));
+            y += Double.longBitsToDouble(cells.get(i + 1));
+            z += Double.longBitsToDouble(cells.get(i + 2));
+        }
+        if(target == null) {
+            target = new PVector(x, y, z);
+        }
+        else {
+            target.set(x, y, z);
+        }
+        return target;
+    }
+
+    /**
+     * This method resets the sum to zero. Adds that run concurrently with
+     * reset may be lost.
+     */
+    public void reset() {
+        for(int c = 0; c <= mask; c++) {
+            int i = (c + 1) * STRIDE;
+            cells.set(i, 0);
+            cells.set(i + 1, 0);
+            cells.set(i + 2, 0);
+        }
+    }
+
+    /**
+     * This method calculates the sum and resets it to zero, taking each cell
+     * with an atomic exchange so that no concurrent add is lost or counted
+     * twice.
+     *
+     * @param target the vector to write to, or null for a new one
+     * @return the sum
+     */
+    public PVector sumThenReset(PVector target) {
+        double x = 0, y = 0, z = 0;
+        for(int c = 0; c <= mask; c++) {
+            int i = (c + 1) * STRIDE;
+            x += Double.longBitsToDouble(cells.getAndSet(i, 0));
+            y += Double.longBitsToDouble(cells.getAndSet(i + 1, 0));
+            z += Double.longBitsToDouble(cells.getAndSet(i + 2, 0));
+        }
+        if(target == null) {
+            target = new PVector(x, y, z);
+        }
+        else {
+            target.set(x, y, z);
+        }
+        return target;
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h == 0 ? 1 : h;
+    }
+}
@@ -0,0 +1,61 @@
+package com.jantatham.pvector;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+
+public class VectorAdderTest {
+    @org.junit.Test
+    public void concurrent_adds_are_not_lost() throws Exception {
+        final VectorAdder adder = new VectorAdder(4);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for(int t = 0; t < 8; t++) {
+                futures[t] = executor.submit(() -> {
+                    PVector v = new PVector(1, 2, -1);
+                    for(int i = 0; i < 100000; i++) {
+                        adder.add(v);
+                    }
+                });
+            }
+            for(Future<?> f : futures) {
+                f.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        PVector sum = adder.sum(null);
+        assertEquals(sum.x, 800000.0, 0);
+        assertEquals(sum.y, 1600000.0, 0);
+        assertEquals(sum.z, -800000.0, 0);
+    }
+
+    @org.junit.Test
+    public void sum_reuses_target_and_reset_clears() throws Exception {
+        VectorAdder adder = new VectorAdder();
+        adder.add(1.5, 0, 2);
+        adder.add(new PVector(0.5, 1, 0));
+        PVector target = new PVector();
+        assertSame(adder.sum(target), target);
+        assertEquals(target.x, 2.0, 0);
+        assertEquals(target.y, 1.0, 0);
+        assertEquals(target.z, 2.0, 0);
+
+        adder.reset();
+        assertEquals(adder.sum(null).magSq(), 0.0, 0);
+    }
+
+    @org.junit.Test
+    public void sumThenReset_takes_everything() throws Exception {
+        VectorAdder adder = new VectorAdder(3);
+        assertEquals(adder.stripes(), 4);
+        adder.add(1, 2, 3);
+        assertEquals(adder.sumThenReset(null).z, 3.0, 0);
+        assertEquals(adder.sum(null).z, 0.0, 0);
+    }
+}
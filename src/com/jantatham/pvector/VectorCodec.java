@@ -0,0 +1,249 @@
+package com.jantatham.pvector;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The VectorCodec Class encodes vectors in a compact binary format, about a
+ * tenth of the size of the same vectors as JSON.
+ *
+ * Vectors are sent in batches. A batch is an 8 byte header followed by the
+ * vectors one after another, each as 2 or 3 little-endian doubles or
+ * floats:
+ *
+ * <pre>
+ * 0  byte  'P'
+ * 1  byte  'V'
+ * 2  byte  format version
+ * 3  byte  dimensions (2 or 3), plus FLOAT_FLAG for 32-bit coordinates
+ * 4  int   number of vectors
+ * </pre>
+ *
+ * A stream is any number of batches back to back. VectorEncoder and
+ * VectorDecoder stream batches over channels; the methods here encode a
+ * batch into a ByteBuffer.
+ */
+public class VectorCodec {
+
+    static final byte MAGIC_P = 'P';
+    static final byte MAGIC_V = 'V';
+    static final byte VERSION = 1;
+    static final int FLOAT_FLAG = 0x10;
+    static final int HEADER = 8;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private VectorCodec() {
+
+    }
+
+    /**
+     * This method returns the size of an encoded batch.
+     *
+     * @param count the number of vectors
+     * @param dimensions 2 or 3
+     * @param precision the width of each coordinate
+     * @return the number of bytes
+     */
+    static public long encodedSize(int count, int dimensions, OffHeapVectorStore.Precision precision) {
+        checkDimensions(dimensions);
+        return HEADER + (long) count * dimensions * precision.bytes;
+    }
+
+    /**
+     * This method encodes a vector as a batch of one. The buffer is switched
+     * to little-endian order.
+     *
+     * @param v the vector
+     * @param dimensions 2 to drop the Z component, or 3
+     * @param precision the width of each coordinate
+     * @param target the buffer written to at its position
+     * @return the buffer
+     * @throws BufferOverflowException if the batch does not fit
+     */
+    static public ByteBuffer encode(PVector v, int dimensions, OffHeapVectorStore.Precision precision,
+                                    ByteBuffer target) {
+        checkSpace(1, dimensions, precision, target);
+        putHeader(target, 1, dimensions, precision);
+        put(target, v.x, v.y, v.z, dimensions, precision);
+        return target;
+    }
+
+    /**
+     * This method encodes an array of vectors as one batch. The buffer is
+     * switched to little-endian order.
+     *
+     * @param vectors the vectors
+     * @param dimensions 2 to drop the Z components, or 3
+     * @param precision the width of each coordinate
+     * @param target the buffer written to at its position
+     * @return the buffer
+     * @throws BufferOverflowException if the batch does not fit
+     */
+    static public ByteBuffer encode(PVector[] vectors, int dimensions, OffHeapVectorStore.Precision precision,
+                                    ByteBuffer target) {
+        checkSpace(vectors.length, dimensions, precision, target);
+        putHeader(target, vectors.length, dimensions, precision);
+        for(PVector v : vectors) {
+            put(target, v.x, v.y, v.z, dimensions, precision);
+        }
+        return target;
+    }
+
+    /**
+     * This method encodes the vectors [from, to) of a buffer as one batch.
+     * The byte buffer is switched to little-endian order.
+     *
+     * @param vectors the vectors
+     * @param from the first index
+     * @param to the index after the last
+     * @param dimensions 2 to drop the Z components, or 3
+     * @param precision the width of each coordinate
+     * @param target the buffer written to at its position
+     * @return the byte buffer
+     * @throws BufferOverflowException if the batch does not fit
+     */
+    static public ByteBuffer encode(PVectorBuffer vectors, int from, int to, int dimensions,
+                                    OffHeapVectorStore.Precision precision, ByteBuffer target) {
+        vectors.checkRange(from, to);
+        checkSpace(to - from, dimensions, precision, target);
+        putHeader(target, to - from, dimensions, precision);
+        double[] x = vectors.x, y = vectors.y, z = vectors.z;
+        for(int i = from; i < to; i++) {
+            put(target, x[i], y[i], z[i], dimensions, precision);
+        }
+        return target;
+    }
+
+    /**
+     * This method decodes a batch of one vector. The buffer is switched to
+     * little-endian order.
+     *
+     * @param source the buffer read from at its position
+     * @param target the vector to write to, or null for a new one
+     * @return the vector
+     * @throws IllegalArgumentException if the buffer does not hold a batch
+     * of one vector
+     */
+    static public PVector decode(ByteBuffer source, PVector target) {
+        int header = header(source);
+        int count = count(source, header);
+        if(count != 1) {
+            throw new IllegalArgumentException("Batch holds " + count + " vectors, 1 expected");
+        }
+        return get(source, header, target);
+    }
+
+    /**
+     * This method decodes a batch into an array. The buffer is switched to
+     * little-endian order.
+     *
+     * @param source the buffer read from at its position
+     * @param target the array to write to, or null; a new array is returned
+     * if it is too short
+     * @return the array, whose first count entries hold the batch
+     * @throws IllegalArgumentException if the buffer does not hold a batch
+     */
+    static public PVector[] decode(ByteBuffer source, PVector[] target) {
+        int header = header(source);
+        int count = count(source, header);
+        if(target == null || target.length < count) {
+            target = new PVector[count];
+        }
+        for(int i = 0; i < count; i++) {
+            target[i] = get(source, header, target[i]);
+        }
+        return target;
+    }
+
+    static void checkDimensions(int dimensions) {
+        if(dimensions != 2 && dimensions != 3) {
+            throw new IllegalArgumentException("Dimensions must be 2 or 3");
+        }
+    }
+
+    static void putHeader(ByteBuffer target, int count, int dimensions, OffHeapVectorStore.Precision precision) {
+        target.order(ORDER);
+        target.put(MAGIC_P).put(MAGIC_V).put(VERSION);
+        target.put((byte) (dimensions | (precision == OffHeapVectorStore.Precision.FLOAT ? FLOAT_FLAG : 0)));
+        target.putInt(count);
+    }
+
+    static void put(ByteBuffer target, double x, double y, double z, int dimensions,
+                    OffHeapVectorStore.Precision precision) {
+        if(precision == OffHeapVectorStore.Precision.DOUBLE) {
+            target.putDouble(x).putDouble(y);
+            if(dimensions == 3) {
+                target.putDouble(z);
+            }
+        }
+        else {
+            target.putFloat((float) x).putFloat((float) y);
+            if(dimensions == 3) {
+                target.putFloat((float) z);
+            }
+        }
+    }
+
+    /**
+     * This method reads and checks the start of a batch header, returning
+     * its flags byte and leaving the position at the count.
+     */
+    static int header(ByteBuffer source) {
+        source.order(ORDER);
+        if(source.remaining() < HEADER) {
+            throw new IllegalArgumentException("Buffer too short for a batch header");
+        }
+        if(source.get() != MAGIC_P || source.get() != MAGIC_V) {
+            throw new IllegalArgumentException("Not a vector batch");
+        }
+        byte version = source.get();
+        if(version != VERSION) {
+            throw new IllegalArgumentException("Unsupported batch version " + version);
+        }
+        int flags = source.get();
+        checkDimensions(flags & ~FLOAT_FLAG);
+        return flags;
+    }
+
+    /**
+     * This method reads the count of a batch header and checks that the
+     * whole batch is in the buffer.
+     */
+    static int count(ByteBuffer source, int flags) {
+        int count = source.getInt();
+        if(count < 0 || source.remaining() < (long) count * vectorBytes(flags)) {
+            throw new IllegalArgumentException("Buffer too short for a batch of " + count + " vectors");
+        }
+        return count;
+    }
+
+    static int vectorBytes(int flags) {
+        return (flags & ~FLOAT_FLAG) * ((flags & FLOAT_FLAG) != 0 ? 4 : 8);
+    }
+
+    /**
+     * This method reads one vector encoded with the header flags.
+     */
+    static PVector get(ByteBuffer source, int flags, PVector target) {
+        boolean floats = (flags & FLOAT_FLAG) != 0;
+        boolean threeD = (flags & ~FLOAT_FLAG) == 3;
+        double x = floats ? source.getFloat() : source.getDouble();
+        double y = floats ? source.getFloat() : source.getDouble();
+        double z = threeD ? (floats ? source.getFloat() : source.getDouble()) : 0;
+        if(target == null) {
+            target = new PVector(x, y, z);
+        }
+        else {
+            target.set(x, y, z);
+        }
+        return target;
+    }
+
+    private static void checkSpace(int count, int dimensions, OffHeapVectorStore.Precision precision,
+                                   ByteBuffer target) {
+        if(target.remaining() < encodedSize(count, dimensions, precision)) {
+            throw new BufferOverflowException();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.jantatham.pvector;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.fail;
+
+public class VectorCodecTest {
+    @org.junit.Test
+    public void encode_decode_array() throws Exception {
+        PVector[] vectors = { new PVector(1, 2, 3), new PVector(-4.5, 5.25, 0.1) };
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        VectorCodec.encode(vectors, 3, OffHeapVectorStore.Precision.DOUBLE, buffer);
+        assertEquals(buffer.position(), 8 + 2 * 24);
+        assertEquals(buffer.get(0), (byte) 'P');
+        assertEquals(buffer.get(4), (byte) 2);
+
+        buffer.flip();
+        PVector[] decoded = VectorCodec.decode(buffer, (PVector[]) null);
+        assertEquals(decoded.length, 2);
+        assertEquals(decoded[1].x, -4.5, 0);
+        assertEquals(decoded[1].z, 0.1, 0);
+    }
+
+    @org.junit.Test
+    public void encode_decode_single_2d_float() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        VectorCodec.encode(new PVector(0.1, 0.2, 9), 2, OffHeapVectorStore.Precision.FLOAT, buffer);
+        assertEquals(buffer.position(), 16);
+        buffer.flip();
+        PVector target = new PVector(7, 7, 7);
+        VectorCodec.decode(buffer, target);
+        assertEquals(target.x, (float) 0.1, 0);
+        assertEquals(target.y, (float) 0.2, 0);
+        assertEquals(target.z, 0.0, 0);
+    }
+
+    @org.junit.Test
+    public void stream_round_trip_with_small_buffers() throws Exception {
+        PVectorBuffer vectors = new PVectorBuffer(100);
+        for(int i = 0; i < 100; i++) {
+            vectors.set(i, i, i * 0.5, -i);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try(VectorEncoder encoder = new VectorEncoder(Channels.newChannel(out), 3,
+                OffHeapVectorStore.Precision.DOUBLE, 40)) {
+            encoder.writeBatch(vectors, 0, 100);
+            encoder.writeBatch(new PVector[] { new PVector(1, 2, 3) });
+            encoder.begin(0);
+        }
+        assertEquals(out.size(), 3 * 8 + 101 * 24);
+
+        try(VectorDecoder decoder = new VectorDecoder(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())), 30)) {
+            assertEquals(decoder.next(), 100);
+            assertEquals(decoder.dimensions(), 3);
+            PVector v = decoder.read(new PVector());
+            assertEquals(v.y, 0.0, 0);
+            PVectorBuffer target = new PVectorBuffer(200);
+            assertEquals(decoder.read(target, 1, 200), 99);
+            assertEquals(target.x[99], 99.0, 0);
+            assertEquals(target.y[50], 25.0, 0);
+            assertEquals(target.z[1], -1.0, 0);
+
+            assertEquals(decoder.next(), 1);
+            assertEquals(decoder.next(), 0);
+            assertEquals(decoder.next(), -1);
+        }
+    }
+
+    @org.junit.Test
+    public void next_skips_unread_vectors() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try(VectorEncoder encoder = new VectorEncoder(Channels.newChannel(out), 2, OffHeapVectorStore.Precision.FLOAT)) {
+            encoder.writeBatch(new PVector[] { new PVector(1, 1), new PVector(2, 2) });
+            encoder.writeBatch(new PVector[] { new PVector(3, 4) });
+        }
+        try(VectorDecoder decoder = new VectorDecoder(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())))) {
+            decoder.next();
+            assertEquals(decoder.next(), 1);
+            assertEquals(decoder.read(null).y, 4.0, 0);
+        }
+    }
+
+    @org.junit.Test
+    public void truncated_stream_fails() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        VectorCodec.encode(new PVector[] { new PVector(1, 2, 3), new PVector(4, 5, 6) }, 3,
+                OffHeapVectorStore.Precision.DOUBLE, buffer);
+        byte[] bytes = Arrays.copyOf(buffer.array(), buffer.position() - 4);
+        try(VectorDecoder decoder = new VectorDecoder(Channels.newChannel(new ByteArrayInputStream(bytes)))) {
+            decoder.next();
+            decoder.read(null);
+            decoder.read(null);
+            fail();
+        }
+        catch(EOFException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.jantatham.pvector;
+
+import java.util.stream.Collector;
+
+/**
+ * The VectorCollectors Class provides java.util.stream Collectors that
+ * reduce a stream of vectors with VectorStatistics, so parallel streams get
+ * the same compensated single-pass reductions.
+ */
+public class VectorCollectors {
+
+    private VectorCollectors() {
+
+    }
+
+    /**
+     * This method returns a Collector of the full statistics of the vectors.
+     *
+     * @return the collector
+     */
+    static public Collector<PVector, ?, VectorStatistics> toStatistics() {
+        return Collector.of(VectorStatistics::new, VectorStatistics::accept, VectorStatistics::combine,
+                Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * This method returns a Collector of the sum of the vectors.
+     *
+     * @return the collector
+     */
+    static public Collector<PVector, ?, PVector> summing() {
+        return Collector.of(VectorStatistics::new, VectorStatistics::accept, VectorStatistics::combine,
+                statistics -> statistics.sum(null), Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * This method returns a Collector of the mean (centroid) of the vectors.
+     *
+     * @return the collector
+     */
+    static public Collector<PVector, ?, PVector> averaging() {
+        return Collector.of(VectorStatistics::new, VectorStatistics::accept, VectorStatistics::combine,
+                statistics -> statistics.mean(null), Collector.Characteristics.UNORDERED);
+    }
+}
@@ -0,0 +1,200 @@
+package com.jantatham.pvector;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * The VectorDecoder Class reads batches of vectors in the VectorCodec
+ * format from a channel. The channel is read through a fixed size buffer
+ * and vectors are decoded into caller-provided PVectors or PVectorBuffers,
+ * so a stream of any length is decoded in bounded memory without
+ * allocating per vector.
+ *
+ * next() moves to the following batch; read then returns its vectors. A
+ * decoder is not thread-safe.
+ */
+public class VectorDecoder implements Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private int flags;
+    private long remaining;
+
+    /**
+     * This method is a Constructor for a decoder with the default buffer
+     * size.
+     *
+     * @param channel the channel read from
+     */
+    public VectorDecoder(ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * This method is a Constructor for a decoder.
+     *
+     * @param channel the channel read from
+     * @param bufferSize the size of the buffer in bytes, at least 24
+     */
+    public VectorDecoder(ReadableByteChannel channel, int bufferSize) {
+        if(bufferSize < 3 * 8) {
+            throw new IllegalArgumentException("Buffer must hold a vector");
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize).order(VectorCodec.ORDER);
+        this.buffer.limit(0);
+    }
+
+    /**
+     * This method moves to the next batch, skipping any unread vectors of
+     * the current one.
+     *
+     * @return the number of vectors in the batch, or -1 at the end of the
+     * stream
+     * @throws IOException if the channel cannot be read or holds no batch
+     */
+    public int next() throws IOException {
+        while(remaining > 0) {
+            fill(vectorBytes());
+            buffer.position(buffer.position() + vectorBytes());
+            remaining--;
+        }
+        if(!fill(VectorCodec.HEADER)) {
+            return -1;
+        }
+        try {
+            flags = VectorCodec.header(buffer);
+        }
+        catch(IllegalArgumentException e) {
+            throw new StreamCorruptedException(e.getMessage());
+        }
+        int count = buffer.getInt();
+        if(count < 0) {
+            throw new StreamCorruptedException("Negative batch size " + count);
+        }
+        remaining = count;
+        return count;
+    }
+
+    /**
+     * This method returns the number of unread vectors in the batch.
+     *
+     * @return the number of vectors
+     */
+    public long remaining() {
+        return remaining;
+    }
+
+    /**
+     * This method returns the number of dimensions of the batch.
+     *
+     * @return 2 or 3
+     */
+    public int dimensions() {
+        return flags & ~VectorCodec.FLOAT_FLAG;
+    }
+
+    /**
+     * This method returns the width of the coordinates of the batch.
+     *
+     * @return the precision
+     */
+    public OffHeapVectorStore.Precision precision() {
+        return (flags & VectorCodec.FLOAT_FLAG) != 0
+                ? OffHeapVectorStore.Precision.FLOAT : OffHeapVectorStore.Precision.DOUBLE;
+    }
+
+    /**
+     * This method reads the next vector of the batch. 2D vectors are read
+     * with a Z component of 0.
+     *
+     * @param target the vector to write to, or null for a new one
+     * @return the vector
+     * @throws IOException if the channel cannot be read or ends early
+     * @throws IllegalStateException if the batch has no vectors left
+     */
+    public PVector read(PVector target) throws IOException {
+        if(remaining == 0) {
+            throw new IllegalStateException("No vectors left in the batch");
+        }
+        fill(vectorBytes());
+        remaining--;
+        return VectorCodec.get(buffer, flags, target);
+    }
+
+    /**
+     * This method reads vectors of the batch into the range [from, to) of a
+     * buffer, stopping early at the end of the batch.
+     *
+     * @param target the buffer
+     * @param from the first index
+     * @param to the index after the last
+     * @return the number of vectors read
+     * @throws IOException if the channel cannot be read or ends early
+     */
+    public int read(PVectorBuffer target, int from, int to) throws IOException {
+        target.checkRange(from, to);
+        int n = (int) Math.min(to - from, remaining);
+        boolean floats = (flags & VectorCodec.FLOAT_FLAG) != 0;
+        boolean threeD = dimensions() == 3;
+        int bytes = vectorBytes();
+        double[] x = target.x, y = target.y, z = target.z;
+        ByteBuffer b = buffer;
+        for(int i = from; i < from + n; i++) {
+            if(b.remaining() < bytes) {
+                fill(bytes);
+            }
+            x[i] = floats ? b.getFloat() : b.getDouble();
+            y[i] = floats ? b.getFloat() : b.getDouble();
+            z[i] = threeD ? (floats ? b.getFloat() : b.getDouble()) : 0;
+        }
+        remaining -= n;
+        return n;
+    }
+
+    /**
+     * This method closes the channel.
+     *
+     * @throws IOException if the channel cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int vectorBytes() {
+        return VectorCodec.vectorBytes(flags);
+    }
+
+    /**
+     * This method reads from the channel until at least bytes are buffered.
+     * It returns false if the stream ends cleanly before any byte, and
+     * throws EOFException if it ends part way.
+     */
+    private boolean fill(int bytes) throws IOException {
+        if(buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        try {
+            while(buffer.position() < bytes) {
+                if(channel.read(buffer) < 0) {
+                    if(buffer.position() == 0 && remaining == 0) {
+                        return false;
+                    }
+                    throw new EOFException("Stream ended inside a batch");
+                }
+            }
+        }
+        finally {
+            buffer.flip();
+        }
+        return true;
+    }
+}
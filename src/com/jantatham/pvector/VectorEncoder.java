@@ -0,0 +1,201 @@
+package com.jantatham.pvector;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The VectorEncoder Class writes batches of vectors to a channel in the
+ * VectorCodec format. Vectors are gathered in a fixed size buffer that is
+ * written out whenever it fills, so a batch of any length is encoded in
+ * bounded memory.
+ *
+ * A batch is started with begin(count) and must then receive exactly count
+ * vectors. An encoder is not thread-safe.
+ */
+public class VectorEncoder implements Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final int dimensions;
+    private final OffHeapVectorStore.Precision precision;
+    private final int vectorBytes;
+    private long remaining;
+
+    /**
+     * This method is a Constructor for an encoder with the default buffer
+     * size.
+     *
+     * @param channel the channel written to
+     * @param dimensions 2 to drop the Z components, or 3
+     * @param precision the width of each coordinate
+     */
+    public VectorEncoder(WritableByteChannel channel, int dimensions, OffHeapVectorStore.Precision precision) {
+        this(channel, dimensions, precision, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * This method is a Constructor for an encoder.
+     *
+     * @param channel the channel written to
+     * @param dimensions 2 to drop the Z components, or 3
+     * @param precision the width of each coordinate
+     * @param bufferSize the size of the buffer in bytes
+     */
+    public VectorEncoder(WritableByteChannel channel, int dimensions, OffHeapVectorStore.Precision precision,
+                         int bufferSize) {
+        VectorCodec.checkDimensions(dimensions);
+        this.vectorBytes = dimensions * precision.bytes;
+        if(bufferSize < Math.max(VectorCodec.HEADER, vectorBytes)) {
+            throw new IllegalArgumentException("Buffer must hold a header and a vector");
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize).order(VectorCodec.ORDER);
+        this.dimensions = dimensions;
+        this.precision = precision;
+    }
+
+    /**
+     * This method returns the number of dimensions written per vector.
+     *
+     * @return 2 or 3
+     */
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * This method returns the width of each coordinate.
+     *
+     * @return the precision
+     */
+    public OffHeapVectorStore.Precision precision() {
+        return precision;
+    }
+
+    /**
+     * This method starts a batch of count vectors.
+     *
+     * @param count the number of vectors in the batch
+     * @return this encoder
+     * @throws IOException if the channel cannot be written
+     * @throws IllegalStateException if the previous batch is incomplete
+     */
+    public VectorEncoder begin(int count) throws IOException {
+        if(remaining != 0) {
+            throw new IllegalStateException(remaining + " vectors of the previous batch are missing");
+        }
+        if(count < 0) {
+            throw new IllegalArgumentException("Count must not be negative");
+        }
+        reserve(VectorCodec.HEADER);
+        VectorCodec.putHeader(buffer, count, dimensions, precision);
+        remaining = count;
+        return this;
+    }
+
+    /**
+     * This method writes the next vector of the batch.
+     *
+     * @param v the vector
+     * @return this encoder
+     * @throws IOException if the channel cannot be written
+     */
+    public VectorEncoder write(PVector v) throws IOException {
+        return write(v.x, v.y, v.z);
+    }
+
+    /**
+     * This method writes the next vector of the batch.
+     *
+     * @param x the X component
+     * @param y the Y component
+     * @param z the Z component, ignored for 2 dimensions
+     * @return this encoder
+     * @throws IOException if the channel cannot be written
+     */
+    public VectorEncoder write(double x, double y, double z) throws IOException {
+        if(remaining == 0) {
+            throw new IllegalStateException("No vectors left in the batch");
+        }
+        reserve(vectorBytes);
+        VectorCodec.put(buffer, x, y, z, dimensions, precision);
+        remaining--;
+        return this;
+    }
+
+    /**
+     * This method writes an array of vectors as one batch.
+     *
+     * @param vectors the vectors
+     * @return this encoder
+     * @throws IOException if the channel cannot be written
+     */
+    public VectorEncoder writeBatch(PVector[] vectors) throws IOException {
+        begin(vectors.length);
+        for(PVector v : vectors) {
+            write(v.x, v.y, v.z);
+        }
+        return this;
+    }
+
+    /**
+     * This method writes the vectors [from, to) of a buffer as one batch.
+     *
+     * @param vectors the vectors
+     * @param from the first index
+     * @param to the index after the last
+     * @return this encoder
+     * @throws IOException if the channel cannot be written
+     */
+    public VectorEncoder writeBatch(PVectorBuffer vectors, int from, int to) throws IOException {
+        vectors.checkRange(from, to);
+        begin(to - from);
+        double[] x = vectors.x, y = vectors.y, z = vectors.z;
+        for(int i = from; i < to; i++) {
+            write(x[i], y[i], z[i]);
+        }
+        return this;
+    }
+
+    /**
+     * This method writes the buffered bytes to the channel.
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * This method flushes the encoder and closes the channel.
+     *
+     * @throws IOException if the channel cannot be written or closed
+     * @throws IllegalStateException if the last batch is incomplete
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if(remaining != 0) {
+                throw new IllegalStateException(remaining + " vectors of the last batch are missing");
+            }
+            flush();
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    private void reserve(int bytes) throws IOException {
+        if(buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
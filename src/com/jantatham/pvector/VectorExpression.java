@@ -0,0 +1,373 @@
+package com.jantatham.pvector;
+
+import java.util.Arrays;
+
+import static java.lang.Math.*;
+
+/**
+ * The VectorExpression Class records a chain of PVector operations and
+ * evaluates the whole chain in one pass over the vectors, keeping each
+ * intermediate vector in local variables instead of writing a buffer per
+ * step. A steering force such as
+ *
+ *     PVector.sub(target, pos).normalize().mult(speed).sub(vel).limit(force)
+ *
+ * becomes, for a whole flock,
+ *
+ *     VectorExpression.of(target).sub(positions).normalize().mult(speed)
+ *             .sub(velocities).limit(force).evaluate(forces);
+ *
+ * Operands are either single vectors, applied to every element, or buffers,
+ * read at the same index as the element. Vectors and buffers are read when
+ * the expression is evaluated, so one expression can be built once and
+ * evaluated every frame; scalars are fixed when recorded. Every operation
+ * has the semantics of the matching PVector method.
+ *
+ * The output buffer may be one of the operand buffers, since every index is
+ * read before it is written.
+ */
+public class VectorExpression {
+
+    private static final int ADD_VECTOR = 0;
+    private static final int ADD_BUFFER = 1;
+    private static final int SUB_VECTOR = 2;
+    private static final int SUB_BUFFER = 3;
+    private static final int MULT = 4;
+    private static final int NORMALIZE = 5;
+    private static final int LIMIT = 6;
+    private static final int SET_MAG = 7;
+    private static final int LERP_VECTOR = 8;
+    private static final int LERP_BUFFER = 9;
+    private static final int DIV = 10;
+
+    private final Object source;
+    private int[] codes = new int[8];
+    private Object[] operands = new Object[8];
+    private double[] scalars = new double[8];
+    private int length;
+
+    private VectorExpression(Object source) {
+        this.source = source;
+    }
+
+    /**
+     * This method starts an expression whose input is the element of a
+     * buffer.
+     *
+     * @param source the input vectors
+     * @return the expression
+     */
+    static public VectorExpression of(PVectorBuffer source) {
+        return new VectorExpression(source);
+    }
+
+    /**
+     * This method starts an expression whose input is the same vector for
+     * every element.
+     *
+     * @param source the input vector
+     * @return the expression
+     */
+    static public VectorExpression of(PVector source) {
+        return new VectorExpression(source);
+    }
+
+    /**
+     * This method adds the vector (v) to every element.
+     *
+     * @param v the vector to add
+     * @return this expression
+     */
+    public VectorExpression add(PVector v) {
+        return record(ADD_VECTOR, v, 0);
+    }
+
+    /**
+     * This method adds the vector at the same index of a buffer.
+     *
+     * @param other the vectors to add
+     * @return this expression
+     */
+    public VectorExpression add(PVectorBuffer other) {
+        return record(ADD_BUFFER, other, 0);
+    }
+
+    /**
+     * This method subtracts the vector (v) from every element.
+     *
+     * @param v the vector to subtract
+     * @return this expression
+     */
+    public VectorExpression sub(PVector v) {
+        return record(SUB_VECTOR, v, 0);
+    }
+
+    /**
+     * This method subtracts the vector at the same index of a buffer.
+     *
+     * @param other the vectors to subtract
+     * @return this expression
+     */
+    public VectorExpression sub(PVectorBuffer other) {
+        return record(SUB_BUFFER, other, 0);
+    }
+
+    /**
+     * This method multiplies every element by a scalar.
+     *
+     * @param n the number to multiply with the vectors
+     * @return this expression
+     */
+    public VectorExpression mult(double n) {
+        return record(MULT, null, n);
+    }
+
+    /**
+     * This method divides every element by a scalar. As with PVector.div a
+     * zero divider leaves the vectors unchanged.
+     *
+     * @param n the scalar divider
+     * @return this expression
+     */
+    public VectorExpression div(double n) {
+        if(n == 0) {
+            System.out.println("Warning: There is a divide overflow error");
+            return this;
+        }
+        return record(DIV, null, n);
+    }
+
+    /**
+     * This method normalizes every element to length 1.
+     *
+     * @return this expression
+     */
+    public VectorExpression normalize() {
+        return record(NORMALIZE, null, 0);
+    }
+
+    /**
+     * This method limits the magnitude of every element to max.
+     *
+     * @param max the maximum limit
+     * @return this expression
+     */
+    public VectorExpression limit(double max) {
+        return record(LIMIT, null, max);
+    }
+
+    /**
+     * This method sets the magnitude of every element to len.
+     *
+     * @param len the new length of the vectors
+     * @return this expression
+     */
+    public VectorExpression setMag(double len) {
+        return record(SET_MAG, null, len);
+    }
+
+    /**
+     * This method interpolates every element towards the vector (v).
+     *
+     * @param v the vector to interpolate towards
+     * @param amount the amount, clamped to [0, 1]
+     * @return this expression
+     */
+    public VectorExpression lerp(PVector v, double amount) {
+        return record(LERP_VECTOR, v, clamp(amount));
+    }
+
+    /**
+     * This method interpolates every element towards the vector at the same
+     * index of a buffer.
+     *
+     * @param other the vectors to interpolate towards
+     * @param amount the amount, clamped to [0, 1]
+     * @return this expression
+     */
+    public VectorExpression lerp(PVectorBuffer other, double amount) {
+        return record(LERP_BUFFER, other, clamp(amount));
+    }
+
+    /**
+     * This method evaluates the expression for every vector of target.
+     *
+     * @param target the buffer the results are written to
+     * @return the target buffer
+     */
+    public PVectorBuffer evaluate(PVectorBuffer target) {
+        return evaluate(0, target.size(), target);
+    }
+
+    /**
+     * This method evaluates the expression for the indices [from, to) and
+     * writes the results to the same indices of target. Every buffer operand
+     * must cover the range.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @param target the buffer the results are written to
+     * @return the target buffer
+     */
+    public PVectorBuffer evaluate(int from, int to, PVectorBuffer target) {
+        target.checkRange(from, to);
+        int n = length;
+        int[] code = Arrays.copyOf(codes, n);
+        double[] s = Arrays.copyOf(scalars, n);
+        // per operation, the operand arrays of a buffer or the components of a vector
+        double[][] ox = new double[n][], oy = new double[n][], oz = new double[n][];
+        double[] cx = new double[n], cy = new double[n], cz = new double[n];
+        for(int k = 0; k < n; k++) {
+            Object operand = operands[k];
+            if(operand instanceof PVectorBuffer) {
+                PVectorBuffer b = (PVectorBuffer) operand;
+                b.checkRange(from, to);
+                ox[k] = b.x;
+                oy[k] = b.y;
+                oz[k] = b.z;
+            }
+            else if(operand instanceof PVector) {
+                PVector v = (PVector) operand;
+                cx[k] = v.x;
+                cy[k] = v.y;
+                cz[k] = v.z;
+            }
+        }
+
+        double[] sx = null, sy = null, sz = null;
+        double vx = 0, vy = 0, vz = 0;
+        if(source instanceof PVectorBuffer) {
+            PVectorBuffer b = (PVectorBuffer) source;
+            b.checkRange(from, to);
+            sx = b.x;
+            sy = b.y;
+            sz = b.z;
+        }
+        else {
+            PVector v = (PVector) source;
+            vx = v.x;
+            vy = v.y;
+            vz = v.z;
+        }
+
+        double[] tx = target.x, ty = target.y, tz = target.z;
+        for(int i = from; i < to; i++) {
+            double x, y, z;
+            if(sx != null) {
+                x = sx[i];
+                y = sy[i];
+                z = sz[i];
+            }
+            else {
+                x = vx;
+                y = vy;
+                z = vz;
+            }
+            for(int k = 0; k < n; k++) {
+                switch(code[k]) {
+                    case ADD_VECTOR:
+                        x += cx[k];
+                        y += cy[k];
+                        z += cz[k];
+                        break;
+                    case ADD_BUFFER:
+                        x += ox[k][i];
+                        y += oy[k][i];
+                        z += oz[k][i];
+                        break;
+                    case SUB_VECTOR:
+                        x -= cx[k];
+                        y -= cy[k];
+                        z -= cz[k];
+                        break;
+                    case SUB_BUFFER:
+                        x -= ox[k][i];
+                        y -= oy[k][i];
+                        z -= oz[k][i];
+                        break;
+                    case MULT:
+                        x *= s[k];
+                        y *= s[k];
+                        z *= s[k];
+                        break;
+                    case DIV:
+                        x /= s[k];
+                        y /= s[k];
+                        z /= s[k];
+                        break;
+                    case NORMALIZE:
+                    case SET_MAG: {
+                        double m = sqrt(x*x + y*y + z*z);
+                        if(m != 0) {
+                            x /= m;
+                            y /= m;
+                            z /= m;
+                        }
+                        if(code[k] == SET_MAG) {
+                            x *= s[k];
+                            y *= s[k];
+                            z *= s[k];
+                        }
+                        break;
+                    }
+                    case LIMIT: {
+                        double mSq = x*x + y*y + z*z;
+                        if(mSq > s[k] * s[k]) {
+                            double m = sqrt(mSq);
+                            x = x / m * s[k];
+                            y = y / m * s[k];
+                            z = z / m * s[k];
+                        }
+                        break;
+                    }
+                    case LERP_VECTOR:
+                        x += (cx[k] - x) * s[k];
+                        y += (cy[k] - y) * s[k];
+                        z += (cz[k] - z) * s[k];
+                        break;
+                    case LERP_BUFFER:
+                        x += (ox[k][i] - x) * s[k];
+                        y += (oy[k][i] - y) * s[k];
+                        z += (oz[k][i] - z) * s[k];
+                        break;
+                }
+            }
+            tx[i] = x;
+            ty[i] = y;
+            tz[i] = z;
+        }
+        return target;
+    }
+
+    /**
+     * This method evaluates the expression for every vector of target with
+     * the ranges split across a ParallelVectorOps pool.
+     *
+     * @param ops the parallel executor
+     * @param target the buffer the results are written to
+     * @return the target buffer
+     */
+    public PVectorBuffer evaluate(ParallelVectorOps ops, final PVectorBuffer target) {
+        ops.run(target.size(), (from, to) -> evaluate(from, to, target));
+        return target;
+    }
+
+    private VectorExpression record(int code, Object operand, double scalar) {
+        if(length == codes.length) {
+            codes = Arrays.copyOf(codes, length * 2);
+            operands = Arrays.copyOf(operands, length * 2);
+            scalars = Arrays.copyOf(scalars, length * 2);
+        }
+        codes[length] = code;
+        operands[length] = operand;
+        scalars[length] = scalar;
+        length++;
+        return this;
+    }
+
+    private static double clamp(double amount) {
+        if (amount < 0) amount = 0;
+        if (amount > 1) amount = 1;
+        return amount;
+    }
+}
@@ -0,0 +1,82 @@
+package com.jantatham.pvector;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class VectorExpressionTest {
+    @org.junit.Test
+    public void div_matches_pVector_div() throws Exception {
+        PVectorBuffer a = TestVectors.randomBuffer(1000, 7);
+        PVectorBuffer out = VectorExpression.of(a).div(3).evaluate(new PVectorBuffer(1000));
+        for(int i = 0; i < 1000; i++) {
+            PVector expected = a.get(i, null).div(3);
+            assertEquals(out.x[i], expected.x, 0);
+            assertEquals(out.y[i], expected.y, 0);
+            assertEquals(out.z[i], expected.z, 0);
+        }
+    }
+
+    @org.junit.Test
+    public void seek_matches_pvector_chain() throws Exception {
+        PVectorBuffer positions = TestVectors.randomBuffer(500, 1);
+        PVectorBuffer velocities = TestVectors.randomBuffer(500, 2);
+        PVector target = new PVector(1, 2, 3);
+        VectorExpression seek = VectorExpression.of(target).sub(positions).normalize().mult(4)
+                .sub(velocities).limit(0.5);
+        PVectorBuffer forces = seek.evaluate(new PVectorBuffer(500));
+        for(int i = 0; i < 500; i++) {
+            PVector expected = PVector.sub(target, positions.get(i, null)).normalize().mult(4)
+                    .sub(velocities.get(i, null)).limit(0.5);
+            assertEquals(forces.x[i], expected.x, 1e-12);
+            assertEquals(forces.y[i], expected.y, 1e-12);
+            assertEquals(forces.z[i], expected.z, 1e-12);
+        }
+
+        // operands are read at evaluation
+        target.set(-5, 0, 0);
+        seek.evaluate(forces);
+        PVector expected = PVector.sub(target, positions.get(9, null)).normalize().mult(4)
+                .sub(velocities.get(9, null)).limit(0.5);
+        assertEquals(forces.x[9], expected.x, 1e-12);
+    }
+
+    @org.junit.Test
+    public void in_place_buffer_operations() throws Exception {
+        PVectorBuffer a = TestVectors.randomBuffer(300, 3);
+        PVectorBuffer b = TestVectors.randomBuffer(300, 4);
+        PVectorBuffer expected = a.copy().add(b).div(2).setMag(3).lerp(b, 0.25).add(1, 1, 1);
+        VectorExpression.of(a).add(b).div(2).setMag(3).lerp(b, 0.25).add(new PVector(1, 1, 1)).evaluate(a);
+        for(int i = 0; i < 300; i++) {
+            assertEquals(a.x[i], expected.x[i], 1e-12);
+            assertEquals(a.y[i], expected.y[i], 1e-12);
+            assertEquals(a.z[i], expected.z[i], 1e-12);
+        }
+    }
+
+    @org.junit.Test
+    public void parallel_matches_sequential() throws Exception {
+        PVectorBuffer a = TestVectors.randomBuffer(10000, 5);
+        PVectorBuffer b = TestVectors.randomBuffer(10000, 6);
+        VectorExpression expression = VectorExpression.of(a).sub(b).lerp(new PVector(1, 0, 0), 2).limit(1);
+        PVectorBuffer sequential = expression.evaluate(new PVectorBuffer(10000));
+        PVectorBuffer parallel;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            parallel = expression.evaluate(new ParallelVectorOps(pool, 100, 0), new PVectorBuffer(10000));
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        for(int i = 0; i < 10000; i++) {
+            assertEquals(parallel.x[i], sequential.x[i], 0);
+            assertEquals(parallel.z[i], sequential.z[i], 0);
+        }
+        assertEquals(sequential.x[0], 1.0, 0);
+    }
+
+    @org.junit.Test(expected = IndexOutOfBoundsException.class)
+    public void short_operand_fails() throws Exception {
+        VectorExpression.of(new PVectorBuffer(10)).add(new PVectorBuffer(5)).evaluate(new PVectorBuffer(10));
+    }
+}
@@ -0,0 +1,264 @@
+package com.jantatham.pvector;
+
+/**
+ * The VectorKernels Class holds the bulk math routines that run over
+ * contiguous coordinate arrays, such as the lanes of a PVectorBuffer.
+ *
+ * Calling get() returns the SIMD engine from the PVector-simd module when
+ * it is on the class path and the JVM was started with
+ * --add-modules jdk.incubator.vector, and the scalar engine otherwise. The
+ * lookup can be disabled by setting the system property pvector.simd to
+ * false.
+ *
+ * Every method works over the range [from, to) and the output arrays may
+ * be the same arrays as the inputs.
+ */
+public abstract class VectorKernels {
+
+    static final String SIMD_CLASS = "com.jantatham.pvector.simd.SimdVectorKernels";
+
+    private static final VectorKernels SCALAR = new ScalarVectorKernels();
+    private static volatile VectorKernels preferred;
+
+    protected VectorKernels() {
+
+    }
+
+    /**
+     * This method returns the fastest engine available on this JVM.
+     *
+     * @return the kernels
+     */
+    static public VectorKernels get() {
+        VectorKernels kernels = preferred;
+        if(kernels == null) {
+            kernels = load();
+            preferred = kernels;
+        }
+        return kernels;
+    }
+
+    /**
+     * This method returns the plain Java engine.
+     *
+     * @return the scalar kernels
+     */
+    static public VectorKernels scalar() {
+        return SCALAR;
+    }
+
+    private static VectorKernels load() {
+        if("false".equalsIgnoreCase(System.getProperty("pvector.simd"))) {
+            return SCALAR;
+        }
+        try {
+            return (VectorKernels) Class.forName(SIMD_CLASS).getDeclaredConstructor().newInstance();
+        }
+        catch(Exception | LinkageError e) {
+            return SCALAR;
+        }
+    }
+
+    /**
+     * This method reports whether the engine uses SIMD instructions.
+     *
+     * @return true for the SIMD engine
+     */
+    public abstract boolean isVectorized();
+
+    /**
+     * This method adds the arrays a and b element by element.
+     *
+     * @param a the first array
+     * @param b the second array
+     * @param out the output array
+     * @param from the first index
+     * @param to the index after the last
+     */
+    public abstract void add(double[] a, double[] b, double[] out, int from, int to);
+
+    /**
+     * This method subtracts the array b from the array a element by element.
+     *
+     * @param a the first array
+     * @param b the second array
+     * @param out the output array
+     * @param from the first index
+     * @param to the index after the last
+     */
+    public abstract void sub(double[] a, double[] b, double[] out, int from, int to);
+
+    /**
+     * This method multiplies the array a by a scalar.
+     *
+     * @param a the array
+     * @param n the scalar multiplier
+     * @param out the output array
+     * @param from the first index
+     * @param to the index after the last
+     */
+    public abstract void mult(double[] a, double n, double[] out, int from, int to);
+
+    /**
+     * This method calculates the dot product of each pair of vectors.
+     *
+     * @param ax the X components of the first vectors
+     * @param ay the Y components of the first vectors
+     * @param az the Z components of the first vectors
+     * @param bx the X components of the second vectors
+     * @param by the Y components of the second vectors
+     * @param bz the Z components of the second vectors
+     * @param out the dot products
+     * @param from the first index
+     * @param to the index after the last
+     */
+    public abstract void dot(double[] ax, double[] ay, double[] az,
+                             double[] bx, double[] by, double[] bz,
+                             double[] out, int from, int to);
+
+    /**
+     * This method calculates the magnitude of each vector, squared.
+     *
+     * @param x the X components
+     * @param y the Y components
+     * @param z the Z components
+     * @param out the magnitudes squared
+     * @param from the first index
+     * @param to the index after the last
+     */
+    public abstract void magSq(double[] x, double[] y, double[] z, double[] out, int from, int to);
+
+    /**
+     * This method calculates the magnitude (length) of each vector.
+     *
+     * @param x the X components
+     * @param y the Y components
+     * @param z the Z components
+     * @param out the magnitudes
+     * @param from the first index
+     * @param to the index after the last
+     */
+    public abstract void mag(double[] x, double[] y, double[] z, double[] out, int from, int to);
+
+    /**
+     * This method normalizes each vector in place. Zero vectors are left
+     * unchanged.
+     *
+     * @param x the X components
+     * @param y the Y components
+     * @param z the Z components
+     * @param from the first index
+     * @param to the index after the last
+     */
+    public abstract void normalize(double[] x, double[] y, double[] z, int from, int to);
+
+    /**
+     * This method adds the buffers a and b and stores the result in the
+     * target buffer, which may be a or b.
+     *
+     * @param a the first buffer
+     * @param b the second buffer
+     * @param target the target buffer
+     * @return target buffer
+     */
+    public PVectorBuffer add(PVectorBuffer a, PVectorBuffer b, PVectorBuffer target) {
+        int n = checkSizes(a, b, target);
+        add(a.x, b.x, target.x, 0, n);
+        add(a.y, b.y, target.y, 0, n);
+        add(a.z, b.z, target.z, 0, n);
+        return target;
+    }
+
+    /**
+     * This method subtracts the buffer b from the buffer a and stores the
+     * result in the target buffer, which may be a or b.
+     *
+     * @param a the first buffer
+     * @param b the second buffer
+     * @param target the target buffer
+     * @return target buffer
+     */
+    public PVectorBuffer sub(PVectorBuffer a, PVectorBuffer b, PVectorBuffer target) {
+        int n = checkSizes(a, b, target);
+        sub(a.x, b.x, target.x, 0, n);
+        sub(a.y, b.y, target.y, 0, n);
+        sub(a.z, b.z, target.z, 0, n);
+        return target;
+    }
+
+    /**
+     * This method multiplies the buffer a by a scalar and stores the result
+     * in the target buffer, which may be a.
+     *
+     * @param a the buffer
+     * @param n the scalar multiplier
+     * @param target the target buffer
+     * @return target buffer
+     */
+    public PVectorBuffer mult(PVectorBuffer a, double n, PVectorBuffer target) {
+        int size = checkSizes(a, a, target);
+        mult(a.x, n, target.x, 0, size);
+        mult(a.y, n, target.y, 0, size);
+        mult(a.z, n, target.z, 0, size);
+        return target;
+    }
+
+    /**
+     * This method calculates the dot product of each pair of vectors in the
+     * buffers a and b.
+     *
+     * @param a the first buffer
+     * @param b the second buffer
+     * @param out the dot products, at least a.size() long
+     * @return the dot products
+     */
+    public double[] dot(PVectorBuffer a, PVectorBuffer b, double[] out) {
+        int n = checkSizes(a, b, a);
+        dot(a.x, a.y, a.z, b.x, b.y, b.z, out, 0, n);
+        return out;
+    }
+
+    /**
+     * This method calculates the magnitude of each vector in the buffer,
+     * squared.
+     *
+     * @param a the buffer
+     * @param out the magnitudes squared, at least a.size() long
+     * @return the magnitudes squared
+     */
+    public double[] magSq(PVectorBuffer a, double[] out) {
+        magSq(a.x, a.y, a.z, out, 0, a.size());
+        return out;
+    }
+
+    /**
+     * This method calculates the magnitude of each vector in the buffer.
+     *
+     * @param a the buffer
+     * @param out the magnitudes, at least a.size() long
+     * @return the magnitudes
+     */
+    public double[] mag(PVectorBuffer a, double[] out) {
+        mag(a.x, a.y, a.z, out, 0, a.size());
+        return out;
+    }
+
+    /**
+     * This method normalizes every vector in the buffer.
+     *
+     * @param a the buffer
+     * @return the buffer
+     */
+    public PVectorBuffer normalize(PVectorBuffer a) {
+        normalize(a.x, a.y, a.z, 0, a.size());
+        return a;
+    }
+
+    private static int checkSizes(PVectorBuffer a, PVectorBuffer b, PVectorBuffer target) {
+        int n = a.size();
+        if(b.size() != n || target.size() != n) {
+            throw new IllegalArgumentException("Buffers must have the same size");
+        }
+        return n;
+    }
+}
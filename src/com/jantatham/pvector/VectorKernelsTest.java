@@ -0,0 +1,64 @@
+package com.jantatham.pvector;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+
+public class VectorKernelsTest {
+    private static PVectorBuffer buffer(PVector... vectors) {
+        return PVectorBuffer.fromArray(vectors);
+    }
+
+    @org.junit.Test
+    public void add_buffers_into_target() throws Exception {
+        PVectorBuffer b1 = buffer(new PVector(1,2,3), new PVector(4,5,6));
+        PVectorBuffer b2 = buffer(new PVector(5,6,7), new PVector(1,1,1));
+        PVectorBuffer b3 = new PVectorBuffer(2);
+        VectorKernels.get().add(b1, b2, b3);
+        assertEquals(b3.x[0], 6, 0);
+        assertEquals(b3.y[0], 8, 0);
+        assertEquals(b3.z[1], 7, 0);
+    }
+
+    @org.junit.Test
+    public void sub_and_mult_in_place() throws Exception {
+        PVectorBuffer b1 = buffer(new PVector(10,10,10));
+        PVectorBuffer b2 = buffer(new PVector(5,6,7));
+        VectorKernels kernels = VectorKernels.get();
+        kernels.mult(kernels.sub(b1, b2, b1), 2, b1);
+        assertEquals(b1.x[0], 10, 0);
+        assertEquals(b1.y[0], 8, 0);
+        assertEquals(b1.z[0], 6, 0);
+    }
+
+    @org.junit.Test
+    public void dot_mag_and_magSq_match_pVector() throws Exception {
+        PVector pv1 = new PVector(20,30,40);
+        PVector pv2 = new PVector(1,2,3);
+        PVectorBuffer b1 = buffer(pv1, pv1, pv1, pv1, pv1);
+        PVectorBuffer b2 = buffer(pv2, pv2, pv2, pv2, pv2);
+        double[] out = new double[5];
+        VectorKernels kernels = VectorKernels.get();
+        kernels.dot(b1, b2, out);
+        assertEquals(out[4], pv1.dot(pv2), 0);
+        kernels.magSq(b1, out);
+        assertEquals(out[4], pv1.magSq(), 0);
+        kernels.mag(b1, out);
+        assertEquals(out[4], pv1.mag(), 0);
+    }
+
+    @org.junit.Test
+    public void normalize_leaves_zero_vectors() throws Exception {
+        PVector pv = new PVector(10,20,30);
+        PVectorBuffer b = buffer(pv.copy(), new PVector(), pv.copy(), new PVector(), pv.copy());
+        VectorKernels.get().normalize(b);
+        pv.normalize();
+        assertEquals(b.x[4], pv.x, 0);
+        assertEquals(b.z[4], pv.z, 0);
+        assertEquals(b.x[3], 0, 0);
+    }
+
+    @org.junit.Test
+    public void scalar_engine_is_not_vectorized() throws Exception {
+        assertFalse(VectorKernels.scalar().isVectorized());
+    }
+}
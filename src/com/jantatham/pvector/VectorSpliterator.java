@@ -0,0 +1,106 @@
+package com.jantatham.pvector;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * The VectorSpliterator Class traverses the range [from, to) of a
+ * PVectorBuffer. trySplit hands off the first half of the remaining range,
+ * so splits are always contiguous and even.
+ *
+ * The primitive tryAdvance and forEachRemaining methods pass the components
+ * without creating objects. The Spliterator&lt;PVector&gt; methods, used by
+ * java.util.stream, create a new PVector per element.
+ */
+public class VectorSpliterator implements Spliterator<PVector> {
+
+    private final PVectorBuffer buffer;
+    private int index;
+    private final int fence;
+
+    /**
+     * This method is a Constructor for a spliterator over a range of a
+     * buffer.
+     *
+     * @param buffer the buffer
+     * @param from the first index
+     * @param to the index after the last
+     */
+    public VectorSpliterator(PVectorBuffer buffer, int from, int to) {
+        buffer.checkRange(from, to);
+        this.buffer = buffer;
+        this.index = from;
+        this.fence = to;
+    }
+
+    /**
+     * This method passes the next vector to the action.
+     *
+     * @param action the action
+     * @return false if no vectors remain
+     */
+    public boolean tryAdvance(VectorStream.VectorConsumer action) {
+        if(index >= fence) {
+            return false;
+        }
+        int i = index++;
+        action.accept(buffer.x[i], buffer.y[i], buffer.z[i]);
+        return true;
+    }
+
+    /**
+     * This method passes every remaining vector to the action.
+     *
+     * @param action the action
+     */
+    public void forEachRemaining(VectorStream.VectorConsumer action) {
+        double[] x = buffer.x, y = buffer.y, z = buffer.z;
+        int i = index, n = fence;
+        index = n;
+        for(; i < n; i++) {
+            action.accept(x[i], y[i], z[i]);
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super PVector> action) {
+        if(index >= fence) {
+            return false;
+        }
+        int i = index++;
+        action.accept(new PVector(buffer.x[i], buffer.y[i], buffer.z[i]));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super PVector> action) {
+        forEachRemaining((x, y, z) -> action.accept(new PVector(x, y, z)));
+    }
+
+    @Override
+    public VectorSpliterator trySplit() {
+        int lo = index, mid = (lo + fence) >>> 1;
+        if(lo >= mid) {
+            return null;
+        }
+        index = mid;
+        return new VectorSpliterator(buffer, lo, mid);
+    }
+
+    /**
+     * This method returns the index of the next vector.
+     */
+    int index() {
+        return index;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
+}
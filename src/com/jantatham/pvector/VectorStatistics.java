@@ -0,0 +1,310 @@
+package com.jantatham.pvector;
+
+import java.util.function.Consumer;
+
+import static java.lang.Math.*;
+
+/**
+ * The VectorStatistics Class collects the count, sum, mean (centroid),
+ * bounds, magnitude and covariance of a set of vectors in one pass, in the
+ * style of java.util.DoubleSummaryStatistics.
+ *
+ * Sums use compensated (Kahan-Babuska) summation, and the covariance uses
+ * Welford's running co-moments, so results stay accurate over hundreds of
+ * millions of vectors. Two statistics over disjoint sets combine exactly,
+ * which is how the parallel and stream forms work.
+ *
+ * An instance is not thread-safe; parallel use gives each thread its own
+ * instance and combines them, as VectorCollectors and
+ * of(PVectorBuffer, ParallelVectorOps) do.
+ *
+ * @see VectorCollectors
+ */
+public class VectorStatistics implements Consumer<PVector> {
+
+    private long count;
+    private final CompensatedSum sumX = new CompensatedSum();
+    private final CompensatedSum sumY = new CompensatedSum();
+    private final CompensatedSum sumZ = new CompensatedSum();
+    private final CompensatedSum sumMag = new CompensatedSum();
+    private double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+    private double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+
+    // Welford running means and co-moments (sums of products of deviations)
+    private double meanX, meanY, meanZ;
+    private double cXX, cXY, cXZ, cYY, cYZ, cZZ;
+
+    /**
+     * This method collects the statistics of an array of vectors.
+     *
+     * @param vectors the vectors
+     * @return the statistics
+     */
+    static public VectorStatistics of(PVector[] vectors) {
+        VectorStatistics statistics = new VectorStatistics();
+        for(PVector v : vectors) {
+            statistics.accept(v.x, v.y, v.z);
+        }
+        return statistics;
+    }
+
+    /**
+     * This method collects the statistics of the vectors [from, to) of a
+     * buffer.
+     *
+     * @param vectors the vectors
+     * @param from the first index
+     * @param to the index after the last
+     * @return the statistics
+     */
+    static public VectorStatistics of(PVectorBuffer vectors, int from, int to) {
+        return new VectorStatistics().accept(vectors, from, to);
+    }
+
+    /**
+     * This method collects the statistics of a buffer with the ranges split
+     * across a ParallelVectorOps pool. The result does not depend on the
+     * number of threads.
+     *
+     * @param vectors the vectors
+     * @param ops the parallel executor
+     * @return the statistics
+     */
+    static public VectorStatistics of(final PVectorBuffer vectors, ParallelVectorOps ops) {
+        return ops.reduce(vectors.size(), (from, to) -> of(vectors, from, to), VectorStatistics::combine);
+    }
+
+    /**
+     * This method adds the vector (v) to the statistics.
+     *
+     * @param v the vector
+     */
+    @Override
+    public void accept(PVector v) {
+        accept(v.x, v.y, v.z);
+    }
+
+    /**
+     * This method adds the vector (x, y, z) to the statistics.
+     *
+     * @param x the X component
+     * @param y the Y component
+     * @param z the Z component
+     */
+    public void accept(double x, double y, double z) {
+        long n = ++count;
+        sumX.add(x);
+        sumY.add(y);
+        sumZ.add(z);
+        sumMag.add(sqrt(x*x + y*y + z*z));
+        if(x < minX) minX = x;
+        if(x > maxX) maxX = x;
+        if(y < minY) minY = y;
+        if(y > maxY) maxY = y;
+        if(z < minZ) minZ = z;
+        if(z > maxZ) maxZ = z;
+
+        double dx = x - meanX, dy = y - meanY, dz = z - meanZ;
+        meanX += dx / n;
+        meanY += dy / n;
+        meanZ += dz / n;
+        double ex = x - meanX, ey = y - meanY, ez = z - meanZ;
+        cXX += dx * ex;
+        cXY += dx * ey;
+        cXZ += dx * ez;
+        cYY += dy * ey;
+        cYZ += dy * ez;
+        cZZ += dz * ez;
+    }
+
+    /**
+     * This method adds the vectors [from, to) of a buffer to the statistics.
+     *
+     * @param vectors the vectors
+     * @param from the first index
+     * @param to the index after the last
+     * @return this statistics
+     */
+    public VectorStatistics accept(PVectorBuffer vectors, int from, int to) {
+        vectors.checkRange(from, to);
+        double[] x = vectors.x, y = vectors.y, z = vectors.z;
+        for(int i = from; i < to; i++) {
+            accept(x[i], y[i], z[i]);
+        }
+        return this;
+    }
+
+    /**
+     * This method merges the statistics of another, disjoint set of vectors
+     * into this one.
+     *
+     * @param other the other statistics
+     * @return this statistics
+     */
+    public VectorStatistics combine(VectorStatistics other) {
+        if(other.count == 0) {
+            return this;
+        }
+        long na = count, nb = other.count, n = na + nb;
+        double dx = other.meanX - meanX, dy = other.meanY - meanY, dz = other.meanZ - meanZ;
+        double weight = (double) na * nb / n;
+        cXX += other.cXX + dx * dx * weight;
+        cXY += other.cXY + dx * dy * weight;
+        cXZ += other.cXZ + dx * dz * weight;
+        cYY += other.cYY + dy * dy * weight;
+        cYZ += other.cYZ + dy * dz * weight;
+        cZZ += other.cZZ + dz * dz * weight;
+        meanX += dx * nb / n;
+        meanY += dy * nb / n;
+        meanZ += dz * nb / n;
+
+        count = n;
+        sumX.add(other.sumX);
+        sumY.add(other.sumY);
+        sumZ.add(other.sumZ);
+        sumMag.add(other.sumMag);
+        minX = Math.min(minX, other.minX);
+        minY = Math.min(minY, other.minY);
+        minZ = Math.min(minZ, other.minZ);
+        maxX = Math.max(maxX, other.maxX);
+        maxY = Math.max(maxY, other.maxY);
+        maxZ = Math.max(maxZ, other.maxZ);
+        return this;
+    }
+
+    /**
+     * This method returns the number of vectors.
+     *
+     * @return the count
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * This method returns the sum of the vectors.
+     *
+     * @param target the vector to write to, or null for a new one
+     * @return the sum
+     */
+    public PVector sum(PVector target) {
+        return set(target, sumX.value(), sumY.value(), sumZ.value());
+    }
+
+    /**
+     * This method returns the mean of the vectors, i.e. their centroid, or
+     * the zero vector if there are none.
+     *
+     * @param target the vector to write to, or null for a new one
+     * @return the mean
+     */
+    public PVector mean(PVector target) {
+        if(count == 0) {
+            return set(target, 0, 0, 0);
+        }
+        return set(target, sumX.value() / count, sumY.value() / count, sumZ.value() / count);
+    }
+
+    /**
+     * This method returns the smallest component on each axis, the lower
+     * corner of the axis-aligned bounding box. Without vectors every
+     * component is positive infinity.
+     *
+     * @param target the vector to write to, or null for a new one
+     * @return the lower bounds
+     */
+    public PVector min(PVector target) {
+        return set(target, minX, minY, minZ);
+    }
+
+    /**
+     * This method returns the largest component on each axis, the upper
+     * corner of the axis-aligned bounding box. Without vectors every
+     * component is negative infinity.
+     *
+     * @param target the vector to write to, or null for a new one
+     * @return the upper bounds
+     */
+    public PVector max(PVector target) {
+        return set(target, maxX, maxY, maxZ);
+    }
+
+    /**
+     * This method returns the sum of the magnitudes of the vectors.
+     *
+     * @return the total magnitude
+     */
+    public double magSum() {
+        return sumMag.value();
+    }
+
+    /**
+     * This method returns the mean magnitude of the vectors, or 0 if there
+     * are none.
+     *
+     * @return the mean magnitude
+     */
+    public double meanMag() {
+        return count == 0 ? 0 : sumMag.value() / count;
+    }
+
+    /**
+     * This method returns the population covariance matrix of the vectors,
+     * 3x3 in row-major order, or zeros if there are none.
+     *
+     * @param target the 9 entries to write to, or null for a new array
+     * @return the covariance matrix
+     */
+    public double[] covariance(double[] target) {
+        if(target == null) {
+            target = new double[9];
+        }
+        double inverse = count == 0 ? 0 : 1.0 / count;
+        target[0] = cXX * inverse;
+        target[1] = target[3] = cXY * inverse;
+        target[2] = target[6] = cXZ * inverse;
+        target[4] = cYY * inverse;
+        target[5] = target[7] = cYZ * inverse;
+        target[8] = cZZ * inverse;
+        return target;
+    }
+
+    private static PVector set(PVector target, double x, double y, double z) {
+        if(target == null) {
+            target = new PVector(x, y, z);
+        }
+        else {
+            target.set(x, y, z);
+        }
+        return target;
+    }
+
+    /**
+     * The CompensatedSum Class is a Kahan-Babuska (Neumaier) sum that keeps
+     * the low-order bits lost by each addition in a separate compensation.
+     */
+    static final class CompensatedSum {
+        private double sum;
+        private double compensation;
+
+        void add(double v) {
+            double t = sum + v;
+            if(abs(sum) >= abs(v)) {
+                compensation += (sum - t) + v;
+            }
+            else {
+                compensation += (v - t) + sum;
+            }
+            sum = t;
+        }
+
+        void add(CompensatedSum other) {
+            add(other.sum);
+            add(other.compensation);
+        }
+
+        double value() {
+            return sum + compensation;
+        }
+    }
+}
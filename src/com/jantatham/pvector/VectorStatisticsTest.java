@@ -0,0 +1,85 @@
+package com.jantatham.pvector;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class VectorStatisticsTest {
+    @org.junit.Test
+    public void matches_two_pass_computation() throws Exception {
+        PVectorBuffer buffer = TestVectors.randomBuffer(5000, 1).add(5, 0, 0);
+        VectorStatistics statistics = VectorStatistics.of(buffer, 0, 5000);
+
+        PVector mean = new PVector();
+        PVector min = new PVector(Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE);
+        double mag = 0;
+        for(int i = 0; i < 5000; i++) {
+            mean.add(buffer.x[i], buffer.y[i], buffer.z[i]);
+            min.x = Math.min(min.x, buffer.x[i]);
+            min.z = Math.min(min.z, buffer.z[i]);
+            mag += buffer.mag(i);
+        }
+        mean.div(5000);
+        double cXY = 0, cZZ = 0;
+        for(int i = 0; i < 5000; i++) {
+            cXY += (buffer.x[i] - mean.x) * (buffer.y[i] - mean.y);
+            cZZ += (buffer.z[i] - mean.z) * (buffer.z[i] - mean.z);
+        }
+
+        assertEquals(statistics.count(), 5000L);
+        assertEquals(statistics.mean(null).x, mean.x, 0.000000001);
+        assertEquals(statistics.mean(null).y, mean.y, 0.000000001);
+        assertEquals(statistics.min(null).x, min.x, 0);
+        assertEquals(statistics.min(null).z, min.z, 0);
+        assertEquals(statistics.meanMag(), mag / 5000, 0.000000001);
+        double[] covariance = statistics.covariance(null);
+        assertEquals(covariance[1], cXY / 5000, 0.000000001);
+        assertEquals(covariance[3], cXY / 5000, 0.000000001);
+        assertEquals(covariance[8], cZZ / 5000, 0.000000001);
+    }
+
+    @org.junit.Test
+    public void compensated_sum_is_exact() throws Exception {
+        VectorStatistics statistics = new VectorStatistics();
+        for(int i = 0; i < 1000000; i++) {
+            statistics.accept(0.1, 1e8, -0.1);
+        }
+        PVector sum = statistics.sum(null);
+        assertEquals(sum.x, 100000.0, 0.0000001);
+        assertEquals(sum.y, 1e14, 0);
+        assertEquals(sum.z, -100000.0, 0.0000001);
+    }
+
+    @org.junit.Test
+    public void parallel_and_stream_match_sequential() throws Exception {
+        PVectorBuffer buffer = TestVectors.randomBuffer(20000, 2).add(5, 0, 0);
+        VectorStatistics expected = VectorStatistics.of(buffer, 0, 20000);
+        VectorStatistics parallel;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            parallel = VectorStatistics.of(buffer, new ParallelVectorOps(pool, 1000, 0));
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        VectorStatistics stream = Arrays.stream(buffer.toArray()).parallel().collect(VectorCollectors.toStatistics());
+        for(VectorStatistics actual : new VectorStatistics[] { parallel, stream }) {
+            assertEquals(actual.count(), 20000L);
+            assertEquals(actual.sum(null).x, expected.sum(null).x, 0.0000001);
+            assertEquals(actual.max(null).y, expected.max(null).y, 0);
+            assertEquals(actual.covariance(null)[2], expected.covariance(null)[2], 0.000000001);
+            assertEquals(actual.covariance(null)[4], expected.covariance(null)[4], 0.000000001);
+        }
+    }
+
+    @org.junit.Test
+    public void collectors_sum_and_average() throws Exception {
+        PVector[] vectors = { new PVector(1, 2, 3), new PVector(3, 4, 5) };
+        PVector sum = Arrays.stream(vectors).collect(VectorCollectors.summing());
+        PVector centroid = Arrays.stream(vectors).collect(VectorCollectors.averaging());
+        assertEquals(sum.z, 8.0, 0);
+        assertEquals(centroid.x, 2.0, 0);
+        assertEquals(VectorStatistics.of(new PVector[0]).mean(null).magSq(), 0.0, 0);
+    }
+}
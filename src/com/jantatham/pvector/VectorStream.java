@@ -0,0 +1,474 @@
+package com.jantatham.pvector;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+import static java.lang.Math.*;
+
+/**
+ * The VectorStream Class is a lazy pipeline over the vectors [from, to) of a
+ * PVectorBuffer, like java.util.stream.DoubleStream for three components.
+ * Map and filter stages pass x, y and z as doubles from one stage to the
+ * next, so no PVector is created per element.
+ *
+ * Nothing runs until a terminal method (forEach, collect, count, statistics,
+ * sum, toBuffer) is called. A stream is immutable: every stage returns a new
+ * stream, and a stream can be evaluated more than once. Evaluating it again
+ * reads the buffer as it is at that time.
+ *
+ * A parallel stream splits the range with a VectorSpliterator into halves
+ * down to the grain of its ParallelVectorOps and runs the pieces on its
+ * pool; results are combined in encounter order. Ranges shorter than the
+ * threshold run on the calling thread. Stages and consumers of a parallel
+ * stream must be safe to call from several threads at once.
+ */
+public class VectorStream {
+
+    private static final Stage IDENTITY = downstream -> downstream;
+
+    private final PVectorBuffer source;
+    private final int from;
+    private final int to;
+    private final Stage stage;
+    private final boolean sized;
+    private final ParallelVectorOps ops;
+
+    private VectorStream(PVectorBuffer source, int from, int to, Stage stage, boolean sized, ParallelVectorOps ops) {
+        this.source = source;
+        this.from = from;
+        this.to = to;
+        this.stage = stage;
+        this.sized = sized;
+        this.ops = ops;
+    }
+
+    /**
+     * This method creates a sequential stream over every vector of a buffer.
+     *
+     * @param source the buffer
+     * @return the stream
+     */
+    static public VectorStream of(PVectorBuffer source) {
+        return of(source, 0, source.size());
+    }
+
+    /**
+     * This method creates a sequential stream over the vectors [from, to) of
+     * a buffer.
+     *
+     * @param source the buffer
+     * @param from the first index
+     * @param to the index after the last
+     * @return the stream
+     */
+    static public VectorStream of(PVectorBuffer source, int from, int to) {
+        source.checkRange(from, to);
+        return new VectorStream(source, from, to, IDENTITY, true, null);
+    }
+
+    /**
+     * This method returns a spliterator over the source range of the stream.
+     * The stages of the stream are not applied.
+     *
+     * @return the spliterator
+     */
+    public VectorSpliterator spliterator() {
+        return new VectorSpliterator(source, from, to);
+    }
+
+    /**
+     * This method returns a parallel version of the stream that runs on the
+     * pool of ops.
+     *
+     * @param ops the parallel executor
+     * @return the parallel stream
+     */
+    public VectorStream parallel(ParallelVectorOps ops) {
+        if(ops == null) {
+            throw new IllegalArgumentException("ParallelVectorOps must not be null");
+        }
+        return new VectorStream(source, from, to, stage, sized, ops);
+    }
+
+    /**
+     * This method returns a sequential version of the stream.
+     *
+     * @return the sequential stream
+     */
+    public VectorStream sequential() {
+        return ops == null ? this : new VectorStream(source, from, to, stage, sized, null);
+    }
+
+    /**
+     * This method returns true if the stream is parallel.
+     *
+     * @return true if parallel
+     */
+    public boolean isParallel() {
+        return ops != null;
+    }
+
+    /**
+     * This method adds a stage that replaces every vector with the result of
+     * the operator.
+     *
+     * @param operator the operator, which must pass exactly one vector on
+     * @return the new stream
+     */
+    public VectorStream map(final VectorOperator operator) {
+        final Stage previous = stage;
+        return new VectorStream(source, from, to,
+                downstream -> previous.wrap((x, y, z) -> operator.apply(x, y, z, downstream)), sized, ops);
+    }
+
+    /**
+     * This method adds a stage that keeps only the vectors that match the
+     * predicate.
+     *
+     * @param predicate the predicate
+     * @return the new stream
+     */
+    public VectorStream filter(final VectorPredicate predicate) {
+        final Stage previous = stage;
+        return new VectorStream(source, from, to,
+                downstream -> previous.wrap((x, y, z) -> {
+                    if(predicate.test(x, y, z)) {
+                        downstream.accept(x, y, z);
+                    }
+                }), false, ops);
+    }
+
+    /**
+     * This method adds a stage that adds (x, y, z) to every vector.
+     *
+     * @param x the X component
+     * @param y the Y component
+     * @param z the Z component
+     * @return the new stream
+     */
+    public VectorStream add(final double x, final double y, final double z) {
+        return map((vx, vy, vz, out) -> out.accept(vx + x, vy + y, vz + z));
+    }
+
+    /**
+     * This method adds a stage that multiplies every vector by a scalar.
+     *
+     * @param n the number to multiply with the vectors
+     * @return the new stream
+     */
+    public VectorStream mult(final double n) {
+        return map((x, y, z, out) -> out.accept(x * n, y * n, z * n));
+    }
+
+    /**
+     * This method adds a stage that normalizes every vector to length 1.
+     * Zero vectors stay zero.
+     *
+     * @return the new stream
+     */
+    public VectorStream normalize() {
+        return map((x, y, z, out) -> {
+            double m = sqrt(x*x + y*y + z*z);
+            if(m != 0) {
+                out.accept(x / m, y / m, z / m);
+            }
+            else {
+                out.accept(x, y, z);
+            }
+        });
+    }
+
+    /**
+     * This method adds a stage that limits the magnitude of every vector to
+     * max.
+     *
+     * @param max the maximum limit
+     * @return the new stream
+     */
+    public VectorStream limit(final double max) {
+        final double maxSq = max * max;
+        return map((x, y, z, out) -> {
+            double mSq = x*x + y*y + z*z;
+            if(mSq > maxSq) {
+                double m = sqrt(mSq);
+                out.accept(x / m * max, y / m * max, z / m * max);
+            }
+            else {
+                out.accept(x, y, z);
+            }
+        });
+    }
+
+    /**
+     * This method passes every vector of the stream to the action. On a
+     * parallel stream the action is called from several threads, in no
+     * particular order.
+     *
+     * @param action the action
+     */
+    public void forEach(final VectorConsumer action) {
+        evaluate(spliterator -> {
+            spliterator.forEachRemaining(stage.wrap(action));
+            return null;
+        }, (a, b) -> null);
+    }
+
+    /**
+     * This method reduces the stream into mutable result containers, like
+     * DoubleStream.collect. Each piece of a parallel stream gets its own
+     * container from the supplier, and neighbouring pieces are merged in
+     * encounter order by the combiner.
+     *
+     * @param supplier creates an empty result
+     * @param accumulator adds a vector to a result
+     * @param combiner merges the second result into the first and returns it
+     * @param <R> the type of the result
+     * @return the result
+     */
+    public <R> R collect(final Supplier<R> supplier, final ObjVectorConsumer<R> accumulator,
+                         BinaryOperator<R> combiner) {
+        return evaluate(spliterator -> {
+            final R result = supplier.get();
+            spliterator.forEachRemaining(stage.wrap((x, y, z) -> accumulator.accept(result, x, y, z)));
+            return result;
+        }, combiner);
+    }
+
+    /**
+     * This method counts the vectors of the stream.
+     *
+     * @return the count
+     */
+    public long count() {
+        if(sized) {
+            return to - from;
+        }
+        return collect(() -> new long[1], (count, x, y, z) -> count[0]++, (a, b) -> {
+            a[0] += b[0];
+            return a;
+        })[0];
+    }
+
+    /**
+     * This method collects the statistics of the vectors of the stream.
+     *
+     * @return the statistics
+     */
+    public VectorStatistics statistics() {
+        return collect(VectorStatistics::new, VectorStatistics::accept, VectorStatistics::combine);
+    }
+
+    /**
+     * This method sums the vectors of the stream.
+     *
+     * @param target the vector to write to, or null for a new one
+     * @return the sum
+     */
+    public PVector sum(PVector target) {
+        double[] sum = collect(() -> new double[3], (s, x, y, z) -> {
+            s[0] += x;
+            s[1] += y;
+            s[2] += z;
+        }, (a, b) -> {
+            a[0] += b[0];
+            a[1] += b[1];
+            a[2] += b[2];
+            return a;
+        });
+        if(target == null) {
+            target = new PVector(sum[0], sum[1], sum[2]);
+        }
+        else {
+            target.set(sum[0], sum[1], sum[2]);
+        }
+        return target;
+    }
+
+    /**
+     * This method collects the vectors of the stream, in encounter order,
+     * into a new buffer of exactly their number.
+     *
+     * @return the new buffer
+     */
+    public PVectorBuffer toBuffer() {
+        if(sized) {
+            return toBuffer(new PVectorBuffer(to - from), 0);
+        }
+        Builder builder = collect(Builder::new, Builder::accept, Builder::combine);
+        return builder.toBuffer(new PVectorBuffer(builder.size), 0);
+    }
+
+    /**
+     * This method collects the vectors of the stream, in encounter order,
+     * into a buffer from index offset on. Without filter stages the vectors
+     * are written straight into the target.
+     *
+     * @param target the buffer to write to
+     * @param offset the index of the first vector
+     * @return the target buffer
+     */
+    public PVectorBuffer toBuffer(final PVectorBuffer target, final int offset) {
+        if(!sized) {
+            Builder builder = collect(Builder::new, Builder::accept, Builder::combine);
+            return builder.toBuffer(target, offset);
+        }
+        target.checkRange(offset, offset + (to - from));
+        evaluate(spliterator -> {
+            Writer writer = new Writer(target, offset + spliterator.index() - from);
+            spliterator.forEachRemaining(stage.wrap(writer));
+            return null;
+        }, (a, b) -> null);
+        return target;
+    }
+
+    private <R> R evaluate(Evaluation<R> evaluation, BinaryOperator<R> combiner) {
+        VectorSpliterator spliterator = spliterator();
+        if(ops == null || to - from < ops.threshold()) {
+            return evaluation.evaluate(spliterator);
+        }
+        return ops.pool().invoke(new EvaluateTask<>(spliterator, evaluation, combiner, ops.grain()));
+    }
+
+    /**
+     * The VectorConsumer Interface accepts a vector as its components.
+     */
+    public interface VectorConsumer {
+        void accept(double x, double y, double z);
+    }
+
+    /**
+     * The VectorPredicate Interface tests a vector given as its components.
+     */
+    public interface VectorPredicate {
+        boolean test(double x, double y, double z);
+    }
+
+    /**
+     * The VectorOperator Interface maps a vector to another one, passing the
+     * result to out instead of returning an object.
+     */
+    public interface VectorOperator {
+        void apply(double x, double y, double z, VectorConsumer out);
+    }
+
+    /**
+     * The ObjVectorConsumer Interface adds a vector to a result container.
+     */
+    public interface ObjVectorConsumer<R> {
+        void accept(R result, double x, double y, double z);
+    }
+
+    /**
+     * A Stage wraps the consumer of the next stage into the consumer of
+     * this one.
+     */
+    private interface Stage {
+        VectorConsumer wrap(VectorConsumer downstream);
+    }
+
+    private interface Evaluation<R> {
+        R evaluate(VectorSpliterator spliterator);
+    }
+
+    private static class EvaluateTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final VectorSpliterator spliterator;
+        private final Evaluation<R> evaluation;
+        private final BinaryOperator<R> combiner;
+        private final int grain;
+
+        EvaluateTask(VectorSpliterator spliterator, Evaluation<R> evaluation, BinaryOperator<R> combiner, int grain) {
+            this.spliterator = spliterator;
+            this.evaluation = evaluation;
+            this.combiner = combiner;
+            this.grain = grain;
+        }
+
+        @Override
+        protected R compute() {
+            VectorSpliterator left;
+            if(spliterator.estimateSize() <= grain || (left = spliterator.trySplit()) == null) {
+                return evaluation.evaluate(spliterator);
+            }
+            EvaluateTask<R> leftTask = new EvaluateTask<>(left, evaluation, combiner, grain);
+            leftTask.fork();
+            R right = new EvaluateTask<>(spliterator, evaluation, combiner, grain).compute();
+            return combiner.apply(leftTask.join(), right);
+        }
+    }
+
+    /**
+     * The Writer Class stores consecutive vectors into a buffer.
+     */
+    private static final class Writer implements VectorConsumer {
+        private final double[] x;
+        private final double[] y;
+        private final double[] z;
+        private int i;
+
+        Writer(PVectorBuffer target, int offset) {
+            x = target.x;
+            y = target.y;
+            z = target.z;
+            i = offset;
+        }
+
+        @Override
+        public void accept(double vx, double vy, double vz) {
+            x[i] = vx;
+            y[i] = vy;
+            z[i] = vz;
+            i++;
+        }
+    }
+
+    /**
+     * The Builder Class collects an unknown number of vectors into growing
+     * coordinate arrays.
+     */
+    private static final class Builder {
+        private double[] x = new double[16];
+        private double[] y = new double[16];
+        private double[] z = new double[16];
+        private int size;
+
+        void accept(double vx, double vy, double vz) {
+            if(size == x.length) {
+                grow(size + 1);
+            }
+            x[size] = vx;
+            y[size] = vy;
+            z[size] = vz;
+            size++;
+        }
+
+        Builder combine(Builder other) {
+            if(size + other.size > x.length) {
+                grow(size + other.size);
+            }
+            System.arraycopy(other.x, 0, x, size, other.size);
+            System.arraycopy(other.y, 0, y, size, other.size);
+            System.arraycopy(other.z, 0, z, size, other.size);
+            size += other.size;
+            return this;
+        }
+
+        PVectorBuffer toBuffer(PVectorBuffer target, int offset) {
+            target.checkRange(offset, offset + size);
+            System.arraycopy(x, 0, target.x, offset, size);
+            System.arraycopy(y, 0, target.y, offset, size);
+            System.arraycopy(z, 0, target.z, offset, size);
+            return target;
+        }
+
+        private void grow(int minimum) {
+            int capacity = Math.max(minimum, x.length * 2);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            z = Arrays.copyOf(z, capacity);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.jantatham.pvector;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.StreamSupport;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+
+public class VectorStreamTest {
+    @org.junit.Test
+    public void spliterator_splits_evenly() throws Exception {
+        PVectorBuffer buffer = TestVectors.randomBuffer(10, 1);
+        VectorSpliterator right = new VectorSpliterator(buffer, 1, 10);
+        VectorSpliterator left = right.trySplit();
+        assertEquals(left.estimateSize(), 4);
+        assertEquals(right.estimateSize(), 5);
+        final double[] first = new double[1];
+        left.tryAdvance((x, y, z) -> first[0] = x);
+        assertEquals(first[0], buffer.x[1], 0);
+
+        VectorSpliterator single = new VectorSpliterator(buffer, 3, 4);
+        assertNull(single.trySplit());
+        assertEquals(StreamSupport.stream(new VectorSpliterator(buffer, 0, 10), true).count(), 10);
+    }
+
+    @org.junit.Test
+    public void map_matches_buffer_operations() throws Exception {
+        PVectorBuffer source = TestVectors.randomBuffer(1000, 2);
+        PVectorBuffer expected = source.copy().mult(3).add(1, 2, 3).limit(2).normalize();
+        PVectorBuffer actual = source.stream().mult(3).add(1, 2, 3).limit(2).normalize().toBuffer();
+        for(int i = 0; i < 1000; i++) {
+            assertEquals(actual.x[i], expected.x[i], 0);
+            assertEquals(actual.y[i], expected.y[i], 0);
+            assertEquals(actual.z[i], expected.z[i], 0);
+        }
+        // source is untouched
+        assertEquals(source.x[7], TestVectors.randomBuffer(1000, 2).x[7], 0);
+    }
+
+    @org.junit.Test
+    public void parallel_filter_keeps_order() throws Exception {
+        PVectorBuffer source = TestVectors.randomBuffer(10000, 3);
+        VectorStream.VectorPredicate positive = (x, y, z) -> x > 0;
+        PVectorBuffer sequential = source.stream().filter(positive).mult(2).toBuffer();
+        PVectorBuffer parallel;
+        long count;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelVectorOps ops = new ParallelVectorOps(pool, 100, 0);
+            parallel = source.stream().parallel(ops).filter(positive).mult(2).toBuffer();
+            count = source.stream().parallel(ops).filter(positive).count();
+        }
+        finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(parallel.size(), sequential.size());
+        assertEquals(count, sequential.size());
+        for(int i = 0; i < sequential.size(); i++) {
+            assertEquals(parallel.x[i], sequential.x[i], 0);
+            assertEquals(parallel.z[i], sequential.z[i], 0);
+        }
+    }
+
+    @org.junit.Test
+    public void parallel_reductions() throws Exception {
+        PVectorBuffer source = TestVectors.randomBuffer(10000, 4);
+        VectorStatistics expected = new VectorStatistics();
+        for(int i = 100; i < 9000; i++) {
+            expected.accept(source.x[i] + 1, source.y[i], source.z[i]);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelVectorOps ops = new ParallelVectorOps(pool, 128, 0);
+            VectorStream stream = VectorStream.of(source, 100, 9000).parallel(ops).add(1, 0, 0);
+            VectorStatistics actual = stream.statistics();
+            assertEquals(actual.count(), 8900);
+            assertEquals(stream.count(), 8900);
+            assertEquals(actual.mean(null).x, expected.mean(null).x, 1e-12);
+            assertEquals(stream.sum(null).y, expected.sum(null).y, 1e-9);
+            assertEquals(stream.sum(new PVector()).x, expected.sum(null).x, 1e-9);
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @org.junit.Test
+    public void to_buffer_at_offset() throws Exception {
+        PVectorBuffer source = TestVectors.randomBuffer(5, 5);
+        PVectorBuffer target = new PVectorBuffer(8);
+        VectorStream.of(source, 1, 4).toBuffer(target, 2);
+        assertEquals(target.x[1], 0.0, 0);
+        assertEquals(target.x[2], source.x[1], 0);
+        assertEquals(target.y[4], source.y[3], 0);
+        assertEquals(target.x[5], 0.0, 0);
+    }
+}